@@ -26,11 +26,18 @@ public final class AppConstants {
     // File I/O Configuration
     public static final int BUFFER_SIZE = 8 * 1024;
     public static final long READ_ONCE_THRESHOLD = 20L * 1024 * 1024; // 20 MB
+    public static final long MAP_THRESHOLD = 512L * 1024 * 1024; // 512 MB'a kadar tek eşleme, üstü transferTo
+    public static final int HASH_BUFFER_SIZE = 64 * 1024;
     
     // Threading Configuration
     public static final int MIN_THREAD_POOL_SIZE = 2;
     public static final long RETRY_BACKOFF_BASE_MS = 500L;
     public static final long PROGRESS_DIALOG_TIMEOUT_MINUTES = 5;
+    public static final int MAX_CONCURRENT_CONNECTIONS = 256; // tüm gönderim/sorgu bağlantıları için ortak üst sınır
+    public static final int TRANSFER_WINDOW_INITIAL = 4;    // fotoğraf verisi taşıyan eşzamanlı aktarım (başlangıç)
+    public static final int TRANSFER_WINDOW_MAX = 64;
+    public static final int MAX_TRANSFERS_PER_SUBNET = 8;   // aynı /24 alt ağında (erişim noktası) eşzamanlı aktarım
+    public static final int TRANSFER_CHUNK_SIZE = 256 * 1024; // hız sınırı ve ölçüm için yazma parçası
     
     // Protocol Commands - PhotoViewer ile uyumlu
     public static final String COMMAND_SHOW_DEFAULT = "SHOW_DEFAULT";
@@ -38,8 +45,69 @@ public final class AppConstants {
     public static final String COMMAND_SEND_PHOTO_WITH_TIMER = "SEND_PHOTO_WITH_TIMER:";
     public static final String COMMAND_GET_STATUS = "GET_STATUS";
     public static final String COMMAND_GET_SCREENSHOT = "GET_SCREENSHOT";
+    public static final String COMMAND_SHOW_CACHED = "SHOW_CACHED:"; // SHOW_CACHED:<sha256>[:<süre>[:<geçiş>:<ms>]]
+    public static final String[] TRANSITION_KINDS = {"NONE", "FADE", "SLIDE"}; // SEND_PHOTO başlığına ":<tür>:<ms>" eklenir
+    public static final String[] TRANSITION_LABELS = {"Geçiş yok", "Soldurma", "Kaydırma"};
+    public static final int DEFAULT_TRANSITION_MS = 600;
     public static final String RESPONSE_OK = "OK";
     public static final String RESPONSE_ERROR = "ERR";
+    public static final String RESPONSE_CACHE_MISS = "MISS";
+    public static final String RESPONSE_FEATURES = "FEATURES:"; // GET_STATUS satırı: desteklenen özellikler
+    public static final String FEATURE_CACHE = "cache"; // yalnızca bunu bildiren ekranlara SHOW_CACHED sorulur
+    public static final String FEATURE_SESSION = "session"; // yalnızca bunu bildiren ekranlara SESSION açılır
+    public static final String COMMAND_STAGE = "STAGE:"; // STAGE:<id>:<boyut> + veri
+    public static final String COMMAND_STAGE_CACHED = "STAGE_CACHED:"; // STAGE_CACHED:<id>:<sha256>
+    public static final String COMMAND_ACTIVATE = "ACTIVATE:"; // ACTIVATE:<id>:<ekran epoch ms>[:<süre>[:<geçiş>:<ms>]]
+    public static final String COMMAND_TIME_SYNC = "TIME_SYNC";
+    public static final String RESPONSE_TIME = "TIME:";
+    public static final int TIME_SYNC_SAMPLES = 5; // Saat farkı için en kısa gidiş-dönüşlü örnek seçilir
+    public static final long ACTIVATION_LEAD_MS = 500; // ACTIVATE'in tüm ekranlara ulaşması için pay
+    public static final long ACTIVATION_LINK_TIMEOUT_MS = 5000; // Saat eşitleme bağlantıları için toplam bekleme
+    public static final String RESPONSE_SCREEN = "SCREEN:"; // GET_STATUS'un ikinci satırı: SCREEN:<genişlik>x<yükseklik>
+    public static final String COMMAND_SESSION = "SESSION"; // Yanıt SESSION_OK ise bağlantı çerçeveli kontrol oturumuna geçer
+    public static final String COMMAND_PING = "PING";
+    public static final String COMMAND_SUBSCRIBE = "SUBSCRIBE"; // Oturumda: ekran durumu değiştikçe bildirim gönderir
+    public static final String RESPONSE_STATUS = "STATUS:";
+    public static final int EVENT_REQUEST_ID = 0; // Bildirim çerçevelerinin istek numarası
+    public static final long STATUS_FALLBACK_INTERVAL_MS = 60000; // Abone ekranlar bu aralıkla yine de sorgulanır
+
+    // UDP durum yayını: ekranın UDP portuna (TCP ile aynı numara) HELLO gönderilir, ekran durum datagramı yollar
+    public static final String BEACON_HELLO = "PVHELLO";
+    public static final int BEACON_MAGIC = 0x50564231; // "PVB1"
+    public static final int BEACON_INTERVAL_MS = 5000; // PhotoViewer'ın periyodik yayın aralığı
+    public static final int BEACON_HELLO_INTERVAL_MS = 20000; // PhotoViewer HELLO'yu 60 sn hatırlar
+    public static final int BEACON_TIMEOUT_MS = 3 * BEACON_INTERVAL_MS + 1000; // art arda 3 datagram gelmezse sessiz
+
+    // Ağda ekran bulma: engellemeyen bağlantılarla CIDR taraması + GET_STATUS parmak izi
+    public static final int MAX_DISCOVERY_ADDRESSES = 4096; // en fazla /20
+    public static final int MAX_DISCOVERY_IN_FLIGHT = 1024; // aynı anda açık deneme (dosya tanıtıcısı sınırı)
+    public static final int DISCOVERY_TIMEOUT_MS = 1500; // adres başına bağlantı + yanıt süresi
+    public static final int DISCOVERY_SELECT_INTERVAL_MS = 50;
+
+    // Röle dağıtımı: fotoğraf alt ağ başına bir ekrana yüklenir, ekranlar gelirken birbirine iletir
+    public static final String COMMAND_RELAY_PHOTO = "RELAY_PHOTO:"; // RELAY_PHOTO:<boyut>:<süre>:<ağaç>[:<geçiş>:<ms>] + veri
+    public static final String RESPONSE_RELAY_ACK = "RELAY_ACK:"; // RELAY_ACK:<kök sonucu>[;<ip>=<sonuç>]*
+    public static final String FEATURE_RELAY = "relay"; // yalnızca bunu bildiren ekranlar ağaçta alt ekran alır
+    public static final String FEATURE_RESUME = "resume"; // yalnızca bunu bildiren ekranlara SEND_CHUNKED gider
+    public static final int RELAY_FANOUT = 4; // bir ekranın iletebileceği alt ekran sayısı
+    public static final int RELAY_MIN_TARGETS = 8; // daha az hedefte doğrudan gönderim yeterli
+    public static final int MAX_RELAY_TREE_NODES = 200; // ağaç tanımı PhotoViewer'ın 4096 baytlık komut satırına sığar
+    public static final int RELAY_HOP_TIMEOUT_MS = 15000; // PhotoViewer ile aynı: her ağaç seviyesi için onay payı
+
+    // Sürdürülebilir yükleme: büyük fotoğraflar CRC32C'li parçalarla gider, kopan bağlantıda kalan yerden sürer
+    public static final String COMMAND_SEND_CHUNKED = "SEND_CHUNKED:"; // SEND_CHUNKED:<sha256>:<boyut>:<parça>:<süre>[:<geçiş>:<ms>]
+    public static final String RESPONSE_OFFSET = "OFFSET:"; // ekranın bu fotoğraftan zaten aldığı bayt sayısı
+    public static final long CHUNKED_UPLOAD_THRESHOLD = 4L * 1024 * 1024; // daha küçükler baştan gönderilir
+    public static final int UPLOAD_CHUNK_SIZE = 1024 * 1024; // PhotoViewer en fazla 8 MB kabul eder
+    public static final String RESPONSE_SESSION_OK = "SESSION_OK";
+    public static final int SESSION_HANDSHAKE_TIMEOUT_MS = 2000; // Yanıt gelmezse bu istek tek komutluk bağlantıyla yapılır
+    public static final long CONTROL_PING_INTERVAL_MS = 20000; // PhotoViewer boştaki oturumu 60 sn sonra kapatır
+    public static final int MAX_CONTROL_FRAME_BYTES = 64 * 1024 * 1024; // Ekran görüntüsü yanıtları dahil
+    
+    // Ekran çözünürlüğüne göre küçültme
+    public static final float TRANSCODE_JPEG_QUALITY = 0.88f;
+    public static final String TRANSCODE_DIR_NAME = "transcode";
+    public static final long TRANSCODE_CACHE_MAX_BYTES = 512L * 1024 * 1024; // 512 MB
     
     // Status Response Values
     public static final String STATUS_DEFAULT = "DEFAULT";
@@ -0,0 +1,250 @@
+/*
+ * Bu yazılım Yusuf Ziyrek'e aittir.
+ * İzinsiz kopyalanamaz, değiştirilemez, dağıtılamaz ve ticari olarak kullanılamaz.
+ * Tüm hakları saklıdır. © 2025 Yusuf Ziyrek
+ */
+
+import java.awt.Dimension;
+import java.io.IOException;
+import java.net.DatagramPacket;
+import java.net.DatagramSocket;
+import java.net.InetSocketAddress;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.Collection;
+import java.util.HexFormat;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Supplier;
+
+/**
+ * PhotoViewer'ların UDP durum yayınını toplar. Listedeki her ekrana seyrek olarak HELLO gönderir;
+ * ekranlar bu soketin adresine periyodik ve durum değişiminde durum datagramı yollar. Sıra
+ * numaralarındaki boşluklar kayıp olarak sayılır, BEACON_TIMEOUT_MS boyunca datagram gelmeyen ekran
+ * sessiz kabul edilir ve dinleyiciye bildirilir (çağıran TCP ile doğrular).
+ */
+public class BeaconMonitor {
+
+    /**
+     * Bir ekranın son durum datagramı ve o ekran için alım istatistikleri.
+     */
+    public static final class Beacon {
+        private final String status;
+        private final long timerRemainingSeconds;
+        private final String imageHash;
+        private final long heapUsed;
+        private final long heapMax;
+        private final long uptimeMillis;
+        private final Dimension screen;
+        private final long received;
+        private final long lost;
+        private final long receivedAtMillis;
+
+        private Beacon(String status, long timerRemainingSeconds, String imageHash, long heapUsed, long heapMax,
+                       long uptimeMillis, Dimension screen, long received, long lost, long receivedAtMillis) {
+            this.status = status;
+            this.timerRemainingSeconds = timerRemainingSeconds;
+            this.imageHash = imageHash;
+            this.heapUsed = heapUsed;
+            this.heapMax = heapMax;
+            this.uptimeMillis = uptimeMillis;
+            this.screen = screen;
+            this.received = received;
+            this.lost = lost;
+            this.receivedAtMillis = receivedAtMillis;
+        }
+
+        /** "Default" veya "Toplantı Var" */
+        public String status() { return status; }
+        /** Zamanlı gösterimde kalan süre (sn); zamanlayıcı yoksa -1 */
+        public long timerRemainingSeconds() { return timerRemainingSeconds; }
+        /** Gösterilen fotoğrafın SHA-256 özeti; default gösteriliyorsa null */
+        public String imageHash() { return imageHash; }
+        public long heapUsed() { return heapUsed; }
+        public long heapMax() { return heapMax; }
+        public long uptimeMillis() { return uptimeMillis; }
+        /** Ekranın piksel boyutu; bilinmiyorsa null */
+        public Dimension screen() { return screen; }
+        public long received() { return received; }
+        public long lost() { return lost; }
+        public long receivedAtMillis() { return receivedAtMillis; }
+
+        /**
+         * Alınması gereken datagramların yüzde kaçı kayboldu.
+         */
+        public double lossPercent() {
+            long expected = received + lost;
+            return (expected == 0) ? 0 : 100.0 * lost / expected;
+        }
+    }
+
+    /**
+     * Alım thread'inde çağrılır.
+     */
+    public interface Listener {
+        void onBeacon(String ip, Beacon beacon);
+        /** Ekrandan BEACON_TIMEOUT_MS boyunca datagram gelmedi */
+        void onSilent(String ip);
+    }
+
+    // Ekran başına alım durumu (yalnızca alım thread'i yazar; denetim thread'i okur)
+    private static final class HostState {
+        volatile Beacon latest;
+        int lastSequence;
+        long lastUptime;
+        long received;
+        long lost;
+        volatile long lastSeenMillis;
+        volatile boolean silent;
+        long lastHelloMillis;
+    }
+
+    private final DatagramSocket socket;
+    private final int viewerPort;
+    private final Supplier<Collection<String>> targets;
+    private final Listener listener;
+    private final AppLogger logger;
+    private final Map<String, HostState> hosts = new ConcurrentHashMap<>();
+    private volatile boolean running = true;
+
+    /**
+     * @param localPort Dinlenecek UDP portu (0: sistem seçer; ekranlar HELLO'nun geldiği adrese yollar)
+     * @param viewerPort Ekranların UDP portu (TCP portuyla aynı numara)
+     * @param targets O anki ekran IP'leri; HELLO bunlara gönderilir
+     */
+    public BeaconMonitor(int localPort, int viewerPort, Supplier<Collection<String>> targets, Listener listener, AppLogger logger) throws IOException {
+        this.socket = new DatagramSocket(new InetSocketAddress(localPort));
+        this.viewerPort = viewerPort;
+        this.targets = targets;
+        this.listener = listener;
+        this.logger = logger;
+    }
+
+    public void start() {
+        Thread.ofVirtual().name("PhotoSender-BeaconReceive").start(this::receiveLoop);
+        Thread.ofVirtual().name("PhotoSender-BeaconHello").start(this::helloLoop);
+    }
+
+    public void shutdown() {
+        running = false;
+        socket.close();
+    }
+
+    public int localPort() {
+        return socket.getLocalPort();
+    }
+
+    /**
+     * Ekrandan son BEACON_TIMEOUT_MS içinde durum datagramı geldi.
+     */
+    public boolean isAlive(String ip) {
+        HostState state = hosts.get(ip);
+        return state != null && !state.silent && state.latest != null;
+    }
+
+    /**
+     * @return Ekranın son datagramı; hiç gelmediyse null
+     */
+    public Beacon latest(String ip) {
+        HostState state = hosts.get(ip);
+        return (state != null) ? state.latest : null;
+    }
+
+    private void receiveLoop() {
+        byte[] buffer = new byte[512];
+        while (running) {
+            DatagramPacket packet = new DatagramPacket(buffer, buffer.length);
+            try {
+                socket.receive(packet);
+            } catch (IOException e) {
+                if (running) logger.warn("Beacon receive failed: " + e.getMessage());
+                continue;
+            }
+            String ip = packet.getAddress().getHostAddress();
+            try {
+                Beacon beacon = parse(ip, ByteBuffer.wrap(packet.getData(), 0, packet.getLength()));
+                if (beacon != null) listener.onBeacon(ip, beacon);
+            } catch (BufferUnderflowException | IllegalArgumentException e) {
+                // Bozuk veya başka bir uygulamadan gelen datagram
+            } catch (RuntimeException e) {
+                logger.error("Beacon handling failed for " + ip, e);
+            }
+        }
+    }
+
+    /**
+     * Datagramı çözer ve sıra numarasıyla kayıpları günceller.
+     * @return Yeni datagram; tekrar eden veya eski sıradaysa null
+     */
+    private Beacon parse(String ip, ByteBuffer b) {
+        if (b.getInt() != AppConstants.BEACON_MAGIC) return null;
+        int sequence = b.getInt();
+        long uptime = b.getLong();
+        String status = (b.get() != 0) ? "Toplantı Var" : "Default";
+        long timerRemaining = b.getInt();
+        long heapUsed = b.getLong();
+        long heapMax = b.getLong();
+        int width = b.getShort() & 0xFFFF;
+        int height = b.getShort() & 0xFFFF;
+        int hashLength = b.get();
+        String hash = null;
+        if (hashLength > 0) {
+            byte[] digest = new byte[hashLength];
+            b.get(digest);
+            hash = HexFormat.of().formatHex(digest);
+        }
+
+        HostState state = hosts.computeIfAbsent(ip, _ -> new HostState());
+        if (state.received > 0 && uptime >= state.lastUptime) {
+            if (sequence <= state.lastSequence) return null;
+            state.lost += sequence - state.lastSequence - 1;
+        }
+        // İlk datagram veya ekran yeniden başladı (çalışma süresi geriledi): sayım baştan
+        state.lastSequence = sequence;
+        state.lastUptime = uptime;
+        state.received++;
+        long now = System.currentTimeMillis();
+        state.lastSeenMillis = now;
+        state.silent = false;
+        Dimension screen = (width > 0 && height > 0) ? new Dimension(width, height) : null;
+        Beacon beacon = new Beacon(status, timerRemaining, hash, heapUsed, heapMax, uptime, screen,
+                                   state.received, state.lost, now);
+        state.latest = beacon;
+        return beacon;
+    }
+
+    /**
+     * HELLO'ları yeniler ve sessiz kalan ekranları bildirir.
+     */
+    private void helloLoop() {
+        byte[] hello = AppConstants.BEACON_HELLO.getBytes(StandardCharsets.US_ASCII);
+        while (running) {
+            long now = System.currentTimeMillis();
+            Collection<String> current = targets.get();
+            hosts.keySet().retainAll(current);
+            for (String ip : current) {
+                HostState state = hosts.computeIfAbsent(ip, _ -> new HostState());
+                // Yanıt vermeyen ekrana her turda sorulur; yayın alınanlara seyrek
+                long interval = state.silent || state.latest == null ? AppConstants.BEACON_INTERVAL_MS : AppConstants.BEACON_HELLO_INTERVAL_MS;
+                if (now - state.lastHelloMillis >= interval) {
+                    state.lastHelloMillis = now;
+                    try {
+                        socket.send(new DatagramPacket(hello, hello.length, new InetSocketAddress(ip, viewerPort)));
+                    } catch (IOException e) {
+                        // Ağ geçici olarak yoksa bir sonraki turda denenir
+                    }
+                }
+                if (state.latest != null && !state.silent && now - state.lastSeenMillis > AppConstants.BEACON_TIMEOUT_MS) {
+                    state.silent = true;
+                    listener.onSilent(ip);
+                }
+            }
+            try {
+                Thread.sleep(AppConstants.BEACON_INTERVAL_MS);
+            } catch (InterruptedException e) {
+                return;
+            }
+        }
+    }
+}
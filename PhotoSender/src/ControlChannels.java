@@ -0,0 +1,326 @@
+/*
+ * Bu yazılım Yusuf Ziyrek'e aittir.
+ * İzinsiz kopyalanamaz, değiştirilemez, dağıtılamaz ve ticari olarak kullanılamaz.
+ * Tüm hakları saklıdır. © 2025 Yusuf Ziyrek
+ */
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.InetSocketAddress;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Her PhotoViewer ile açık tutulan kalıcı kontrol oturumları. Durum sorgusu, default'a dönüş ve
+ * ekran görüntüsü gibi küçük istekler her seferinde yeni bağlantı açmak yerine bu oturum üzerinden,
+ * istek numaralı ve uzunluk önekli çerçevelerle gönderilir; aynı anda birden fazla istek yolda olabilir.
+ * Boşta kalan oturumlar ping ile canlı tutulur. Oturum yalnızca tek komutluk GET_STATUS'un FEATURES
+ * satırında "session" bildiren ekranlara açılır: eski sürümler SESSION'ı veri uzunluğu bilinmeyen
+ * SEND_PHOTO sayar ve bağlantı kapanınca ekranı default'a çevirir. Diğer ekranlarda çağıran tek
+ * komutluk bağlantıya döner.
+ * SUBSCRIBE ile abone olunan oturumlarda ekran, durumu değiştikçe bildirim çerçevesi (istek no 0)
+ * gönderir; bunlar EventListener'a iletilir. Abone oturumlara ping atılmaz.
+ */
+public class ControlChannels {
+
+    /**
+     * Ekran kalıcı oturumu desteklemiyor; istek tek komutluk bağlantıyla yapılmalı.
+     */
+    public static final class UnsupportedException extends IOException {
+        private static final long serialVersionUID = 1L;
+
+        UnsupportedException(String message) {
+            super(message);
+        }
+    }
+
+    /**
+     * Ekrandan gelen durum bildirimi; oturumun okuma thread'inde çağrılır.
+     */
+    public interface EventListener {
+        void onEvent(String ip, String text);
+    }
+
+    private final AppLogger logger;
+    private volatile EventListener eventListener;
+    private final Map<String, Session> sessions = new ConcurrentHashMap<>();
+    // GET_STATUS'ta oturum desteği bildiren ekranlar
+    private final Set<String> sessionHosts = ConcurrentHashMap.newKeySet();
+    // Aynı ekrana eşzamanlı isteklerde tek oturum açılsın (sanal thread'ler için synchronized yerine kilit)
+    private final Map<String, ReentrantLock> openLocks = new ConcurrentHashMap<>();
+    private final Thread pinger;
+    private volatile boolean closed;
+
+    public ControlChannels(AppLogger logger) {
+        this.logger = logger;
+        this.pinger = Thread.ofVirtual().name("PhotoSender-ControlPing").start(this::pingLoop);
+    }
+
+    /**
+     * İsteği ekranın oturumu üzerinden gönderir (oturum yoksa açılır) ve yanıtı bekler.
+     * @return Yanıt çerçevesinin içeriği
+     * @throws UnsupportedException Ekranın oturum desteği bilinmiyor veya oturum açılamadı
+     * @throws IOException Bağlantı hatası veya zaman aşımı (oturum kapatılır, sonraki istek yeniden açar)
+     */
+    public byte[] request(String ip, String command) throws IOException {
+        if (closed) throw new IOException("Kontrol oturumları kapatıldı");
+        if (!sessionHosts.contains(ip)) throw new UnsupportedException(ip);
+        Session session = sessionFor(ip);
+        try {
+            return session.call(command).get(AppConstants.READ_TIMEOUT_MS, TimeUnit.MILLISECONDS);
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            throw (cause instanceof IOException) ? (IOException) cause : new IOException(cause);
+        } catch (TimeoutException e) {
+            session.close(new IOException("Yanıt zaman aşımı: " + command));
+            throw new java.net.SocketTimeoutException("Oturum yanıtı zaman aşımı: " + ip + " " + command);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new java.io.InterruptedIOException("Oturum isteği kesildi: " + command);
+        }
+    }
+
+    public String requestText(String ip, String command) throws IOException {
+        return new String(request(ip, command), StandardCharsets.UTF_8);
+    }
+
+    public void setEventListener(EventListener listener) {
+        this.eventListener = listener;
+    }
+
+    /**
+     * Ekranın durum bildirimlerine abone olur.
+     * @return O anki durum (GET_STATUS yanıtıyla aynı biçimde)
+     * @throws UnsupportedException Ekranın oturum desteği bilinmiyor veya oturum açılamadı
+     */
+    public String subscribe(String ip) throws IOException {
+        String reply = requestText(ip, AppConstants.COMMAND_SUBSCRIBE);
+        // Abonelikten önceki sürümler komutu ERR ile reddeder; durum yine de sorgulanabilir
+        if (!reply.startsWith(AppConstants.RESPONSE_STATUS)) {
+            return requestText(ip, AppConstants.COMMAND_GET_STATUS);
+        }
+        Session session = sessions.get(ip);
+        if (session != null) session.subscribed = true;
+        return reply;
+    }
+
+    /**
+     * Ekranın açık ve abone bir oturumu var; durum değişiklikleri bildirimle gelir.
+     */
+    public boolean isSubscribed(String ip) {
+        Session session = sessions.get(ip);
+        return session != null && session.isOpen() && session.subscribed;
+    }
+
+    /**
+     * Ekran GET_STATUS'ta oturum desteği bildirdiyse true.
+     */
+    public boolean isSupported(String ip) {
+        return sessionHosts.contains(ip);
+    }
+
+    /**
+     * Ekranın tek komutluk GET_STATUS yanıtındaki FEATURES satırından öğrenilen oturum desteği.
+     * Destek kalkarsa (ör. ekran eski sürüme döndü) açık oturum kapatılır.
+     */
+    public void setSupported(String ip, boolean supported) {
+        if (supported) {
+            sessionHosts.add(ip);
+            return;
+        }
+        sessionHosts.remove(ip);
+        Session session = sessions.remove(ip);
+        if (session != null) session.close(new IOException("Oturum desteği yok: " + ip));
+    }
+
+    public void shutdown() {
+        closed = true;
+        pinger.interrupt();
+        for (Session s : sessions.values()) s.close(new IOException("Kapatıldı"));
+    }
+
+    private Session sessionFor(String ip) throws IOException {
+        Session existing = sessions.get(ip);
+        if (existing != null && existing.isOpen()) return existing;
+        ReentrantLock lock = openLocks.computeIfAbsent(ip, _ -> new ReentrantLock());
+        lock.lock();
+        try {
+            existing = sessions.get(ip);
+            if (existing != null && existing.isOpen()) return existing;
+            Session session = Session.open(ip, this);
+            sessions.put(ip, session);
+            return session;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private void pingLoop() {
+        while (!closed) {
+            try {
+                Thread.sleep(AppConstants.CONTROL_PING_INTERVAL_MS);
+            } catch (InterruptedException e) {
+                return;
+            }
+            long now = System.currentTimeMillis();
+            for (Session session : sessions.values()) {
+                if (!session.isOpen()) {
+                    sessions.remove(session.ip, session);
+                    continue;
+                }
+                // Abone oturumlar bildirim beklerken boştadır; canlılığı seyrek durum sorgusu denetler
+                if (session.subscribed || now - session.lastActivity < AppConstants.CONTROL_PING_INTERVAL_MS) continue;
+                // Yanıt gelmezse oturum kapanır; bir sonraki istek yeniden bağlanır
+                session.call(AppConstants.COMMAND_PING)
+                    .orTimeout(AppConstants.READ_TIMEOUT_MS, TimeUnit.MILLISECONDS)
+                    .whenComplete((_, error) -> {
+                        if (error != null) session.close(new IOException("Ping yanıtsız"));
+                    });
+            }
+        }
+    }
+
+    /**
+     * Tek bir ekranla açık oturum. Yazma çağıran thread'de, okuma oturumun kendi sanal thread'inde yapılır.
+     */
+    private static final class Session {
+        final String ip;
+        private final ControlChannels owner;
+        private final Socket socket;
+        private final DataOutputStream out;
+        private final DataInputStream in;
+        private final ReentrantLock writeLock = new ReentrantLock();
+        private final Map<Integer, CompletableFuture<byte[]>> pending = new ConcurrentHashMap<>();
+        private final AtomicInteger nextId = new AtomicInteger();
+        private volatile boolean open = true;
+        volatile boolean subscribed;
+        volatile long lastActivity = System.currentTimeMillis();
+
+        private Session(String ip, ControlChannels owner, Socket socket, DataInputStream in) throws IOException {
+            this.ip = ip;
+            this.owner = owner;
+            this.socket = socket;
+            this.in = in;
+            this.out = new DataOutputStream(new BufferedOutputStream(socket.getOutputStream()));
+        }
+
+        static Session open(String ip, ControlChannels owner) throws IOException {
+            Socket socket = new Socket();
+            try {
+                socket.setTcpNoDelay(true);
+                socket.setKeepAlive(true);
+                socket.connect(new InetSocketAddress(ip, AppConstants.DEFAULT_PORT), AppConstants.CONNECTION_TIMEOUT_MS);
+                socket.setSoTimeout(AppConstants.SESSION_HANDSHAKE_TIMEOUT_MS);
+                socket.getOutputStream().write((AppConstants.COMMAND_SESSION + "\n").getBytes(StandardCharsets.US_ASCII));
+                socket.getOutputStream().flush();
+                DataInputStream in = new DataInputStream(new BufferedInputStream(socket.getInputStream()));
+                String reply;
+                try {
+                    reply = readAsciiLine(in);
+                } catch (java.net.SocketTimeoutException e) {
+                    reply = null;
+                }
+                if (!AppConstants.RESPONSE_SESSION_OK.equals(reply)) {
+                    // Yoğun ekran zamanında yanıt vermeyebilir; bu istek tek komutluk bağlantıyla yapılır,
+                    // sonraki istek oturumu yeniden dener
+                    owner.logger.info("Control session handshake with " + ip + " failed (" + reply + "), using a one-shot connection");
+                    throw new UnsupportedException(ip);
+                }
+                // Okuma thread'i yanıt gelene kadar süresiz bekler; ölü bağlantıyı ping yakalar
+                socket.setSoTimeout(0);
+                Session session = new Session(ip, owner, socket, in);
+                Thread.ofVirtual().name("PhotoSender-Control-" + ip).start(session::readLoop);
+                return session;
+            } catch (IOException | RuntimeException e) {
+                socket.close();
+                throw e;
+            }
+        }
+
+        boolean isOpen() {
+            return open;
+        }
+
+        CompletableFuture<byte[]> call(String command) {
+            CompletableFuture<byte[]> result = new CompletableFuture<>();
+            int id = nextId.incrementAndGet();
+            pending.put(id, result);
+            byte[] body = command.getBytes(StandardCharsets.US_ASCII);
+            try {
+                writeLock.lock();
+                try {
+                    out.writeInt(body.length);
+                    out.writeInt(id);
+                    out.write(body);
+                    out.flush();
+                } finally {
+                    writeLock.unlock();
+                }
+                lastActivity = System.currentTimeMillis();
+            } catch (IOException e) {
+                close(e);
+            }
+            if (!open) result.completeExceptionally(new IOException("Oturum kapalı: " + ip));
+            return result;
+        }
+
+        private void readLoop() {
+            try {
+                while (open) {
+                    int length = in.readInt();
+                    int id = in.readInt();
+                    if (length < 0 || length > AppConstants.MAX_CONTROL_FRAME_BYTES) {
+                        throw new IOException("Geçersiz oturum çerçevesi: " + length);
+                    }
+                    byte[] body = new byte[length];
+                    in.readFully(body);
+                    lastActivity = System.currentTimeMillis();
+                    if (id == AppConstants.EVENT_REQUEST_ID) {
+                        EventListener listener = owner.eventListener;
+                        try {
+                            if (listener != null) listener.onEvent(ip, new String(body, StandardCharsets.UTF_8));
+                        } catch (RuntimeException e) {
+                            owner.logger.error("Status event handling failed for " + ip, e);
+                        }
+                        continue;
+                    }
+                    CompletableFuture<byte[]> waiter = pending.remove(id);
+                    if (waiter != null) waiter.complete(body);
+                }
+            } catch (IOException e) {
+                close(e);
+            }
+        }
+
+        void close(IOException cause) {
+            if (!open) return;
+            open = false;
+            try { socket.close(); } catch (IOException ignored) {}
+            for (CompletableFuture<byte[]> waiter : pending.values()) waiter.completeExceptionally(cause);
+            pending.clear();
+        }
+
+        private static String readAsciiLine(InputStream in) throws IOException {
+            StringBuilder sb = new StringBuilder();
+            int c;
+            while ((c = in.read()) != -1 && c != '\n') {
+                if (c != '\r') sb.append((char) c);
+                if (sb.length() > 256) return null;
+            }
+            return (c == -1 && sb.length() == 0) ? null : sb.toString();
+        }
+    }
+}
@@ -0,0 +1,763 @@
+/*
+ * Bu yazılım Yusuf Ziyrek'e aittir.
+ * İzinsiz kopyalanamaz, değiştirilemez, dağıtılamaz ve ticari olarak kullanılamaz.
+ * Tüm hakları saklıdır. © 2025 Yusuf Ziyrek
+ */
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.InterruptedIOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.net.Socket;
+import java.net.SocketTimeoutException;
+import java.nio.channels.ClosedChannelException;
+import java.nio.channels.SocketChannel;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Tüm gönderimler (normal, zamanlı, default'a dönüş, ön yükleme) için ortak dağıtım motoru.
+ * Her hedefin engelleyen soket işi kendi sanal thread'inde çalışır; eşzamanlı bağlantı sayısını
+ * havuz boyutu değil ortak bir semafor sınırlar. Böylece yanıt vermeyen ekranlar diğerlerini
+ * bekletmez ve tarama süresi ekran sayısından bağımsız olarak yaklaşık tek bağlantı süresidir.
+ * Her hedef kendi durum makinesinden geçer (önbellek sorgusu → bağlantı → başlık → veri → onay)
+ * ve yeniden denenir. Toplu gönderim iptal edildiğinde açık soketler kapatılır, bekleyen işler düşer.
+ * Röle istenen büyük gönderimlerde fotoğraf RelayTree'ye göre alt ağ başına bir ekrana yüklenir ve
+ * ekranlar birbirine iletir; rölede başarısız olan hedefler ardından doğrudan gönderilir.
+ */
+public class DeliveryEngine {
+
+    public enum Kind { PHOTO, TIMED_PHOTO, SHOW_DEFAULT, STAGE }
+
+    /**
+     * Hedefin o anki aşaması.
+     */
+    public enum Phase { QUEUED, CACHE_PROBE, CONNECTING, HEADER, PAYLOAD, AWAIT_ACK, DONE, FAILED, CANCELLED }
+
+    /**
+     * Tek bir gönderim isteği; tüm hedeflere aynı içerik gider.
+     */
+    public static final class Request {
+        final Kind kind;
+        final PhotoPayload payload;
+        final long durationSeconds;
+        final String transitionSuffix;
+        final String stageId;
+        // IP → ekran çözünürlüğüne küçültülmüş içerik; listede olmayan hedefler özgün içeriği alır
+        final Map<String, PhotoPayload> variants;
+        // Ekranlar arası iletime izin verildi (yalnızca PHOTO ve TIMED_PHOTO)
+        final boolean relay;
+
+        private Request(Kind kind, PhotoPayload payload, long durationSeconds, String transitionSuffix, String stageId,
+                        Map<String, PhotoPayload> variants, boolean relay) {
+            this.kind = kind;
+            this.payload = payload;
+            this.durationSeconds = durationSeconds;
+            this.transitionSuffix = (transitionSuffix != null) ? transitionSuffix : "";
+            this.stageId = stageId;
+            this.variants = (variants != null) ? variants : Map.of();
+            this.relay = relay;
+        }
+
+        public static Request photo(PhotoPayload payload, String transitionSuffix) {
+            return new Request(Kind.PHOTO, payload, 0, transitionSuffix, null, null, false);
+        }
+
+        public static Request timed(PhotoPayload payload, long durationSeconds, String transitionSuffix) {
+            return new Request(Kind.TIMED_PHOTO, payload, durationSeconds, transitionSuffix, null, null, false);
+        }
+
+        public static Request showDefault() {
+            return new Request(Kind.SHOW_DEFAULT, null, 0, "", null, null, false);
+        }
+
+        public static Request stage(PhotoPayload payload, String stageId) {
+            return new Request(Kind.STAGE, payload, 0, "", stageId, null, false);
+        }
+
+        /**
+         * Aynı isteğin, belirtilen hedeflere farklı içerik (ör. küçültülmüş JPEG) gönderen kopyası.
+         */
+        public Request withVariants(Map<String, PhotoPayload> variants) {
+            return new Request(kind, payload, durationSeconds, transitionSuffix, stageId, variants, relay);
+        }
+
+        /**
+         * Aynı isteğin, yeterince hedef varsa ekranlar arası iletimle gönderilen kopyası.
+         */
+        public Request withRelay(boolean relay) {
+            return new Request(kind, payload, durationSeconds, transitionSuffix, stageId, variants, relay);
+        }
+
+        public Kind kind() {
+            return kind;
+        }
+
+        PhotoPayload payloadFor(String ip) {
+            PhotoPayload variant = variants.get(ip);
+            return (variant != null) ? variant : payload;
+        }
+
+        String header(PhotoPayload payload) {
+            switch (kind) {
+                case PHOTO:
+                    return AppConstants.COMMAND_SEND_PHOTO + payload.length() + transitionSuffix;
+                case TIMED_PHOTO:
+                    return AppConstants.COMMAND_SEND_PHOTO_WITH_TIMER + payload.length() + ":" + durationSeconds + transitionSuffix;
+                case STAGE:
+                    return AppConstants.COMMAND_STAGE + stageId + ":" + payload.length();
+                default:
+                    return AppConstants.COMMAND_SHOW_DEFAULT;
+            }
+        }
+
+        /**
+         * Sürdürülebilir yükleme başlığı; fotoğraf küçükse, istek fotoğraf gösterimi değilse veya özet
+         * hesaplanamadıysa null (normal gönderim). Yükleme kimliği içeriğin SHA-256 özetidir.
+         */
+        String chunkedHeader(PhotoPayload payload) {
+            if ((kind != Kind.PHOTO && kind != Kind.TIMED_PHOTO) || payload.length() < AppConstants.CHUNKED_UPLOAD_THRESHOLD) {
+                return null;
+            }
+            String hash = payload.sha256Hex();
+            if (hash == null) return null;
+            return AppConstants.COMMAND_SEND_CHUNKED + hash + ":" + payload.length() + ":" + AppConstants.UPLOAD_CHUNK_SIZE +
+                   ":" + durationSeconds + transitionSuffix;
+        }
+
+        /**
+         * Ekranın veriyi gelirken ağaçtaki alt ekranlara da ilettiği gönderim başlığı.
+         */
+        String relayHeader(PhotoPayload payload, String treeSpec) {
+            return AppConstants.COMMAND_RELAY_PHOTO + payload.length() + ":" + durationSeconds + ":" + treeSpec + transitionSuffix;
+        }
+
+        boolean canRelay() {
+            return relay && (kind == Kind.PHOTO || kind == Kind.TIMED_PHOTO);
+        }
+
+        /**
+         * Ekran önbelleğinden gösterim/ön yükleme başlığı; önbellek uygulanamıyorsa null.
+         */
+        String cacheHeader(PhotoPayload payload) {
+            String hash = (payload != null) ? payload.sha256Hex() : null;
+            if (hash == null) return null;
+            switch (kind) {
+                case PHOTO:
+                case TIMED_PHOTO:
+                    // SHOW_CACHED:<sha256>[:<süre>[:<geçiş>:<ms>]]
+                    String options = (durationSeconds > 0 || !transitionSuffix.isEmpty()) ? ":" + durationSeconds + transitionSuffix : "";
+                    return AppConstants.COMMAND_SHOW_CACHED + hash + options;
+                case STAGE:
+                    return AppConstants.COMMAND_STAGE_CACHED + stageId + ":" + hash;
+                default:
+                    return null;
+            }
+        }
+
+        /**
+         * SHOW_DEFAULT'a PhotoViewer yanıt vermez, bağlantıyı kapatır; diğerleri OK bekler.
+         */
+        boolean expectsAck() {
+            return kind != Kind.SHOW_DEFAULT;
+        }
+    }
+
+    /**
+     * Bir hedefin gönderim durumu. Alanlar gönderim thread'inde güncellenir, her thread'den okunabilir.
+     */
+    public static final class Target {
+        private final IpList.IpEntry entry;
+        private volatile Phase phase = Phase.QUEUED;
+        private volatile int attempts;
+        private volatile boolean fromCache;
+        private volatile String detail = "";
+        private volatile Socket socket; // iptalde kapatılacak açık soket
+        private volatile Thread runner;  // iptalde beklemesi kesilecek thread
+
+        Target(IpList.IpEntry entry) {
+            this.entry = entry;
+        }
+
+        public IpList.IpEntry entry() {
+            return entry;
+        }
+
+        public Phase phase() {
+            return phase;
+        }
+
+        public int attempts() {
+            return attempts;
+        }
+
+        public boolean isSuccess() {
+            return phase == Phase.DONE;
+        }
+
+        public boolean isFromCache() {
+            return fromCache;
+        }
+
+        public String detail() {
+            return detail;
+        }
+
+        void abort() {
+            Socket s = socket;
+            if (s != null) {
+                try { s.close(); } catch (IOException ignored) {}
+            }
+            Thread t = runner;
+            if (t != null) t.interrupt();
+        }
+
+        @Override
+        public String toString() {
+            return entry.getName() + " (" + entry.getIp() + ")";
+        }
+    }
+
+    /**
+     * Hedef tamamlandığında (başarılı, başarısız veya iptal) gönderim thread'inde çağrılır.
+     */
+    public interface TargetListener {
+        void onTargetFinished(Target target, int finished, int total);
+    }
+
+    /**
+     * Tek bir toplu gönderim.
+     */
+    public static final class Batch {
+        private final Request request;
+        private final List<Target> targets;
+        private final CompletableFuture<Batch> completion = new CompletableFuture<>();
+        private final AtomicInteger finished = new AtomicInteger();
+        private final AtomicLong bytesSent = new AtomicLong();
+        private volatile boolean cancelled;
+
+        Batch(Request request, List<Target> targets) {
+            this.request = request;
+            this.targets = Collections.unmodifiableList(targets);
+        }
+
+        public Request request() {
+            return request;
+        }
+
+        public List<Target> targets() {
+            return targets;
+        }
+
+        /**
+         * Tüm hedefler bittiğinde tamamlanır.
+         */
+        public CompletableFuture<Batch> completion() {
+            return completion;
+        }
+
+        public boolean isCancelled() {
+            return cancelled;
+        }
+
+        /**
+         * Tüm hedeflere şu ana kadar yazılan fotoğraf verisi (yeniden denemeler dahil).
+         */
+        public long bytesSent() {
+            return bytesSent.get();
+        }
+
+        /**
+         * Gönderimi durdurur: açık soketler kapatılır, beklemeler kesilir, sıradaki hedefler
+         * başlar başlamaz iptal olarak biter (tamamlanma yine de bildirilir).
+         */
+        public void cancel() {
+            cancelled = true;
+            for (Target t : targets) t.abort();
+        }
+
+        public List<Target> failures() {
+            List<Target> result = new ArrayList<>();
+            for (Target t : targets) {
+                if (!t.isSuccess()) result.add(t);
+            }
+            return result;
+        }
+    }
+
+    private final AppLogger logger;
+    private final ControlChannels controlChannels;
+    private final ExecutorService executor;
+    // Aynı anda açık olabilecek bağlantı sayısı (dosya tanıtıcısı ve ağ yükü sınırı)
+    private final Semaphore connectionPermits = new Semaphore(AppConstants.MAX_CONCURRENT_CONNECTIONS, true);
+    // Fotoğraf verisi taşıyan aktarımlar ayrıca tıkanıklığa duyarlı zamanlayıcıdan geçer
+    private final TransferScheduler scheduler;
+
+    // GET_STATUS'ta önbellek desteği bildiren ekranlar; yalnızca bunlara SHOW_CACHED/STAGE_CACHED sorulur.
+    // Eski sürümler bilinmeyen komutu SEND_PHOTO sayar ve boş veriyle ekranı default'a çevirir
+    private final Set<String> cacheHosts = ConcurrentHashMap.newKeySet();
+    // GET_STATUS'ta röle desteği bildiren ekranlar; yalnızca bunlar ağaçta alt ekran alır
+    private final Set<String> relayHosts = ConcurrentHashMap.newKeySet();
+    // SEND_CHUNKED'ı destekleyen ekranlar; kopan büyük yüklemeler bunlarda kaldığı yerden sürer
+    private final Set<String> resumeHosts = ConcurrentHashMap.newKeySet();
+
+    public DeliveryEngine(AppLogger logger, ControlChannels controlChannels) {
+        this.logger = logger;
+        this.controlChannels = controlChannels;
+        this.scheduler = new TransferScheduler(logger);
+        this.executor = Executors.newThreadPerTaskExecutor(Thread.ofVirtual().name("PhotoSender-IO-", 1).factory());
+    }
+
+    /**
+     * Tek seferlik ağ işini (durum sorgusu, saat eşitleme vb.) kendi sanal thread'inde,
+     * bağlantı sınırına uyarak çalıştırır.
+     */
+    public <T> Future<T> submit(Callable<T> task) {
+        return executor.submit(() -> {
+            connectionPermits.acquire();
+            try {
+                return task.call();
+            } finally {
+                connectionPermits.release();
+            }
+        });
+    }
+
+    public TransferScheduler scheduler() {
+        return scheduler;
+    }
+
+    /**
+     * Ekranın GET_STATUS'ta bildirdiği özellikler (FEATURES satırı; eski sürümlerde boş).
+     */
+    public void setFeatures(String ip, Collection<String> features) {
+        setMember(cacheHosts, ip, features.contains(AppConstants.FEATURE_CACHE));
+        setMember(relayHosts, ip, features.contains(AppConstants.FEATURE_RELAY));
+        setMember(resumeHosts, ip, features.contains(AppConstants.FEATURE_RESUME));
+    }
+
+    private static void setMember(Set<String> set, String ip, boolean member) {
+        if (member) {
+            set.add(ip);
+        } else {
+            set.remove(ip);
+        }
+    }
+
+    public void shutdown() {
+        executor.shutdownNow();
+    }
+
+    /**
+     * İsteği tüm hedeflere paralel gönderir ve hemen döner.
+     * @param listener Her hedef bittiğinde çağrılır (null olabilir)
+     */
+    public Batch deliver(List<IpList.IpEntry> entries, Request request, TargetListener listener) {
+        List<Target> targets = new ArrayList<>(entries.size());
+        for (IpList.IpEntry entry : entries) targets.add(new Target(entry));
+        Batch batch = new Batch(request, targets);
+        if (targets.isEmpty()) {
+            batch.completion.complete(batch);
+            return batch;
+        }
+        if (request.canRelay() && targets.size() >= AppConstants.RELAY_MIN_TARGETS && !relayHosts.isEmpty()) {
+            executor.execute(() -> deliverRelayed(batch, listener));
+            return batch;
+        }
+        for (Target target : targets) {
+            execute(batch, target, listener, () -> run(batch, target, true));
+        }
+        return batch;
+    }
+
+    /**
+     * Hedefin işini kendi sanal thread'inde çalıştırır ve bitişini toplu gönderime bildirir.
+     */
+    private void execute(Batch batch, Target target, TargetListener listener, Runnable work) {
+        executor.execute(() -> {
+            target.runner = Thread.currentThread();
+            try {
+                work.run();
+            } finally {
+                target.runner = null;
+                Thread.interrupted(); // iptal kesmesi havuz thread'inde kalmasın
+                targetFinished(batch, target, listener);
+            }
+        });
+    }
+
+    private void targetFinished(Batch batch, Target target, TargetListener listener) {
+        int done = batch.finished.incrementAndGet();
+        if (listener != null) {
+            try {
+                listener.onTargetFinished(target, done, batch.targets.size());
+            } catch (RuntimeException e) {
+                logger.error("Gönderim dinleyici hatası", e);
+            }
+        }
+        if (done == batch.targets.size()) batch.completion.complete(batch);
+    }
+
+    // Röle dağıtımı -------------------------------------------------------------
+
+    /**
+     * Önce tüm hedeflerde önbellek sorulur; kalanlar içerik ve alt ağa göre ağaçlara yerleştirilir.
+     * Alt ekranı olan köklere RELAY_PHOTO ile bir kez yüklenir, diğerleri doğrudan gönderilir.
+     */
+    private void deliverRelayed(Batch batch, TargetListener listener) {
+        Map<Target, CompletableFuture<Boolean>> probes = new LinkedHashMap<>();
+        for (Target target : batch.targets) {
+            probes.put(target, CompletableFuture.supplyAsync(() -> !batch.cancelled && tryCache(batch, target), executor));
+        }
+        // Farklı çözünürlükler farklı içerik alır; yalnızca aynı içeriği alan ekranlar birbirine iletebilir
+        Map<PhotoPayload, List<Target>> byPayload = new LinkedHashMap<>();
+        for (Map.Entry<Target, CompletableFuture<Boolean>> probe : probes.entrySet()) {
+            Target target = probe.getKey();
+            if (probe.getValue().join()) {
+                finish(target, Phase.DONE, "önbellekten");
+                targetFinished(batch, target, listener);
+            } else {
+                byPayload.computeIfAbsent(batch.request.payloadFor(target.entry.getIp()), _ -> new ArrayList<>()).add(target);
+            }
+        }
+        int relayed = 0;
+        for (List<Target> group : byPayload.values()) {
+            for (RelayTree tree : RelayTree.plan(group, relayHosts::contains)) {
+                if (tree.children().isEmpty()) {
+                    execute(batch, tree.target(), listener, () -> run(batch, tree.target(), false));
+                } else {
+                    relayed++;
+                    executor.execute(() -> runRelay(batch, tree, listener));
+                }
+            }
+        }
+        logger.info("Relay delivery: " + batch.targets.size() + " targets, " + relayed + " relay tree(s)");
+    }
+
+    /**
+     * Ağacın köküne tek yükleme yapar ve onaydaki ekran başına sonuçları işler. Onay vermeyen
+     * ekranlar (kök dahil) doğrudan gönderime düşer; önbellek önce sorulur çünkü veri ulaşmış
+     * ama yalnızca onay kaybolmuş olabilir.
+     */
+    private void runRelay(Batch batch, RelayTree tree, TargetListener listener) {
+        Target head = tree.target();
+        String headIp = head.entry.getIp();
+        List<Target> members = tree.targets();
+        for (Target t : members) {
+            t.attempts = 1;
+            if (t != head) t.detail = "röle: " + headIp;
+        }
+        Map<String, String> results = Map.of();
+        head.runner = Thread.currentThread();
+        try {
+            if (!batch.cancelled) results = relayOnce(batch, tree);
+        } catch (IOException e) {
+            head.detail = head.phase + ": " + e.getMessage();
+            logger.warn("Relay via " + head + " failed: " + head.detail);
+        } finally {
+            head.runner = null;
+            Thread.interrupted();
+        }
+        int delivered = 0;
+        for (Target t : members) {
+            if (AppConstants.RESPONSE_OK.equals(results.get(t.entry.getIp()))) {
+                finish(t, Phase.DONE, (t == head) ? "" : "röle: " + headIp);
+                targetFinished(batch, t, listener);
+                delivered++;
+            } else {
+                execute(batch, t, listener, () -> run(batch, t, true));
+            }
+        }
+        logger.info("Relay " + head + ": " + delivered + "/" + members.size() + " screens acknowledged");
+    }
+
+    /**
+     * Bağlan → RELAY_PHOTO başlığı → veri → birleşik onay. Kök, veriyi alırken alt ekranlara
+     * ilettiği için onay en derin dal bitince gelir; bekleme süresi ağaç yüksekliğiyle uzar.
+     */
+    private Map<String, String> relayOnce(Batch batch, RelayTree tree) throws IOException {
+        Target head = tree.target();
+        PhotoPayload payload = batch.request.payloadFor(head.entry.getIp());
+        TransferScheduler.Slot slot = scheduler.acquire(head.entry.getIp());
+        boolean acknowledged = false;
+        boolean congested = false;
+        try {
+            head.phase = Phase.CONNECTING;
+            acquirePermit();
+            try (Socket socket = openChannelSocket(head.entry.getIp())) {
+                head.socket = socket;
+                socket.setSoTimeout(AppConstants.READ_TIMEOUT_MS);
+
+                head.phase = Phase.HEADER;
+                OutputStream os = socket.getOutputStream();
+                os.write((batch.request.relayHeader(payload, tree.childrenSpec()) + "\n").getBytes(StandardCharsets.US_ASCII));
+                os.flush();
+
+                head.phase = Phase.PAYLOAD;
+                writePayload(batch, socket, payload);
+                socket.shutdownOutput();
+
+                head.phase = Phase.AWAIT_ACK;
+                socket.setSoTimeout(AppConstants.READ_TIMEOUT_MS + AppConstants.RELAY_HOP_TIMEOUT_MS * (tree.height() - 1));
+                Map<String, String> results = RelayTree.parseAck(head.entry.getIp(), readLine(socket));
+                acknowledged = AppConstants.RESPONSE_OK.equals(results.get(head.entry.getIp()));
+                return results;
+            } finally {
+                head.socket = null;
+                connectionPermits.release();
+            }
+        } catch (IOException e) {
+            congested = !batch.cancelled && (e instanceof SocketTimeoutException
+                || (head.phase == Phase.PAYLOAD && !(e instanceof ClosedChannelException)));
+            throw e;
+        } finally {
+            scheduler.release(slot, acknowledged, congested);
+        }
+    }
+
+    // Hedef durum makinesi -------------------------------------------------------
+
+    /**
+     * @param probeCache false ise önbellek zaten soruldu (röle gönderiminde toplu sorulur)
+     */
+    private void run(Batch batch, Target target, boolean probeCache) {
+        Request request = batch.request;
+        if (probeCache && !batch.cancelled && tryCache(batch, target)) {
+            finish(target, Phase.DONE, "önbellekten");
+            return;
+        }
+        for (int attempt = 1; attempt <= AppConstants.MAX_RETRIES + 1; attempt++) {
+            if (batch.cancelled) {
+                finish(target, Phase.CANCELLED, "iptal edildi");
+                return;
+            }
+            target.attempts = attempt;
+            try {
+                String ack = sendOnce(batch, target, request);
+                if (!request.expectsAck() || AppConstants.RESPONSE_OK.equals(ack)) {
+                    finish(target, Phase.DONE, "");
+                    return;
+                }
+                target.detail = "ack=" + ack;
+            } catch (IOException e) {
+                if (batch.cancelled) {
+                    finish(target, Phase.CANCELLED, "iptal edildi");
+                    return;
+                }
+                target.detail = target.phase + ": " + e.getMessage();
+            }
+            logger.info("Delivery attempt failed: " + target + " (attempt " + attempt + ") - " + target.detail);
+            if (attempt <= AppConstants.MAX_RETRIES) {
+                try {
+                    Thread.sleep(AppConstants.RETRY_BACKOFF_BASE_MS * attempt);
+                } catch (InterruptedException e) {
+                    finish(target, Phase.CANCELLED, "iptal edildi");
+                    return;
+                }
+            }
+        }
+        logger.warn("Delivery failed: " + request.kind + " -> " + target + " - " + target.detail);
+        finish(target, Phase.FAILED, target.detail);
+    }
+
+    /**
+     * Bağlan → başlık → veri → onay. Her aşama hedefin phase alanına yansır. Veri taşıyan istekler
+     * önce zamanlayıcıdan aktarım hakkı bekler; sonuç zamanlayıcının penceresini ayarlar.
+     * @return Onay satırı (bağlantı yanıtsız kapandıysa null)
+     */
+    private String sendOnce(Batch batch, Target target, Request request) throws IOException {
+        if (request.kind == Kind.SHOW_DEFAULT && controlChannels.isSupported(target.entry.getIp())) {
+            // Veri taşımayan komut açık kontrol oturumundan gider; oturumda PhotoViewer OK ile yanıtlar
+            target.phase = Phase.CONNECTING;
+            try {
+                return controlChannels.requestText(target.entry.getIp(), AppConstants.COMMAND_SHOW_DEFAULT);
+            } catch (ControlChannels.UnsupportedException e) {
+                // eski sürüm: tek komutluk bağlantıyla devam
+            }
+        }
+        PhotoPayload payload = request.payloadFor(target.entry.getIp());
+        TransferScheduler.Slot slot = (payload != null) ? scheduler.acquire(target.entry.getIp()) : null;
+        boolean acknowledged = false;
+        boolean congested = false;
+        try {
+            String ack = exchange(batch, target, request, payload);
+            acknowledged = AppConstants.RESPONSE_OK.equals(ack);
+            return ack;
+        } catch (IOException e) {
+            // Bağlanamamak ekranın kapalı olduğunu gösterir; veri yolda kalırsa ağ tıkanmıştır.
+            // İptalde kapatılan kanal tıkanıklık sayılmaz.
+            congested = !batch.cancelled && (e instanceof SocketTimeoutException
+                || (target.phase == Phase.PAYLOAD && !(e instanceof ClosedChannelException)));
+            throw e;
+        } finally {
+            if (slot != null) scheduler.release(slot, acknowledged, congested);
+        }
+    }
+
+    private String exchange(Batch batch, Target target, Request request, PhotoPayload payload) throws IOException {
+        target.phase = Phase.CONNECTING;
+        acquirePermit();
+        try (Socket socket = openChannelSocket(target.entry.getIp())) {
+            target.socket = socket;
+            socket.setSoTimeout(AppConstants.READ_TIMEOUT_MS);
+
+            target.phase = Phase.HEADER;
+            OutputStream os = socket.getOutputStream();
+            String chunkedHeader = (payload != null && resumeHosts.contains(target.entry.getIp())) ? request.chunkedHeader(payload) : null;
+            if (chunkedHeader != null) {
+                os.write((chunkedHeader + "\n").getBytes(StandardCharsets.US_ASCII));
+                os.flush();
+                // Ekran daha önceki denemelerden aldığı kısmı bildirir; yalnızca kalanı gönderilir
+                long offset = readOffset(socket, payload);
+                if (offset > 0) {
+                    logger.info("Resuming upload to " + target + " at " + offset / 1024 + "/" + payload.length() / 1024 + " KB");
+                }
+                target.phase = Phase.PAYLOAD;
+                payload.writeFramesTo(socket.getChannel(), offset, AppConstants.UPLOAD_CHUNK_SIZE, transferObserver(batch));
+            } else {
+                os.write((request.header(payload) + "\n").getBytes(StandardCharsets.US_ASCII));
+                os.flush();
+                if (payload != null) {
+                    target.phase = Phase.PAYLOAD;
+                    writePayload(batch, socket, payload);
+                }
+            }
+            socket.shutdownOutput();
+            if (!request.expectsAck()) return null;
+
+            target.phase = Phase.AWAIT_ACK;
+            return readLine(socket);
+        } finally {
+            target.socket = null;
+            connectionPermits.release();
+        }
+    }
+
+    /**
+     * Veri doğrudan soket kanalına yazılır (büyük dosyalarda çekirdek kopyalar);
+     * parçalar hız sınırından geçer ve toplu gönderimin aktarım ölçümüne eklenir.
+     */
+    private void writePayload(Batch batch, Socket socket, PhotoPayload payload) throws IOException {
+        payload.writeTo(socket.getChannel(), transferObserver(batch));
+    }
+
+    private PhotoPayload.WriteObserver transferObserver(Batch batch) {
+        return new PhotoPayload.WriteObserver() {
+            @Override
+            public void beforeWrite(long bytes) throws IOException {
+                scheduler.throttle(bytes);
+            }
+
+            @Override
+            public void afterWrite(long bytes) {
+                batch.bytesSent.addAndGet(bytes);
+            }
+        };
+    }
+
+    /**
+     * SEND_CHUNKED'ın ilk yanıtını (OFFSET:&lt;n&gt;) okur. Ekran aynı fotoğrafı başka bir bağlantıdan
+     * alıyorsa ERR döner; bu deneme başarısız sayılır ve yeniden denenir.
+     */
+    private static long readOffset(Socket socket, PhotoPayload payload) throws IOException {
+        String line = readLine(socket);
+        if (line == null || !line.startsWith(AppConstants.RESPONSE_OFFSET)) {
+            throw new IOException("Sürdürülebilir yükleme reddedildi: " + line);
+        }
+        long offset;
+        try {
+            offset = Long.parseLong(line.substring(AppConstants.RESPONSE_OFFSET.length()).trim());
+        } catch (NumberFormatException e) {
+            throw new IOException("Geçersiz OFFSET yanıtı: " + line);
+        }
+        if (offset < 0 || offset > payload.length()) throw new IOException("Geçersiz OFFSET yanıtı: " + line);
+        return offset;
+    }
+
+    /**
+     * Fotoğrafı yüklemeden önce ekranın önbelleğinden göstermeyi/ön yüklemeyi dener.
+     * Birkaç yüz baytlık bu istek başarılı olursa fotoğraf verisi ağdan tekrar geçmez.
+     * @return Ekran önbellekten karşıladıysa true; MISS, ERR veya hata durumunda false (yükleme yapılmalı)
+     */
+    private boolean tryCache(Batch batch, Target target) {
+        String ip = target.entry.getIp();
+        if (!cacheHosts.contains(ip)) return false;
+        String header = batch.request.cacheHeader(batch.request.payloadFor(ip));
+        if (header == null) return false;
+        target.phase = Phase.CACHE_PROBE;
+        try {
+            acquirePermit();
+        } catch (IOException e) {
+            return false;
+        }
+        try (Socket socket = openChannelSocket(ip)) {
+            target.socket = socket;
+            socket.setSoTimeout(AppConstants.READ_TIMEOUT_MS);
+            OutputStream os = socket.getOutputStream();
+            os.write((header + "\n").getBytes(StandardCharsets.US_ASCII));
+            os.flush();
+            String reply = readLine(socket);
+            if (AppConstants.RESPONSE_OK.equals(reply)) {
+                target.fromCache = true;
+                return true;
+            }
+        } catch (IOException e) {
+            logger.info("Cache probe failed, uploading to " + ip + ": " + e.getMessage());
+        } finally {
+            target.socket = null;
+            connectionPermits.release();
+        }
+        return false;
+    }
+
+    private void acquirePermit() throws IOException {
+        try {
+            connectionPermits.acquire();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Bağlantı sırası beklenirken iptal edildi");
+        }
+    }
+
+    private static void finish(Target target, Phase phase, String detail) {
+        target.detail = detail;
+        target.phase = phase;
+    }
+
+    private static String readLine(Socket socket) throws IOException {
+        return new BufferedReader(new InputStreamReader(socket.getInputStream(), StandardCharsets.US_ASCII)).readLine();
+    }
+
+    /**
+     * Soket kanalı üzerinden bağlanır. Kanal, fotoğraf verisinin FileChannel.transferTo veya
+     * eşlenmiş tampondan doğrudan yazılabilmesi için gereklidir; okuma zaman aşımı soket üzerinden çalışır.
+     */
+    static Socket openChannelSocket(String ip) throws IOException {
+        SocketChannel channel = SocketChannel.open();
+        try {
+            Socket socket = channel.socket();
+            socket.connect(new InetSocketAddress(ip, AppConstants.DEFAULT_PORT), AppConstants.CONNECTION_TIMEOUT_MS);
+            return socket;
+        } catch (IOException | RuntimeException e) {
+            channel.close();
+            throw e;
+        }
+    }
+}
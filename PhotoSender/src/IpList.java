@@ -13,6 +13,7 @@ public class IpList {
         private String ip;
         private String name;
         private String status = "Bilinmiyor";
+        private volatile BeaconMonitor.Beacon beacon;
 
         public IpEntry(String ip, String name) {
             this.ip = ip;
@@ -22,6 +23,9 @@ public class IpList {
         public String getName() { return name; }
         public String getStatus() { return status; }
         public void setStatus(String status) { this.status = status; }
+        /** Ekranın son UDP durum datagramı; hiç gelmediyse null */
+        public BeaconMonitor.Beacon getBeacon() { return beacon; }
+        public void setBeacon(BeaconMonitor.Beacon beacon) { this.beacon = beacon; }
         public String toString() { return name + " (" + ip + ")"; }
     }
 
@@ -31,7 +35,7 @@ public class IpList {
         ipEntries = new ArrayList<>();
     }
 
-    public void addIp(String ip, String name) {
+    public IpEntry addIp(String ip, String name) {
         // Input validation
         if (ip == null || ip.trim().isEmpty()) {
             throw new IllegalArgumentException("IP adresi boş olamaz");
@@ -54,7 +58,16 @@ public class IpList {
             }
         }
         
-        ipEntries.add(new IpEntry(trimmedIp, trimmedName));
+        IpEntry entry = new IpEntry(trimmedIp, trimmedName);
+        ipEntries.add(entry);
+        return entry;
+    }
+
+    public boolean contains(String ip) {
+        for (IpEntry entry : ipEntries) {
+            if (entry.getIp().equals(ip)) return true;
+        }
+        return false;
     }
 
     public List<IpEntry> getIpEntries() {
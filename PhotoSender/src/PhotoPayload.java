@@ -0,0 +1,249 @@
+/*
+ * Bu yazılım Yusuf Ziyrek'e aittir.
+ * İzinsiz kopyalanamaz, değiştirilemez, dağıtılamaz ve ticari olarak kullanılamaz.
+ * Tüm hakları saklıdır. © 2025 Yusuf Ziyrek
+ */
+
+import java.io.Closeable;
+import java.io.EOFException;
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.file.Files;
+import java.nio.file.StandardOpenOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HexFormat;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.zip.CRC32C;
+
+/**
+ * Bir gönderim boyunca tüm hedef thread'lerinin paylaştığı fotoğraf içeriği.
+ * Dosya bir kez açılır; hedef ve deneme başına yeniden okunmaz:
+ * - küçük dosyalar belleğe okunur,
+ * - orta boyutlular bir kez belleğe eşlenir (MappedByteBuffer) ve her thread kendi görünümünü yazar,
+ * - büyükler FileChannel.transferTo ile soketlere doğrudan çekirdek tarafından kopyalanır.
+ */
+public final class PhotoPayload implements Closeable {
+
+    enum Mode { BYTES, MAPPED, TRANSFER }
+
+    /**
+     * Parça parça yazımda her parçadan önce ve sonra çağrılır (hız sınırı ve ölçüm için).
+     */
+    public interface WriteObserver {
+        void beforeWrite(long bytes) throws IOException;
+        void afterWrite(long bytes);
+    }
+
+    private final File file;
+    private final long length;
+    private final Mode mode;
+    private final byte[] bytes;
+    private final MappedByteBuffer mapped;
+    private final FileChannel channel;
+    private final AppLogger logger;
+    // synchronized yerine kilit: özet hesaplanırken bekleyen sanal thread'ler taşıyıcılarını bloke etmez
+    private final ReentrantLock hashLock = new ReentrantLock();
+    private String sha256;
+
+    private PhotoPayload(File file, long length, Mode mode, byte[] bytes, MappedByteBuffer mapped, FileChannel channel, AppLogger logger) {
+        this.file = file;
+        this.length = length;
+        this.mode = mode;
+        this.bytes = bytes;
+        this.mapped = mapped;
+        this.channel = channel;
+        this.logger = logger;
+    }
+
+    /**
+     * Dosyayı boyutuna göre uygun biçimde hazırlar.
+     */
+    public static PhotoPayload open(File file, AppLogger logger) throws IOException {
+        long length = file.length();
+        if (length <= AppConstants.READ_ONCE_THRESHOLD) {
+            try {
+                byte[] data = Files.readAllBytes(file.toPath());
+                return new PhotoPayload(file, data.length, Mode.BYTES, data, null, null, logger);
+            } catch (OutOfMemoryError e) {
+                logger.warn("Photo could not be loaded into memory, sending from file: " + e.getMessage());
+            }
+        }
+        FileChannel ch = FileChannel.open(file.toPath(), StandardOpenOption.READ);
+        try {
+            length = ch.size();
+            if (length <= AppConstants.MAP_THRESHOLD) {
+                // Eşleme kanal kapandıktan sonra da geçerlidir; sayfalar tüm hedefler için bir kez okunur
+                MappedByteBuffer map = ch.map(FileChannel.MapMode.READ_ONLY, 0, length);
+                ch.close();
+                return new PhotoPayload(file, length, Mode.MAPPED, null, map, null, logger);
+            }
+            return new PhotoPayload(file, length, Mode.TRANSFER, null, null, ch, logger);
+        } catch (IOException | RuntimeException e) {
+            ch.close();
+            throw e;
+        }
+    }
+
+    public long length() {
+        return length;
+    }
+
+    public File file() {
+        return file;
+    }
+
+    Mode mode() {
+        return mode;
+    }
+
+    /**
+     * Tüm içeriği kanala yazar. Birden fazla thread aynı anda çağırabilir.
+     */
+    public void writeTo(WritableByteChannel target) throws IOException {
+        writeTo(target, null);
+    }
+
+    /**
+     * Tüm içeriği kanala yazar; observer verilmişse veri TRANSFER_CHUNK_SIZE'lık parçalar halinde
+     * yazılır ve her parça bildirilir. Birden fazla thread aynı anda çağırabilir.
+     */
+    public void writeTo(WritableByteChannel target, WriteObserver observer) throws IOException {
+        long chunk = (observer != null) ? AppConstants.TRANSFER_CHUNK_SIZE : length;
+        switch (mode) {
+            case BYTES:
+                writeChunked(target, ByteBuffer.wrap(bytes), chunk, observer);
+                break;
+            case MAPPED:
+                // duplicate: her thread'in kendi konumu olur, içerik paylaşılır
+                writeChunked(target, mapped.duplicate(), chunk, observer);
+                break;
+            case TRANSFER:
+                // Konumlu transferTo kanalın ortak konumunu değiştirmez; thread'ler arasında güvenlidir
+                long position = 0;
+                while (position < length) {
+                    long count = Math.min(chunk, length - position);
+                    if (observer != null) observer.beforeWrite(count);
+                    long end = position + count;
+                    while (position < end) {
+                        long n = channel.transferTo(position, end - position, target);
+                        if (n <= 0) {
+                            if (position >= channel.size()) throw new EOFException("Dosya gönderim sırasında kısaldı: " + file.getName());
+                            continue;
+                        }
+                        position += n;
+                    }
+                    if (observer != null) observer.afterWrite(count);
+                }
+                break;
+        }
+    }
+
+    /**
+     * Sürdürülebilir yükleme (SEND_CHUNKED): içeriği offset'ten itibaren [int uzunluk][int CRC32C][veri]
+     * çerçeveleriyle yazar. Her çerçeve observer'a bildirilir. Birden fazla thread aynı anda çağırabilir.
+     */
+    public void writeFramesTo(WritableByteChannel target, long offset, int chunkSize, WriteObserver observer) throws IOException {
+        CRC32C crc = new CRC32C();
+        ByteBuffer header = ByteBuffer.allocate(8);
+        ByteBuffer scratch = (mode == Mode.TRANSFER) ? ByteBuffer.allocate(chunkSize) : null;
+        long position = offset;
+        while (position < length) {
+            int count = (int) Math.min(chunkSize, length - position);
+            ByteBuffer part = slice(position, count, scratch);
+            crc.reset();
+            crc.update(part.duplicate());
+            header.clear();
+            header.putInt(count).putInt((int) crc.getValue()).flip();
+            if (observer != null) observer.beforeWrite(count);
+            while (header.hasRemaining()) target.write(header);
+            while (part.hasRemaining()) target.write(part);
+            if (observer != null) observer.afterWrite(count);
+            position += count;
+        }
+    }
+
+    private ByteBuffer slice(long position, int count, ByteBuffer scratch) throws IOException {
+        switch (mode) {
+            case BYTES:
+                return ByteBuffer.wrap(bytes, (int) position, count).slice();
+            case MAPPED:
+                return mapped.slice((int) position, count);
+            default:
+                scratch.clear().limit(count);
+                while (scratch.hasRemaining()) {
+                    if (channel.read(scratch, position + scratch.position()) < 0) {
+                        throw new EOFException("Dosya gönderim sırasında kısaldı: " + file.getName());
+                    }
+                }
+                return scratch.flip();
+        }
+    }
+
+    /**
+     * İçeriğin SHA-256 özeti (küçük harfli hex); ilk çağrıda hesaplanır.
+     * @return Hesaplanamazsa null (ekran önbelleği denenmez)
+     */
+    public String sha256Hex() {
+        hashLock.lock();
+        try {
+            return computeSha256();
+        } finally {
+            hashLock.unlock();
+        }
+    }
+
+    private String computeSha256() {
+        if (sha256 != null) return sha256;
+        try {
+            MessageDigest md = MessageDigest.getInstance("SHA-256");
+            switch (mode) {
+                case BYTES:
+                    md.update(bytes);
+                    break;
+                case MAPPED:
+                    md.update(mapped.duplicate());
+                    break;
+                case TRANSFER:
+                    ByteBuffer buffer = ByteBuffer.allocate(AppConstants.HASH_BUFFER_SIZE);
+                    long position = 0;
+                    int r;
+                    while ((r = channel.read(buffer, position)) > 0) {
+                        position += r;
+                        buffer.flip();
+                        md.update(buffer);
+                        buffer.clear();
+                    }
+                    break;
+            }
+            sha256 = HexFormat.of().formatHex(md.digest());
+        } catch (IOException | NoSuchAlgorithmException e) {
+            logger.warn("Photo hash could not be computed: " + e.getMessage());
+        }
+        return sha256;
+    }
+
+    @Override
+    public void close() {
+        if (channel != null) {
+            try { channel.close(); } catch (IOException ignored) {}
+        }
+    }
+
+    private static void writeChunked(WritableByteChannel target, ByteBuffer src, long chunk, WriteObserver observer) throws IOException {
+        while (src.hasRemaining()) {
+            int count = (int) Math.min(chunk, src.remaining());
+            if (observer != null) observer.beforeWrite(count);
+            ByteBuffer part = src.slice(src.position(), count);
+            while (part.hasRemaining()) {
+                target.write(part);
+            }
+            src.position(src.position() + count);
+            if (observer != null) observer.afterWrite(count);
+        }
+    }
+}
@@ -10,12 +10,14 @@ import java.io.*;
 import java.net.InetSocketAddress;
 import java.net.Socket;
 import java.net.SocketTimeoutException;
-import java.nio.file.Files;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
 import java.util.List;
 import java.util.ArrayList;
 import java.util.Collections;
 import java.util.concurrent.*;
-import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicReference;
 import javax.imageio.ImageIO;
 
 public class PhotoSenderApp extends JFrame {
@@ -27,11 +29,33 @@ public class PhotoSenderApp extends JFrame {
     private JList<IpList.IpEntry> ipJList;
     private JButton addIpButton, selectPhotoButton, sendAllButton, sendSingleButton, sendWithTimerButton;
     private File selectedPhoto;
+    // Tüm gönderimlerin paylaştığı dağıtım motoru (uygulama boyunca tek thread havuzu)
+    // Durum, default ve ekran görüntüsü istekleri için ekran başına kalıcı kontrol oturumları
+    private final transient ControlChannels controlChannels = new ControlChannels(logger);
+    private final transient DeliveryEngine deliveryEngine = new DeliveryEngine(logger, controlChannels);
+    // Gönderim başına geçiş efekti ve süresi
+    private JComboBox<String> transitionCombo;
+    private JSpinner transitionMsSpinner;
+    private JCheckBox syncActivationCheck;
+    private JSpinner rateLimitSpinner;
+    private JCheckBox fitToScreenCheck;
+    private JCheckBox relayCheck;
+    // IP → GET_STATUS ile bildirilen ekran piksel boyutu (fotoğraf bu boyuta küçültülüp gönderilir)
+    private final transient java.util.Map<String, Dimension> screenSizes = new ConcurrentHashMap<>();
     private static final File IP_LIST_FILE = getAppDataIpListFile();
+    private final transient PhotoTranscoder transcoder = new PhotoTranscoder(
+        new File(IP_LIST_FILE.getAbsoluteFile().getParentFile(), AppConstants.TRANSCODE_DIR_NAME),
+        AppConstants.TRANSCODE_CACHE_MAX_BYTES, logger);
     
     // Otomatik durum yenileme için timer - 10 saniyede bir tarar
     private javax.swing.Timer statusRefreshTimer;
     private static final int STATUS_REFRESH_INTERVAL = 10000; // 10 saniye
+    // Önceki tarama bitmeden yenisi başlamaz
+    private final AtomicBoolean statusSweepRunning = new AtomicBoolean(false);
+    // IP → son durum sorgusu zamanı; abone ekranlar yalnızca STATUS_FALLBACK_INTERVAL_MS'de bir sorgulanır
+    private final transient java.util.Map<String, Long> lastStatusQuery = new ConcurrentHashMap<>();
+    // Ekranların UDP durum yayını; durumu yayınla gelen ekranlar TCP ile yoklanmaz (null: soket açılamadı)
+    private transient BeaconMonitor beaconMonitor;
     
     // Canlı ekran izleme için
     private javax.swing.Timer liveViewTimer;
@@ -143,6 +167,9 @@ public class PhotoSenderApp extends JFrame {
                 }
                 // Canlı izlemeyi durdur
                 stopLiveView();
+                deliveryEngine.shutdown();
+                controlChannels.shutdown();
+                if (beaconMonitor != null) beaconMonitor.shutdown();
                 logger.info("Uygulama kapatılıyor, timer durduruldu");
             }
         });
@@ -177,7 +204,14 @@ public class PhotoSenderApp extends JFrame {
                     IpList.IpEntry entry = (IpList.IpEntry) value;
                     String status = entry.getStatus();
                     String displayText = entry.getName() + " (" + entry.getIp() + ") - " + status;
+                    BeaconMonitor.Beacon beacon = entry.getBeacon();
+                    if (beacon != null && "Toplantı Var".equals(status) && beacon.timerRemainingSeconds() >= 0) {
+                        // Datagram geldiğinden beri geçen süre düşülür
+                        long remaining = beacon.timerRemainingSeconds() - (System.currentTimeMillis() - beacon.receivedAtMillis()) / 1000;
+                        displayText += " (" + formatRemaining(Math.max(0, remaining)) + " kaldı)";
+                    }
                     setText(displayText);
+                    setToolTipText(beacon != null ? beaconTooltip(beacon) : null);
                     
                     // Durum renkleri
                     if (!isSelected) {
@@ -265,19 +299,20 @@ public class PhotoSenderApp extends JFrame {
                 IpList.IpEntry selected = ipJList.getSelectedValue();
                 if (selected == null) return;
                 String ip = selected.getIp();
-                int port = AppConstants.DEFAULT_PORT;
-                try (Socket socket = new Socket(ip, port);
-                     BufferedWriter writer = new BufferedWriter(new OutputStreamWriter(socket.getOutputStream()));) {
-                    writer.write(AppConstants.COMMAND_SHOW_DEFAULT + "\n");
-                    writer.flush();
-                    JOptionPane.showMessageDialog(this, "İşlem Başarılı " + ip);
-                    
-                    // Default gösterildikten sonra durumu güncelle
-                    ipList.updateStatus(ip, "Default");
-                    ipJList.repaint();
-                } catch (IOException ex) {
-                    JOptionPane.showMessageDialog(this, "SHOW_DEFAULT gönderilemedi: " + ex.getMessage());
-                }
+                // Bağlantı EDT dışında kurulur; ekran yanıt vermezse arayüz donmaz
+                deliveryEngine.deliver(List.of(selected), DeliveryEngine.Request.showDefault(), null).completion()
+                    .thenAccept(batch -> SwingUtilities.invokeLater(() -> {
+                        DeliveryEngine.Target target = batch.targets().get(0);
+                        if (target.isSuccess()) {
+                            JOptionPane.showMessageDialog(this, "İşlem Başarılı " + ip);
+
+                            // Default gösterildikten sonra durumu güncelle
+                            ipList.updateStatus(ip, "Default");
+                            ipJList.repaint();
+                        } else {
+                            JOptionPane.showMessageDialog(this, "SHOW_DEFAULT gönderilemedi: " + target.detail());
+                        }
+                    }));
             });
 
         // Ekran görüntüsü alma işlemi
@@ -406,6 +441,8 @@ public class PhotoSenderApp extends JFrame {
 
         JPanel panel = new JPanel();
         addIpButton = new JButton("IP Ekle");
+        JButton discoverButton = new JButton("Ekran Bul");
+        discoverButton.setToolTipText("Bir IP aralığındaki PhotoViewer'ları bulup listeye ekler");
         selectPhotoButton = new JButton("Fotoğraf Seç");
         sendAllButton = new JButton("Toplu Gönder");
         sendSingleButton = new JButton("Seçiliye Gönder");
@@ -416,12 +453,43 @@ public class PhotoSenderApp extends JFrame {
         // Durum güncelleme butonu
         JButton refreshStatusButton = new JButton("Durum Güncelle");
         
+        // Geçiş efekti seçimi (PhotoViewer yeni fotoğrafa bu efektle geçer)
+        transitionCombo = new JComboBox<>(AppConstants.TRANSITION_LABELS);
+        transitionCombo.setToolTipText("Ekranda yeni fotoğrafa geçiş efekti");
+        transitionMsSpinner = new JSpinner(new SpinnerNumberModel(AppConstants.DEFAULT_TRANSITION_MS, 100, 5000, 100));
+        transitionMsSpinner.setToolTipText("Geçiş süresi (ms)");
+        transitionMsSpinner.setEnabled(false);
+        transitionCombo.addActionListener(_ -> transitionMsSpinner.setEnabled(transitionCombo.getSelectedIndex() > 0));
+        
+        // Toplu gönderimde tüm ekranların aynı anda değişmesi (ön yükleme + eşzamanlı etkinleştirme)
+        syncActivationCheck = new JCheckBox("Eşzamanlı");
+        syncActivationCheck.setToolTipText("Fotoğraf önce tüm ekranlara yüklenir, sonra hepsinde aynı anda gösterilir");
+        
+        // Toplam gönderim hızı sınırı (MB/s); yavaş uplink ve erişim noktalarını doyurmamak için
+        rateLimitSpinner = new JSpinner(new SpinnerNumberModel(0, 0, 1000, 1));
+        rateLimitSpinner.setToolTipText("Toplam gönderim hızı sınırı (MB/s, 0 = sınırsız)");
+        fitToScreenCheck = new JCheckBox("Ekrana göre küçült", true);
+        fitToScreenCheck.setToolTipText("Fotoğraf her ekranın çözünürlüğüne küçültülüp JPEG olarak gönderilir");
+        // Çok ekranlı gönderimde fotoğraf alt ağ başına bir ekrana yüklenir, ekranlar birbirine iletir
+        relayCheck = new JCheckBox("Ekranlar arası aktar", true);
+        relayCheck.setToolTipText("Fotoğraf her ekrana ayrı ayrı değil, ekranlar üzerinden aktarılır (" +
+                                  AppConstants.RELAY_MIN_TARGETS + "+ ekranda)");
+        rateLimitSpinner.addChangeListener(_ ->
+            deliveryEngine.scheduler().setRateLimit(((Number) rateLimitSpinner.getValue()).longValue() * 1024 * 1024));
+        
         panel.add(addIpButton);
+        panel.add(discoverButton);
         panel.add(selectPhotoButton);
         panel.add(sendAllButton);
         panel.add(sendSingleButton);
         panel.add(sendWithTimerButton);
         panel.add(refreshStatusButton);
+        panel.add(transitionCombo);
+        panel.add(transitionMsSpinner);
+        panel.add(syncActivationCheck);
+        panel.add(rateLimitSpinner);
+        panel.add(fitToScreenCheck);
+        panel.add(relayCheck);
         add(panel, BorderLayout.SOUTH);
 
     addIpButton.addActionListener(_ -> {
@@ -433,27 +501,18 @@ public class PhotoSenderApp extends JFrame {
                 String ip = ipField.getText().trim();
                 String name = nameField.getText().trim();
                 if (!ip.isEmpty() && !name.isEmpty()) {
-                    ipList.addIp(ip, name);
-                    IpList.IpEntry newEntry = new IpList.IpEntry(ip, name);
+                    IpList.IpEntry newEntry = ipList.addIp(ip, name);
                     ipListModel.addElement(newEntry);
                     logger.info("Yeni IP eklendi: " + name + " (" + ip + ")");
                     
                     // Yeni eklenen IP'nin durumunu hemen sorgula
-                    SwingWorker<Void, Void> statusWorker = new SwingWorker<Void, Void>() {
-                        @Override
-                        protected Void doInBackground() throws Exception {
-                            String status = queryIpStatus(ip);
-                            ipList.updateStatus(ip, status);
-                            logger.info("Yeni IP durum sorgulaması: " + name + " (" + ip + ") -> " + status);
-                            return null;
-                        }
-                        
-                        @Override
-                        protected void done() {
-                            ipJList.repaint();
-                        }
-                    };
-                    statusWorker.execute();
+                    deliveryEngine.submit(() -> {
+                        String status = queryIpStatus(ip);
+                        ipList.updateStatus(ip, status);
+                        logger.info("Yeni IP durum sorgulaması: " + name + " (" + ip + ") -> " + status);
+                        SwingUtilities.invokeLater(() -> ipJList.repaint());
+                        return null;
+                    });
                     
                     // IP listesini dosyaya kaydet
                     try {
@@ -467,6 +526,8 @@ public class PhotoSenderApp extends JFrame {
             }
         });
 
+    discoverButton.addActionListener(_ -> discoverViewers(discoverButton));
+
     selectPhotoButton.addActionListener(_ -> {
             JFileChooser chooser = new JFileChooser();
             chooser.setFileFilter(new javax.swing.filechooser.FileFilter() {
@@ -543,10 +604,14 @@ public class PhotoSenderApp extends JFrame {
             updateAllIPStatuses();
         });
         
-        // Otomatik durum yenileme timer'ı - her 10 saniyede bir
+        // Abone ekranlar durum değişikliğini kendileri bildirir
+        controlChannels.setEventListener(this::onStatusEvent);
+        startBeaconMonitor();
+        
+        // Otomatik durum yenileme timer'ı - her 10 saniyede bir (abone ekranlar seyrek yoklanır)
         statusRefreshTimer = new javax.swing.Timer(STATUS_REFRESH_INTERVAL, _ -> {
             if (ipList.getIpEntries().size() > 0) {
-                updateAllIPStatuses();
+                updateAllIPStatuses(false);
             }
         });
         statusRefreshTimer.start();
@@ -554,6 +619,15 @@ public class PhotoSenderApp extends JFrame {
         logger.info("Otomatik durum yenileme başlatıldı (10 saniye aralıklarla)");
     }
 
+    /**
+     * Seçili geçiş için başlık eki (":FADE:600" gibi); geçiş yoksa boş.
+     */
+    private String transitionHeaderSuffix() {
+        int idx = transitionCombo.getSelectedIndex();
+        if (idx <= 0) return "";
+        return ":" + AppConstants.TRANSITION_KINDS[idx] + ":" + transitionMsSpinner.getValue();
+    }
+
     private void sendPhotoToIps(File photo, List<IpList.IpEntry> entries) {
         // Enhanced input validation
         if (photo == null || !photo.exists()) {
@@ -576,161 +650,86 @@ public class PhotoSenderApp extends JFrame {
             return;
         }
 
-        // Disable UI while sending
-        addIpButton.setEnabled(false);
-        selectPhotoButton.setEnabled(false);
-        sendAllButton.setEnabled(false);
-        sendSingleButton.setEnabled(false);
-        sendWithTimerButton.setEnabled(false);
-
-        final int CONNECT_TIMEOUT_MS = AppConstants.CONNECTION_TIMEOUT_MS;
-        final int READ_TIMEOUT_MS = AppConstants.READ_TIMEOUT_MS;
-        final int MAX_RETRIES = AppConstants.MAX_RETRIES;
-        final int BUFFER_SIZE = AppConstants.BUFFER_SIZE;
-        final long READ_ONCE_THRESHOLD = AppConstants.READ_ONCE_THRESHOLD;
-
-    // Progress dialog (create first so worker can reference it)
-    final JDialog progressDialog = new JDialog(this, "Gönderiliyor...", true);
-    final JProgressBar progressBar = new JProgressBar(0, 100);
-    progressBar.setStringPainted(true);
-    progressDialog.setLayout(new BorderLayout());
-    progressDialog.add(new JLabel("Lütfen bekleyin..."), BorderLayout.NORTH);
-    progressDialog.add(progressBar, BorderLayout.CENTER);
-    JPanel p = new JPanel();
-    progressDialog.add(p, BorderLayout.SOUTH);
-    progressDialog.setSize(350, 120);
-    progressDialog.setLocationRelativeTo(this);
-
-    // Holder so cancel button can reference the worker (avoids final capture issues)
-    final SwingWorker<?, ?>[] workerHolder = new SwingWorker[1];
-
-    // holders for photo bytes and mode so worker lambda can access/mutate them
-    final java.util.concurrent.atomic.AtomicReference<byte[]> photoBytesRef = new java.util.concurrent.atomic.AtomicReference<>();
-    final java.util.concurrent.atomic.AtomicBoolean useByteArrayRef = new java.util.concurrent.atomic.AtomicBoolean(photo.length() <= READ_ONCE_THRESHOLD);
-
-    SwingWorker<Void, Integer> worker = new SwingWorker<Void, Integer>() {
-            private final List<String> failures = Collections.synchronizedList(new ArrayList<>());
-
-            @Override
-            protected Void doInBackground() throws Exception {
-                // attempt to preload photo into memory if small enough
-                if (useByteArrayRef.get()) {
-                    try {
-                        photoBytesRef.set(Files.readAllBytes(photo.toPath()));
-                    } catch (OutOfMemoryError | IOException e) {
-                        // fallback to streaming per-target
-                        photoBytesRef.set(null);
-                        useByteArrayRef.set(false);
-                        System.out.println("Fotoğraf belleğe yüklenemedi, akışla gönderilecek: " + e.getMessage());
-                    }
-                }
+        // Birden fazla ekranda aynı anda değişim istendiyse iki aşamalı gönderim
+        if (syncActivationCheck.isSelected() && entries.size() > 1) {
+            sendPhotoSynchronized(photo, entries, 0);
+            return;
+        }
 
-                int total = entries.size();
-                int poolSize = Math.min(total, Math.max(2, Runtime.getRuntime().availableProcessors() * 2));
-                ExecutorService pool = Executors.newFixedThreadPool(poolSize);
-                CountDownLatch latch = new CountDownLatch(total);
-                AtomicInteger completed = new AtomicInteger(0);
+        final String transitionSuffix = transitionHeaderSuffix();
+        deliverPhoto("Gönderiliyor...", photo, entries,
+            payload -> DeliveryEngine.Request.photo(payload, transitionSuffix),
+            target -> logger.info("Photo " + (target.isFromCache() ? "shown from viewer cache on " : "sent successfully to ") + target),
+            () -> AppMessages.INFO_PHOTO_SENT);
+    }
 
-                for (IpList.IpEntry entry : entries) {
-                    pool.submit(() -> {
-                        String ip = entry.getIp();
-                        String name = entry.getName();
-                        boolean success = false;
-                        for (int attempt = 1; attempt <= MAX_RETRIES + 1 && !success; attempt++) {
-                            Socket socket = null;
-                            try {
-                                socket = new Socket();
-                                socket.connect(new InetSocketAddress(ip, AppConstants.DEFAULT_PORT), CONNECT_TIMEOUT_MS);
-                                socket.setSoTimeout(READ_TIMEOUT_MS);
-                                OutputStream os = socket.getOutputStream();
-                                BufferedWriter writer = new BufferedWriter(new OutputStreamWriter(os));
-                                long lengthToSend = (photoBytesRef.get() != null) ? photoBytesRef.get().length : photo.length();
-                                // Send header with length so receiver can read exact bytes
-                                writer.write(AppConstants.COMMAND_SEND_PHOTO + lengthToSend + "\n");
-                                writer.flush();
-
-                                if (useByteArrayRef.get() && photoBytesRef.get() != null) {
-                                    os.write(photoBytesRef.get());
-                                } else {
-                                    try (FileInputStream fis = new FileInputStream(photo)) {
-                                        byte[] buffer = new byte[BUFFER_SIZE];
-                                        int r;
-                                        while ((r = fis.read(buffer)) != -1) {
-                                            os.write(buffer, 0, r);
-                                        }
-                                    }
-                                }
-                                os.flush();
-                                try { socket.shutdownOutput(); } catch (IOException ignored) {}
-                                // Wait for ACK from receiver
-                                String ack = null;
-                                try {
-                                    socket.setSoTimeout(READ_TIMEOUT_MS);
-                                    BufferedReader br = new BufferedReader(new InputStreamReader(socket.getInputStream(), "US-ASCII"));
-                                    ack = br.readLine();
-                                } catch (SocketTimeoutException ste) {
-                                    System.out.println("ACK zaman aşımı: " + ip + " -> " + ste.getMessage());
-                                } catch (IOException ioe) {
-                                    System.out.println("ACK okuma hatası: " + ip + " -> " + ioe.getMessage());
-                                }
-                                if (AppConstants.RESPONSE_OK.equals(ack)) {
-                                    success = true;
-                                    logger.info("Photo sent successfully to " + name + " (" + ip + ")");
-                                    System.out.println("Gönderildi ve onaylandı: " + name + " (" + ip + ")");
-                                    
-                                    // Fotoğraf gönderildikten sonra durumu güncelle
-                                    SwingUtilities.invokeLater(() -> {
-                                        ipList.updateStatus(ip, "Toplantı Var");
-                                        ipJList.repaint();
-                                    });
-                                } else {
-                                    logger.warn("Photo sent but no ACK from " + name + " (" + ip + ") ack=" + ack);
-                                    System.out.println("Gönderildi fakat onay alınamadı: " + name + " (" + ip + ") ack=" + ack);
-                                }
-                            } catch (SocketTimeoutException ste) {
-                                logger.warn("Socket timeout for " + ip + ": " + ste.getMessage());
-                                System.out.println("Zaman aşımı: " + ip + " -> " + ste.getMessage());
-                            } catch (IOException ioe) {
-                                logger.warn("IO error for " + ip + ": " + ioe.getMessage());
-                                System.out.println("IO hatası: " + ip + " -> " + ioe.getMessage());
-                            } catch (Exception ex) {
-                                logger.error("Unexpected error for " + ip, ex);
-                                System.out.println("Genel hata: " + ip + " -> " + ex.getMessage());
-                            } finally {
-                                if (socket != null) {
-                                    try { socket.close(); } catch (IOException ignored) {}
-                                }
-                            }
+    /**
+     * Fotoğrafı DeliveryEngine ile tüm hedeflere gönderir. Gönderim süresince arayüz kilitlenir ve
+     * ilerleme penceresi gösterilir; "İptal" açık bağlantıları kapatıp bekleyen hedefleri durdurur.
+     * @param requestFactory Bir kez hazırlanan fotoğraf içeriğinden gönderim isteğini oluşturur
+     * @param onSuccess Başarılı her hedef için gönderim thread'inde çağrılır (durum ayrıca güncellenir)
+     * @param successMessage Tüm hedefler başarılı olduğunda gösterilecek mesaj
+     */
+    private void deliverPhoto(String title, File photo, List<IpList.IpEntry> entries,
+                              java.util.function.Function<PhotoPayload, DeliveryEngine.Request> requestFactory,
+                              java.util.function.Consumer<DeliveryEngine.Target> onSuccess,
+                              java.util.function.Supplier<String> successMessage) {
+        setSendControlsEnabled(false);
+        final boolean fitToScreen = fitToScreenCheck.isSelected();
+        final boolean relay = relayCheck.isSelected();
+
+        final JDialog progressDialog = new JDialog(this, title, true);
+        final JProgressBar progressBar = new JProgressBar(0, 100);
+        progressBar.setStringPainted(true);
+        progressDialog.setLayout(new BorderLayout());
+        final JLabel statusLabel = new JLabel("Lütfen bekleyin...");
+        progressDialog.add(statusLabel, BorderLayout.NORTH);
+        progressDialog.add(progressBar, BorderLayout.CENTER);
+        JPanel p = new JPanel();
+        progressDialog.add(p, BorderLayout.SOUTH);
+        progressDialog.setSize(350, 120);
+        progressDialog.setLocationRelativeTo(this);
 
-                            if (!success) {
-                                // exponential backoff
-                                try { Thread.sleep(AppConstants.RETRY_BACKOFF_BASE_MS * attempt); } catch (InterruptedException ignored) { Thread.currentThread().interrupt(); }
-                            }
-                        }
+        // İptal, gönderim başlamadan da basılabilir; worker batch'i oluşturunca bayrağa bakar
+        final AtomicReference<DeliveryEngine.Batch> batchRef = new AtomicReference<>();
+        final AtomicBoolean cancelRequested = new AtomicBoolean();
+
+        // Toplam aktarım hızı ve o anki eşzamanlı aktarım penceresi (yarım saniyede bir)
+        final long[] lastSample = {System.nanoTime(), 0};
+        final javax.swing.Timer throughputTimer = new javax.swing.Timer(500, _ -> {
+            DeliveryEngine.Batch batch = batchRef.get();
+            if (batch == null) return;
+            long now = System.nanoTime();
+            long bytes = batch.bytesSent();
+            double mbPerSecond = (bytes - lastSample[1]) / 1048576.0 / ((now - lastSample[0]) / 1e9);
+            lastSample[0] = now;
+            lastSample[1] = bytes;
+            statusLabel.setText(String.format("Aktarım: %.1f MB/s, eşzamanlı: %d", mbPerSecond, deliveryEngine.scheduler().window()));
+        });
 
-                        if (!success) {
-                            failures.add(name + " (" + ip + ")");
+        SwingWorker<DeliveryEngine.Batch, Integer> worker = new SwingWorker<DeliveryEngine.Batch, Integer>() {
+            @Override
+            protected DeliveryEngine.Batch doInBackground() throws Exception {
+                // Fotoğraf bir kez hazırlanır (bellek, eşleme veya transferTo); tüm hedefler paylaşır
+                try (PhotoPayload payload = PhotoPayload.open(photo, logger);
+                     PhotoTranscoder.Variants variants = prepareVariants(payload, entries, fitToScreen)) {
+                    DeliveryEngine.Request request = requestFactory.apply(payload).withVariants(variants.byIp()).withRelay(relay);
+                    DeliveryEngine.Batch batch = deliveryEngine.deliver(entries, request, (target, finished, total) -> {
+                        if (target.isSuccess()) {
+                            onSuccess.accept(target);
+                            String ip = target.entry().getIp();
+                            SwingUtilities.invokeLater(() -> {
+                                ipList.updateStatus(ip, "Toplantı Var");
+                                ipJList.repaint();
+                            });
                         }
-
-                        int done = completed.incrementAndGet();
-                        publish((int) ((done / (double) total) * 100));
-                        latch.countDown();
+                        publish((int) ((finished / (double) total) * 100));
                     });
+                    batchRef.set(batch);
+                    if (cancelRequested.get()) batch.cancel();
+                    // İptalde de tüm hedefler biter; içerik ancak ondan sonra kapatılır
+                    return batch.completion().get();
                 }
-
-                pool.shutdown();
-                // Wait for all tasks or timeout
-                try {
-                    if (!latch.await(5, TimeUnit.MINUTES)) {
-                        pool.shutdownNow();
-                        failures.add("Zaman aşımı: Gönderim tamamlanamadı (süre aşıldı)");
-                    }
-                } catch (InterruptedException e) {
-                    Thread.currentThread().interrupt();
-                    failures.add("Gönderim iptal edildi.");
-                }
-
-                return null;
             }
 
             @Override
@@ -741,274 +740,384 @@ public class PhotoSenderApp extends JFrame {
 
             @Override
             protected void done() {
-                addIpButton.setEnabled(true);
-                selectPhotoButton.setEnabled(true);
-                sendAllButton.setEnabled(true);
-                sendSingleButton.setEnabled(true);
-                sendWithTimerButton.setEnabled(true);
+                throughputTimer.stop();
+                setSendControlsEnabled(true);
                 progressDialog.setVisible(false);
                 progressDialog.dispose();
 
+                List<String> failures = new ArrayList<>();
+                try {
+                    for (DeliveryEngine.Target target : get().failures()) {
+                        failures.add(target + (target.detail().isEmpty() ? "" : " - " + target.detail()));
+                    }
+                } catch (Exception e) {
+                    failures.add("Gönderim tamamlanamadı: " + e.getMessage());
+                }
                 if (failures.isEmpty()) {
-                    JOptionPane.showMessageDialog(PhotoSenderApp.this, AppMessages.INFO_PHOTO_SENT);
+                    JOptionPane.showMessageDialog(PhotoSenderApp.this, successMessage.get());
                 } else {
-                    StringBuilder sb = new StringBuilder();
-                    sb.append("Bazı hedeflere gönderilemedi:\n");
-                    for (String f : failures) sb.append("- ").append(f).append("\n");
-                    JOptionPane.showMessageDialog(PhotoSenderApp.this, sb.toString(), AppMessages.ERROR_NETWORK_SEND, JOptionPane.WARNING_MESSAGE);
+                    showSendFailures(failures);
                 }
             }
         };
 
-        // Cancel button that cancels the worker
         JButton cancelBtn = new JButton("İptal");
-        cancelBtn.addActionListener(new java.awt.event.ActionListener() {
-            @Override
-            public void actionPerformed(java.awt.event.ActionEvent e) {
-                SwingWorker<?, ?> wk = workerHolder[0];
-                if (wk != null) wk.cancel(true);
-            }
+        cancelBtn.addActionListener(_ -> {
+            cancelRequested.set(true);
+            DeliveryEngine.Batch batch = batchRef.get();
+            if (batch != null) batch.cancel();
         });
         p.add(cancelBtn);
 
-        // Start worker and show dialog
-        workerHolder[0] = worker;
         worker.execute();
+        throughputTimer.start();
         progressDialog.setVisible(true);
     }
 
-    private void sendPhotoWithTimer(File photo, List<IpList.IpEntry> entries, int durationSeconds) {
-        // Quick checks
-        if (entries == null || entries.isEmpty()) {
-            JOptionPane.showMessageDialog(this, AppMessages.ERROR_NO_IP_TO_SEND);
+    /**
+     * Ekran boyutu bilinen hedefler için fotoğrafın küçültülmüş kopyalarını hazırlar.
+     */
+    private PhotoTranscoder.Variants prepareVariants(PhotoPayload payload, List<IpList.IpEntry> entries, boolean fitToScreen) {
+        if (!fitToScreen) return new PhotoTranscoder.Variants();
+        return transcoder.prepare(payload, entries, screenSizes);
+    }
+
+    /**
+     * Kullanıcının girdiği CIDR aralığını tarar; bulunan ve listede olmayan PhotoViewer'lar
+     * "Ekran &lt;ip&gt;" adıyla toplu eklenir.
+     */
+    private void discoverViewers(JButton discoverButton) {
+        String suggestion = SubnetScanner.localCidr();
+        String cidr = (String) JOptionPane.showInputDialog(this, "Taranacak IP aralığı (ör. 192.168.1.0/24):",
+            "Ekran Bul", JOptionPane.QUESTION_MESSAGE, null, null, suggestion != null ? suggestion : "");
+        if (cidr == null || cidr.isBlank()) return;
+        final List<String> addresses;
+        try {
+            addresses = SubnetScanner.expandCidr(cidr);
+        } catch (IllegalArgumentException ex) {
+            JOptionPane.showMessageDialog(this, ex.getMessage(), "Ekran Bul", JOptionPane.WARNING_MESSAGE);
             return;
         }
+        discoverButton.setEnabled(false);
 
-        // Bitiş tarihi hesapla ve logla
-        java.util.Calendar endTime = java.util.Calendar.getInstance();
-        endTime.add(java.util.Calendar.SECOND, durationSeconds);
-        String endTimeText = formatDateTime(endTime);
-        String durationText = formatDuration(durationSeconds);
-        
-        logger.info("Zamanlı fotoğraf gönderimi başlıyor - Hedef sayısı: " + entries.size() + 
-                   ", Bitiş: " + endTimeText + " (" + durationText + ")");
-
-        // Disable UI while sending
-        addIpButton.setEnabled(false);
-        selectPhotoButton.setEnabled(false);
-        sendAllButton.setEnabled(false);
-        sendSingleButton.setEnabled(false);
-        sendWithTimerButton.setEnabled(false);
-
-        final int CONNECT_TIMEOUT_MS = AppConstants.CONNECTION_TIMEOUT_MS;
-        final int READ_TIMEOUT_MS = AppConstants.READ_TIMEOUT_MS;
-        final int MAX_RETRIES = AppConstants.MAX_RETRIES;
-        final int BUFFER_SIZE = AppConstants.BUFFER_SIZE;
-        final long READ_ONCE_THRESHOLD = AppConstants.READ_ONCE_THRESHOLD;
-
-        // Progress dialog (create first so worker can reference it)
-        final JDialog progressDialog = new JDialog(this, "Zamanlı Gönderiliyor...", true);
-        final JProgressBar progressBar = new JProgressBar(0, 100);
+        final JDialog progressDialog = new JDialog(this, "Ekran Bul - " + cidr.trim(), false);
+        final JProgressBar progressBar = new JProgressBar(0, addresses.size());
         progressBar.setStringPainted(true);
+        final JLabel statusLabel = new JLabel(addresses.size() + " adres taranıyor...");
+        final AtomicBoolean cancelRequested = new AtomicBoolean();
+        JButton cancelButton = new JButton("İptal");
+        cancelButton.addActionListener(_ -> cancelRequested.set(true));
         progressDialog.setLayout(new BorderLayout());
-        progressDialog.add(new JLabel("Lütfen bekleyin..."), BorderLayout.NORTH);
+        progressDialog.add(statusLabel, BorderLayout.NORTH);
         progressDialog.add(progressBar, BorderLayout.CENTER);
-        JPanel p = new JPanel();
-        progressDialog.add(p, BorderLayout.SOUTH);
-        progressDialog.setSize(350, 120);
+        JPanel buttons = new JPanel();
+        buttons.add(cancelButton);
+        progressDialog.add(buttons, BorderLayout.SOUTH);
+        progressDialog.setSize(350, 130);
         progressDialog.setLocationRelativeTo(this);
 
-        // Holder so cancel button can reference the worker (avoids final capture issues)
-        final SwingWorker<?, ?>[] workerHolder = new SwingWorker[1];
+        final java.util.Map<String, String> found = new java.util.LinkedHashMap<>();
+        SwingWorker<Void, Integer> worker = new SwingWorker<Void, Integer>() {
+            @Override
+            protected Void doInBackground() throws Exception {
+                new SubnetScanner(logger).scan(addresses, AppConstants.DEFAULT_PORT, new SubnetScanner.Listener() {
+                    @Override
+                    public void onFound(String ip, String status) {
+                        synchronized (found) {
+                            found.put(ip, status);
+                        }
+                    }
 
-        // holders for photo bytes and mode so worker lambda can access/mutate them
-        final java.util.concurrent.atomic.AtomicReference<byte[]> photoBytesRef = new java.util.concurrent.atomic.AtomicReference<>();
-        final java.util.concurrent.atomic.AtomicBoolean useByteArrayRef = new java.util.concurrent.atomic.AtomicBoolean(photo.length() <= READ_ONCE_THRESHOLD);
+                    @Override
+                    public void onProgress(int done, int total) {
+                        publish(done);
+                    }
+                }, cancelRequested::get);
+                return null;
+            }
 
-        SwingWorker<Void, Integer> worker = new SwingWorker<Void, Integer>() {
-            private final List<String> failures = Collections.synchronizedList(new ArrayList<>());
+            @Override
+            protected void process(List<Integer> chunks) {
+                progressBar.setValue(chunks.get(chunks.size() - 1));
+                synchronized (found) {
+                    statusLabel.setText(found.size() + " ekran bulundu");
+                }
+            }
 
             @Override
-            protected Void doInBackground() throws Exception {
-                // attempt to preload photo into memory if small enough
-                if (useByteArrayRef.get()) {
+            protected void done() {
+                progressDialog.dispose();
+                discoverButton.setEnabled(true);
+                try {
+                    get();
+                } catch (Exception ex) {
+                    logger.error("Ekran tarama hatası", ex);
+                    JOptionPane.showMessageDialog(PhotoSenderApp.this, "Tarama başarısız: " + ex.getMessage());
+                    return;
+                }
+                int added = 0;
+                for (java.util.Map.Entry<String, String> e : found.entrySet()) {
+                    if (ipList.contains(e.getKey())) continue;
+                    IpList.IpEntry entry = ipList.addIp(e.getKey(), "Ekran " + e.getKey());
+                    ipListModel.addElement(entry);
+                    added++;
+                }
+                if (added > 0) {
                     try {
-                        photoBytesRef.set(Files.readAllBytes(photo.toPath()));
-                    } catch (OutOfMemoryError | IOException e) {
-                        // fallback to streaming per-target
-                        photoBytesRef.set(null);
-                        useByteArrayRef.set(false);
-                        System.out.println("Fotoğraf belleğe yüklenemedi, akışla gönderilecek: " + e.getMessage());
+                        ipList.saveToFile(IP_LIST_FILE);
+                    } catch (IOException ex) {
+                        JOptionPane.showMessageDialog(PhotoSenderApp.this, AppMessages.formatIpSaveError(ex.getMessage()));
                     }
+                    // Bulunan ekranların durumu ve ekran boyutu hemen sorgulanır
+                    updateAllIPStatuses();
                 }
+                logger.info("Ekran tarama: " + found.size() + " PhotoViewer bulundu, " + added + " yeni eklendi");
+                JOptionPane.showMessageDialog(PhotoSenderApp.this,
+                    found.size() + " ekran bulundu, " + added + " tanesi listeye eklendi.",
+                    "Ekran Bul", JOptionPane.INFORMATION_MESSAGE);
+            }
+        };
+        worker.execute();
+        progressDialog.setVisible(true);
+    }
 
-                int total = entries.size();
-                int poolSize = Math.min(total, Math.max(2, Runtime.getRuntime().availableProcessors() * 2));
-                ExecutorService pool = Executors.newFixedThreadPool(poolSize);
-                CountDownLatch latch = new CountDownLatch(total);
-                AtomicInteger completed = new AtomicInteger(0);
+    private void setSendControlsEnabled(boolean enabled) {
+        addIpButton.setEnabled(enabled);
+        selectPhotoButton.setEnabled(enabled);
+        sendAllButton.setEnabled(enabled);
+        sendSingleButton.setEnabled(enabled);
+        sendWithTimerButton.setEnabled(enabled);
+    }
 
-                for (IpList.IpEntry entry : entries) {
-                    pool.submit(() -> {
-                        String ip = entry.getIp();
-                        String name = entry.getName();
-                        boolean success = false;
-                        for (int attempt = 1; attempt <= MAX_RETRIES + 1 && !success; attempt++) {
-                            Socket socket = null;
-                            try {
-                                socket = new Socket();
-                                socket.connect(new InetSocketAddress(ip, AppConstants.DEFAULT_PORT), CONNECT_TIMEOUT_MS);
-                                socket.setSoTimeout(READ_TIMEOUT_MS);
-                                OutputStream os = socket.getOutputStream();
-                                BufferedWriter writer = new BufferedWriter(new OutputStreamWriter(os));
-                                
-                                long lengthToSend = (photoBytesRef.get() != null) ? photoBytesRef.get().length : photo.length();
-                                
-                                // Yeni protokol: Süre bilgisi ile gönder
-                                writer.write(AppConstants.COMMAND_SEND_PHOTO_WITH_TIMER + lengthToSend + ":" + durationSeconds + "\n");
-                                writer.flush();
-
-                                if (useByteArrayRef.get() && photoBytesRef.get() != null) {
-                                    os.write(photoBytesRef.get());
-                                } else {
-                                    try (FileInputStream fis = new FileInputStream(photo)) {
-                                        byte[] buffer = new byte[BUFFER_SIZE];
-                                        int r;
-                                        while ((r = fis.read(buffer)) != -1) {
-                                            os.write(buffer, 0, r);
-                                        }
-                                    }
-                                }
-                                os.flush();
-                                try { socket.shutdownOutput(); } catch (IOException ignored) {}
-                                
-                                // Wait for ACK from receiver
-                                String ack = null;
-                                try {
-                                    socket.setSoTimeout(READ_TIMEOUT_MS);
-                                    BufferedReader br = new BufferedReader(new InputStreamReader(socket.getInputStream(), "US-ASCII"));
-                                    ack = br.readLine();
-                                } catch (SocketTimeoutException ste) {
-                                    System.out.println("ACK zaman aşımı: " + ip + " -> " + ste.getMessage());
-                                } catch (IOException ioe) {
-                                    System.out.println("ACK okuma hatası: " + ip + " -> " + ioe.getMessage());
-                                }
-                                if (AppConstants.RESPONSE_OK.equals(ack)) {
-                                    success = true;
-                                    // Bitiş tarihini hesapla ve logla
-                                    java.util.Calendar endTime = java.util.Calendar.getInstance();
-                                    endTime.add(java.util.Calendar.SECOND, durationSeconds);
-                                    String endTimeText = formatDateTime(endTime);
-                                    
-                                    logger.success("Zamanlı fotoğraf başarıyla gönderildi: " + name + " (" + ip + ") - Bitiş: " + endTimeText);
-                                    System.out.println("Zamanlı gönderildi ve onaylandı: " + name + " (" + ip + ") - Bitiş: " + endTimeText);
-                                    
-                                    // Zamanlı fotoğraf gönderildikten sonra durumu güncelle
-                                    SwingUtilities.invokeLater(() -> {
-                                        ipList.updateStatus(ip, "Toplantı Var");
-                                        ipJList.repaint();
-                                    });
-                                } else {
-                                    logger.warn("Zamanlı fotoğraf gönderildi ancak onay alınamadı: " + name + " (" + ip + ") ack=" + ack);
-                                    System.out.println("Gönderildi fakat onay alınamadı: " + name + " (" + ip + ") ack=" + ack);
-                                }
-                            } catch (SocketTimeoutException ste) {
-                                logger.warn("Zamanlı gönderim zaman aşımı: " + name + " (" + ip + ") - " + ste.getMessage());
-                                System.out.println("Zaman aşımı: " + ip + " -> " + ste.getMessage());
-                            } catch (IOException ioe) {
-                                logger.warn("Zamanlı gönderim IO hatası: " + name + " (" + ip + ") - " + ioe.getMessage());
-                                System.out.println("IO hatası: " + ip + " -> " + ioe.getMessage());
-                            } catch (Exception ex) {
-                                logger.error("Zamanlı gönderim beklenmeyen hata: " + name + " (" + ip + ")", ex);
-                                System.out.println("Genel hata: " + ip + " -> " + ex.getMessage());
-                            } finally {
-                                if (socket != null) {
-                                    try { socket.close(); } catch (IOException ignored) {}
-                                }
-                            }
+    private void showSendFailures(List<String> failures) {
+        StringBuilder sb = new StringBuilder();
+        sb.append("Bazı hedeflere gönderilemedi:\n");
+        for (String f : failures) sb.append("- ").append(f).append("\n");
+        JOptionPane.showMessageDialog(this, sb.toString(), AppMessages.ERROR_NETWORK_SEND, JOptionPane.WARNING_MESSAGE);
+    }
 
-                            if (!success) {
-                                // exponential backoff
-                                try { Thread.sleep(AppConstants.RETRY_BACKOFF_BASE_MS * attempt); } catch (InterruptedException ignored) { Thread.currentThread().interrupt(); }
-                            }
-                        }
+    /**
+     * İki aşamalı gönderim: önce her ekrana fotoğraf ön yüklenir (STAGE; ekran değişmez), ardından
+     * tüm ekranlara aynı anda gösterilmek üzere ACTIVATE gönderilir. Her ekranın saat farkı aynı
+     * bağlantı üzerinden TIME_SYNC ile ölçülür ve gösterim anı o ekranın saatine çevrilir; böylece
+     * aktarım süreleri farklı olsa da ekranlar birlikte değişir.
+     */
+    private void sendPhotoSynchronized(File photo, List<IpList.IpEntry> entries, long durationSeconds) {
+        setSendControlsEnabled(false);
+
+        final String transitionSuffix = transitionHeaderSuffix();
+        final String stageId = java.util.UUID.randomUUID().toString();
+        final boolean fitToScreen = fitToScreenCheck.isSelected();
+        final boolean relay = relayCheck.isSelected();
+
+        final JDialog progressDialog = new JDialog(this, "Eşzamanlı Gönderiliyor...", true);
+        final JProgressBar progressBar = new JProgressBar(0, 100);
+        progressBar.setStringPainted(true);
+        progressDialog.setLayout(new BorderLayout());
+        progressDialog.add(new JLabel("Ekranlara ön yükleniyor..."), BorderLayout.NORTH);
+        progressDialog.add(progressBar, BorderLayout.CENTER);
+        progressDialog.setSize(350, 120);
+        progressDialog.setLocationRelativeTo(this);
 
-                        if (!success) {
-                            failures.add(name + " (" + ip + ")");
+        SwingWorker<Void, Integer> worker = new SwingWorker<Void, Integer>() {
+            private final List<String> failures = Collections.synchronizedList(new ArrayList<>());
+
+            @Override
+            protected Void doInBackground() throws Exception {
+                try (PhotoPayload payload = PhotoPayload.open(photo, logger);
+                     PhotoTranscoder.Variants variants = prepareVariants(payload, entries, fitToScreen)) {
+                    // 1. aşama: ön yükleme (ekranlar hazırlanır, görüntü değişmez)
+                    DeliveryEngine.Request request = DeliveryEngine.Request.stage(payload, stageId).withVariants(variants.byIp());
+                    DeliveryEngine.Batch stageBatch = deliveryEngine.deliver(entries, request,
+                        (target, finished, total) -> publish((int) (finished * 80.0 / total)));
+                    List<IpList.IpEntry> staged = new ArrayList<>();
+                    for (DeliveryEngine.Target target : stageBatch.completion().get().targets()) {
+                        if (target.isSuccess()) {
+                            staged.add(target.entry());
+                        } else {
+                            failures.add(target + " - ön yükleme başarısız");
                         }
+                    }
+                    if (staged.isEmpty()) return null;
 
-                        int done = completed.incrementAndGet();
-                        publish((int) ((done / (double) total) * 100));
-                        latch.countDown();
-                    });
-                }
+                    // 2. aşama: her ekranla bağlantı açılır ve saat farkı ölçülür
+                    List<Future<ActivationLink>> linkTasks = new ArrayList<>();
+                    for (IpList.IpEntry entry : staged) {
+                        linkTasks.add(deliveryEngine.submit(() -> ActivationLink.open(entry)));
+                    }
+                    // Geç kalan ekran beklenirken diğer bağlantılar boşta zaman aşımına uğramasın
+                    long linkDeadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(AppConstants.ACTIVATION_LINK_TIMEOUT_MS);
+                    List<ActivationLink> links = new ArrayList<>();
+                    long maxRttMicros = 0;
+                    for (int i = 0; i < linkTasks.size(); i++) {
+                        IpList.IpEntry entry = staged.get(i);
+                        try {
+                            long wait = Math.max(0, linkDeadline - System.nanoTime());
+                            ActivationLink link = linkTasks.get(i).get(wait, TimeUnit.NANOSECONDS);
+                            links.add(link);
+                            maxRttMicros = Math.max(maxRttMicros, link.rttMicros);
+                        } catch (ExecutionException | TimeoutException e) {
+                            linkTasks.get(i).cancel(true);
+                            failures.add(entry.getName() + " (" + entry.getIp() + ") - saat eşitlenemedi");
+                        }
+                    }
+                    publish(90);
 
-                pool.shutdown();
-                // Wait for all tasks or timeout
-                try {
-                    if (!latch.await(5, TimeUnit.MINUTES)) {
-                        pool.shutdownNow();
-                        failures.add("Zaman aşımı: Gönderim tamamlanamadı (süre aşıldı)");
+                    // 3. aşama: ortak an belirlenir ve her ekrana kendi saatine göre bildirilir
+                    long atMicros = epochMicros() + Math.max(AppConstants.ACTIVATION_LEAD_MS * 1000L, maxRttMicros * 4);
+                    String options = (durationSeconds > 0 || !transitionSuffix.isEmpty()) ? ":" + durationSeconds + transitionSuffix : "";
+                    for (ActivationLink link : links) {
+                        try {
+                            link.sendActivate(stageId, (atMicros + link.offsetMicros) / 1000, options);
+                        } catch (IOException e) {
+                            // Yanıt okunamaz; ekran aşağıda başarısız sayılır
+                            logger.warn("ACTIVATE could not be sent to " + link.entry.getIp() + ": " + e.getMessage());
+                        }
+                    }
+                    for (ActivationLink link : links) {
+                        String reply = link.readReplyAndClose();
+                        String ip = link.entry.getIp();
+                        if (AppConstants.RESPONSE_OK.equals(reply)) {
+                            logger.info("Synchronized activation scheduled on " + link.entry.getName() + " (" + ip + ") - offset: " +
+                                        (link.offsetMicros / 1000) + "ms, rtt: " + (link.rttMicros / 1000.0) + "ms");
+                            SwingUtilities.invokeLater(() -> {
+                                ipList.updateStatus(ip, "Toplantı Var");
+                                ipJList.repaint();
+                            });
+                        } else {
+                            failures.add(link.entry.getName() + " (" + ip + ") - etkinleştirilemedi");
+                        }
                     }
-                } catch (InterruptedException e) {
-                    Thread.currentThread().interrupt();
-                    failures.add("Gönderim iptal edildi.");
                 }
-
                 return null;
             }
 
             @Override
             protected void process(List<Integer> chunks) {
-                int last = chunks.get(chunks.size() - 1);
-                progressBar.setValue(last);
+                progressBar.setValue(chunks.get(chunks.size() - 1));
             }
 
             @Override
             protected void done() {
-                addIpButton.setEnabled(true);
-                selectPhotoButton.setEnabled(true);
-                sendAllButton.setEnabled(true);
-                sendSingleButton.setEnabled(true);
-                sendWithTimerButton.setEnabled(true);
+                setSendControlsEnabled(true);
                 progressDialog.setVisible(false);
                 progressDialog.dispose();
-
+                try {
+                    get();
+                } catch (Exception e) {
+                    failures.add("Gönderim tamamlanamadı: " + e.getMessage());
+                }
                 if (failures.isEmpty()) {
-                    // Bitiş tarihi hesapla
-                    java.util.Calendar endTime = java.util.Calendar.getInstance();
-                    endTime.add(java.util.Calendar.SECOND, durationSeconds);
-                    String endTimeText = formatDateTime(endTime);
-                    String durationText = formatDuration(durationSeconds);
-                    
-                    JOptionPane.showMessageDialog(PhotoSenderApp.this, 
-                        "Zamanlı fotoğraf başarıyla gönderildi!\n\n" +
-                        "Bitiş tarihi: " + endTimeText + "\n" +
-                        "Süre: " + durationText);
+                    JOptionPane.showMessageDialog(PhotoSenderApp.this, AppMessages.INFO_PHOTO_SENT);
                 } else {
-                    StringBuilder sb = new StringBuilder();
-                    sb.append("Bazı hedeflere gönderilemedi:\n");
-                    for (String f : failures) sb.append("- ").append(f).append("\n");
-                    JOptionPane.showMessageDialog(PhotoSenderApp.this, sb.toString(), "Gönderim Hataları", JOptionPane.WARNING_MESSAGE);
+                    showSendFailures(failures);
                 }
             }
         };
+        worker.execute();
+        progressDialog.setVisible(true);
+    }
 
-        // Cancel button that cancels the worker
-        JButton cancelBtn = new JButton("İptal");
-        cancelBtn.addActionListener(new java.awt.event.ActionListener() {
-            @Override
-            public void actionPerformed(java.awt.event.ActionEvent e) {
-                SwingWorker<?, ?> wk = workerHolder[0];
-                if (wk != null) wk.cancel(true);
+    private static long epochMicros() {
+        java.time.Instant now = java.time.Instant.now();
+        return now.getEpochSecond() * 1_000_000L + now.getNano() / 1_000;
+    }
+
+    /**
+     * ACTIVATE için açık tutulan bağlantı ve bu bağlantı üzerinden ölçülen saat farkı.
+     * Fark NTP yöntemiyle hesaplanır: en kısa gidiş-dönüşlü örnekte ekran zamanı, gönderim ve
+     * yanıt anlarının ortasına karşılık gelir.
+     */
+    private static final class ActivationLink {
+        final IpList.IpEntry entry;
+        final Socket socket;
+        final BufferedReader reader;
+        final OutputStream out;
+        long offsetMicros; // ekran saati - gönderici saati
+        long rttMicros = Long.MAX_VALUE;
+
+        private ActivationLink(IpList.IpEntry entry, Socket socket) throws IOException {
+            this.entry = entry;
+            this.socket = socket;
+            this.reader = new BufferedReader(new InputStreamReader(socket.getInputStream(), StandardCharsets.US_ASCII));
+            this.out = socket.getOutputStream();
+        }
+
+        static ActivationLink open(IpList.IpEntry entry) throws IOException {
+            Socket socket = new Socket();
+            try {
+                socket.setTcpNoDelay(true);
+                socket.connect(new InetSocketAddress(entry.getIp(), AppConstants.DEFAULT_PORT), AppConstants.CONNECTION_TIMEOUT_MS);
+                socket.setSoTimeout(AppConstants.READ_TIMEOUT_MS);
+                ActivationLink link = new ActivationLink(entry, socket);
+                link.syncClock();
+                return link;
+            } catch (IOException | RuntimeException e) {
+                socket.close();
+                throw e;
             }
-        });
-        p.add(cancelBtn);
+        }
 
-        // Start worker and show dialog
-        workerHolder[0] = worker;
-        worker.execute();
-        progressDialog.setVisible(true);
+        private void syncClock() throws IOException {
+            byte[] request = (AppConstants.COMMAND_TIME_SYNC + "\n").getBytes(StandardCharsets.US_ASCII);
+            for (int i = 0; i < AppConstants.TIME_SYNC_SAMPLES; i++) {
+                long t0 = epochMicros();
+                out.write(request);
+                out.flush();
+                String reply = reader.readLine();
+                long t1 = epochMicros();
+                if (reply == null || !reply.startsWith(AppConstants.RESPONSE_TIME)) {
+                    throw new IOException("TIME_SYNC desteklenmiyor: " + reply);
+                }
+                long viewerMicros = Long.parseLong(reply.substring(AppConstants.RESPONSE_TIME.length()).trim());
+                long rtt = t1 - t0;
+                if (rtt < rttMicros) {
+                    rttMicros = rtt;
+                    offsetMicros = viewerMicros - (t0 + t1) / 2;
+                }
+            }
+        }
+
+        void sendActivate(String stageId, long viewerEpochMillis, String options) throws IOException {
+            out.write((AppConstants.COMMAND_ACTIVATE + stageId + ":" + viewerEpochMillis + options + "\n").getBytes(StandardCharsets.US_ASCII));
+            out.flush();
+        }
+
+        String readReplyAndClose() {
+            try {
+                return reader.readLine();
+            } catch (IOException e) {
+                return null;
+            } finally {
+                try { socket.close(); } catch (IOException ignored) {}
+            }
+        }
+    }
+
+    private void sendPhotoWithTimer(File photo, List<IpList.IpEntry> entries, int durationSeconds) {
+        // Quick checks
+        if (entries == null || entries.isEmpty()) {
+            JOptionPane.showMessageDialog(this, AppMessages.ERROR_NO_IP_TO_SEND);
+            return;
+        }
+
+        // Bitiş tarihi hesapla ve logla
+        java.util.Calendar endTime = java.util.Calendar.getInstance();
+        endTime.add(java.util.Calendar.SECOND, durationSeconds);
+        String endTimeText = formatDateTime(endTime);
+        String durationText = formatDuration(durationSeconds);
+        
+        logger.info("Zamanlı fotoğraf gönderimi başlıyor - Hedef sayısı: " + entries.size() + 
+                   ", Bitiş: " + endTimeText + " (" + durationText + ")");
+
+        final String transitionSuffix = transitionHeaderSuffix();
+        deliverPhoto("Zamanlı Gönderiliyor...", photo, entries,
+            payload -> DeliveryEngine.Request.timed(payload, durationSeconds, transitionSuffix),
+            target -> logger.success("Zamanlı fotoğraf başarıyla gönderildi: " + target + " - Bitiş: " + endTimeText +
+                                     (target.isFromCache() ? " (ekran önbelleğinden)" : "")),
+            () -> "Zamanlı fotoğraf başarıyla gönderildi!\n\n" +
+                  "Bitiş tarihi: " + endTimeText + "\n" +
+                  "Süre: " + durationText);
     }
 
     private void showDateTimeDialog(IpList.IpEntry targetEntry) {
@@ -1326,6 +1435,23 @@ public class PhotoSenderApp extends JFrame {
 
     // Bir IP'nin durumunu sorgula - geliştirilmiş versiyon
     private String queryIpStatus(String ip) {
+        lastStatusQuery.put(ip, System.currentTimeMillis());
+        try {
+            // Oturum bildiren ekranda kalıcı oturum (abone değilse abone olunur); diğerlerinde ve ilk
+            // sorguda tek komutluk bağlantı - FEATURES satırı oturum desteğini bildirir
+            String reply = controlChannels.isSubscribed(ip)
+                ? controlChannels.requestText(ip, AppConstants.COMMAND_GET_STATUS)
+                : controlChannels.subscribe(ip);
+            return parseStatus(ip, new BufferedReader(new java.io.StringReader(reply)));
+        } catch (ControlChannels.UnsupportedException e) {
+            // aşağıdaki tek komutluk bağlantıya düş
+        } catch (java.net.SocketTimeoutException e) {
+            return "Zaman Aşımı";
+        } catch (java.net.ConnectException e) {
+            return "Bağlantı Reddedildi";
+        } catch (Exception e) {
+            return "Bağlantı Hatası";
+        }
         try (Socket socket = new Socket()) {
             socket.connect(new InetSocketAddress(ip, AppConstants.DEFAULT_PORT), AppConstants.CONNECTION_TIMEOUT_MS);
             socket.setSoTimeout(AppConstants.READ_TIMEOUT_MS);
@@ -1336,24 +1462,7 @@ public class PhotoSenderApp extends JFrame {
                 writer.write(AppConstants.COMMAND_GET_STATUS + "\n");
                 writer.flush();
                 
-                String response = reader.readLine();
-                if (response != null && response.startsWith("STATUS:")) {
-                    String status = response.substring(7).trim();
-                    
-                    // Status mapping - PhotoViewer'dan gelen yanıtları normalize et
-                    if (status.isEmpty() || "Default".equalsIgnoreCase(status) || "DEFAULT".equals(status)) {
-                        return "Default";
-                    } else if ("Toplantı Var".equalsIgnoreCase(status) || "MEETING".equalsIgnoreCase(status) || "CUSTOM".equalsIgnoreCase(status)) {
-                        return "Toplantı Var";
-                    } else {
-                        // Bilinmeyen durum için default kabul et
-                        logger.warn("Bilinmeyen durum yanıtı: " + status + " (IP: " + ip + ")");
-                        return status; // Orjinal yanıtı göster
-                    }
-                } else {
-                    logger.warn("Geçersiz durum yanıtı: " + response + " (IP: " + ip + ")");
-                    return "Yanıt Yok";
-                }
+                return parseStatus(ip, reader);
             }
         } catch (java.net.SocketTimeoutException e) {
             return "Zaman Aşımı";
@@ -1364,23 +1473,89 @@ public class PhotoSenderApp extends JFrame {
         }
     }
 
+    /**
+     * GET_STATUS yanıtını (STATUS satırı, isteğe bağlı SCREEN ve FEATURES satırları) okuyup durumu normalize eder.
+     */
+    private String parseStatus(String ip, BufferedReader reader) throws IOException {
+        String response = reader.readLine();
+        readStatusDetails(ip, reader);
+        if (response != null && response.startsWith("STATUS:")) {
+            String status = response.substring(7).trim();
+            
+            // Status mapping - PhotoViewer'dan gelen yanıtları normalize et
+            if (status.isEmpty() || "Default".equalsIgnoreCase(status) || "DEFAULT".equals(status)) {
+                return "Default";
+            } else if ("Toplantı Var".equalsIgnoreCase(status) || "MEETING".equalsIgnoreCase(status) || "CUSTOM".equalsIgnoreCase(status)) {
+                return "Toplantı Var";
+            } else {
+                // Bilinmeyen durum için default kabul et
+                logger.warn("Bilinmeyen durum yanıtı: " + status + " (IP: " + ip + ")");
+                return status; // Orjinal yanıtı göster
+            }
+        } else {
+            logger.warn("Geçersiz durum yanıtı: " + response + " (IP: " + ip + ")");
+            return "Yanıt Yok";
+        }
+    }
+
     // Tüm IP'lerin durumunu güncelle - geliştirilmiş versiyon
+    /**
+     * GET_STATUS yanıtının isteğe bağlı satırlarını okur: SCREEN:&lt;genişlik&gt;x&lt;yükseklik&gt; ve
+     * FEATURES:&lt;özellik&gt;,... (ör. session, cache, relay). Eski PhotoViewer sürümleri bunları göndermez, bağlantıyı hemen kapatır.
+     */
+    private void readStatusDetails(String ip, BufferedReader reader) {
+        List<String> features = List.of();
+        try {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                if (line.startsWith(AppConstants.RESPONSE_SCREEN)) {
+                    String[] size = line.substring(AppConstants.RESPONSE_SCREEN.length()).trim().split("x");
+                    int width = Integer.parseInt(size[0]);
+                    int height = Integer.parseInt(size[1]);
+                    if (width > 0 && height > 0) screenSizes.put(ip, new Dimension(width, height));
+                } else if (line.startsWith(AppConstants.RESPONSE_FEATURES)) {
+                    features = Arrays.asList(line.substring(AppConstants.RESPONSE_FEATURES.length()).trim().split(","));
+                }
+            }
+        } catch (IOException | RuntimeException e) {
+            // Ekran boyutu bilinmezse özgün fotoğraf gönderilir; özellikler bilinmezse eski protokol kullanılır
+            // ve ekran ağaçta yalnızca yaprak olur
+        }
+        deliveryEngine.setFeatures(ip, features);
+        controlChannels.setSupported(ip, features.contains(AppConstants.FEATURE_SESSION));
+    }
+
     private void updateAllIPStatuses() {
+        updateAllIPStatuses(true);
+    }
+
+    /**
+     * @param all false ise durum bildirimine abone ekranlar son sorgudan STATUS_FALLBACK_INTERVAL_MS
+     *            geçmediyse atlanır (otomatik yenileme)
+     */
+    private void updateAllIPStatuses(boolean all) {
+        if (!statusSweepRunning.compareAndSet(false, true)) {
+            return;
+        }
         SwingWorker<Void, Void> worker = new SwingWorker<Void, Void>() {
             @Override
             protected Void doInBackground() throws Exception {
-                List<IpList.IpEntry> entries = ipList.getIpEntries();
+                List<IpList.IpEntry> entries = new ArrayList<>(ipList.getIpEntries());
+                if (!all) {
+                    long now = System.currentTimeMillis();
+                    entries.removeIf(e -> (controlChannels.isSubscribed(e.getIp()) || isBeaconAlive(e.getIp()))
+                        && now - lastStatusQuery.getOrDefault(e.getIp(), 0L) < AppConstants.STATUS_FALLBACK_INTERVAL_MS);
+                }
                 
                 if (entries.isEmpty()) {
                     return null;
                 }
                 
-                // Paralel işleme için ExecutorService kullan
-                ExecutorService executor = Executors.newFixedThreadPool(Math.min(5, entries.size()));
+                // Her ekran kendi sanal thread'inde sorgulanır; yanıt vermeyenler diğerlerini bekletmez
                 List<Future<Void>> futures = new ArrayList<>();
                 
                 for (IpList.IpEntry entry : entries) {
-                    Future<Void> future = executor.submit(() -> {
+                    futures.add(deliveryEngine.submit(() -> {
                         try {
                             String oldStatus = entry.getStatus();
                             String newStatus = queryIpStatus(entry.getIp());
@@ -1394,25 +1569,24 @@ public class PhotoSenderApp extends JFrame {
                             logger.error("IP " + entry.getIp() + " durum güncelleme hatası", e);
                         }
                         return null;
-                    });
-                    futures.add(future);
+                    }));
                 }
                 
-                // Tüm görevlerin tamamlanmasını bekle
+                // Tüm sorgular için tek ortak süre: bağlantı + okuma zaman aşımı
+                long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(AppConstants.CONNECTION_TIMEOUT_MS + AppConstants.READ_TIMEOUT_MS);
                 for (Future<Void> future : futures) {
                     try {
-                        future.get(AppConstants.CONNECTION_TIMEOUT_MS * 2, TimeUnit.MILLISECONDS);
+                        future.get(Math.max(0, deadline - System.nanoTime()), TimeUnit.NANOSECONDS);
                     } catch (Exception e) {
                         // Sessizce devam et
                     }
                 }
-                
-                executor.shutdown();
                 return null;
             }
             
             @Override
             protected void done() {
+                statusSweepRunning.set(false);
                 // UI'ı güncelle
                 SwingUtilities.invokeLater(() -> {
                     ipJList.repaint();
@@ -1423,8 +1597,117 @@ public class PhotoSenderApp extends JFrame {
         worker.execute();
     }
 
+    private void startBeaconMonitor() {
+        try {
+            beaconMonitor = new BeaconMonitor(0, AppConstants.DEFAULT_PORT, () -> {
+                List<String> ips = new ArrayList<>();
+                for (IpList.IpEntry entry : new ArrayList<>(ipList.getIpEntries())) ips.add(entry.getIp());
+                return ips;
+            }, new BeaconMonitor.Listener() {
+                @Override
+                public void onBeacon(String ip, BeaconMonitor.Beacon beacon) {
+                    onBeaconReceived(ip, beacon);
+                }
+
+                @Override
+                public void onSilent(String ip) {
+                    // Sessizlik kayıp datagram da olabilir; asıl durumu TCP sorgusu belirler
+                    logger.warn("IP " + ip + " durum yayını kesildi, doğrudan sorgulanıyor");
+                    deliveryEngine.submit(() -> {
+                        String status = queryIpStatus(ip);
+                        SwingUtilities.invokeLater(() -> {
+                            ipList.updateStatus(ip, status);
+                            ipJList.repaint();
+                        });
+                        return null;
+                    });
+                }
+            }, logger);
+            beaconMonitor.start();
+        } catch (IOException e) {
+            logger.warn("UDP durum yayını dinlenemiyor, yalnızca TCP ile yoklanacak: " + e.getMessage());
+        }
+    }
+
+    private boolean isBeaconAlive(String ip) {
+        return beaconMonitor != null && beaconMonitor.isAlive(ip);
+    }
+
+    /**
+     * Ekrandan gelen UDP durum datagramı (alım thread'i). Liste yalnızca durum değişince yeniden çizilir.
+     */
+    private void onBeaconReceived(String ip, BeaconMonitor.Beacon beacon) {
+        if (beacon.screen() != null) screenSizes.put(ip, beacon.screen());
+        SwingUtilities.invokeLater(() -> {
+            for (IpList.IpEntry entry : ipList.getIpEntries()) {
+                if (!entry.getIp().equals(ip)) continue;
+                boolean changed = !beacon.status().equals(entry.getStatus());
+                if (changed) {
+                    logger.info("IP " + ip + " (" + entry.getName() + ") durum yayını: " + entry.getStatus() + " -> " + beacon.status());
+                }
+                entry.setBeacon(beacon);
+                entry.setStatus(beacon.status());
+                if (changed || beacon.timerRemainingSeconds() >= 0) ipJList.repaint();
+            }
+        });
+    }
+
+    private static String formatRemaining(long seconds) {
+        if (seconds >= 86400) return (seconds / 86400) + " gün";
+        if (seconds >= 3600) return (seconds / 3600) + " sa " + (seconds % 3600) / 60 + " dk";
+        if (seconds >= 60) return (seconds / 60) + " dk";
+        return seconds + " sn";
+    }
+
+    private static String beaconTooltip(BeaconMonitor.Beacon beacon) {
+        StringBuilder sb = new StringBuilder("<html>");
+        sb.append("Çalışma süresi: ").append(formatRemaining(beacon.uptimeMillis() / 1000)).append("<br>");
+        sb.append("Bellek: ").append(beacon.heapUsed() / (1024 * 1024)).append(" / ")
+          .append(beacon.heapMax() / (1024 * 1024)).append(" MB<br>");
+        if (beacon.screen() != null) {
+            sb.append("Ekran: ").append(beacon.screen().width).append("x").append(beacon.screen().height).append("<br>");
+        }
+        if (beacon.imageHash() != null) {
+            sb.append("Fotoğraf: ").append(beacon.imageHash(), 0, Math.min(12, beacon.imageHash().length())).append("…<br>");
+        }
+        sb.append(String.format("Yayın kaybı: %.1f%% (%d/%d)", beacon.lossPercent(), beacon.lost(), beacon.received() + beacon.lost()));
+        return sb.append("</html>").toString();
+    }
+
+    /**
+     * Abone ekrandan gelen durum bildirimi (oturumun okuma thread'i).
+     */
+    private void onStatusEvent(String ip, String text) {
+        String newStatus;
+        try {
+            newStatus = parseStatus(ip, new BufferedReader(new java.io.StringReader(text)));
+        } catch (IOException e) {
+            return;
+        }
+        SwingUtilities.invokeLater(() -> {
+            for (IpList.IpEntry entry : ipList.getIpEntries()) {
+                if (entry.getIp().equals(ip) && !newStatus.equals(entry.getStatus())) {
+                    logger.info("IP " + ip + " (" + entry.getName() + ") durum bildirdi: " + entry.getStatus() + " -> " + newStatus);
+                }
+            }
+            ipList.updateStatus(ip, newStatus);
+            ipJList.repaint();
+        });
+    }
+
     // Screenshot isteme metodu
     private BufferedImage requestScreenshot(String ip) {
+        if (controlChannels.isSupported(ip)) {
+            try {
+                byte[] reply = controlChannels.request(ip, AppConstants.COMMAND_GET_SCREENSHOT);
+                return readScreenshot(new ByteArrayInputStream(reply));
+            } catch (ControlChannels.UnsupportedException e) {
+                // aşağıdaki tek komutluk bağlantıya düş
+            } catch (Exception e) {
+                logger.error("Screenshot alma bağlantı hatası: " + ip + " - " + e.getClass().getSimpleName() + ": " + e.getMessage(), e);
+                return null;
+            }
+        }
         try (Socket socket = new Socket()) {
             socket.connect(new InetSocketAddress(ip, AppConstants.DEFAULT_PORT), AppConstants.CONNECTION_TIMEOUT_MS);
             socket.setSoTimeout(AppConstants.READ_TIMEOUT_MS);
@@ -1438,53 +1721,58 @@ public class PhotoSenderApp extends JFrame {
             writer.flush();
             
             // InputStream'i direkt al (BufferedReader kullanma!)
-            InputStream inputStream = socket.getInputStream();
+            return readScreenshot(socket.getInputStream());
+        } catch (Exception e) {
+            logger.error("Screenshot alma bağlantı hatası: " + ip + " - " + e.getClass().getSimpleName() + ": " + e.getMessage(), e);
+            return null;
+        }
+    }
+
+    /**
+     * "SCREENSHOT:&lt;boyut&gt;" başlığını ve ardından gelen resim verisini okur.
+     */
+    private BufferedImage readScreenshot(InputStream inputStream) throws IOException {
+        // Header oku - satır satır okuma için
+        StringBuilder headerBuilder = new StringBuilder();
+        int c;
+        while ((c = inputStream.read()) != -1 && c != '\n') {
+            if (c != '\r') { // CR karakterini atla
+                headerBuilder.append((char)c);
+            }
+        }
+        
+        String response = headerBuilder.toString();
+        
+        if (response.startsWith("SCREENSHOT:")) {
+            int dataSize = Integer.parseInt(response.substring(11).trim());
             
-            // Header oku - satır satır okuma için
-            StringBuilder headerBuilder = new StringBuilder();
-            int c;
-            while ((c = inputStream.read()) != -1 && c != '\n') {
-                if (c != '\r') { // CR karakterini atla
-                    headerBuilder.append((char)c);
-                }
+            // Binary veriyi oku
+            byte[] imageData = new byte[dataSize];
+            int totalRead = 0;
+            while (totalRead < dataSize) {
+                int bytesRead = inputStream.read(imageData, totalRead, dataSize - totalRead);
+                if (bytesRead == -1) break;
+                totalRead += bytesRead;
             }
             
-            String response = headerBuilder.toString();
+            if (totalRead != dataSize) {
+                logger.warn("Screenshot veri boyutu uyumsuz - Beklenen: " + dataSize + ", Okunan: " + totalRead);
+            }
             
-            if (response.startsWith("SCREENSHOT:")) {
-                int dataSize = Integer.parseInt(response.substring(11).trim());
-                
-                // Binary veriyi oku
-                byte[] imageData = new byte[dataSize];
-                int totalRead = 0;
-                while (totalRead < dataSize) {
-                    int bytesRead = inputStream.read(imageData, totalRead, dataSize - totalRead);
-                    if (bytesRead == -1) break;
-                    totalRead += bytesRead;
-                }
-                
-                if (totalRead != dataSize) {
-                    logger.warn("Screenshot veri boyutu uyumsuz - Beklenen: " + dataSize + ", Okunan: " + totalRead);
-                }
-                
-                // Byte array'den BufferedImage'e çevir
-                ByteArrayInputStream bais = new ByteArrayInputStream(imageData);
-                BufferedImage result = ImageIO.read(bais);
-                
-                if (result != null) {
-                } else {
-                    logger.error("Screenshot decode hatası - Image null");
-                }
-                
-                return result;
+            // Byte array'den BufferedImage'e çevir
+            ByteArrayInputStream bais = new ByteArrayInputStream(imageData);
+            BufferedImage result = ImageIO.read(bais);
+            
+            if (result != null) {
             } else {
-                logger.error("Geçersiz screenshot yanıtı: " + response);
+                logger.error("Screenshot decode hatası - Image null");
             }
-            return null;
-        } catch (Exception e) {
-            logger.error("Screenshot alma bağlantı hatası: " + ip + " - " + e.getClass().getSimpleName() + ": " + e.getMessage(), e);
-            return null;
+            
+            return result;
+        } else {
+            logger.error("Geçersiz screenshot yanıtı: " + response);
         }
+        return null;
     }
 
     // Screenshot gösterme dialog'u - Dinamik boyut ve en iyi kalite
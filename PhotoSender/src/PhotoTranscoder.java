@@ -0,0 +1,257 @@
+/*
+ * Bu yazılım Yusuf Ziyrek'e aittir.
+ * İzinsiz kopyalanamaz, değiştirilemez, dağıtılamaz ve ticari olarak kullanılamaz.
+ * Tüm hakları saklıdır. © 2025 Yusuf Ziyrek
+ */
+
+import java.awt.Dimension;
+import java.awt.Graphics2D;
+import java.awt.RenderingHints;
+import java.awt.image.BufferedImage;
+import java.io.Closeable;
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import javax.imageio.IIOImage;
+import javax.imageio.ImageIO;
+import javax.imageio.ImageReadParam;
+import javax.imageio.ImageReader;
+import javax.imageio.ImageWriteParam;
+import javax.imageio.ImageWriter;
+import javax.imageio.stream.ImageInputStream;
+import javax.imageio.stream.ImageOutputStream;
+
+/**
+ * Fotoğrafı her ekranın kendi çözünürlüğüne küçültüp JPEG olarak yeniden kodlar.
+ * Aynı çözünürlükteki ekranlar aynı dosyayı paylaşır; farklı çözünürlükler paralel hazırlanır.
+ * Sonuçlar (özgün dosya özeti, genişlik, yükseklik, kalite) anahtarıyla diskte saklanır; aynı
+ * fotoğraf tekrar gönderildiğinde yeniden kodlanmaz. Küçültme gerekmiyorsa, resim saydamlık
+ * içeriyorsa veya sonuç özgünden büyükse o ekrana özgün dosya gider.
+ */
+public class PhotoTranscoder {
+    private static final String SUFFIX = ".jpg";
+    private static final String TEMP_SUFFIX = ".part";
+
+    /**
+     * Bir gönderim için hazırlanan küçültülmüş içerikler; gönderim bitince kapatılmalıdır.
+     */
+    public static final class Variants implements Closeable {
+        private final Map<String, PhotoPayload> byIp = new HashMap<>();
+        private final List<PhotoPayload> opened = new ArrayList<>();
+
+        /**
+         * IP → o ekrana gidecek içerik; listede olmayan ekranlar özgün dosyayı alır.
+         */
+        public Map<String, PhotoPayload> byIp() {
+            return byIp;
+        }
+
+        @Override
+        public void close() {
+            for (PhotoPayload p : opened) p.close();
+        }
+    }
+
+    private final File dir;
+    private final long maxBytes;
+    private final AppLogger logger;
+
+    public PhotoTranscoder(File dir, long maxBytes, AppLogger logger) {
+        this.dir = dir;
+        this.maxBytes = maxBytes;
+        this.logger = logger;
+        if (!dir.exists() && !dir.mkdirs()) {
+            logger.warn("Transcode cache directory could not be created: " + dir.getAbsolutePath());
+        }
+        File[] leftovers = dir.listFiles((_, name) -> name.endsWith(TEMP_SUFFIX));
+        if (leftovers != null) {
+            for (File f : leftovers) f.delete(); // önceki çalışmadan kalan yarım yazma
+        }
+    }
+
+    /**
+     * Hedef ekranlar için küçültülmüş içerikleri hazırlar (gerekirse paralel kodlar).
+     * @param screenSizes IP → ekranın piksel boyutu; boyutu bilinmeyen ekranlar özgün dosyayı alır
+     */
+    public Variants prepare(PhotoPayload original, List<IpList.IpEntry> entries, Map<String, Dimension> screenSizes) {
+        Variants variants = new Variants();
+        String hash = original.sha256Hex();
+        Dimension source = (hash != null) ? sourceSize(original.file()) : null;
+        if (source == null) return variants;
+
+        // Çözünürlüğe göre grupla; ekrandan küçük fotoğraflar olduğu gibi gider
+        Map<Dimension, List<String>> ipsBySize = new LinkedHashMap<>();
+        for (IpList.IpEntry entry : entries) {
+            Dimension screen = screenSizes.get(entry.getIp());
+            if (screen == null || (source.width <= screen.width && source.height <= screen.height)) continue;
+            ipsBySize.computeIfAbsent(screen, _ -> new ArrayList<>()).add(entry.getIp());
+        }
+        if (ipsBySize.isEmpty()) return variants;
+
+        long start = System.nanoTime();
+        Map<Dimension, CompletableFuture<File>> jobs = new LinkedHashMap<>();
+        for (Dimension size : ipsBySize.keySet()) {
+            jobs.put(size, CompletableFuture.supplyAsync(() -> transcode(original, hash, size)));
+        }
+        for (Map.Entry<Dimension, CompletableFuture<File>> job : jobs.entrySet()) {
+            File file = job.getValue().join();
+            if (file == null) continue;
+            try {
+                PhotoPayload payload = PhotoPayload.open(file, logger);
+                variants.opened.add(payload);
+                for (String ip : ipsBySize.get(job.getKey())) variants.byIp.put(ip, payload);
+            } catch (IOException e) {
+                logger.warn("Transcoded photo could not be opened: " + file.getName() + " - " + e.getMessage());
+            }
+        }
+        logger.info("Photo prepared for " + jobs.size() + " screen resolution(s) in " +
+                    (System.nanoTime() - start) / 1_000_000 + " ms");
+        return variants;
+    }
+
+    /**
+     * @return Ekrana uygun JPEG dosyası; küçültme uygun değilse veya başarısızsa null
+     */
+    private File transcode(PhotoPayload original, String hash, Dimension screen) {
+        int quality = Math.round(AppConstants.TRANSCODE_JPEG_QUALITY * 100);
+        File target = new File(dir, hash + "-" + screen.width + "x" + screen.height + "-q" + quality + SUFFIX);
+        if (target.isFile()) {
+            target.setLastModified(System.currentTimeMillis()); // son kullanım sırası
+            return target;
+        }
+        File temp = new File(dir, target.getName() + "-" + Thread.currentThread().threadId() + TEMP_SUFFIX);
+        try {
+            BufferedImage image = decodeFitting(original.file(), screen);
+            if (image == null || image.getColorModel().hasAlpha()) return null;
+            BufferedImage scaled = scaleToFit(image, screen);
+            writeJpeg(scaled, temp, AppConstants.TRANSCODE_JPEG_QUALITY);
+            if (temp.length() >= original.length()) {
+                // Yeniden kodlama kazanç sağlamadı; özgün dosya gönderilir
+                temp.delete();
+                return null;
+            }
+            try {
+                Files.move(temp.toPath(), target.toPath(), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            } catch (AtomicMoveNotSupportedException e) {
+                Files.move(temp.toPath(), target.toPath(), StandardCopyOption.REPLACE_EXISTING);
+            }
+            logger.info("Photo transcoded for " + screen.width + "x" + screen.height + ": " +
+                        original.length() / 1024 + " KB -> " + target.length() / 1024 + " KB");
+            prune();
+            return target;
+        } catch (IOException | RuntimeException | OutOfMemoryError e) {
+            logger.warn("Photo could not be transcoded for " + screen.width + "x" + screen.height + ": " + e.getMessage());
+            temp.delete();
+            return null;
+        }
+    }
+
+    private static Dimension sourceSize(File file) {
+        try (ImageInputStream in = ImageIO.createImageInputStream(file)) {
+            Iterator<ImageReader> readers = (in != null) ? ImageIO.getImageReaders(in) : null;
+            if (readers == null || !readers.hasNext()) return null;
+            ImageReader reader = readers.next();
+            try {
+                reader.setInput(in, true, true);
+                return new Dimension(reader.getWidth(0), reader.getHeight(0));
+            } finally {
+                reader.dispose();
+            }
+        } catch (IOException e) {
+            return null;
+        }
+    }
+
+    /**
+     * Resmi, hedefin altına düşmeyecek en büyük alt örnekleme oranıyla çözer; 24 MP'lik bir
+     * fotoğraf 1080p ekran için tam boyutta belleğe açılmaz.
+     */
+    private static BufferedImage decodeFitting(File file, Dimension screen) throws IOException {
+        try (ImageInputStream in = ImageIO.createImageInputStream(file)) {
+            Iterator<ImageReader> readers = (in != null) ? ImageIO.getImageReaders(in) : null;
+            if (readers == null || !readers.hasNext()) return null;
+            ImageReader reader = readers.next();
+            try {
+                reader.setInput(in, true, true);
+                int factor = Math.max(1, Math.min(reader.getWidth(0) / screen.width, reader.getHeight(0) / screen.height));
+                ImageReadParam param = reader.getDefaultReadParam();
+                param.setSourceSubsampling(factor, factor, 0, 0);
+                return reader.read(0, param);
+            } finally {
+                reader.dispose();
+            }
+        }
+    }
+
+    /**
+     * En-boy oranını koruyarak ekrana sığdırır. Büyük küçültmeler yarıya indirerek yapılır;
+     * tek adımlı bilinear küçültmenin kenar kırılmaları oluşmaz.
+     */
+    private static BufferedImage scaleToFit(BufferedImage src, Dimension screen) {
+        double scale = Math.min(screen.width / (double) src.getWidth(), screen.height / (double) src.getHeight());
+        int targetW = Math.max(1, (int) Math.round(src.getWidth() * scale));
+        int targetH = Math.max(1, (int) Math.round(src.getHeight() * scale));
+        BufferedImage current = src;
+        while (current.getWidth() / 2 >= targetW && current.getHeight() / 2 >= targetH) {
+            current = draw(current, current.getWidth() / 2, current.getHeight() / 2);
+        }
+        if (current.getWidth() != targetW || current.getHeight() != targetH || current.getType() != BufferedImage.TYPE_INT_RGB) {
+            current = draw(current, targetW, targetH);
+        }
+        return current;
+    }
+
+    private static BufferedImage draw(BufferedImage src, int w, int h) {
+        BufferedImage dst = new BufferedImage(w, h, BufferedImage.TYPE_INT_RGB);
+        Graphics2D g = dst.createGraphics();
+        try {
+            g.setRenderingHint(RenderingHints.KEY_INTERPOLATION, RenderingHints.VALUE_INTERPOLATION_BILINEAR);
+            g.setRenderingHint(RenderingHints.KEY_RENDERING, RenderingHints.VALUE_RENDER_QUALITY);
+            g.drawImage(src, 0, 0, w, h, null);
+        } finally {
+            g.dispose();
+        }
+        return dst;
+    }
+
+    private static void writeJpeg(BufferedImage image, File file, float quality) throws IOException {
+        ImageWriter writer = ImageIO.getImageWritersByFormatName("jpeg").next();
+        try (ImageOutputStream out = ImageIO.createImageOutputStream(file)) {
+            ImageWriteParam param = writer.getDefaultWriteParam();
+            param.setCompressionMode(ImageWriteParam.MODE_EXPLICIT);
+            param.setCompressionQuality(quality);
+            writer.setOutput(out);
+            writer.write(null, new IIOImage(image, null, null), param);
+        } finally {
+            writer.dispose();
+        }
+    }
+
+    /**
+     * Klasör boyutu sınırı aşarsa en eski kullanılan dosyaları siler.
+     */
+    private synchronized void prune() {
+        File[] files = dir.listFiles((_, name) -> name.endsWith(SUFFIX));
+        if (files == null) return;
+        long total = 0;
+        for (File f : files) total += f.length();
+        if (total <= maxBytes) return;
+        Arrays.sort(files, Comparator.comparingLong(File::lastModified));
+        for (File f : files) {
+            if (total <= maxBytes) break;
+            long size = f.length();
+            if (f.delete()) total -= size;
+        }
+    }
+}
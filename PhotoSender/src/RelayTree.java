@@ -0,0 +1,138 @@
+/*
+ * Bu yazılım Yusuf Ziyrek'e aittir.
+ * İzinsiz kopyalanamaz, değiştirilemez, dağıtılamaz ve ticari olarak kullanılamaz.
+ * Tüm hakları saklıdır. © 2025 Yusuf Ziyrek
+ */
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Predicate;
+
+/**
+ * Röle dağıtımı için gönderim ağacı. Hedefler /24 alt ağlarına göre gruplanır; her alt ağda
+ * gönderici fotoğrafı yalnızca ağacın köküne yükler, kök ve röle destekleyen diğer ekranlar
+ * veriyi gelirken en fazla RELAY_FANOUT alt ekrana iletir (genişlik öncelikli yerleşim, ağaç
+ * derinliği log(n)). Eski sürüm ekranlar yalnızca yaprak olur. Göndericinin çıkış trafiği
+ * ekran sayısıyla değil alt ağ sayısıyla büyür.
+ */
+public class RelayTree {
+    private final DeliveryEngine.Target target;
+    private final List<RelayTree> children = new ArrayList<>();
+
+    private RelayTree(DeliveryEngine.Target target) {
+        this.target = target;
+    }
+
+    public DeliveryEngine.Target target() {
+        return target;
+    }
+
+    public List<RelayTree> children() {
+        return Collections.unmodifiableList(children);
+    }
+
+    /**
+     * Hedefleri alt ağ başına ağaçlara yerleştirir. Alt ekranı olmayan kökler doğrudan gönderilir.
+     * @param canRelay Ekran röle destekliyor mu (GET_STATUS'taki FEATURES satırından)
+     */
+    public static List<RelayTree> plan(List<DeliveryEngine.Target> targets, Predicate<String> canRelay) {
+        Map<String, List<DeliveryEngine.Target>> bySubnet = new LinkedHashMap<>();
+        for (DeliveryEngine.Target t : targets) {
+            bySubnet.computeIfAbsent(TransferScheduler.subnetOf(t.entry().getIp()), _ -> new ArrayList<>()).add(t);
+        }
+        List<RelayTree> roots = new ArrayList<>();
+        for (List<DeliveryEngine.Target> group : bySubnet.values()) {
+            // Röle yapabilenler öne: iç düğümler onlardan seçilir (sıralama kararlı)
+            List<DeliveryEngine.Target> ordered = new ArrayList<>(group);
+            ordered.sort(Comparator.comparing(t -> !canRelay.test(t.entry().getIp())));
+            // Ağaç tanımı tek bir komut satırına sığmalı
+            for (int from = 0; from < ordered.size(); from += AppConstants.MAX_RELAY_TREE_NODES) {
+                int to = Math.min(ordered.size(), from + AppConstants.MAX_RELAY_TREE_NODES);
+                roots.addAll(build(ordered.subList(from, to), canRelay));
+            }
+        }
+        return roots;
+    }
+
+    private static List<RelayTree> build(List<DeliveryEngine.Target> ordered, Predicate<String> canRelay) {
+        List<RelayTree> roots = new ArrayList<>();
+        Deque<RelayTree> parents = new ArrayDeque<>();
+        for (DeliveryEngine.Target t : ordered) {
+            RelayTree node = new RelayTree(t);
+            RelayTree parent = parents.peekFirst();
+            if (parent == null) {
+                // Röle yapabilecek boş yer yok: doğrudan gönderilir
+                roots.add(node);
+            } else {
+                parent.children.add(node);
+                if (parent.children.size() >= AppConstants.RELAY_FANOUT) parents.pollFirst();
+            }
+            if (canRelay.test(t.entry().getIp())) parents.addLast(node);
+        }
+        return roots;
+    }
+
+    /**
+     * Ağacın seviye sayısı (yalnız kök: 1).
+     */
+    public int height() {
+        int max = 0;
+        for (RelayTree c : children) max = Math.max(max, c.height());
+        return max + 1;
+    }
+
+    /**
+     * Kökün altındaki ağacın tanımı: "10.0.1.6(10.0.1.8,10.0.1.9),10.0.1.7".
+     */
+    public String childrenSpec() {
+        StringBuilder sb = new StringBuilder();
+        for (RelayTree c : children) {
+            if (sb.length() > 0) sb.append(',');
+            sb.append(c.target.entry().getIp());
+            if (!c.children.isEmpty()) sb.append('(').append(c.childrenSpec()).append(')');
+        }
+        return sb.toString();
+    }
+
+    /**
+     * Kök dahil ağaçtaki tüm hedefler.
+     */
+    public List<DeliveryEngine.Target> targets() {
+        List<DeliveryEngine.Target> out = new ArrayList<>();
+        collect(out);
+        return out;
+    }
+
+    private void collect(List<DeliveryEngine.Target> out) {
+        out.add(target);
+        for (RelayTree c : children) c.collect(out);
+    }
+
+    /**
+     * Kökün onay satırını ekran başına sonuca çevirir.
+     * "RELAY_ACK:OK;10.0.1.6=OK;10.0.1.7=ERR" → {kök=OK, 10.0.1.6=OK, 10.0.1.7=ERR}.
+     * Satırda olmayan ekranlar başarısız sayılmalıdır.
+     */
+    public static Map<String, String> parseAck(String rootIp, String line) {
+        Map<String, String> results = new HashMap<>();
+        if (line == null) return results;
+        if (!line.startsWith(AppConstants.RESPONSE_RELAY_ACK)) {
+            results.put(rootIp, line.trim());
+            return results;
+        }
+        String[] fields = line.substring(AppConstants.RESPONSE_RELAY_ACK.length()).split(";");
+        results.put(rootIp, fields[0].trim());
+        for (int i = 1; i < fields.length; i++) {
+            int eq = fields[i].indexOf('=');
+            if (eq > 0) results.put(fields[i].substring(0, eq).trim(), fields[i].substring(eq + 1).trim());
+        }
+        return results;
+    }
+}
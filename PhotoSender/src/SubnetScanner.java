@@ -0,0 +1,251 @@
+/*
+ * Bu yazılım Yusuf Ziyrek'e aittir.
+ * İzinsiz kopyalanamaz, değiştirilemez, dağıtılamaz ve ticari olarak kullanılamaz.
+ * Tüm hakları saklıdır. © 2025 Yusuf Ziyrek
+ */
+
+import java.io.IOException;
+import java.net.Inet4Address;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.InterfaceAddress;
+import java.net.NetworkInterface;
+import java.net.SocketException;
+import java.nio.ByteBuffer;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.Selector;
+import java.nio.channels.SocketChannel;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.Iterator;
+import java.util.List;
+import java.util.function.BooleanSupplier;
+
+/**
+ * Bir CIDR aralığındaki PhotoViewer'ları bulur. Tüm adreslere tek bir thread'den engellemeyen
+ * bağlantılar açılır (aynı anda MAX_DISCOVERY_IN_FLIGHT kadar); bağlanan her adrese GET_STATUS
+ * gönderilir ve "STATUS:" ile başlayan yanıt veren adres PhotoViewer kabul edilir. Yanıt vermeyen
+ * adresler zaman aşımına kadar beklenir, bu yüzden bir /22 birkaç saniyede taranır.
+ */
+public class SubnetScanner {
+
+    /**
+     * Tarama sırasında tarayıcı thread'inde çağrılır.
+     */
+    public interface Listener {
+        void onFound(String ip, String status);
+        void onProgress(int done, int total);
+    }
+
+    // Tek bir adres denemesi
+    private static final class Probe {
+        final String ip;
+        final long deadline;
+        final ByteBuffer request = ByteBuffer.wrap((AppConstants.COMMAND_GET_STATUS + "\n").getBytes(StandardCharsets.US_ASCII));
+        final ByteBuffer response = ByteBuffer.allocate(256);
+
+        Probe(String ip, long deadline) {
+            this.ip = ip;
+            this.deadline = deadline;
+        }
+    }
+
+    private final AppLogger logger;
+
+    public SubnetScanner(AppLogger logger) {
+        this.logger = logger;
+    }
+
+    /**
+     * "192.168.1.0/24" biçimindeki aralığın ağ ve yayın adresleri hariç tüm IPv4 adresleri.
+     * @throws IllegalArgumentException Geçersiz aralık veya MAX_DISCOVERY_ADDRESSES'ten büyük
+     */
+    public static List<String> expandCidr(String cidr) {
+        String[] parts = cidr.trim().split("/");
+        if (parts.length != 2) throw new IllegalArgumentException("CIDR biçimi a.b.c.d/n olmalı: " + cidr);
+        int prefix;
+        try {
+            prefix = Integer.parseInt(parts[1].trim());
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("Geçersiz önek uzunluğu: " + parts[1]);
+        }
+        if (prefix < 0 || prefix > 32) throw new IllegalArgumentException("Geçersiz önek uzunluğu: " + prefix);
+        String[] octets = parts[0].trim().split("\\.");
+        if (octets.length != 4) throw new IllegalArgumentException("Geçersiz IP adresi: " + parts[0]);
+        long base = 0;
+        for (String octet : octets) {
+            int value;
+            try {
+                value = Integer.parseInt(octet);
+            } catch (NumberFormatException e) {
+                throw new IllegalArgumentException("Geçersiz IP adresi: " + parts[0]);
+            }
+            if (value < 0 || value > 255) throw new IllegalArgumentException("Geçersiz IP adresi: " + parts[0]);
+            base = (base << 8) | value;
+        }
+        long size = 1L << (32 - prefix);
+        if (size > AppConstants.MAX_DISCOVERY_ADDRESSES) {
+            throw new IllegalArgumentException("Aralık çok büyük: en fazla " + AppConstants.MAX_DISCOVERY_ADDRESSES + " adres taranabilir");
+        }
+        long network = base & ~(size - 1) & 0xFFFFFFFFL;
+        List<String> result = new ArrayList<>((int) size);
+        // /31 ve /32'de ağ/yayın adresi yoktur
+        long first = (size > 2) ? network + 1 : network;
+        long last = (size > 2) ? network + size - 2 : network + size - 1;
+        for (long a = first; a <= last; a++) {
+            result.add(((a >> 24) & 0xFF) + "." + ((a >> 16) & 0xFF) + "." + ((a >> 8) & 0xFF) + "." + (a & 0xFF));
+        }
+        return result;
+    }
+
+    /**
+     * Bu bilgisayarın ilk uygun IPv4 arayüzünün aralığı (ör. "192.168.1.0/24"); bulunamazsa null.
+     */
+    public static String localCidr() {
+        try {
+            for (NetworkInterface nif : Collections.list(NetworkInterface.getNetworkInterfaces())) {
+                if (!nif.isUp() || nif.isLoopback() || nif.isVirtual()) continue;
+                for (InterfaceAddress address : nif.getInterfaceAddresses()) {
+                    InetAddress inet = address.getAddress();
+                    if (!(inet instanceof Inet4Address)) continue;
+                    // Çok geniş ağlarda tüm aralık yerine bulunulan /24 önerilir
+                    int prefix = Math.max(address.getNetworkPrefixLength(), 24);
+                    byte[] b = inet.getAddress();
+                    long value = ((b[0] & 0xFFL) << 24) | ((b[1] & 0xFF) << 16) | ((b[2] & 0xFF) << 8) | (b[3] & 0xFF);
+                    long network = value & (0xFFFFFFFFL << (32 - prefix)) & 0xFFFFFFFFL;
+                    return ((network >> 24) & 0xFF) + "." + ((network >> 16) & 0xFF) + "." + ((network >> 8) & 0xFF) + "." + (network & 0xFF) + "/" + prefix;
+                }
+            }
+        } catch (SocketException e) {
+            // öneri yapılamaz; kullanıcı aralığı kendisi girer
+        }
+        return null;
+    }
+
+    /**
+     * Adresleri tarar ve bulunan PhotoViewer IP'lerini döndürür.
+     * @param cancelled true döndüğünde tarama bulunanlarla biter
+     */
+    public List<String> scan(List<String> addresses, int port, Listener listener, BooleanSupplier cancelled) throws IOException {
+        List<String> found = new ArrayList<>();
+        Deque<String> pending = new ArrayDeque<>(addresses);
+        int total = addresses.size();
+        int done = 0;
+        long start = System.nanoTime();
+        try (Selector selector = Selector.open()) {
+            while ((!pending.isEmpty() || !selector.keys().isEmpty()) && !cancelled.getAsBoolean()) {
+                // Pencere dolana kadar yeni bağlantı başlat
+                while (!pending.isEmpty() && selector.keys().size() < AppConstants.MAX_DISCOVERY_IN_FLIGHT) {
+                    String ip = pending.poll();
+                    if (!startProbe(selector, ip, port)) {
+                        done++;
+                    }
+                }
+                selector.select(AppConstants.DISCOVERY_SELECT_INTERVAL_MS);
+                Iterator<SelectionKey> it = selector.selectedKeys().iterator();
+                while (it.hasNext()) {
+                    SelectionKey key = it.next();
+                    it.remove();
+                    Probe probe = (Probe) key.attachment();
+                    Boolean result = advance(key, probe);
+                    if (result == null) continue;
+                    close(key);
+                    done++;
+                    if (result) {
+                        found.add(probe.ip);
+                        listener.onFound(probe.ip, parseStatus(probe.response));
+                    }
+                }
+                // Süresi dolanlar: kapalı veya PhotoViewer olmayan adresler
+                long now = System.currentTimeMillis();
+                for (SelectionKey key : new ArrayList<>(selector.keys())) {
+                    if (key.isValid() && ((Probe) key.attachment()).deadline < now) {
+                        close(key);
+                        done++;
+                    }
+                }
+                listener.onProgress(done, total);
+            }
+            for (SelectionKey key : new ArrayList<>(selector.keys())) close(key);
+        }
+        logger.info("Discovery scanned " + done + "/" + total + " addresses in " +
+                    (System.nanoTime() - start) / 1_000_000 + " ms, found " + found.size() + " PhotoViewer(s)");
+        return found;
+    }
+
+    private boolean startProbe(Selector selector, String ip, int port) {
+        SocketChannel channel = null;
+        try {
+            channel = SocketChannel.open();
+            channel.configureBlocking(false);
+            long deadline = System.currentTimeMillis() + AppConstants.DISCOVERY_TIMEOUT_MS;
+            Probe probe = new Probe(ip, deadline);
+            if (channel.connect(new InetSocketAddress(ip, port))) {
+                channel.register(selector, SelectionKey.OP_WRITE, probe);
+            } else {
+                channel.register(selector, SelectionKey.OP_CONNECT, probe);
+            }
+            return true;
+        } catch (IOException e) {
+            // Ulaşılamayan ağ vb.; adres atlanır
+            if (channel != null) {
+                try { channel.close(); } catch (IOException ignored) {}
+            }
+            return false;
+        }
+    }
+
+    /**
+     * Denemeyi bir adım ilerletir.
+     * @return true: PhotoViewer; false: değil; null: devam ediyor
+     */
+    private static Boolean advance(SelectionKey key, Probe probe) {
+        SocketChannel channel = (SocketChannel) key.channel();
+        try {
+            if (key.isConnectable()) {
+                if (!channel.finishConnect()) return null;
+                key.interestOps(SelectionKey.OP_WRITE);
+            }
+            if (key.isWritable() || (key.interestOps() & SelectionKey.OP_WRITE) != 0) {
+                channel.write(probe.request);
+                if (probe.request.hasRemaining()) return null;
+                key.interestOps(SelectionKey.OP_READ);
+                return null;
+            }
+            if (key.isReadable()) {
+                int n = channel.read(probe.response);
+                for (int i = 0; i < probe.response.position(); i++) {
+                    if (probe.response.get(i) == '\n') return startsWithStatus(probe.response);
+                }
+                if (n < 0 || !probe.response.hasRemaining()) return startsWithStatus(probe.response);
+            }
+            return null;
+        } catch (IOException e) {
+            // Bağlantı reddedildi / sıfırlandı: bu adreste PhotoViewer yok
+            return false;
+        }
+    }
+
+    private static boolean startsWithStatus(ByteBuffer response) {
+        byte[] prefix = AppConstants.RESPONSE_STATUS.getBytes(StandardCharsets.US_ASCII);
+        if (response.position() < prefix.length) return false;
+        for (int i = 0; i < prefix.length; i++) {
+            if (response.get(i) != prefix[i]) return false;
+        }
+        return true;
+    }
+
+    private static String parseStatus(ByteBuffer response) {
+        String text = new String(response.array(), 0, response.position(), StandardCharsets.UTF_8);
+        int end = text.indexOf('\n');
+        return text.substring(AppConstants.RESPONSE_STATUS.length(), end >= 0 ? end : text.length()).trim();
+    }
+
+    private static void close(SelectionKey key) {
+        key.cancel();
+        try { key.channel().close(); } catch (IOException ignored) {}
+    }
+}
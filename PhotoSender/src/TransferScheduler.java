@@ -0,0 +1,168 @@
+/*
+ * Bu yazılım Yusuf Ziyrek'e aittir.
+ * İzinsiz kopyalanamaz, değiştirilemez, dağıtılamaz ve ticari olarak kullanılamaz.
+ * Tüm hakları saklıdır. © 2025 Yusuf Ziyrek
+ */
+
+import java.io.InterruptedIOException;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Fotoğraf verisi taşıyan aktarımların zamanlayıcısı. Aynı anda kaç aktarım yapılacağını sabit
+ * bir sayı yerine ağın durumuna göre belirler (TCP'deki gibi AIMD):
+ * - başarılı her aktarımda pencere büyür (eşiğe kadar hızlı, sonra yavaş),
+ * - veri aktarılırken zaman aşımı veya kopma olursa pencere yarıya iner.
+ * Ayrıca aynı alt ağdaki (aynı erişim noktası) aktarım sayısı sınırlanır ve isteğe bağlı olarak
+ * toplam hız bir jeton kovası ile sınırlanır.
+ */
+public class TransferScheduler {
+
+    /**
+     * Alınmış bir aktarım hakkı; release ile geri verilir.
+     */
+    public static final class Slot {
+        private final String subnet;
+
+        private Slot(String subnet) {
+            this.subnet = subnet;
+        }
+    }
+
+    private final AppLogger logger;
+    private final ReentrantLock lock = new ReentrantLock();
+    private final Condition slotFreed = lock.newCondition();
+    private final Map<String, Integer> activePerSubnet = new HashMap<>();
+    private int active;
+    private double window = AppConstants.TRANSFER_WINDOW_INITIAL;
+    private double slowStartThreshold = AppConstants.TRANSFER_WINDOW_MAX;
+
+    // Jeton kovası (bayt); 0 hız sınırsız demektir
+    private final ReentrantLock bucketLock = new ReentrantLock();
+    private volatile long bytesPerSecond;
+    private double tokens;
+    private long lastRefillNanos = System.nanoTime();
+
+    public TransferScheduler(AppLogger logger) {
+        this.logger = logger;
+    }
+
+    /**
+     * Pencerede ve hedefin alt ağında yer açılana kadar bekler.
+     */
+    public Slot acquire(String ip) throws InterruptedIOException {
+        String subnet = subnetOf(ip);
+        lock.lock();
+        try {
+            while (active >= (int) window || activePerSubnet.getOrDefault(subnet, 0) >= AppConstants.MAX_TRANSFERS_PER_SUBNET) {
+                slotFreed.await();
+            }
+            active++;
+            activePerSubnet.merge(subnet, 1, Integer::sum);
+            return new Slot(subnet);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Aktarım sırası beklenirken iptal edildi");
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Aktarım hakkını geri verir ve sonuca göre pencereyi ayarlar.
+     * @param acknowledged Ekran veriyi onayladı
+     * @param congested Veri aktarılırken zaman aşımı/kopma oldu (ağ tıkanıklığı belirtisi)
+     */
+    public void release(Slot slot, boolean acknowledged, boolean congested) {
+        lock.lock();
+        try {
+            active--;
+            activePerSubnet.computeIfPresent(slot.subnet, (_, n) -> (n > 1) ? n - 1 : null);
+            if (congested) {
+                slowStartThreshold = Math.max(1, window / 2);
+                window = slowStartThreshold;
+                logger.warn("Transfer congestion - concurrent transfer window: " + (int) window);
+            } else if (acknowledged) {
+                window += (window < slowStartThreshold) ? 1 : 1 / window;
+                window = Math.min(window, AppConstants.TRANSFER_WINDOW_MAX);
+            }
+            slotFreed.signalAll();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * O anki eşzamanlı aktarım penceresi.
+     */
+    public int window() {
+        lock.lock();
+        try {
+            return (int) window;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Toplam gönderim hızı sınırı; 0 veya negatif sınırı kaldırır.
+     */
+    public void setRateLimit(long bytesPerSecond) {
+        bucketLock.lock();
+        try {
+            this.bytesPerSecond = Math.max(0, bytesPerSecond);
+            tokens = 0;
+            lastRefillNanos = System.nanoTime();
+        } finally {
+            bucketLock.unlock();
+        }
+    }
+
+    public long rateLimit() {
+        return bytesPerSecond;
+    }
+
+    /**
+     * Yazılacak parça için jeton ayırır; kova boşsa gereken süre kadar bekler.
+     * Jetonlar önceden ayrıldığından (eksiye düşebilir) bekleyenler sırayla ilerler.
+     */
+    public void throttle(long bytes) throws InterruptedIOException {
+        long rate = bytesPerSecond;
+        if (rate <= 0) return;
+        long waitNanos;
+        bucketLock.lock();
+        try {
+            long now = System.nanoTime();
+            // Kova en fazla çeyrek saniyelik veri biriktirir; boşta kalan süre ani patlamaya dönüşmez
+            double capacity = Math.max(rate / 4.0, AppConstants.TRANSFER_CHUNK_SIZE);
+            tokens = Math.min(capacity, tokens + (now - lastRefillNanos) * rate / 1e9);
+            lastRefillNanos = now;
+            tokens -= bytes;
+            waitNanos = (tokens >= 0) ? 0 : (long) (-tokens * 1e9 / rate);
+        } finally {
+            bucketLock.unlock();
+        }
+        if (waitNanos > 0) {
+            try {
+                TimeUnit.NANOSECONDS.sleep(waitNanos);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new InterruptedIOException("Hız sınırı beklenirken iptal edildi");
+            }
+        }
+    }
+
+    /**
+     * IPv4 adreslerinde /24 alt ağı (çoğunlukla aynı erişim noktası); diğerlerinde adresin kendisi.
+     */
+    static String subnetOf(String ip) {
+        int lastDot = ip.lastIndexOf('.');
+        if (lastDot > 0 && ip.indexOf(':') < 0 && Character.isDigit(ip.charAt(ip.length() - 1))) {
+            return ip.substring(0, lastDot);
+        }
+        return ip;
+    }
+}
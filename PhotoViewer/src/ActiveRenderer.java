@@ -0,0 +1,208 @@
+/*
+ * Bu yazılım Yusuf Ziyrek'e aittir.
+ * İzinsiz kopyalanamaz, değiştirilemez, dağıtılamaz ve ticari olarak kullanılamaz.
+ * Tüm hakları saklıdır. © 2025 Yusuf Ziyrek
+ */
+import java.awt.*;
+import java.awt.image.BufferStrategy;
+import javax.swing.JFrame;
+import javax.swing.SwingUtilities;
+
+/**
+ * Aktif çizim modu: tam ekran çerçeve Swing'in pasif repaint yöneticisi yerine ayrı bir thread'den
+ * BufferStrategy ile (destekleniyorsa sayfa çevirme) çizilir. Kareler sabit bir bütçeyle (fps)
+ * sınırlandırılır ve sadece içerik değiştiğinde veya animasyon sürerken çizilir; böylece EDT'deki
+ * yavaşlamalar ekrana yansımaz. Kare süreleri ölçülür ve periyodik olarak loglanır.
+ */
+public class ActiveRenderer {
+    private static final int BUFFER_COUNT = 2;
+    private static final long REPORT_INTERVAL_NANOS = 60_000_000_000L; // dakikada bir rapor
+
+    private final JFrame frame;
+    private final PhotoPanel panel;
+    private final AppLogger logger;
+    private final long frameBudgetNanos;
+
+    private final Object frameLock = new Object();
+    private boolean frameRequested = true; // ilk kare her zaman çizilir
+    private volatile boolean running;
+    private Thread renderThread;
+    private volatile BufferStrategy strategy;
+
+    // Kare süresi ölçümü (sadece render thread'inde güncellenir)
+    private long frames;
+    private long totalFrameNanos;
+    private long maxFrameNanos;
+    private long overBudgetFrames;
+    private long reportStartNanos;
+
+    /**
+     * @param fps Saniyedeki en fazla kare sayısı (kare bütçesi = 1000 / fps ms)
+     */
+    public ActiveRenderer(JFrame frame, PhotoPanel panel, int fps, AppLogger logger) {
+        this.frame = frame;
+        this.panel = panel;
+        this.logger = logger;
+        this.frameBudgetNanos = 1_000_000_000L / Math.max(1, fps);
+    }
+
+    /**
+     * BufferStrategy'yi oluşturur ve çizim thread'ini başlatır. Çerçeve görünür olmalıdır.
+     * @return Aktif çizim başlatılamadıysa false (pasif modda devam edilir)
+     */
+    public boolean start() {
+        try {
+            createStrategy();
+        } catch (RuntimeException e) {
+            logger.warn("Aktif çizim başlatılamadı, pasif moda dönülüyor: " + e.getMessage());
+            return false;
+        }
+        // Swing/OS boyama isteklerini yok say; ekranı yalnızca bu sınıf çizer
+        frame.setIgnoreRepaint(true);
+        panel.setActiveRenderer(this);
+
+        running = true;
+        renderThread = new Thread(this::renderLoop, "PhotoViewer-Render");
+        renderThread.setDaemon(true);
+        renderThread.setPriority(Thread.NORM_PRIORITY + 1);
+        renderThread.start();
+        logger.success("Aktif çizim modu başlatıldı - Kare bütçesi: " + (frameBudgetNanos / 1_000_000.0) + "ms, " +
+                       "Sayfa çevirme: " + strategy.getCapabilities().isPageFlipping());
+        return true;
+    }
+
+    public void stop() {
+        running = false;
+        requestFrame();
+        panel.setActiveRenderer(null);
+    }
+
+    /**
+     * İçerik değişti; bir sonraki kare bütçesinde yeniden çizilir. Herhangi bir thread'den çağrılabilir.
+     */
+    public void requestFrame() {
+        synchronized (frameLock) {
+            frameRequested = true;
+            frameLock.notifyAll();
+        }
+    }
+
+    private void createStrategy() {
+        // Önce donanım destekli sayfa çevirme denenir; yoksa blit tabanlı strateji kullanılır
+        try {
+            frame.createBufferStrategy(BUFFER_COUNT, new BufferCapabilities(
+                new ImageCapabilities(true), new ImageCapabilities(true), BufferCapabilities.FlipContents.UNDEFINED));
+        } catch (AWTException e) {
+            frame.createBufferStrategy(BUFFER_COUNT);
+        }
+        strategy = frame.getBufferStrategy();
+        if (strategy == null) throw new IllegalStateException("BufferStrategy oluşturulamadı");
+    }
+
+    private void renderLoop() {
+        reportStartNanos = System.nanoTime();
+        boolean animating = false;
+        while (running) {
+            // Animasyon yoksa yeni bir istek gelene kadar bekle (boşta CPU kullanılmaz)
+            if (!animating && !awaitFrameRequest()) continue;
+
+            long start = System.nanoTime();
+            try {
+                animating = renderFrame();
+            } catch (RuntimeException e) {
+                // Çözünürlük değişimi vb. durumlarda strateji geçersizleşebilir; yeniden oluştur
+                logger.warn("Aktif çizim karesi başarısız: " + e);
+                animating = false;
+                recreateStrategyLater();
+            }
+            long elapsed = System.nanoTime() - start;
+            recordFrame(elapsed);
+
+            // Kare bütçesinin geri kalanında bekle (bütçeden hızlı kare çizilmez)
+            long remaining = frameBudgetNanos - elapsed;
+            if (remaining > 0) {
+                try {
+                    Thread.sleep(remaining / 1_000_000, (int) (remaining % 1_000_000));
+                } catch (InterruptedException e) {
+                    return;
+                }
+            }
+        }
+    }
+
+    private boolean awaitFrameRequest() {
+        synchronized (frameLock) {
+            try {
+                while (!frameRequested && running) {
+                    frameLock.wait(REPORT_INTERVAL_NANOS / 1_000_000);
+                    if (!frameRequested) maybeReport(System.nanoTime());
+                }
+            } catch (InterruptedException e) {
+                running = false;
+                return false;
+            }
+            frameRequested = false;
+            return running;
+        }
+    }
+
+    /**
+     * Tek bir kareyi arka tampona çizer ve gösterir.
+     * @return Panel bir sonraki kareyi de istiyorsa (animasyon) true
+     */
+    private boolean renderFrame() {
+        boolean more;
+        Point origin = SwingUtilities.convertPoint(panel, 0, 0, frame);
+        do {
+            do {
+                Graphics2D g = (Graphics2D) strategy.getDrawGraphics();
+                try {
+                    g.translate(origin.x, origin.y);
+                    g.clipRect(0, 0, panel.getWidth(), panel.getHeight());
+                    more = panel.renderActiveFrame(g);
+                } finally {
+                    g.dispose();
+                }
+            } while (strategy.contentsRestored());
+            strategy.show();
+            // Pencere sisteminin çizim kuyruğunu boşalt (sabit kare aralığı için)
+            Toolkit.getDefaultToolkit().sync();
+        } while (strategy.contentsLost());
+        return more;
+    }
+
+    private void recreateStrategyLater() {
+        SwingUtilities.invokeLater(() -> {
+            try {
+                createStrategy();
+                requestFrame();
+            } catch (RuntimeException e) {
+                logger.error("BufferStrategy yeniden oluşturulamadı: " + e.getMessage());
+            }
+        });
+    }
+
+    private void recordFrame(long elapsedNanos) {
+        frames++;
+        totalFrameNanos += elapsedNanos;
+        if (elapsedNanos > maxFrameNanos) maxFrameNanos = elapsedNanos;
+        if (elapsedNanos > frameBudgetNanos) overBudgetFrames++;
+        maybeReport(System.nanoTime());
+    }
+
+    private void maybeReport(long now) {
+        if (now - reportStartNanos < REPORT_INTERVAL_NANOS) return;
+        if (frames > 0) {
+            logger.info("Aktif çizim raporu - Kare: " + frames +
+                        ", ort: " + String.format("%.2f", totalFrameNanos / (double) frames / 1_000_000.0) + "ms" +
+                        ", max: " + String.format("%.2f", maxFrameNanos / 1_000_000.0) + "ms" +
+                        ", bütçe: " + String.format("%.2f", frameBudgetNanos / 1_000_000.0) + "ms" +
+                        ", bütçe aşımı: " + overBudgetFrames);
+        }
+        frames = 0;
+        totalFrameNanos = 0;
+        maxFrameNanos = 0;
+        overBudgetFrames = 0;
+        reportStartNanos = now;
+    }
+}
@@ -18,9 +18,31 @@ public final class AppConstants {
     // Network Configuration
     public static final int DEFAULT_PORT = 5000;
     public static final int SOCKET_TIMEOUT_MS = 10000;
+    public static final int SESSION_IDLE_TIMEOUT_MS = 60000; // Kalıcı kontrol oturumu (gönderici 20 sn'de bir ping atar)
     public static final int CONNECTION_TIMEOUT_MS = 10000;
     public static final int READ_TIMEOUT_MS = 15000; // PhotoSender ile uyumlu hale getirildi
-    public static final int PUSHBACK_BUFFER_SIZE = 8192;
+    public static final int NIO_READ_BUFFER_SIZE = 64 * 1024; // Bağlantı başına direct buffer
+    public static final int MAX_COMMAND_LINE_LENGTH = 4096;
+    public static final int HEAVY_LANE_PERMITS = 2; // Aynı anda alınan screenshot sayısı
+    
+    // Receive Pipeline Configuration
+    public static final int DECODE_THREADS = 2;
+    public static final int DECODE_QUEUE_CAPACITY = 2; // Doluysa en eski iş düşer (en yeni kazanır)
+    public static final int SCALE_QUEUE_CAPACITY = 1;
+    
+    // Progressive JPEG Preview
+    public static final long PROGRESSIVE_PREVIEW_MIN_BYTES = 1024 * 1024; // daha küçük fotoğraflar zaten hızlı gelir
+    public static final long PROGRESSIVE_PREVIEW_DELAY_MS = 300; // bu süreden önce biten aktarımda ara resim çözülmez
+    public static final long PROGRESSIVE_PREVIEW_INTERVAL_MS = 500; // ara resimler arasındaki en kısa süre
+    
+    // Staging / Synchronized Activation
+    public static final int MAX_STAGED_PHOTOS = 4; // Etkinleştirilmeyi bekleyen en fazla ön yüklenmiş fotoğraf
+    public static final long MAX_ACTIVATION_DELAY_MS = 60_000; // ACTIVATE zamanı en fazla bu kadar ileride olabilir
+    public static final long ACTIVATION_SPIN_NANOS = 2_000_000; // Hedef zamandan önceki son 2 ms aktif beklenir
+    
+    // Image Cache Configuration
+    public static final long DEFAULT_IMAGE_CACHE_MB = 512; // Diskteki SHA-256 önbelleğinin üst sınırı
+    public static final String IMAGE_CACHE_DIR_NAME = "cache";
     
     // Time Constants for compatibility with PhotoSender
     public static final int HOUR_IN_SECONDS = 3600;
@@ -33,6 +55,9 @@ public final class AppConstants {
     public static final int OPTIMAL_BUFFER_SIZE_MIN = 8192;
     public static final int OPTIMAL_BUFFER_SIZE_MAX = 65536;
     public static final int STREAM_TO_FILE_THRESHOLD = 50 * 1024 * 1024; // 50 MB
+    public static final long BUFFER_POOL_MAX_BYTES = 96L * 1024 * 1024; // havuzda bekleyen dizilerin üst sınırı (heap/8'i de aşmaz)
+    public static final int BUFFER_POOL_MIN_SIZE = 256 * 1024; // daha küçük diziler havuza girmez
+    public static final int BUFFER_POOL_PER_CLASS = 2; // boyut sınıfı başına bekleyen en fazla dizi
     
     // UI Configuration
     public static final int CURSOR_IDLE_MS = 3000;
@@ -42,6 +67,9 @@ public final class AppConstants {
     public static final int DATE_FONT_SIZE = 20;
     public static final int INFO_FONT_SIZE = 48;
     public static final int CLOCK_MARGIN = 18;
+    public static final int DEFAULT_RENDER_FPS = 60; // Aktif çizim modunda kare bütçesi
+    public static final int DEFAULT_TRANSITION_MS = 600;
+    public static final int MAX_TRANSITION_MS = 5000;
     
     // Colors
     public static final java.awt.Color INFO_BACKGROUND_COLOR = new java.awt.Color(230, 230, 230);
@@ -56,12 +84,22 @@ public final class AppConstants {
     public static final String CONFIG_MODE_KEY = "mode";
     public static final String CONFIG_SAVED_IMAGE_PATH_KEY = "savedImagePath";
     public static final String CONFIG_AUTO_FOLDER_KEY = "autoFolder";
+    public static final String CONFIG_RENDER_MODE_KEY = "renderMode";
+    public static final String CONFIG_RENDER_FPS_KEY = "renderFps";
+    public static final String CONFIG_TRANSITION_KEY = "transition"; // NONE, FADE, SLIDE
+    public static final String CONFIG_TRANSITION_MS_KEY = "transitionMs";
+    public static final String CONFIG_IMAGE_CACHE_MB_KEY = "imageCacheMb"; // 0 ise önbellek kapalı
+    public static final String CONFIG_RELAY_KEY = "relay"; // false ise fotoğraf diğer ekranlara iletilmez
+    public static final String CONFIG_PROGRESSIVE_PREVIEW_KEY = "progressivePreview"; // false ise alım sırasında ara resim gösterilmez
+    public static final String CONFIG_BIND_ADDRESS_KEY = "bindAddress"; // boşsa tüm arayüzler; ör. 127.0.0.2 (tek makinede çok ekran denemesi)
     public static final String CONFIG_COMMENT = "PhotoViewer settings";
     
     // Configuration Values
     public static final String MODE_PROMPT = "PROMPT";
     public static final String MODE_MANUAL = "MANUAL";
     public static final String MODE_AUTO = "AUTO";
+    public static final String RENDER_MODE_PASSIVE = "PASSIVE";
+    public static final String RENDER_MODE_ACTIVE = "ACTIVE";
     
     // Protocol Commands
     public static final String COMMAND_SHOW_DEFAULT = "SHOW_DEFAULT";
@@ -69,8 +107,49 @@ public final class AppConstants {
     public static final String COMMAND_SEND_PHOTO_WITH_TIMER = "SEND_PHOTO_WITH_TIMER:";
     public static final String COMMAND_GET_STATUS = "GET_STATUS";
     public static final String COMMAND_GET_SCREENSHOT = "GET_SCREENSHOT";
+    public static final String COMMAND_GET_PIPELINE_STATS = "GET_PIPELINE_STATS";
+    public static final String COMMAND_SHOW_CACHED = "SHOW_CACHED:"; // SHOW_CACHED:<sha256>[:<süre>[:<geçiş>:<ms>]]
+    public static final String COMMAND_STAGE = "STAGE:"; // STAGE:<id>:<boyut> + veri
+    public static final String COMMAND_STAGE_CACHED = "STAGE_CACHED:"; // STAGE_CACHED:<id>:<sha256>
+    public static final String COMMAND_ACTIVATE = "ACTIVATE:"; // ACTIVATE:<id>:<epoch ms>[:<süre>[:<geçiş>:<ms>]]
+    public static final String COMMAND_TIME_SYNC = "TIME_SYNC"; // Yanıt: TIME:<epoch µs>, bağlantı açık kalır
     public static final String RESPONSE_OK = "OK\n";
     public static final String RESPONSE_ERROR = "ERR\n";
+    public static final String RESPONSE_CACHE_MISS = "MISS\n";
+    public static final String COMMAND_SESSION = "SESSION"; // Yanıt: SESSION_OK, ardından çerçeveli oturum
+    public static final String COMMAND_PING = "PING"; // Yalnızca oturumda; yanıt: PONG
+    public static final String RESPONSE_SESSION_OK = "SESSION_OK\n";
+    public static final String RESPONSE_PONG = "PONG\n";
+    public static final String COMMAND_SUBSCRIBE = "SUBSCRIBE"; // Oturumda: durum değişikliklerini bildir
+    public static final int EVENT_REQUEST_ID = 0; // Bildirim çerçeveleri; gönderici istek numaraları 1'den başlar
+
+    // UDP durum yayını: göndericiler TCP portuyla aynı numaralı UDP portuna BEACON_HELLO gönderir,
+    // ekran onlara periyodik ve durum değişiminde kısa bir durum datagramı yollar
+    public static final String BEACON_HELLO = "PVHELLO";
+    public static final int BEACON_MAGIC = 0x50564231; // "PVB1"
+    public static final int BEACON_INTERVAL_MS = 5000;
+    public static final long BEACON_SUBSCRIBER_TTL_MS = 60000; // HELLO yenilenmezse gönderici listeden çıkar
+    public static final int MAX_BEACON_SUBSCRIBERS = 64;
+    public static final String RESPONSE_SCREEN = "SCREEN:"; // GET_STATUS'un ikinci satırı: SCREEN:<genişlik>x<yükseklik>
+    public static final String RESPONSE_FEATURES = "FEATURES:"; // GET_STATUS'ta desteklenen özellikler (virgülle ayrılmış)
+    public static final String FEATURE_CACHE = "cache";
+    public static final String FEATURE_SESSION = "session";
+    public static final String FEATURE_RELAY = "relay";
+    public static final String FEATURE_RESUME = "resume";
+
+    // Sürdürülebilir yükleme: veri CRC32C'li parçalarla gelir, kopan bağlantıda kalan yerden devam edilir
+    public static final String COMMAND_SEND_CHUNKED = "SEND_CHUNKED:"; // SEND_CHUNKED:<sha256>:<boyut>:<parça>:<süre>[:<geçiş>:<ms>]
+    public static final String RESPONSE_OFFSET = "OFFSET:"; // SEND_CHUNKED'a ilk yanıt: OFFSET:<alınmış bayt>
+    public static final int MAX_UPLOAD_CHUNK_SIZE = 8 * 1024 * 1024;
+    public static final long UPLOAD_PARTIAL_TTL_MS = 30 * 60 * 1000L; // sürdürülmeyen yarım yükleme silinir
+    public static final String UPLOAD_DIR_NAME = "uploads";
+
+    // Röle dağıtımı: ekran aldığı fotoğrafı gelirken alt ekranlara iletir, onayları toplayıp yukarı bildirir
+    public static final String COMMAND_RELAY_PHOTO = "RELAY_PHOTO:"; // RELAY_PHOTO:<boyut>:<süre>:<ağaç>[:<geçiş>:<ms>] + veri
+    public static final String RESPONSE_RELAY_ACK = "RELAY_ACK:"; // RELAY_ACK:<kendi sonucu>[;<ip>=<sonuç>]*
+    public static final int RELAY_HOP_TIMEOUT_MS = 15000; // Ağacın her seviyesi için onay bekleme payı
+    public static final int MAX_RELAY_DEPTH = 8;
+    public static final long RELAY_QUEUE_MAX_BYTES = 16L * 1024 * 1024; // alt ekran bundan fazla geride kalırsa bırakılır
     
     // Status Response Values
     public static final String STATUS_DEFAULT = "DEFAULT";
@@ -0,0 +1,74 @@
+/*
+ * Bu yazılım Yusuf Ziyrek'e aittir.
+ * İzinsiz kopyalanamaz, değiştirilemez, dağıtılamaz ve ticari olarak kullanılamaz.
+ * Tüm hakları saklıdır. © 2025 Yusuf Ziyrek
+ */
+import java.util.ArrayDeque;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Fotoğraf alımı için boyut sınıflı bayt dizisi havuzu. Her gönderimde onlarca MB'lık dizi
+ * ayırmak yerine çözülüp bırakılan dizi sonraki alımda tekrar kullanılır. Boyut sınıfları iki
+ * kuvvetinin dörtte biri adımlarla ilerler (istenenden en fazla %25 büyük dizi verilir). Havuzda
+ * bekleyen toplam bayt BUFFER_POOL_MAX_BYTES ve heap'in sekizde biri ile sınırlıdır; sığmayan
+ * diziler GC'ye bırakılır.
+ */
+public class BufferPool {
+    private final long maxPooledBytes;
+    private final Map<Integer, ArrayDeque<byte[]>> free = new HashMap<>();
+    private long pooledBytes;
+    private long hits;
+    private long misses;
+
+    public BufferPool(long maxPooledBytes) {
+        this.maxPooledBytes = Math.min(maxPooledBytes, Runtime.getRuntime().maxMemory() / 8);
+    }
+
+    /**
+     * En az length baytlık dizi; küçük istekler için havuzsuz tam boyutlu dizi.
+     */
+    public byte[] borrow(int length) {
+        if (length < AppConstants.BUFFER_POOL_MIN_SIZE) return new byte[length];
+        int size = sizeClass(length);
+        synchronized (this) {
+            ArrayDeque<byte[]> queue = free.get(size);
+            byte[] array = (queue != null) ? queue.pollFirst() : null;
+            if (array != null) {
+                pooledBytes -= size;
+                hits++;
+                return array;
+            }
+            misses++;
+        }
+        return new byte[size];
+    }
+
+    /**
+     * Diziyi havuza geri verir. Dizi artık hiçbir yerde kullanılmamalıdır.
+     */
+    public void giveBack(byte[] array) {
+        int size = array.length;
+        if (size < AppConstants.BUFFER_POOL_MIN_SIZE || sizeClass(size) != size) return;
+        synchronized (this) {
+            ArrayDeque<byte[]> queue = free.computeIfAbsent(size, _ -> new ArrayDeque<>());
+            if (queue.size() >= AppConstants.BUFFER_POOL_PER_CLASS || pooledBytes + size > maxPooledBytes) return;
+            queue.addFirst(array);
+            pooledBytes += size;
+        }
+    }
+
+    /**
+     * Havuz durumu (GET_PIPELINE_STATS yanıtı için).
+     */
+    public synchronized String summary() {
+        return "tampon havuzu=" + (pooledBytes / (1024 * 1024)) + "MB/" + (maxPooledBytes / (1024 * 1024)) +
+               "MB, isabet " + hits + ", ıska " + misses;
+    }
+
+    static int sizeClass(int length) {
+        int step = Math.max(1, Integer.highestOneBit(length) >> 2);
+        long size = ((long) length + step - 1) / step * step;
+        return (int) Math.min(size, Integer.MAX_VALUE - 8);
+    }
+}
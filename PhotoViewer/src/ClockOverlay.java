@@ -0,0 +1,163 @@
+/*
+ * Bu yazılım Yusuf Ziyrek'e aittir.
+ * İzinsiz kopyalanamaz, değiştirilemez, dağıtılamaz ve ticari olarak kullanılamaz.
+ * Tüm hakları saklıdır. © 2025 Yusuf Ziyrek
+ */
+import java.awt.*;
+import java.awt.geom.AffineTransform;
+import java.awt.image.BufferedImage;
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.time.format.DateTimeFormatter;
+
+/**
+ * Sağ üst köşedeki saat + tarih bindirmesi. Metin küçük şeffaf bir resme bir kez çizilir ve
+ * sadece biçimlenmiş metin değişince (dakikada bir) yenilenir; panel yalnızca bu dikdörtgeni boyar.
+ * Aktif çizim modunda render thread'inden de boyandığı için metotlar senkronizedir.
+ */
+public class ClockOverlay {
+    private static final int LINE_GAP = 6; // saat ile tarih arası boşluk
+    private static final int PADDING = 2;  // antialias kenarları için pay
+
+    private Component owner;
+    private final DateTimeFormatter timeFmt = DateTimeFormatter.ofPattern(AppConstants.TIME_FORMAT_PATTERN);
+    private final DateTimeFormatter dateFmt = DateTimeFormatter.ofPattern(AppConstants.DATE_FORMAT_PATTERN);
+    // Bigger, clearer fonts: large for time, smaller for date (increased per user request)
+    private final Font timeFont = new Font("SansSerif", Font.PLAIN, AppConstants.TIME_FONT_SIZE);
+    private final Font dateFont = new Font("SansSerif", Font.PLAIN, AppConstants.DATE_FONT_SIZE);
+
+    private String timeText = "";
+    private String dateText = "";
+
+    // Önceden çizilmiş metin (cihaz pikseli ölçeğinde) ve yerleşimi
+    private BufferedImage cachedText;
+    private double cachedScale;
+    private Layout cachedLayout;
+
+    /**
+     * Bindirmeyi bileşene bağlar ve ilk metni biçimlendirir; saat zamanlayıcısı başlarken çağrılır.
+     * @param owner Font ölçüleri ve konum için bindirmenin çizildiği bileşen
+     */
+    public synchronized void start(Component owner) {
+        this.owner = owner;
+        update();
+    }
+
+    /**
+     * Saati yeniden biçimlendirir.
+     * @return Görünen metin değiştiyse true (bindirme yeniden boyanmalı)
+     */
+    public synchronized boolean update() {
+        String newTime;
+        String newDate;
+        try {
+            newTime = LocalTime.now().format(timeFmt);
+            newDate = LocalDate.now().format(dateFmt);
+        } catch (Exception e) {
+            newTime = "";
+            newDate = "";
+        }
+        if (newTime.equals(timeText) && newDate.equals(dateText)) return false;
+        timeText = newTime;
+        dateText = newDate;
+        cachedLayout = null;
+        releaseCache();
+        return true;
+    }
+
+    public synchronized boolean isEmpty() {
+        return timeText.isEmpty();
+    }
+
+    /**
+     * Bindirmenin panel koordinatlarındaki dikdörtgeni (metin boşsa boş dikdörtgen).
+     */
+    public synchronized Rectangle getBounds() {
+        if (isEmpty()) return new Rectangle();
+        Layout l = layout();
+        return new Rectangle(l.x, l.y, l.width, l.height);
+    }
+
+    public synchronized void paint(Graphics2D g2d) {
+        if (isEmpty()) return;
+        Layout l = layout();
+        AffineTransform tx = g2d.getTransform();
+        double scale = Math.max(tx.getScaleX(), tx.getScaleY());
+        if (cachedText == null || cachedScale != scale) {
+            releaseCache();
+            cachedText = renderText(l, scale);
+            cachedScale = scale;
+        }
+        if (scale == 1.0) {
+            g2d.drawImage(cachedText, l.x, l.y, null);
+        } else {
+            g2d.drawImage(cachedText, l.x, l.y, l.width, l.height, null);
+        }
+    }
+
+    public synchronized void releaseCache() {
+        if (cachedText != null) {
+            cachedText.flush();
+            cachedText = null;
+        }
+    }
+
+    private BufferedImage renderText(Layout l, double scale) {
+        BufferedImage img = new BufferedImage((int) Math.ceil(l.width * scale), (int) Math.ceil(l.height * scale),
+                                              BufferedImage.TYPE_INT_ARGB);
+        Graphics2D g = img.createGraphics();
+        try {
+            g.scale(scale, scale);
+            g.setRenderingHint(RenderingHints.KEY_TEXT_ANTIALIASING, RenderingHints.VALUE_TEXT_ANTIALIAS_ON);
+            g.setRenderingHint(RenderingHints.KEY_ANTIALIASING, RenderingHints.VALUE_ANTIALIAS_ON);
+            // Draw main text in blue (no shadow)
+            g.setColor(AppConstants.CLOCK_COLOR);
+            g.setFont(timeFont);
+            g.drawString(timeText, l.txTime - l.x, l.tyTime - l.y);
+            g.setFont(dateFont);
+            g.drawString(dateText, l.txDate - l.x, l.tyDate - l.y);
+        } finally {
+            g.dispose();
+        }
+        return img;
+    }
+
+    /**
+     * Saat sağ kenara yaslanır, tarih saatin altında ortalanır. Metin ve bileşen genişliği
+     * değişmedikçe önceki yerleşim kullanılır.
+     */
+    private Layout layout() {
+        if (cachedLayout != null && cachedLayout.ownerWidth == owner.getWidth()) return cachedLayout;
+        int margin = AppConstants.CLOCK_MARGIN; // köşeden uzaklık
+        FontMetrics fmTime = owner.getFontMetrics(timeFont);
+        FontMetrics fmDate = owner.getFontMetrics(dateFont);
+        int timeW = fmTime.stringWidth(timeText);
+        int dateW = fmDate.stringWidth(dateText);
+
+        Layout l = new Layout();
+        l.ownerWidth = owner.getWidth();
+        l.txTime = owner.getWidth() - timeW - margin;
+        l.tyTime = margin + fmTime.getAscent();
+        int centerX = l.txTime + timeW / 2;
+        l.txDate = (int) Math.round(centerX - dateW / 2.0);
+        if (l.txDate < margin) l.txDate = margin; // don't go beyond left margin
+        l.tyDate = l.tyTime + LINE_GAP + fmDate.getAscent();
+
+        int left = Math.min(l.txTime, l.txDate) - PADDING;
+        int right = Math.max(l.txTime + timeW, l.txDate + dateW) + PADDING;
+        int top = l.tyTime - fmTime.getAscent() - PADDING;
+        int bottom = l.tyDate + fmDate.getDescent() + PADDING;
+        l.x = left;
+        l.y = top;
+        l.width = right - left;
+        l.height = bottom - top;
+        cachedLayout = l;
+        return l;
+    }
+
+    private static final class Layout {
+        int ownerWidth;
+        int x, y, width, height;
+        int txTime, tyTime, txDate, tyDate;
+    }
+}
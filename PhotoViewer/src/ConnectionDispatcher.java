@@ -0,0 +1,558 @@
+/*
+ * Bu yazılım Yusuf Ziyrek'e aittir.
+ * İzinsiz kopyalanamaz, değiştirilemez, dağıtılamaz ve ticari olarak kullanılamaz.
+ * Tüm hakları saklıdır. © 2025 Yusuf Ziyrek
+ */
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+
+/**
+ * ViewerProtocolEngine'den gelen komutları işleyen dağıtım katmanı.
+ * GET_STATUS ve SHOW_DEFAULT gibi ucuz komutlar hemen yanıtlanır, ekran görüntüsü gibi ağır işler
+ * sınırlı bir şeritten geçer. Fotoğraflar ReceivePipeline'a devredilir; ekranı etkileyen komutlar
+ * geliş sırasına göre numaralanır ve PhotoPanel'e bu sırayla uygulanır.
+ * SESSION komutuyla açılan kalıcı oturumlarda durum, ekran görüntüsü gibi küçük istekler
+ * istek numaralı çerçevelerle aynı bağlantı üzerinden (birden fazlası aynı anda) yanıtlanır.
+ * SUBSCRIBE ile abone olan oturumlara ekran durumu her değiştiğinde bildirim çerçevesi gönderilir.
+ * RELAY_PHOTO ile gelen fotoğraf alınırken RelayNode ile alt ekranlara da iletilir; onay, bu ekranın
+ * ve tüm alt ekranların sonuçlarını birlikte taşır.
+ * SEND_CHUNKED ile gelen fotoğraf parça parça doğrulanarak diske yazılır; bağlantı koparsa gönderici
+ * yeniden bağlandığında yalnızca eksik kısmı gönderir.
+ */
+public class ConnectionDispatcher implements ViewerProtocolEngine.CommandHandler {
+    private final AppLogger logger;
+    private final PhotoPanel photoPanel;
+    private final ReceivePipeline pipeline;
+    private final ImageCache imageCache;
+
+    // Selector thread'ini bloklamamak için işler sanal thread'lerde çalışır
+    private final ExecutorService workerExecutor = Executors.newVirtualThreadPerTaskExecutor();
+
+    // Ağır şerit: aynı anda alınan ekran görüntüsü sayısını sınırlar
+    private final Semaphore heavyLane = new Semaphore(AppConstants.HEAVY_LANE_PERMITS, true);
+
+    // Durum bildirimine abone oturumlar
+    private final Set<ViewerConnection> subscribers = ConcurrentHashMap.newKeySet();
+
+    // false ise RELAY_PHOTO'daki alt ekranlara iletilmez (ERR bildirilir) ve GET_STATUS röle desteği duyurmaz
+    private volatile boolean relayEnabled = true;
+
+    // false ise ilerlemeli JPEG alınırken ara resim gösterilmez
+    private volatile boolean progressivePreviewEnabled = true;
+
+    // SEND_CHUNKED yarım yüklemelerinin tutulduğu klasör
+    private volatile File uploadDir = new File(System.getProperty("java.io.tmpdir"), "PhotoViewer-" + AppConstants.UPLOAD_DIR_NAME);
+
+    /**
+     * Yanıtın nereye gideceği: tek komutluk bağlantıda yanıt gönderilip bağlantı kapanır,
+     * oturumda istek numarasıyla çerçevelenir.
+     */
+    private interface Reply {
+        void send(ByteBuffer... buffers);
+        void fail();
+    }
+
+    /**
+     * @param imageCache SHOW_CACHED için önbellek (null ise her istek MISS alır)
+     */
+    public ConnectionDispatcher(PhotoPanel photoPanel, ReceivePipeline pipeline, ImageCache imageCache, AppLogger logger) {
+        this.photoPanel = photoPanel;
+        this.pipeline = pipeline;
+        this.imageCache = imageCache;
+        this.logger = logger;
+        photoPanel.addStatusListener(this::publishStatus);
+    }
+
+    public void setRelayEnabled(boolean relayEnabled) {
+        this.relayEnabled = relayEnabled;
+    }
+
+    public void setProgressivePreviewEnabled(boolean progressivePreviewEnabled) {
+        this.progressivePreviewEnabled = progressivePreviewEnabled;
+    }
+
+    public void setUploadDirectory(File uploadDir) {
+        this.uploadDir = uploadDir;
+        ImageReceiver.pruneUploads(uploadDir);
+    }
+
+    public void shutdown() {
+        workerExecutor.shutdownNow();
+    }
+
+    @Override
+    public void onCommand(ViewerConnection conn, String command) {
+        if (command.equals(AppConstants.COMMAND_TIME_SYNC)) {
+            // Gönderici saat farkını ölçer; aynı bağlantıda birkaç kez sorulur, ardından ACTIVATE gelir.
+            // Zaman damgası log yazılmadan alınır ki ölçüm gecikmesi simetrik kalsın
+            conn.send("TIME:" + epochMicros() + "\n");
+            return;
+        }
+        String clientIP = conn.getRemoteAddress();
+        logger.info("Komut alındı: " + command + " (Kaynak: " + clientIP + ")");
+
+        if (command.equals(AppConstants.COMMAND_GET_STATUS)) {
+            handleStatus(lineReply(conn), clientIP);
+        } else if (command.equals(AppConstants.COMMAND_SESSION)) {
+            conn.send(AppConstants.RESPONSE_SESSION_OK);
+            conn.enterSession();
+        } else if (command.equals(AppConstants.COMMAND_GET_PIPELINE_STATS)) {
+            conn.sendAndClose("PIPELINE:" + pipeline.statsSummary() + "\n");
+        } else if (command.equals(AppConstants.COMMAND_SHOW_DEFAULT)) {
+            conn.close();
+            pipeline.submitShowDefault(pipeline.nextSequence());
+        } else if (command.equals(AppConstants.COMMAND_GET_SCREENSHOT)) {
+            conn.markBusy();
+            workerExecutor.execute(() -> runInHeavyLane(() -> handleScreenshot(lineReply(conn), clientIP)));
+        } else if (command.startsWith(AppConstants.COMMAND_SHOW_CACHED)) {
+            handleShowCached(conn, command);
+        } else if (command.startsWith(AppConstants.COMMAND_STAGE)) {
+            handleStage(conn, command);
+        } else if (command.startsWith(AppConstants.COMMAND_STAGE_CACHED)) {
+            handleStageCached(conn, command);
+        } else if (command.startsWith(AppConstants.COMMAND_ACTIVATE)) {
+            handleActivate(conn, command);
+        } else if (command.startsWith(AppConstants.COMMAND_SEND_CHUNKED)) {
+            handleChunked(conn, command);
+        } else if (command.startsWith(AppConstants.COMMAND_RELAY_PHOTO)) {
+            handleRelayPhoto(conn, command);
+        } else if (command.startsWith(AppConstants.COMMAND_SEND_PHOTO_WITH_TIMER)) {
+            // Yeni protokol: SEND_PHOTO_WITH_TIMER:boyut:süre[:geçiş:ms]
+            String[] parts = command.split(":");
+            try {
+                int length = Integer.parseInt(parts[1]);
+                long durationSeconds = Long.parseLong(parts[2]);
+                receivePhoto(conn, length, durationSeconds, parseTransition(parts, 3));
+            } catch (RuntimeException ex) {
+                logger.warn("Zamanlı fotoğraf header parse hatası: " + ex.getMessage());
+                conn.close();
+            }
+        } else {
+            // Eski protokol: Normal fotoğraf gelirse göster
+            // Beklenen format: SEND_PHOTO:<length>[:<geçiş>:<ms>]\n followed by exactly <length> bytes
+            int length = -1;
+            Transition transition = Transition.NONE;
+            if (command.startsWith(AppConstants.COMMAND_SEND_PHOTO)) {
+                String[] parts = command.split(":");
+                try {
+                    length = Integer.parseInt(parts[1]);
+                    transition = parseTransition(parts, 2);
+                } catch (Exception ex) {
+                    logger.warn("Header parse hatası: " + ex.getMessage());
+                }
+            }
+            receivePhoto(conn, length, 0, transition);
+        }
+    }
+
+    @Override
+    public void onRequest(ViewerConnection conn, int requestId, String command) {
+        Reply reply = new Reply() {
+            @Override
+            public void send(ByteBuffer... buffers) {
+                conn.sendFrame(requestId, buffers);
+            }
+
+            @Override
+            public void fail() {
+                conn.sendFrame(requestId, utf8(AppConstants.RESPONSE_ERROR));
+            }
+        };
+        if (command.equals(AppConstants.COMMAND_PING)) {
+            reply.send(utf8(AppConstants.RESPONSE_PONG));
+            return;
+        }
+        String clientIP = conn.getRemoteAddress();
+        logger.info("Oturum komutu alındı: " + command + " #" + requestId + " (Kaynak: " + clientIP + ")");
+
+        if (command.equals(AppConstants.COMMAND_GET_STATUS)) {
+            handleStatus(reply, clientIP);
+        } else if (command.equals(AppConstants.COMMAND_SUBSCRIBE)) {
+            // Yanıt o anki durumdur; sonraki değişiklikler bildirim çerçevesiyle gelir
+            conn.subscribe();
+            subscribers.add(conn);
+            handleStatus(reply, clientIP);
+        } else if (command.equals(AppConstants.COMMAND_GET_PIPELINE_STATS)) {
+            reply.send(utf8("PIPELINE:" + pipeline.statsSummary() + "\n"));
+        } else if (command.equals(AppConstants.COMMAND_SHOW_DEFAULT)) {
+            pipeline.submitShowDefault(pipeline.nextSequence());
+            reply.send(utf8(AppConstants.RESPONSE_OK));
+        } else if (command.equals(AppConstants.COMMAND_GET_SCREENSHOT)) {
+            workerExecutor.execute(() -> runInHeavyLane(() -> handleScreenshot(reply, clientIP)));
+        } else {
+            // Fotoğraf verisi oturumda taşınmaz; ayrı bağlantıyla gönderilir
+            reply.fail();
+        }
+    }
+
+    private static Reply lineReply(ViewerConnection conn) {
+        return new Reply() {
+            @Override
+            public void send(ByteBuffer... buffers) {
+                conn.sendAndClose(buffers);
+            }
+
+            @Override
+            public void fail() {
+                conn.close();
+            }
+        };
+    }
+
+    private static ByteBuffer utf8(String text) {
+        return ByteBuffer.wrap(text.getBytes(StandardCharsets.UTF_8));
+    }
+
+    // Öncelikli şerit -------------------------------------------------------
+
+    private void handleStatus(Reply reply, String clientIP) {
+        String status = photoPanel.getStatusDetails();
+        reply.send(utf8(statusText(status)));
+        logger.info("Durum bilgisi gönderildi: " + status + " (Kaynak: " + clientIP + ")");
+    }
+
+    private String statusText(String status) {
+        // Ekran boyutu ve desteklenen özellikler sonraki satırlarda: gönderici fotoğrafı bu boyuta
+        // küçültüp gönderir. Yalnızca ilk satırı okuyan eski göndericiler etkilenmez
+        java.awt.Dimension screen = pipeline.screenSize();
+        String screenLine = (screen != null) ? AppConstants.RESPONSE_SCREEN + screen.width + "x" + screen.height + "\n" : "";
+        String features = AppConstants.FEATURE_SESSION + "," + AppConstants.FEATURE_RESUME +
+                          (imageCache != null ? "," + AppConstants.FEATURE_CACHE : "") +
+                          (relayEnabled ? "," + AppConstants.FEATURE_RELAY : "");
+        return "STATUS:" + status + "\n" + screenLine + AppConstants.RESPONSE_FEATURES + features + "\n";
+    }
+
+    /**
+     * PhotoPanel durumu değişince (EDT) abone oturumlara GET_STATUS yanıtıyla aynı içeriği bildirir.
+     */
+    private void publishStatus(String status) {
+        if (subscribers.isEmpty()) return;
+        String text = statusText(status);
+        for (ViewerConnection conn : subscribers) {
+            if (!conn.isOpen()) {
+                subscribers.remove(conn);
+                continue;
+            }
+            conn.sendFrame(AppConstants.EVENT_REQUEST_ID, utf8(text));
+        }
+        logger.info("Durum bildirimi gönderildi: " + status + " (" + subscribers.size() + " abone)");
+    }
+
+    /**
+     * SHOW_CACHED:&lt;sha256&gt;[:&lt;süre&gt;[:&lt;geçiş&gt;:&lt;ms&gt;]] - önbellekteki fotoğrafı gösterir.
+     * Önbellekte yoksa MISS döner; gönderici bu durumda fotoğrafı SEND_PHOTO ile yükler.
+     */
+    private void handleShowCached(ViewerConnection conn, String command) {
+        String[] parts = command.split(":");
+        String hash;
+        long durationSeconds;
+        try {
+            hash = parts[1].toLowerCase(java.util.Locale.ROOT);
+            durationSeconds = (parts.length > 2) ? Long.parseLong(parts[2]) : 0;
+        } catch (RuntimeException ex) {
+            logger.warn("SHOW_CACHED header parse hatası: " + ex.getMessage());
+            conn.sendAndClose(AppConstants.RESPONSE_ERROR);
+            return;
+        }
+        File file = (imageCache != null) ? imageCache.lookup(hash) : null;
+        if (file == null) {
+            conn.sendAndClose(AppConstants.RESPONSE_CACHE_MISS);
+            return;
+        }
+        // Yanıt çözme aşamasında gönderilir; EOF'ta bağlantı kapanmasın
+        conn.markBusy();
+        pipeline.submitCached(conn, file, hash, durationSeconds, parseTransition(parts, 3), pipeline.nextSequence());
+    }
+
+    // Ön yükleme ve eşzamanlı gösterim ---------------------------------------
+
+    /**
+     * STAGE:&lt;id&gt;:&lt;boyut&gt; - veriyi alır ve ekrana vermeden hazırlar (hazır olunca OK).
+     */
+    private void handleStage(ViewerConnection conn, String command) {
+        String[] parts = command.split(":");
+        String stageId;
+        int length;
+        try {
+            stageId = parts[1];
+            length = Integer.parseInt(parts[2]);
+        } catch (RuntimeException ex) {
+            logger.warn("STAGE header parse hatası: " + ex.getMessage());
+            conn.sendAndClose(AppConstants.RESPONSE_ERROR);
+            return;
+        }
+        if (!isValidStageId(stageId) || length <= 0) {
+            conn.sendAndClose(AppConstants.RESPONSE_ERROR);
+            return;
+        }
+        ImageReceiver.IncomingPayload payload;
+        try {
+            payload = ImageReceiver.createPayload(length, logger);
+        } catch (IOException e) {
+            logger.error("Ön yükleme tamponu oluşturulamadı", e);
+            conn.sendAndClose(AppConstants.RESPONSE_ERROR);
+            return;
+        }
+        conn.receivePayload(length, payload, (c, complete) -> pipeline.submitStage(c, payload, stageId, complete));
+    }
+
+    /**
+     * STAGE_CACHED:&lt;id&gt;:&lt;sha256&gt; - önbellekteki fotoğrafı ön yükler; yoksa MISS.
+     */
+    private void handleStageCached(ViewerConnection conn, String command) {
+        String[] parts = command.split(":");
+        if (parts.length < 3 || !isValidStageId(parts[1])) {
+            conn.sendAndClose(AppConstants.RESPONSE_ERROR);
+            return;
+        }
+        String hash = parts[2].toLowerCase(java.util.Locale.ROOT);
+        File file = (imageCache != null) ? imageCache.lookup(hash) : null;
+        if (file == null) {
+            conn.sendAndClose(AppConstants.RESPONSE_CACHE_MISS);
+            return;
+        }
+        conn.markBusy();
+        pipeline.submitStageCached(conn, file, hash, parts[1]);
+    }
+
+    /**
+     * ACTIVATE:&lt;id&gt;:&lt;epoch ms&gt;[:&lt;süre&gt;[:&lt;geçiş&gt;:&lt;ms&gt;]] - ön yüklenen fotoğrafı verilen anda gösterir.
+     */
+    private void handleActivate(ViewerConnection conn, String command) {
+        String[] parts = command.split(":");
+        try {
+            String stageId = parts[1];
+            long atMillis = Long.parseLong(parts[2]);
+            long durationSeconds = (parts.length > 3) ? Long.parseLong(parts[3]) : 0;
+            boolean scheduled = pipeline.activate(stageId, atMillis, durationSeconds, parseTransition(parts, 4));
+            if (!scheduled) {
+                logger.warn("ACTIVATE reddedildi - hazır fotoğraf yok: " + stageId + " (Kaynak: " + conn.getRemoteAddress() + ")");
+            }
+            conn.sendAndClose(scheduled ? AppConstants.RESPONSE_OK : AppConstants.RESPONSE_ERROR);
+        } catch (RuntimeException ex) {
+            logger.warn("ACTIVATE header parse hatası: " + ex.getMessage());
+            conn.sendAndClose(AppConstants.RESPONSE_ERROR);
+        }
+    }
+
+    private static boolean isValidStageId(String stageId) {
+        if (stageId == null || stageId.isEmpty() || stageId.length() > 64) return false;
+        for (int i = 0; i < stageId.length(); i++) {
+            char c = stageId.charAt(i);
+            if (!(Character.isLetterOrDigit(c) || c == '-')) return false;
+        }
+        return true;
+    }
+
+    private static long epochMicros() {
+        Instant now = Instant.now();
+        return now.getEpochSecond() * 1_000_000L + now.getNano() / 1_000;
+    }
+
+    // Ağır şerit ------------------------------------------------------------
+
+    private void runInHeavyLane(Runnable task) {
+        try {
+            heavyLane.acquire();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return;
+        }
+        try {
+            task.run();
+        } finally {
+            heavyLane.release();
+        }
+    }
+
+    private void handleScreenshot(Reply reply, String clientIP) {
+        try {
+            logger.info("Screenshot isteği alındı - Kaynak: " + clientIP);
+            long startTime = System.currentTimeMillis();
+
+            byte[] screenshotData = PhotoViewerServer.captureScreenshot();
+            long captureTime = System.currentTimeMillis() - startTime;
+
+            // Önce boyutu, sonra screenshot verisini gönder
+            ByteBuffer header = ByteBuffer.wrap(("SCREENSHOT:" + screenshotData.length + "\n").getBytes(StandardCharsets.UTF_8));
+            reply.send(header, ByteBuffer.wrap(screenshotData));
+
+            long totalTime = System.currentTimeMillis() - startTime;
+            logger.success("Screenshot başarıyla gönderildi - Boyut: " + (screenshotData.length / 1024) + " KB, " +
+                         "Yakalama: " + captureTime + "ms, Toplam: " + totalTime + "ms");
+        } catch (Exception ex) {
+            logger.error("Screenshot gönderim hatası - Kaynak: " + clientIP + " - " + ex.getClass().getSimpleName() + ": " + ex.getMessage(), ex);
+            reply.fail();
+        }
+    }
+
+    /**
+     * Başlığın sonundaki isteğe bağlı ":<geçiş>:<ms>" alanlarını okur.
+     */
+    private static Transition parseTransition(String[] parts, int index) {
+        if (parts.length <= index) return Transition.NONE;
+        return Transition.parse(parts[index], parts.length > index + 1 ? parts[index + 1] : null);
+    }
+
+    /**
+     * SEND_CHUNKED:&lt;sha256&gt;:&lt;boyut&gt;:&lt;parça&gt;:&lt;süre&gt;[:&lt;geçiş&gt;:&lt;ms&gt;] - sürdürülebilir yükleme.
+     * Önce OFFSET:&lt;n&gt; ile bu fotoğraftan daha önce alınan bayt sayısı bildirilir, gönderici verinin
+     * kalanını CRC32C'li parçalarla gönderir. Tamamlanan dosyanın özeti doğrulanıp alım hattına verilir.
+     */
+    private void handleChunked(ViewerConnection conn, String command) {
+        String[] parts = command.split(":");
+        String hash;
+        long size;
+        int chunkSize;
+        long durationSeconds;
+        try {
+            hash = parts[1].toLowerCase(java.util.Locale.ROOT);
+            size = Long.parseLong(parts[2]);
+            chunkSize = Integer.parseInt(parts[3]);
+            durationSeconds = Long.parseLong(parts[4]);
+        } catch (RuntimeException ex) {
+            logger.warn("SEND_CHUNKED header parse hatası: " + ex.getMessage());
+            conn.sendAndClose(AppConstants.RESPONSE_ERROR);
+            return;
+        }
+        if (!hash.matches("[0-9a-f]{64}") || size <= 0 || chunkSize <= 0 || chunkSize > AppConstants.MAX_UPLOAD_CHUNK_SIZE) {
+            conn.sendAndClose(AppConstants.RESPONSE_ERROR);
+            return;
+        }
+        ImageReceiver.ChunkedUpload upload;
+        try {
+            upload = ImageReceiver.openUpload(uploadDir, hash, size, chunkSize, conn, workerExecutor, logger);
+        } catch (IOException e) {
+            logger.error("Yükleme dosyası açılamadı", e);
+            conn.sendAndClose(AppConstants.RESPONSE_ERROR);
+            return;
+        }
+        if (upload == null) {
+            // Aynı fotoğraf başka bir bağlantıdan yükleniyor; gönderici biraz sonra tekrar dener
+            logger.warn("Yükleme zaten sürüyor: " + hash + " (Kaynak: " + conn.getRemoteAddress() + ")");
+            conn.sendAndClose(AppConstants.RESPONSE_ERROR);
+            return;
+        }
+        if (upload.offset() > 0) {
+            logger.info("Yükleme kaldığı yerden sürüyor: " + upload.offset() / 1024 + "/" + size / 1024 + " KB (Kaynak: " + conn.getRemoteAddress() + ")");
+        }
+        long sequence = pipeline.nextSequence();
+        long ingestStart = System.nanoTime();
+        Transition transition = parseTransition(parts, 5);
+        conn.send(AppConstants.RESPONSE_OFFSET + upload.offset() + "\n");
+        conn.receivePayload(upload.wireLength(), upload, (c, complete) ->
+            // Özet doğrulaması tüm dosyayı okur; selector thread'i beklemesin
+            workerExecutor.execute(() -> {
+                ImageReceiver.Payload payload = upload.finish();
+                if (payload != null) {
+                    pipeline.submitPhoto(c, payload, durationSeconds, transition, sequence, ingestStart, true);
+                } else if (complete) {
+                    c.sendAndClose(AppConstants.RESPONSE_ERROR);
+                } else {
+                    logger.warn("Yükleme yarıda kesildi, alınan kısım saklandı (Kaynak: " + c.getRemoteAddress() + ")");
+                    c.close();
+                }
+            }));
+    }
+
+    /**
+     * RELAY_PHOTO:&lt;boyut&gt;:&lt;süre&gt;:&lt;ağaç&gt;[:&lt;geçiş&gt;:&lt;ms&gt;] - fotoğrafı gösterir ve gelirken
+     * ağaçtaki alt ekranlara iletir. Yanıt, bu ekranın sonucu çözme bitince ve alt ekranların
+     * sonuçları geldikçe birleştirilerek tek satırda gönderilir: RELAY_ACK:OK;10.0.1.6=OK;10.0.1.7=ERR
+     */
+    private void handleRelayPhoto(ViewerConnection conn, String command) {
+        String[] parts = command.split(":");
+        int length;
+        long durationSeconds;
+        List<RelayNode.Child> children;
+        try {
+            length = Integer.parseInt(parts[1]);
+            durationSeconds = Long.parseLong(parts[2]);
+            children = RelayNode.parseTree(parts[3]);
+        } catch (RuntimeException ex) {
+            logger.warn("RELAY_PHOTO header parse hatası: " + ex.getMessage());
+            conn.close();
+            return;
+        }
+        if (length <= 0) {
+            conn.close();
+            return;
+        }
+        long sequence = pipeline.nextSequence();
+        long ingestStart = System.nanoTime();
+        ImageReceiver.IncomingPayload payload;
+        try {
+            payload = ImageReceiver.createPayload(length, logger);
+        } catch (IOException e) {
+            logger.error("Fotoğraf tamponu oluşturulamadı", e);
+            conn.sendAndClose(AppConstants.RESPONSE_ERROR);
+            return;
+        }
+        String options = (parts.length > 4) ? ":" + String.join(":", Arrays.copyOfRange(parts, 4, parts.length)) : "";
+        RelayNode relay = new RelayNode(children, length, durationSeconds, options, logger);
+        if (relayEnabled) {
+            relay.start();
+        } else {
+            logger.warn("Röle kapalı, alt ekranlara iletilmeyecek (Kaynak: " + conn.getRemoteAddress() + ")");
+            relay.decline();
+        }
+        CompletableFuture<String> own = new CompletableFuture<>();
+        own.thenCombine(relay.completion(), (self, reports) -> {
+            StringBuilder ack = new StringBuilder(AppConstants.RESPONSE_RELAY_ACK).append(self.trim());
+            for (String r : reports) ack.append(';').append(r);
+            return ack.append('\n').toString();
+        }).thenAccept(conn::sendAndClose);
+
+        Transition transition = parseTransition(parts, 4);
+        conn.receivePayload(length, src -> {
+            // Önce alt ekranlara (kopya), sonra kendi tamponuna; payload src'yi tüketir
+            relay.forward(src);
+            payload.write(src);
+        }, (c, complete) -> {
+            relay.finishInput(complete);
+            pipeline.submitPhoto(c, payload, durationSeconds, transition, sequence, ingestStart, complete, own::complete);
+        });
+    }
+
+    /**
+     * Fotoğraf verisini selector thread'inde tampona alır (1. aşama), tamamlanınca alım hattına verir.
+     * Büyük fotoğraflarda veri ProgressivePreview'den de geçer; ilerlemeli JPEG ise alım sürerken
+     * ara resimler gösterilir.
+     * @param durationSeconds 0 ise süresiz (normal) gösterim
+     */
+    private void receivePhoto(ViewerConnection conn, int length, long durationSeconds, Transition transition) {
+        long sequence = pipeline.nextSequence();
+        long ingestStart = System.nanoTime();
+        ImageReceiver.IncomingPayload payload;
+        try {
+            payload = ImageReceiver.createPayload(length, logger);
+        } catch (IOException e) {
+            logger.error("Fotoğraf tamponu oluşturulamadı", e);
+            conn.sendAndClose(AppConstants.RESPONSE_ERROR);
+            return;
+        }
+        ViewerConnection.PayloadSink sink = payload;
+        if (progressivePreviewEnabled && length >= AppConstants.PROGRESSIVE_PREVIEW_MIN_BYTES) {
+            ProgressivePreview preview = new ProgressivePreview(pipeline, payload, sequence, transition, ingestStart);
+            sink = src -> {
+                // Ara resim yalnızca tampona yazılmış baytları okur
+                ByteBuffer view = src.duplicate();
+                payload.write(src);
+                preview.scan(view);
+            };
+        }
+        conn.receivePayload(length, sink, (c, complete) ->
+            pipeline.submitPhoto(c, payload, durationSeconds, transition, sequence, ingestStart, complete));
+    }
+}
@@ -0,0 +1,134 @@
+/*
+ * Bu yazılım Yusuf Ziyrek'e aittir.
+ * İzinsiz kopyalanamaz, değiştirilemez, dağıtılamaz ve ticari olarak kullanılamaz.
+ * Tüm hakları saklıdır. © 2025 Yusuf Ziyrek
+ */
+import java.awt.Color;
+import java.awt.GradientPaint;
+import java.awt.image.BufferedImage;
+import java.awt.image.DataBuffer;
+import java.awt.image.DataBufferByte;
+import java.awt.image.DataBufferInt;
+import java.awt.image.PixelInterleavedSampleModel;
+import java.awt.image.Raster;
+import java.awt.image.SinglePixelPackedSampleModel;
+import java.util.Map;
+import java.util.WeakHashMap;
+
+/**
+ * Fotoğrafın üst ve alt kenarından örneklenen renklerle oluşturulan arka plan gradienti.
+ * Her resim için bir kez hesaplanır ve resimle birlikte saklanır; alım hattı bunu EDT dışında
+ * önceden hesaplar, PhotoPanel ise hazır sonucu kullanır.
+ */
+public final class EdgeGradient {
+    private static final int SAMPLES = 64;
+    private static final float DARKEN = 0.06f;
+
+    // Resim başına sonuç (resim kimliğine göre; resim bırakılınca kayıt da düşer)
+    private static final Map<BufferedImage, EdgeGradient> CACHE = new WeakHashMap<>();
+
+    private final Color top;
+    private final Color bottom;
+
+    // Son kullanılan yüksekliğe ait paint (boyut değişmedikçe yeniden oluşturulmaz)
+    private GradientPaint paint;
+    private int paintHeight = -1;
+
+    private EdgeGradient(Color top, Color bottom) {
+        this.top = top;
+        this.bottom = bottom;
+    }
+
+    /**
+     * Resmin gradientini döner; daha önce hesaplanmadıysa hesaplar. Herhangi bir thread'den çağrılabilir.
+     */
+    public static EdgeGradient of(BufferedImage img) {
+        if (img == null) return new EdgeGradient(Color.BLACK, Color.BLACK);
+        synchronized (CACHE) {
+            EdgeGradient cached = CACHE.get(img);
+            if (cached != null) return cached;
+        }
+        // Slightly darken samples so they don't appear brighter than image
+        EdgeGradient computed = new EdgeGradient(darken(averageEdgeRgb(img, true)), darken(averageEdgeRgb(img, false)));
+        synchronized (CACHE) {
+            CACHE.putIfAbsent(img, computed);
+            return CACHE.get(img);
+        }
+    }
+
+    /**
+     * Verilen yükseklik için dikey gradient (aynı yükseklikte aynı nesne döner).
+     */
+    public synchronized GradientPaint paintFor(int height) {
+        if (paint == null || paintHeight != height) {
+            paint = new GradientPaint(0, 0, top, 0, height, bottom);
+            paintHeight = height;
+        }
+        return paint;
+    }
+
+    /**
+     * Kenar satırındaki SAMPLES noktanın ortalama rengi (0xRRGGBB). Yaygın resim tiplerinde
+     * doğrudan DataBuffer'dan okunur, diğerlerinde satır tek seferde getRGB ile alınır.
+     */
+    private static int averageEdgeRgb(BufferedImage img, boolean top) {
+        int w = img.getWidth();
+        int h = img.getHeight();
+        int y = top ? 0 : (h - 1);
+        int samples = Math.min(SAMPLES, w);
+        Raster raster = img.getRaster();
+        DataBuffer db = raster.getDataBuffer();
+        boolean untranslated = raster.getSampleModelTranslateX() == 0 && raster.getSampleModelTranslateY() == 0
+                               && db.getNumBanks() == 1 && db.getOffset() == 0;
+
+        long r = 0, g = 0, b = 0;
+        int type = img.getType();
+        if (untranslated && db instanceof DataBufferInt intBuffer
+                && (type == BufferedImage.TYPE_INT_RGB || type == BufferedImage.TYPE_INT_ARGB)) {
+            int[] data = intBuffer.getData();
+            int rowStart = y * ((SinglePixelPackedSampleModel) raster.getSampleModel()).getScanlineStride();
+            for (int i = 0; i < samples; i++) {
+                int rgb = data[rowStart + sampleX(i, samples, w)];
+                r += (rgb >> 16) & 0xFF;
+                g += (rgb >> 8) & 0xFF;
+                b += rgb & 0xFF;
+            }
+        } else if (untranslated && db instanceof DataBufferByte byteBuffer
+                && (type == BufferedImage.TYPE_3BYTE_BGR || type == BufferedImage.TYPE_4BYTE_ABGR)) {
+            // JPEG çözümlerinin çoğu bu tiptedir: piksel başına [A]BGR baytları
+            byte[] data = byteBuffer.getData();
+            PixelInterleavedSampleModel sm = (PixelInterleavedSampleModel) raster.getSampleModel();
+            int pixelStride = sm.getPixelStride();
+            int[] offsets = sm.getBandOffsets(); // R, G, B[, A] sırasıyla
+            int rowStart = y * sm.getScanlineStride();
+            for (int i = 0; i < samples; i++) {
+                int p = rowStart + sampleX(i, samples, w) * pixelStride;
+                r += data[p + offsets[0]] & 0xFF;
+                g += data[p + offsets[1]] & 0xFF;
+                b += data[p + offsets[2]] & 0xFF;
+            }
+        } else {
+            int[] row = img.getRGB(0, y, w, 1, null, 0, w);
+            for (int i = 0; i < samples; i++) {
+                int rgb = row[sampleX(i, samples, w)];
+                r += (rgb >> 16) & 0xFF;
+                g += (rgb >> 8) & 0xFF;
+                b += rgb & 0xFF;
+            }
+        }
+        if (samples == 0) return 0;
+        return (int) (r / samples) << 16 | (int) (g / samples) << 8 | (int) (b / samples);
+    }
+
+    private static int sampleX(int i, int samples, int w) {
+        int x = (int) Math.round((i + 0.5) * w / (double) samples);
+        return (x >= w) ? w - 1 : x;
+    }
+
+    private static Color darken(int rgb) {
+        int rr = (int) (((rgb >> 16) & 0xFF) * (1f - DARKEN));
+        int gg = (int) (((rgb >> 8) & 0xFF) * (1f - DARKEN));
+        int bb = (int) ((rgb & 0xFF) * (1f - DARKEN));
+        return new Color(rr, gg, bb);
+    }
+}
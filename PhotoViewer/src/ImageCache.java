@@ -0,0 +1,178 @@
+/*
+ * Bu yazılım Yusuf Ziyrek'e aittir.
+ * İzinsiz kopyalanamaz, değiştirilemez, dağıtılamaz ve ticari olarak kullanılamaz.
+ * Tüm hakları saklıdır. © 2025 Yusuf Ziyrek
+ */
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Alınan fotoğrafların SHA-256 özetine göre diskte tutulduğu, boyutu sınırlı LRU önbellek.
+ * Aynı fotoğraf tekrar gönderildiğinde gönderici önce SHOW_CACHED:&lt;sha256&gt; dener; önbellekte
+ * varsa veri ağdan tekrar geçmez. Dosyalar özgün (sıkıştırılmış) haliyle saklanır, son kullanım
+ * sırası dosya değiştirilme zamanıyla korunur ve yeniden başlatmada diskten okunur.
+ */
+public final class ImageCache {
+    private static final String SUFFIX = ".img";
+    private static final String TEMP_SUFFIX = ".part";
+
+    private final File dir;
+    private final long maxBytes;
+    private final AppLogger logger;
+
+    // Özet -> dosya boyutu; erişim sıralı (en eski kullanılan başta)
+    private final LinkedHashMap<String, Long> entries = new LinkedHashMap<>(16, 0.75f, true);
+    private long totalBytes;
+    private long hits;
+    private long misses;
+
+    public ImageCache(File dir, long maxBytes, AppLogger logger) {
+        this.dir = dir;
+        this.maxBytes = maxBytes;
+        this.logger = logger;
+        load();
+    }
+
+    /**
+     * Özetin geçerli bir SHA-256 hex metni olup olmadığını kontrol eder (dosya adı olarak kullanılır).
+     */
+    public static boolean isValidHash(String hash) {
+        if (hash == null || hash.length() != 64) return false;
+        for (int i = 0; i < hash.length(); i++) {
+            char c = hash.charAt(i);
+            if (!((c >= '0' && c <= '9') || (c >= 'a' && c <= 'f'))) return false;
+        }
+        return true;
+    }
+
+    /**
+     * Önbellekteki dosyayı döner ve en son kullanılan olarak işaretler.
+     * @return Önbellekte yoksa null
+     */
+    public synchronized File lookup(String hash) {
+        if (!isValidHash(hash) || !entries.containsKey(hash)) {
+            misses++;
+            return null;
+        }
+        File f = fileFor(hash);
+        if (!f.isFile()) {
+            // Dosya dışarıdan silinmiş
+            totalBytes -= entries.remove(hash);
+            misses++;
+            return null;
+        }
+        hits++;
+        f.setLastModified(System.currentTimeMillis()); // LRU sırası yeniden başlatmada korunur
+        return f;
+    }
+
+    public synchronized boolean contains(String hash) {
+        return entries.containsKey(hash);
+    }
+
+    /**
+     * Başarıyla çözülmüş bir fotoğrafı önbelleğe ekler. Yazma geçici dosyaya yapılır ve tamamlanınca
+     * yerine taşınır; yarım kalan dosya hiçbir zaman önbellekte görünmez.
+     */
+    public void store(String hash, ImageReceiver.Payload payload) {
+        if (!isValidHash(hash) || payload.size() <= 0 || payload.size() > maxBytes) return;
+        synchronized (this) {
+            if (entries.containsKey(hash)) {
+                entries.get(hash); // erişim sırasını güncelle
+                return;
+            }
+        }
+        File target = fileFor(hash);
+        File temp = new File(dir, hash + "-" + Thread.currentThread().threadId() + TEMP_SUFFIX);
+        try {
+            payload.saveTo(temp);
+            try {
+                Files.move(temp.toPath(), target.toPath(), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            } catch (AtomicMoveNotSupportedException e) {
+                Files.move(temp.toPath(), target.toPath(), StandardCopyOption.REPLACE_EXISTING);
+            }
+        } catch (IOException e) {
+            logger.warn("Fotoğraf önbelleğe yazılamadı: " + e.getMessage());
+            temp.delete();
+            return;
+        }
+        long size = target.length();
+        synchronized (this) {
+            Long previous = entries.put(hash, size);
+            if (previous != null) totalBytes -= previous;
+            totalBytes += size;
+            evictLocked();
+        }
+    }
+
+    /**
+     * Okunamayan bir kaydı önbellekten çıkarır.
+     */
+    public synchronized void invalidate(String hash) {
+        Long size = entries.remove(hash);
+        if (size == null) return;
+        totalBytes -= size;
+        fileFor(hash).delete();
+    }
+
+    /**
+     * Önbellek durumu (GET_PIPELINE_STATS yanıtı ve log için).
+     */
+    public synchronized String summary() {
+        return "önbellek=" + entries.size() + " dosya/" + (totalBytes / (1024 * 1024)) + "MB/" +
+               (maxBytes / (1024 * 1024)) + "MB, isabet " + hits + ", ıska " + misses;
+    }
+
+    private File fileFor(String hash) {
+        return new File(dir, hash + SUFFIX);
+    }
+
+    private void load() {
+        if (!dir.exists() && !dir.mkdirs()) {
+            logger.warn("Önbellek klasörü oluşturulamadı: " + dir.getAbsolutePath());
+            return;
+        }
+        File[] files = dir.listFiles();
+        if (files == null) return;
+        // En eski kullanılan önce eklenir; böylece erişim sırası diskteki zamanlarla aynı olur
+        Arrays.sort(files, Comparator.comparingLong(File::lastModified));
+        synchronized (this) {
+            for (File f : files) {
+                String name = f.getName();
+                if (name.endsWith(TEMP_SUFFIX)) {
+                    f.delete(); // önceki çalışmadan kalan yarım yazma
+                    continue;
+                }
+                if (!name.endsWith(SUFFIX)) continue;
+                String hash = name.substring(0, name.length() - SUFFIX.length());
+                if (!isValidHash(hash)) continue;
+                entries.put(hash, f.length());
+                totalBytes += f.length();
+            }
+            evictLocked();
+        }
+        logger.info("Fotoğraf önbelleği yüklendi: " + dir.getAbsolutePath() + " - " + summary());
+    }
+
+    private void evictLocked() {
+        Iterator<Map.Entry<String, Long>> it = entries.entrySet().iterator();
+        while (totalBytes > maxBytes && it.hasNext()) {
+            Map.Entry<String, Long> eldest = it.next();
+            File f = fileFor(eldest.getKey());
+            if (f.exists() && !f.delete()) {
+                // Dosya şu an okunuyor olabilir (Windows); bir sonraki eklemede tekrar denenir
+                continue;
+            }
+            totalBytes -= eldest.getValue();
+            it.remove();
+        }
+    }
+}
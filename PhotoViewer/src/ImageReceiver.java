@@ -3,69 +3,690 @@
  * İzinsiz kopyalanamaz, değiştirilemez, dağıtılamaz ve ticari olarak kullanılamaz.
  * Tüm hakları saklıdır. © 2025 Yusuf Ziyrek
  */
+import java.awt.Dimension;
 import java.awt.image.BufferedImage;
 import java.io.*;
+import java.lang.foreign.Arena;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Arrays;
+import java.util.HexFormat;
+import java.util.Iterator;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
+import java.util.zip.CRC32C;
 import javax.imageio.ImageIO;
+import javax.imageio.ImageReadParam;
+import javax.imageio.ImageReader;
+import javax.imageio.stream.FileImageInputStream;
+import javax.imageio.stream.ImageInputStream;
+import javax.imageio.stream.ImageInputStreamImpl;
 
 /**
  * Fotoğraf alma yardımcı sınıfı
  */
 public class ImageReceiver {
-    public static BufferedImage receiveImage(PushbackInputStream in, int length) {
-        ByteArrayOutputStream baos = new ByteArrayOutputStream();
-        BufferedImage image = null;
-        File tempFile = null;
-        
+
+    /**
+     * Uzunluğa göre uygun alıcı tamponu oluşturur. Büyük veriler belleğe eşlenmiş geçici dosyaya,
+     * diğerleri bellekte tek bir diziye yazılır.
+     * @param length Header'daki bayt sayısı; bilinmiyorsa 0'dan küçük
+     * @param logger Çözme hataları buraya yazılır
+     */
+    public static IncomingPayload createPayload(long length, AppLogger logger) throws IOException {
+        if (length > AppConstants.STREAM_TO_FILE_THRESHOLD) {
+            return new MappedPayload(length, logger);
+        }
+        return new MemoryPayload(length, logger);
+    }
+
+    /**
+     * Önbellekteki bir dosyayı alım hattına vermek için tampon (dosya silinmez).
+     */
+    public static Payload fromCache(File file, String sha256, AppLogger logger) {
+        return new CachedPayload(file, sha256, logger);
+    }
+
+    // Bellekte alınan fotoğrafların ve yükleme parçalarının dizileri
+    private static final BufferPool BUFFER_POOL = new BufferPool(AppConstants.BUFFER_POOL_MAX_BYTES);
+
+    /**
+     * Tampon havuzunun durumu (GET_PIPELINE_STATS yanıtı için).
+     */
+    public static String bufferPoolSummary() {
+        return BUFFER_POOL.summary();
+    }
+
+    // Şu an bir bağlantının yazdığı sürdürülebilir yüklemeler (aynı kimliğe iki bağlantı yazamaz)
+    private static final Set<String> activeUploads = ConcurrentHashMap.newKeySet();
+
+    /**
+     * Sürdürülebilir yüklemeyi açar ya da yarım kalanı sürdürür. Doğrulanmış parçalar
+     * &lt;dir&gt;/&lt;sha256&gt;.part dosyasında tutulur; offset() göndericinin kaldığı yerdir.
+     * @param connection Veriyi getiren bağlantı; parça diske yazılırken okuması durdurulur
+     * @param writer Parçaları diske yazan executor (selector thread'i dışında)
+     * @return Aynı yükleme başka bir bağlantıda sürüyorsa null
+     */
+    public static ChunkedUpload openUpload(File dir, String sha256, long size, int chunkSize,
+                                           ViewerConnection connection, Executor writer, AppLogger logger) throws IOException {
+        if (!activeUploads.add(sha256)) return null;
         try {
-            if (length > 0) {
-                // Buffer boyutunu dinamik olarak optimize et
-                final int OPTIMAL_BUFFER_SIZE = Math.min(
-                    AppConstants.OPTIMAL_BUFFER_SIZE_MAX, 
-                    Math.max(AppConstants.OPTIMAL_BUFFER_SIZE_MIN, length / 100)
-                );
-                
-                if (length > AppConstants.STREAM_TO_FILE_THRESHOLD) {
-                    tempFile = File.createTempFile("received_image_", ".tmp");
-                    try (FileOutputStream fos = new FileOutputStream(tempFile)) {
-                        byte[] buffer = new byte[OPTIMAL_BUFFER_SIZE];
-                        int remaining = length;
-                        while (remaining > 0) {
-                            int toRead = Math.min(buffer.length, remaining);
-                            int read = in.read(buffer, 0, toRead);
-                            if (read == -1) break;
-                            fos.write(buffer, 0, read);
-                            remaining -= read;
-                        }
+            if (!dir.isDirectory() && !dir.mkdirs()) throw new IOException("Yükleme klasörü oluşturulamadı: " + dir);
+            pruneUploads(dir);
+            File file = new File(dir, sha256 + ".part");
+            FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.CREATE, StandardOpenOption.WRITE);
+            long offset = channel.size();
+            if (offset > size) {
+                // Aynı özetle farklı boyut: kayıt bozuk, baştan alınır
+                channel.truncate(0);
+                offset = 0;
+            }
+            return new ChunkedUpload(dir, file, channel, sha256, size, chunkSize, offset, connection, writer, logger);
+        } catch (IOException | RuntimeException e) {
+            activeUploads.remove(sha256);
+            throw e;
+        }
+    }
+
+    /**
+     * UPLOAD_PARTIAL_TTL_MS'den uzun süredir sürdürülmeyen yarım yüklemeleri ve kalmış geçici dosyaları siler.
+     */
+    public static void pruneUploads(File dir) {
+        File[] files = dir.listFiles((_, name) -> name.endsWith(".part") || name.endsWith(".tmp"));
+        if (files == null) return;
+        long cutoff = System.currentTimeMillis() - AppConstants.UPLOAD_PARTIAL_TTL_MS;
+        for (File f : files) {
+            String id = f.getName().substring(0, f.getName().lastIndexOf('.'));
+            if (f.lastModified() < cutoff && !activeUploads.contains(id)) f.delete();
+        }
+    }
+
+    /**
+     * SEND_CHUNKED verisi: [int uzunluk][int CRC32C][veri] çerçeveleri. Selector thread'inde her
+     * parça tamamlanınca sağlama toplamı doğrulanır; dosyaya yazma writer'da yapılır ve bu sürede
+     * bağlantının okuması durur (parça tamponu yazılana kadar yeniden doldurulmaz). Hatalı parça
+     * bağlantıyı keser, önceki parçalar korunur. Bağlantı koparsa gönderici yalnızca eksik kısmı
+     * tekrar gönderir.
+     */
+    public static final class ChunkedUpload implements ViewerConnection.PayloadSink {
+        private final File dir;
+        private final File file;
+        private final FileChannel channel;
+        private final String sha256;
+        private final long size;
+        private final int chunkSize;
+        private final long startOffset;
+        private final ViewerConnection connection;
+        private final Executor writer;
+        private final AppLogger logger;
+        private final ByteBuffer header = ByteBuffer.allocate(8);
+        private final CRC32C crc = new CRC32C();
+        private ByteBuffer body; // parça gövdesi için tek tampon (chunkSize)
+        private ByteBuffer chunk; // başlığı okunan parçanın gövdesi; null ise sıradaki başlık bekleniyor
+        private int expectedCrc;
+        private volatile long offset; // diske yazılmış bayt; writer'da ilerler
+        private volatile IOException writeError;
+        private CompletableFuture<Void> pendingWrite = CompletableFuture.completedFuture(null);
+
+        private ChunkedUpload(File dir, File file, FileChannel channel, String sha256, long size, int chunkSize, long offset,
+                              ViewerConnection connection, Executor writer, AppLogger logger) {
+            this.dir = dir;
+            this.file = file;
+            this.channel = channel;
+            this.sha256 = sha256;
+            this.size = size;
+            this.chunkSize = chunkSize;
+            this.startOffset = offset;
+            this.offset = offset;
+            this.connection = connection;
+            this.writer = writer;
+            this.logger = logger;
+        }
+
+        /** Daha önceki bağlantılarda alınıp doğrulanmış bayt sayısı */
+        public long offset() {
+            return startOffset;
+        }
+
+        /** Kalan veri ve çerçeve başlıklarıyla bu bağlantıda gelecek toplam bayt */
+        public long wireLength() {
+            long remaining = size - startOffset;
+            long frames = (remaining + chunkSize - 1) / chunkSize;
+            return remaining + frames * header.capacity();
+        }
+
+        @Override
+        public void write(ByteBuffer src) throws IOException {
+            IOException error = writeError;
+            if (error != null) throw error;
+            while (src.hasRemaining()) {
+                if (chunk == null) {
+                    transfer(src, header);
+                    if (header.hasRemaining()) return;
+                    int length = header.getInt(0);
+                    expectedCrc = header.getInt(4);
+                    header.clear();
+                    if (length <= 0 || length > chunkSize || offset + length > size) {
+                        throw new IOException("Geçersiz parça uzunluğu: " + length);
                     }
-                    image = ImageIO.read(tempFile);
+                    if (body == null) body = ByteBuffer.wrap(BUFFER_POOL.borrow(chunkSize));
+                    body.clear().limit(length); // havuzdan gelen dizi chunkSize'dan büyük olabilir
+                    chunk = body;
                 } else {
-                    int remaining = length;
-                    byte[] buffer = new byte[OPTIMAL_BUFFER_SIZE];
-                    while (remaining > 0) {
-                        int toRead = Math.min(buffer.length, remaining);
-                        int read = in.read(buffer, 0, toRead);
-                        if (read == -1) break;
-                        baos.write(buffer, 0, read);
-                        remaining -= read;
+                    transfer(src, chunk);
+                    if (chunk.hasRemaining()) return;
+                    chunk.flip();
+                    crc.reset();
+                    crc.update(chunk.duplicate());
+                    if ((int) crc.getValue() != expectedCrc) {
+                        throw new IOException("Parça sağlama toplamı hatalı (konum " + offset + ")");
                     }
-                    ByteArrayInputStream bais = new ByteArrayInputStream(baos.toByteArray());
-                    image = ImageIO.read(bais);
+                    ByteBuffer data = chunk;
+                    chunk = null;
+                    connection.pauseReading();
+                    pendingWrite = CompletableFuture.runAsync(() -> writeChunk(data), writer);
+                    return;
                 }
-            } else {
-                // fallback: read until EOF
-                int b;
-                while ((b = in.read()) != -1) baos.write(b);
-                ByteArrayInputStream bais = new ByteArrayInputStream(baos.toByteArray());
-                image = ImageIO.read(bais);
-            }
-        } catch (Exception ex) {
-            System.out.println("Fotoğraf alma hatası: " + ex.getMessage());
-        } finally {
-            if (tempFile != null && tempFile.exists()) {
+            }
+        }
+
+        private void writeChunk(ByteBuffer data) {
+            try {
+                long position = offset;
+                while (data.hasRemaining()) {
+                    channel.write(data, position + data.position());
+                }
+                offset = position + data.limit();
+            } catch (IOException e) {
+                // Bir sonraki write bağlantıyı keser; son parçaysa finish eksik yükleme görür
+                writeError = e;
+            } finally {
+                connection.resumeReading();
+            }
+        }
+
+        private static void transfer(ByteBuffer src, ByteBuffer dst) {
+            int n = Math.min(src.remaining(), dst.remaining());
+            dst.put(src.slice(src.position(), n));
+            src.position(src.position() + n);
+        }
+
+        /**
+         * Yüklemeyi kapatır. Tüm veri geldiyse dosyanın özeti doğrulanır ve çözülecek tampona dönüşür.
+         * Son parçanın yazılmasını bekleyip dosyayı okuduğu için selector thread'i dışında çağrılmalıdır.
+         * @return Yükleme tamamlandıysa tampon; eksik (sürdürülecek) veya özet tutmuyorsa null
+         */
+        public Payload finish() {
+            pendingWrite.join();
+            if (body != null) {
+                BUFFER_POOL.giveBack(body.array());
+                body = null;
+            }
+            try {
+                channel.close();
+                if (offset < size) return null;
+                String actual = sha256Of(file);
+                if (!sha256.equals(actual)) {
+                    logger.warn("Yüklenen fotoğrafın özeti tutmuyor, siliniyor: " + sha256);
+                    file.delete();
+                    return null;
+                }
+                // Aynı fotoğrafın yeni bir yüklemesi bu dosyayı sürdürmeye çalışmasın
+                File done = File.createTempFile("received_image_", ".tmp", dir);
+                Files.move(file.toPath(), done.toPath(), StandardCopyOption.REPLACE_EXISTING);
+                return new UploadedPayload(done, sha256, logger);
+            } catch (IOException e) {
+                logger.error("Yükleme tamamlanamadı: " + sha256, e);
+                return null;
+            } finally {
+                activeUploads.remove(sha256);
+            }
+        }
+    }
+
+    private static String sha256Of(File file) throws IOException {
+        MessageDigest md = newSha256();
+        try (FileChannel ch = FileChannel.open(file.toPath(), StandardOpenOption.READ)) {
+            ByteBuffer buffer = ByteBuffer.allocate(AppConstants.OPTIMAL_BUFFER_SIZE_MAX);
+            while (ch.read(buffer) > 0) {
+                buffer.flip();
+                md.update(buffer);
+                buffer.clear();
+            }
+        }
+        return HexFormat.of().formatHex(md.digest());
+    }
+
+    /**
+     * Alım hattının çözdüğü fotoğraf verisi (okuma tarafı). Ağdan yazılan tamponlar IncomingPayload'dur;
+     * önbellekten veya tamamlanmış yüklemeden gelenler yalnızca okunur.
+     */
+    public abstract static class Payload {
+        final AppLogger logger;
+
+        Payload(AppLogger logger) {
+            this.logger = logger;
+        }
+
+        public abstract long size();
+
+        /**
+         * Verinin SHA-256 özeti (küçük harfli hex); alınan veride alım tamamlandıktan sonra çağrılmalıdır.
+         */
+        public abstract String sha256();
+
+        /**
+         * Ham veriyi verilen dosyaya yazar (önbellek için). decode'dan sonra çağrılır.
+         */
+        public abstract void saveTo(File target) throws IOException;
+
+        /**
+         * Toplanan veriyi çözer; hata durumunda null döner.
+         * @param target Ekranın piksel boyutu; verilirse resim çözülürken bu boyuta yakın seyreltilir (null olabilir)
+         */
+        public abstract BufferedImage decode(Dimension target);
+
+        /**
+         * Alım sürerken verinin ilk length baytını, sonuna JPEG EOI eklenerek çözer (ilerlemeli
+         * JPEG ön izlemesi). Tampon bu sırada serbest bırakılırsa veya çözülemezse null döner.
+         */
+        public BufferedImage decodePrefix(long length, Dimension target) {
+            try (ImageInputStream in = new PrefixImageInputStream(this, length)) {
+                return readSubsampled(in, target);
+            } catch (Exception | OutOfMemoryError ex) {
+                return null;
+            }
+        }
+
+        /**
+         * Alınmış veriden position konumundan en fazla len bayt okur; alım sürerken başka bir
+         * thread'den çağrılabilir. Ön izleme desteklemeyen tamponlar IOException atar.
+         */
+        int readAt(long position, byte[] b, int off, int len) throws IOException {
+            throw new IOException("Ön izleme desteklenmiyor");
+        }
+
+        /**
+         * Kaynakları (geçici dosya vb.) serbest bırakır.
+         */
+        public void release() {}
+    }
+
+    /**
+     * Ağdan gelen veriyi toplayan tampon (yazma tarafı). Veri gelirken SHA-256 özeti de hesaplanır;
+     * önbellek anahtarı için veri ikinci kez okunmaz.
+     */
+    public abstract static class IncomingPayload extends Payload implements ViewerConnection.PayloadSink {
+        private final MessageDigest digest = newSha256();
+        private String sha256;
+
+        IncomingPayload(AppLogger logger) {
+            super(logger);
+        }
+
+        @Override
+        public final void write(ByteBuffer src) throws IOException {
+            ByteBuffer view = src.duplicate();
+            append(src);
+            view.limit(src.position());
+            digest.update(view);
+        }
+
+        /**
+         * src'deki tüm baytları tampona ekler.
+         */
+        abstract void append(ByteBuffer src) throws IOException;
+
+        @Override
+        public synchronized String sha256() {
+            if (sha256 == null) {
+                sha256 = HexFormat.of().formatHex(digest.digest());
+            }
+            return sha256;
+        }
+    }
+
+    /**
+     * Uzunluğu bilinen veri havuzdan ödünç alınan tek diziye doğrudan okunur ve kopyalanmadan
+     * çözülür; alım başına heap kullanımı veri boyutu kadardır. release dizi havuza döner.
+     */
+    private static final class MemoryPayload extends IncomingPayload {
+        private byte[] data;
+        private int count;
+        private final boolean pooled;
+
+        MemoryPayload(long length, AppLogger logger) {
+            super(logger);
+            // Uzunluk biliniyorsa havuzdan en az o boyutta dizi; aksi halde eski protokol için büyüyen dizi
+            this.pooled = length > 0;
+            this.data = pooled ? BUFFER_POOL.borrow((int) length) : new byte[AppConstants.DEFAULT_BUFFER_SIZE];
+        }
+
+        @Override
+        void append(ByteBuffer src) {
+            int n = src.remaining();
+            if (count + n > data.length) {
+                data = Arrays.copyOf(data, Math.max(data.length * 2, count + n));
+            }
+            src.get(data, count, n);
+            count += n;
+        }
+
+        @Override
+        public long size() {
+            return count;
+        }
+
+        @Override
+        synchronized int readAt(long position, byte[] b, int off, int len) throws IOException {
+            // Havuza dönen dizi başka bir alımda yazılabilir; release bu metotla aynı kilidi kullanır
+            if (data == null) throw new IOException("Tampon serbest bırakıldı");
+            System.arraycopy(data, (int) position, b, off, len);
+            return len;
+        }
+
+        @Override
+        public BufferedImage decode(Dimension target) {
+            try (ImageInputStream in = new ByteBufferImageInputStream(ByteBuffer.wrap(data, 0, count).slice())) {
+                return readSubsampled(in, target);
+            } catch (Exception | OutOfMemoryError ex) {
+                logger.warn("Fotoğraf alma hatası: " + ex);
+                return null;
+            }
+        }
+
+        @Override
+        public void saveTo(File target) throws IOException {
+            try (FileOutputStream out = new FileOutputStream(target)) {
+                out.write(data, 0, count);
+            }
+        }
+
+        @Override
+        public synchronized void release() {
+            if (data != null && pooled) BUFFER_POOL.giveBack(data);
+            data = null;
+        }
+    }
+
+    /**
+     * Büyük fotoğraflar: header'daki uzunlukta önceden ayrılmış geçici dosya belleğe eşlenir. Gelen
+     * veri doğrudan eşlemeye (sayfa önbelleğine) yazılır, çözücü de aynı eşlemeden okur; heap'te
+     * fotoğraf boyutunda tampon oluşmaz. Eşleme paylaşımlı bir Arena'dadır: release/saveTo eşlemeyi
+     * hemen kaldırır, böylece geçici dosya GC beklemeden (Windows'ta da) silinebilir veya taşınabilir.
+     */
+    private static final class MappedPayload extends IncomingPayload {
+        private final File tempFile;
+        private final Arena arena = Arena.ofShared();
+        private final ByteBuffer mapped;
+        private boolean unmapped;
+
+        MappedPayload(long length, AppLogger logger) throws IOException {
+            super(logger);
+            this.tempFile = File.createTempFile("received_image_", ".tmp");
+            try (FileChannel channel = FileChannel.open(tempFile.toPath(), StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+                // Eşleme dosyayı tam uzunluğa büyütür; kanal kapansa da eşleme geçerli kalır
+                this.mapped = channel.map(FileChannel.MapMode.READ_WRITE, 0, length, arena).asByteBuffer();
+            } catch (IOException | RuntimeException e) {
+                arena.close();
+                tempFile.delete();
+                throw e;
+            }
+        }
+
+        @Override
+        void append(ByteBuffer src) throws IOException {
+            if (src.remaining() > mapped.remaining()) throw new IOException("Veri header'daki uzunluğu aşıyor");
+            mapped.put(src);
+        }
+
+        @Override
+        public long size() {
+            return mapped.position();
+        }
+
+        @Override
+        synchronized int readAt(long position, byte[] b, int off, int len) throws IOException {
+            // Eşleme kaldırıldıktan sonra erişim yok; unmap bu metotla aynı kilidi kullanır
+            if (unmapped) throw new IOException("Tampon serbest bırakıldı");
+            mapped.get((int) position, b, off, len);
+            return len;
+        }
+
+        @Override
+        public BufferedImage decode(Dimension target) {
+            try (ImageInputStream in = new ByteBufferImageInputStream(mapped.slice(0, mapped.position()))) {
+                return readSubsampled(in, target);
+            } catch (Exception | OutOfMemoryError ex) {
+                logger.warn("Fotoğraf alma hatası: " + ex);
+                return null;
+            }
+        }
+
+        @Override
+        public void saveTo(File target) throws IOException {
+            // Büyük veri kopyalanmaz: geçici dosya önbelleğe taşınır (release artık silecek dosya bulmaz)
+            unmap();
+            Files.move(tempFile.toPath(), target.toPath(), StandardCopyOption.REPLACE_EXISTING);
+        }
+
+        @Override
+        public void release() {
+            unmap();
+            if (tempFile.exists()) {
                 try { tempFile.delete(); } catch (Exception ignored) {}
             }
         }
-        
-        return image;
+
+        private synchronized void unmap() {
+            if (unmapped) return;
+            unmapped = true;
+            arena.close();
+        }
+    }
+
+    private static final class CachedPayload extends Payload {
+        private final File file;
+        private final String sha256;
+
+        CachedPayload(File file, String sha256, AppLogger logger) {
+            super(logger);
+            this.file = file;
+            this.sha256 = sha256;
+        }
+
+        @Override
+        public String sha256() {
+            return sha256;
+        }
+
+        @Override
+        public long size() {
+            return file.length();
+        }
+
+        @Override
+        public BufferedImage decode(Dimension target) {
+            try (ImageInputStream in = new FileImageInputStream(file)) {
+                return readSubsampled(in, target);
+            } catch (Exception | OutOfMemoryError ex) {
+                logger.warn("Önbellekteki fotoğraf okunamadı: " + ex);
+                return null;
+            }
+        }
+
+        @Override
+        public void saveTo(File target) {
+            // Zaten önbellekte
+        }
+    }
+
+    /**
+     * Parça parça yüklenmiş ve doğrulanmış dosya; çözüldükten sonra silinir veya önbelleğe taşınır.
+     */
+    private static final class UploadedPayload extends Payload {
+        private final File file;
+        private final String sha256;
+
+        UploadedPayload(File file, String sha256, AppLogger logger) {
+            super(logger);
+            this.file = file;
+            this.sha256 = sha256;
+        }
+
+        @Override
+        public String sha256() {
+            return sha256;
+        }
+
+        @Override
+        public long size() {
+            return file.length();
+        }
+
+        @Override
+        public BufferedImage decode(Dimension target) {
+            try (ImageInputStream in = new FileImageInputStream(file)) {
+                return readSubsampled(in, target);
+            } catch (Exception | OutOfMemoryError ex) {
+                logger.warn("Fotoğraf alma hatası: " + ex);
+                return null;
+            }
+        }
+
+        @Override
+        public void saveTo(File target) throws IOException {
+            Files.move(file.toPath(), target.toPath(), StandardCopyOption.REPLACE_EXISTING);
+        }
+
+        @Override
+        public void release() {
+            if (file.exists()) {
+                try { file.delete(); } catch (Exception ignored) {}
+            }
+        }
+    }
+
+    private static MessageDigest newSha256() {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 desteklenmiyor", e);
+        }
+    }
+
+    /**
+     * Resmi ImageReader ile çözer. Kaynak hedeften en az iki kat büyükse satır/sütun seyreltme
+     * (source subsampling) uygulanır; böylece 24-48 MP fotoğraflar tam boyutta belleğe hiç açılmaz.
+     * Seyreltme katsayısı aşağı yuvarlanır, sonuç hedeften küçük olmaz ve son ölçekleme kaliteli kalır.
+     */
+    static BufferedImage readSubsampled(ImageInputStream in, Dimension target) throws IOException {
+        Iterator<ImageReader> readers = ImageIO.getImageReaders(in);
+        if (!readers.hasNext()) return null; // ImageIO.read ile aynı: tanınmayan format
+        ImageReader reader = readers.next();
+        try {
+            reader.setInput(in, true, true);
+            ImageReadParam param = reader.getDefaultReadParam();
+            int factor = subsamplingFactor(reader.getWidth(0), reader.getHeight(0), target);
+            if (factor > 1) {
+                param.setSourceSubsampling(factor, factor, 0, 0);
+            }
+            return reader.read(0, param);
+        } finally {
+            reader.dispose();
+        }
+    }
+
+    static int subsamplingFactor(int width, int height, Dimension target) {
+        if (target == null || target.width <= 0 || target.height <= 0) return 1;
+        return Math.max(1, Math.min(width / target.width, height / target.height));
+    }
+
+    /**
+     * Alımı süren tamponun ilk bölümünü, tamamlanmış bir JPEG gibi sonuna EOI ekleyerek okuyan akış.
+     */
+    private static final class PrefixImageInputStream extends ImageInputStreamImpl {
+        private static final byte[] EOI = {(byte) 0xFF, (byte) 0xD9};
+        private final Payload payload;
+        private final long prefixLength;
+
+        PrefixImageInputStream(Payload payload, long prefixLength) {
+            this.payload = payload;
+            this.prefixLength = prefixLength;
+        }
+
+        @Override
+        public int read() throws IOException {
+            byte[] one = new byte[1];
+            return (read(one, 0, 1) < 0) ? -1 : one[0] & 0xFF;
+        }
+
+        @Override
+        public int read(byte[] b, int off, int len) throws IOException {
+            checkClosed();
+            bitOffset = 0;
+            if (len == 0) return 0;
+            int n;
+            if (streamPos < prefixLength) {
+                n = payload.readAt(streamPos, b, off, (int) Math.min(len, prefixLength - streamPos));
+            } else if (streamPos < prefixLength + EOI.length) {
+                n = (int) Math.min(len, prefixLength + EOI.length - streamPos);
+                System.arraycopy(EOI, (int) (streamPos - prefixLength), b, off, n);
+            } else {
+                return -1;
+            }
+            streamPos += n;
+            return n;
+        }
+
+        @Override
+        public long length() {
+            return prefixLength + EOI.length;
+        }
+    }
+
+    /**
+     * Alınan veriyi (bayt dizisi veya dosya eşlemesi) kopyalamadan ImageReader'a veren akış.
+     */
+    private static final class ByteBufferImageInputStream extends ImageInputStreamImpl {
+        private final ByteBuffer data;
+        private final int length;
+
+        ByteBufferImageInputStream(ByteBuffer data) {
+            this.data = data;
+            this.length = data.limit();
+        }
+
+        @Override
+        public int read() throws IOException {
+            checkClosed();
+            bitOffset = 0;
+            if (streamPos >= length) return -1;
+            return data.get((int) streamPos++) & 0xFF;
+        }
+
+        @Override
+        public int read(byte[] b, int off, int len) throws IOException {
+            checkClosed();
+            bitOffset = 0;
+            if (len == 0) return 0;
+            if (streamPos >= length) return -1;
+            int n = (int) Math.min(len, length - streamPos);
+            data.get((int) streamPos, b, off, n);
+            streamPos += n;
+            return n;
+        }
+
+        @Override
+        public long length() {
+            return length;
+        }
     }
 }
@@ -0,0 +1,121 @@
+/*
+ * Bu yazılım Yusuf Ziyrek'e aittir.
+ * İzinsiz kopyalanamaz, değiştirilemez, dağıtılamaz ve ticari olarak kullanılamaz.
+ * Tüm hakları saklıdır. © 2025 Yusuf Ziyrek
+ */
+import java.awt.*;
+import java.awt.image.BufferedImage;
+
+/**
+ * Fotoğraf ölçeklendirme yardımcıları (ekran görüntüsü ve alım hattı tarafından kullanılır)
+ */
+public final class ImageScaler {
+
+    /**
+     * Resmi en-boy oranını koruyarak verilen alana sığdırır. Sadece küçültme yapar; sonuç
+     * gc verilmişse ekranla uyumlu (compatible) bir görüntüdür, böylece çizim hızlı blit olur.
+     * @param gc Hedef ekran yapılandırması (null olabilir)
+     */
+    public static BufferedImage scaleToFit(BufferedImage src, int maxWidth, int maxHeight, GraphicsConfiguration gc) {
+        if (src == null || maxWidth <= 0 || maxHeight <= 0) return src;
+        Dimension d = fitWithin(src.getWidth(), src.getHeight(), maxWidth, maxHeight);
+        if (d.width >= src.getWidth() && d.height >= src.getHeight()) {
+            // Küçültme gerekmiyor; sadece ekran formatına dönüştür
+            return (gc != null) ? toCompatible(src, gc) : src;
+        }
+        return createHighQualityScaledImage(src, d.width, d.height, gc);
+    }
+
+    /**
+     * En-boy oranını koruyarak (w,h) boyutunu (maxW,maxH) alanına sığdırır.
+     */
+    public static Dimension fitWithin(int w, int h, int maxW, int maxH) {
+        double scale = Math.min((double) maxW / w, (double) maxH / h);
+        if (scale >= 1.0) return new Dimension(w, h);
+        return new Dimension(Math.max(1, (int) Math.round(w * scale)), Math.max(1, (int) Math.round(h * scale)));
+    }
+
+    /**
+     * Resmi ekranın yerel piksel formatına kopyalar (zaten uyumluysa aynen döner).
+     */
+    public static BufferedImage toCompatible(BufferedImage src, GraphicsConfiguration gc) {
+        if (src.getColorModel().equals(gc.getColorModel(src.getTransparency()))) return src;
+        BufferedImage dst = gc.createCompatibleImage(src.getWidth(), src.getHeight(), src.getTransparency());
+        Graphics2D g = dst.createGraphics();
+        g.drawImage(src, 0, 0, null);
+        g.dispose();
+        return dst;
+    }
+
+    // Çok aşamalı yüksek kaliteli ölçeklendirme metodu - Bellek optimize
+    public static BufferedImage createHighQualityScaledImage(BufferedImage original, int targetWidth, int targetHeight, GraphicsConfiguration gc) {
+        int currentWidth = original.getWidth();
+        int currentHeight = original.getHeight();
+        int transparency = original.getTransparency();
+        int stepType = (transparency == Transparency.OPAQUE) ? BufferedImage.TYPE_INT_RGB : BufferedImage.TYPE_INT_ARGB;
+
+        BufferedImage currentImage = original;
+
+        // Eğer ölçeklendirme %50'den fazlaysa, aşamalı ölçeklendirme yap
+        double scaleRatio = (double) targetWidth / currentWidth;
+
+        if (scaleRatio < 0.5) {
+            // Aşamalı küçültme - her seferinde yarıya indir
+            while (currentWidth > targetWidth * 2 || currentHeight > targetHeight * 2) {
+                int newWidth = Math.max(currentWidth / 2, targetWidth);
+                int newHeight = Math.max(currentHeight / 2, targetHeight);
+
+                BufferedImage tempImage = new BufferedImage(newWidth, newHeight, stepType);
+                Graphics2D g2d = tempImage.createGraphics();
+
+                // Aşamalı ölçeklendirme için optimize ayarlar
+                g2d.setRenderingHint(RenderingHints.KEY_INTERPOLATION, RenderingHints.VALUE_INTERPOLATION_BILINEAR);
+                g2d.setRenderingHint(RenderingHints.KEY_RENDERING, RenderingHints.VALUE_RENDER_QUALITY);
+                g2d.setRenderingHint(RenderingHints.KEY_ANTIALIASING, RenderingHints.VALUE_ANTIALIAS_ON);
+
+                g2d.drawImage(currentImage, 0, 0, newWidth, newHeight, null);
+                g2d.dispose();
+
+                // Bellek optimizasyonu - önceki adımı temizle
+                if (currentImage != original) {
+                    currentImage.flush();
+                }
+
+                currentImage = tempImage;
+                currentWidth = newWidth;
+                currentHeight = newHeight;
+            }
+        }
+
+        // Son aşama - Ultra kalite ölçeklendirme
+        BufferedImage finalImage = (gc != null)
+            ? gc.createCompatibleImage(targetWidth, targetHeight, transparency)
+            : new BufferedImage(targetWidth, targetHeight, stepType);
+        Graphics2D g2d = finalImage.createGraphics();
+
+        // En yüksek kalite ayarları - son aşama için
+        g2d.setRenderingHint(RenderingHints.KEY_INTERPOLATION, RenderingHints.VALUE_INTERPOLATION_BICUBIC);
+        g2d.setRenderingHint(RenderingHints.KEY_RENDERING, RenderingHints.VALUE_RENDER_QUALITY);
+        g2d.setRenderingHint(RenderingHints.KEY_ANTIALIASING, RenderingHints.VALUE_ANTIALIAS_ON);
+        g2d.setRenderingHint(RenderingHints.KEY_COLOR_RENDERING, RenderingHints.VALUE_COLOR_RENDER_QUALITY);
+        g2d.setRenderingHint(RenderingHints.KEY_ALPHA_INTERPOLATION, RenderingHints.VALUE_ALPHA_INTERPOLATION_QUALITY);
+        g2d.setRenderingHint(RenderingHints.KEY_DITHERING, RenderingHints.VALUE_DITHER_DISABLE);
+        g2d.setRenderingHint(RenderingHints.KEY_FRACTIONALMETRICS, RenderingHints.VALUE_FRACTIONALMETRICS_ON);
+        g2d.setRenderingHint(RenderingHints.KEY_STROKE_CONTROL, RenderingHints.VALUE_STROKE_PURE);
+
+        g2d.drawImage(currentImage, 0, 0, targetWidth, targetHeight, null);
+        g2d.dispose();
+
+        // Bellek temizleme - ara adım olan görüntüyü temizle
+        if (currentImage != original) {
+            currentImage.flush();
+        }
+
+        return finalImage;
+    }
+
+    // Private constructor to prevent instantiation
+    private ImageScaler() {
+        throw new UnsupportedOperationException("Utility class cannot be instantiated");
+    }
+}
@@ -7,13 +7,12 @@ import javax.swing.*;
 import java.awt.*;
 import java.awt.event.MouseAdapter;
 import java.awt.event.MouseEvent;
+import java.awt.geom.AffineTransform;
 import java.awt.image.BufferedImage;
 import java.io.File;
 import java.io.IOException;
-import java.time.LocalDate;
-import java.time.LocalTime;
-import java.time.format.DateTimeFormatter;
 import java.util.Properties;
+import java.util.concurrent.atomic.AtomicReference;
 import javax.imageio.ImageIO;
 
 /**
@@ -21,20 +20,34 @@ import javax.imageio.ImageIO;
  */
 public class PhotoPanel extends JPanel {
     private static final long serialVersionUID = 1L;
-    private transient BufferedImage image = null;
-    private String info = AppConstants.DEFAULT_INFO_MESSAGE;
+    // Aktif çizim modunda render thread'i de okur
+    private transient volatile BufferedImage image = null;
+    // Ekran önbelleği: gradient arka plan + ölçeklenmiş fotoğraf, panelin piksel boyutunda tek resim.
+    // Sadece fotoğraf veya panel boyutu değişince yeniden çizilir; repaint tek bir blit olur.
+    private transient BufferedImage frameCache = null;
+    private transient BufferedImage frameCacheSource = null;
+    private transient EdgeGradient frameCacheGradient = null;
+    // Fotoğrafla birlikte saklanan kenar gradienti (resim değişince bir kez alınır)
+    private transient volatile EdgeGradient edgeGradient = null;
+    private volatile String info = AppConstants.DEFAULT_INFO_MESSAGE;
+    private final Font infoFont = new Font("Arial", Font.BOLD, AppConstants.INFO_FONT_SIZE);
+    private final transient Object frameCacheLock = new Object();
+
+    // Aktif çizim modunda ekranı ActiveRenderer çizer; repaint istekleri ona yönlendirilir
+    private transient volatile ActiveRenderer activeRenderer = null;
+
+    // Fotoğraf değişiminde geçiş efekti: eski kare önbellekten ayrılır, yeni kare hazır olunca başlar
+    private final transient TransitionEngine transitionEngine;
+    private transient volatile Transition defaultTransition = Transition.NONE;
+    private transient Transition nextTransition = null;
+    // EDT hazırlar, çizim thread'i (aktif modda ActiveRenderer) alır; geçiş ve başlangıç karesi tek parça el değiştirir
+    private final transient AtomicReference<PendingTransition> pendingTransition = new AtomicReference<>();
     private JFrame parentFrame;
 
     // Clock & date overlay
-    private volatile String timeText = "";
-    private volatile String dateText = "";
-    private final transient DateTimeFormatter timeFmt = DateTimeFormatter.ofPattern(AppConstants.TIME_FORMAT_PATTERN);
-    private final transient DateTimeFormatter dateFmt = DateTimeFormatter.ofPattern(AppConstants.DATE_FORMAT_PATTERN);
-    // Bigger, clearer fonts: large for time, smaller for date (increased per user request)
-    private final Font timeFont = new Font("SansSerif", Font.PLAIN, AppConstants.TIME_FONT_SIZE);
-    private final Font dateFont = new Font("SansSerif", Font.PLAIN, AppConstants.DATE_FONT_SIZE);
+    private final transient ClockOverlay clockOverlay = new ClockOverlay();
     private Timer clockTimer;
-    private boolean showClock = true; // can add setter if needed
+    private volatile boolean showClock = true; // can add setter if needed
 
     // Zamanlı gösterim için timer
     private Timer autoReturnTimer;
@@ -44,7 +57,12 @@ public class PhotoPanel extends JPanel {
     private java.util.concurrent.ScheduledFuture<?> longTermTask;
     
     // Durum takibi - sadece 2 durum: Default veya Toplantı Var
-    private boolean isCustomImageShowing = false;
+    private volatile boolean isCustomImageShowing = false;
+    // Durum değişince abone göndericilere ve durum yayınına bildirilir (EDT'de çağrılır)
+    private final transient java.util.List<java.util.function.Consumer<String>> statusListeners = new java.util.concurrent.CopyOnWriteArrayList<>();
+    private transient String lastNotifiedStatus = null;
+    // Zamanlı gösterimin default'a döneceği an (epoch ms); 0 ise zamanlayıcı yok
+    private volatile long autoReturnAtMillis = 0;
 
     // Cursor auto-hide
     private Cursor defaultCursor;
@@ -57,7 +75,11 @@ public class PhotoPanel extends JPanel {
     private JMenuItem clockToggleItem = new JMenuItem("Saat göster");
     private JMenuItem exitItem = new JMenuItem("Çıkış");
 
-    public PhotoPanel() {
+    /**
+     * @param logger Geçiş tanılamaları (atlanan/yarıda biten geçişler) için
+     */
+    public PhotoPanel(AppLogger logger) {
+        this.transitionEngine = new TransitionEngine(this::repaint, logger);
         initializeComponents();
         setupEventHandlers();
         startClockTimer();
@@ -100,7 +122,7 @@ public class PhotoPanel extends JPanel {
         clockToggleItem.addActionListener(_ -> {
             showClock = !showClock;
             updateClockToggleText();
-            repaint();
+            repaint(clockOverlay.getBounds());
         });
         popupMenu.add(clockToggleItem);
 
@@ -143,12 +165,13 @@ public class PhotoPanel extends JPanel {
     }
 
     private void startClockTimer() {
-        // Başlangıçta saat & tarih metinlerini güncelle ve timer başlat
-        updateTimeText();
+        clockOverlay.start(this);
+        // Saniyede bir kontrol edilir ama sadece metin değişince (dakikada bir) saatin alanı boyanır
         clockTimer = new Timer(AppConstants.CLOCK_UPDATE_INTERVAL_MS, _ -> {
-            updateTimeText();
-            // Her saniye güncelliyoruz (dakika değişiminde de repaint yeterli olur)
-            repaint();
+            Rectangle before = clockOverlay.getBounds();
+            if (clockOverlay.update() && showClock && image != null) {
+                repaint(before.union(clockOverlay.getBounds()));
+            }
         });
         clockTimer.setCoalesce(true);
         clockTimer.start();
@@ -169,17 +192,6 @@ public class PhotoPanel extends JPanel {
         hideCursorTimer.setRepeats(false);
     }
 
-    private void updateTimeText() {
-        try {
-            LocalTime lt = LocalTime.now();
-            timeText = lt.format(timeFmt);
-            dateText = LocalDate.now().format(dateFmt);
-        } catch (Exception e) {
-            timeText = "";
-            dateText = "";
-        }
-    }
-
     private void updateClockToggleText() {
         if (clockToggleItem == null) return;
         if (showClock) {
@@ -196,11 +208,16 @@ public class PhotoPanel extends JPanel {
 
     public void setInfo(String info) {
         // show info text instead of image
+        cancelTransition();
         this.image = null;
+        this.edgeGradient = null;
+        releaseFrameCache();
         this.info = (info != null) ? info : "";
+        autoReturnAtMillis = 0;
         
         // Default duruma dön - sadece boolean flag
         isCustomImageShowing = false;
+        setBackground(AppConstants.INFO_BACKGROUND_COLOR);
         
         // ensure cursor visible when showing info
         if (defaultCursor == null) defaultCursor = getCursor();
@@ -208,6 +225,39 @@ public class PhotoPanel extends JPanel {
         cursorHidden = false;
         if (hideCursorTimer != null) hideCursorTimer.stop();
         repaint();
+        notifyStatusIfChanged();
+    }
+
+    /**
+     * Gösterilen durum metni (getStatusDetails) her değiştiğinde çağrılacak dinleyici; zamanlı
+     * gösterimin bitip default'a dönmesi de dahil. Fotoğraf üstüne fotoğraf veya süre değişimi
+     * metni değiştirmez; bunlar için ReceivePipeline.addDisplayListener kullanılır.
+     */
+    public void addStatusListener(java.util.function.Consumer<String> listener) {
+        statusListeners.add(listener);
+    }
+
+    private void notifyStatusIfChanged() {
+        String status = getStatusDetails();
+        if (status.equals(lastNotifiedStatus)) return;
+        lastNotifiedStatus = status;
+        for (java.util.function.Consumer<String> l : statusListeners) l.accept(status);
+    }
+
+    /**
+     * Zamanlı gösterimin default'a döneceği an (epoch ms); zamanlayıcı yoksa 0.
+     */
+    public long getTimerDeadlineMillis() {
+        return isCustomImageShowing ? autoReturnAtMillis : 0;
+    }
+
+    /**
+     * Zamanlı gösterimde default'a dönüşe kalan süre (saniye); zamanlayıcı yoksa -1.
+     */
+    public long getTimerRemainingSeconds() {
+        long at = autoReturnAtMillis;
+        if (at == 0 || !isCustomImageShowing) return -1;
+        return Math.max(0, (at - System.currentTimeMillis() + 999) / 1000);
     }
     
     // Durum sorgulama metodu - sadece 2 durum
@@ -244,6 +294,59 @@ public class PhotoPanel extends JPanel {
     public void setImage(BufferedImage img) {
         setImage(img, false); // Default olarak özel fotoğraf olarak kabul et
     }
+
+    /**
+     * Gönderiminde geçiş belirtilmeyen değişimlerde (default'a dönüş vb.) kullanılacak geçiş.
+     */
+    public void setDefaultTransition(Transition transition) {
+        this.defaultTransition = (transition != null) ? transition : Transition.NONE;
+    }
+
+    /**
+     * Bir sonraki setImage/setImageWithTimer çağrısında kullanılacak geçiş (EDT'den çağrılır).
+     */
+    public void setNextTransition(Transition transition) {
+        this.nextTransition = transition;
+    }
+
+    private void prepareTransition(BufferedImage next) {
+        Transition transition = (nextTransition != null) ? nextTransition : defaultTransition;
+        nextTransition = null;
+        cancelTransition();
+        if (next == null || next == image || transition.isNone()) return;
+        // Eski ekran karesini önbellekten ayır; geçişin başlangıç karesi olarak kullanılır
+        BufferedImage from;
+        synchronized (frameCacheLock) {
+            from = (image != null) ? frameCache : null;
+            frameCache = null;
+            frameCacheSource = null;
+            frameCacheGradient = null;
+        }
+        Color color = (image != null) ? AppConstants.IMAGE_BACKGROUND_COLOR : AppConstants.INFO_BACKGROUND_COLOR;
+        pendingTransition.set(new PendingTransition(transition, from, color, next));
+    }
+
+    private void cancelTransition() {
+        pendingTransition.set(null);
+        transitionEngine.cancel();
+    }
+
+    /**
+     * Yeni kare hazır olunca başlatılacak geçiş ve eski ekranın karesi.
+     */
+    private static final class PendingTransition {
+        final Transition transition;
+        final BufferedImage from;
+        final Color fromColor;
+        final BufferedImage to; // geçiş yalnızca bu fotoğrafın karesiyle başlar
+
+        PendingTransition(Transition transition, BufferedImage from, Color fromColor, BufferedImage to) {
+            this.transition = transition;
+            this.from = from;
+            this.fromColor = fromColor;
+            this.to = to;
+        }
+    }
     
     // Durum kontrolü ile fotoğraf gösterimi
     public void setImage(BufferedImage img, boolean isDefault) {
@@ -255,8 +358,11 @@ public class PhotoPanel extends JPanel {
             longTermTask.cancel(false);
             longTermTask = null;
         }
+        autoReturnAtMillis = 0;
         
+        prepareTransition(img);
         this.image = img;
+        this.edgeGradient = (img != null) ? EdgeGradient.of(img) : null;
         if (img != null) {
             // Durum güncelle - basit mantık
             isCustomImageShowing = !isDefault;
@@ -278,6 +384,7 @@ public class PhotoPanel extends JPanel {
             setBackground(AppConstants.INFO_BACKGROUND_COLOR);
         }
         repaint();
+        notifyStatusIfChanged();
     }
 
     // Zamanlı fotoğraf gösterimi
@@ -287,7 +394,9 @@ public class PhotoPanel extends JPanel {
             autoReturnTimer.stop();
         }
         
+        prepareTransition(img);
         this.image = img;
+        this.edgeGradient = (img != null) ? EdgeGradient.of(img) : null;
         if (img != null) {
             // when an image is shown, restart hide timer so cursor will auto-hide
             if (defaultCursor == null) defaultCursor = getCursor();
@@ -297,8 +406,10 @@ public class PhotoPanel extends JPanel {
 
             // ensure dark background while showing images (avoids light strips)
             setBackground(AppConstants.IMAGE_BACKGROUND_COLOR);
+            isCustomImageShowing = true;
             
             // Zamanlayıcıyı başlat - uzun süreler için özel işlem
+            autoReturnAtMillis = (durationSeconds > 0) ? System.currentTimeMillis() + durationSeconds * 1000L : 0;
             if (durationSeconds > 0) {
                 // Timer limiti: Integer.MAX_VALUE milisaniye (yaklaşık 24.8 gün)
                 final long MAX_TIMER_DAYS = 24;
@@ -359,118 +470,167 @@ public class PhotoPanel extends JPanel {
             setBackground(AppConstants.INFO_BACKGROUND_COLOR);
         }
         repaint();
+        notifyStatusIfChanged();
     }
 
-    // Yeni yardımcı: kenar renklerini örnekleyip ortalayıp gradient için kullanacağız
-    private Color averageEdgeColor(BufferedImage img, boolean top) {
-        if (img == null) return Color.BLACK;
-        int w = img.getWidth();
-        int h = img.getHeight();
-        int samples = Math.min(64, w);
-        long r = 0, g = 0, b = 0, c = 0;
-        for (int i = 0; i < samples; i++) {
-            int x = (int) Math.round((i + 0.5) * w / (double) samples);
-            if (x >= w) x = w - 1;
-            int y = top ? 0 : (h - 1);
-            try {
-                int rgb = img.getRGB(x, y);
-                Color col = new Color(rgb, true);
-                r += col.getRed();
-                g += col.getGreen();
-                b += col.getBlue();
-                c++;
-            } catch (Exception ignored) {}
+    /**
+     * Fotoğrafı ve kenar renklerinden gradient arka planı, panelin cihaz pikseli boyutunda ekranla
+     * uyumlu bir resme bir kez çizer. Fotoğraf veya boyut değişmedikçe aynı resim döner.
+     */
+    private BufferedImage renderedFrame(AffineTransform tx) {
+        synchronized (frameCacheLock) {
+            return renderedFrameLocked(tx);
         }
-        if (c == 0) return Color.BLACK;
-        return new Color((int) (r / c), (int) (g / c), (int) (b / c));
     }
 
-    private Color blendWithBlack(Color col, float factor) {
-        int rr = (int) (col.getRed() * (1f - factor));
-        int gg = (int) (col.getGreen() * (1f - factor));
-        int bb = (int) (col.getBlue() * (1f - factor));
-        return new Color(Math.max(0, Math.min(255, rr)),
-                         Math.max(0, Math.min(255, gg)),
-                         Math.max(0, Math.min(255, bb)));
+    /**
+     * Bekleyen geçişi, frame hâlâ önbellekteki kare ve geçişin hedef fotoğrafına aitse alır.
+     * prepareTransition ile image ataması arasında çizilen eski kareyle geçiş başlamaz.
+     */
+    private PendingTransition takePendingTransition(BufferedImage frame) {
+        synchronized (frameCacheLock) {
+            PendingTransition next = pendingTransition.get();
+            if (next == null || frame != frameCache || next.to != frameCacheSource) return null;
+            return pendingTransition.compareAndSet(next, null) ? next : null;
+        }
     }
 
-    @Override
-    protected void paintComponent(Graphics g) {
-        super.paintComponent(g);
-        if (image != null) {
-            Graphics2D g2d = (Graphics2D) g;
-            g2d.setRenderingHint(RenderingHints.KEY_INTERPOLATION, RenderingHints.VALUE_INTERPOLATION_BICUBIC);
-            g2d.setRenderingHint(RenderingHints.KEY_TEXT_ANTIALIASING, RenderingHints.VALUE_TEXT_ANTIALIAS_ON);
-            g2d.setRenderingHint(RenderingHints.KEY_ANTIALIASING, RenderingHints.VALUE_ANTIALIAS_ON);
+    private BufferedImage renderedFrameLocked(AffineTransform tx) {
+        BufferedImage image = this.image;
+        EdgeGradient edgeGradient = this.edgeGradient;
+        if (image == null || edgeGradient == null) return null;
+        int width = (int) Math.ceil(getWidth() * tx.getScaleX());
+        int height = (int) Math.ceil(getHeight() * tx.getScaleY());
+        if (width <= 0 || height <= 0) return null;
+        if (frameCache != null && frameCacheSource == image && frameCacheGradient == edgeGradient
+                && frameCache.getWidth() == width && frameCache.getHeight() == height) {
+            return frameCache;
+        }
+        releaseFrameCache();
 
+        GraphicsConfiguration gc = getGraphicsConfiguration();
+        BufferedImage frame = (gc != null)
+            ? gc.createCompatibleImage(width, height, Transparency.OPAQUE)
+            : new BufferedImage(width, height, BufferedImage.TYPE_INT_RGB);
+        Graphics2D fg = frame.createGraphics();
+        try {
             // Fill background with a subtle gradient sampled from the image edges
-            Color topColor = averageEdgeColor(image, true);
-            Color bottomColor = averageEdgeColor(image, false);
-            // Slightly darken samples so they don't appear brighter than image
-            topColor = blendWithBlack(topColor, 0.06f);
-            bottomColor = blendWithBlack(bottomColor, 0.06f);
-            java.awt.GradientPaint gp = new java.awt.GradientPaint(0, 0, topColor, 0, getHeight(), bottomColor);
-            g2d.setPaint(gp);
-            g2d.fillRect(0, 0, getWidth(), getHeight());
+            fg.setPaint(edgeGradient.paintFor(height));
+            fg.fillRect(0, 0, width, height);
 
             int imgWidth = image.getWidth();
             int imgHeight = image.getHeight();
-            double panelRatio = (double) getWidth() / getHeight();
+            double panelRatio = (double) width / height;
             double imgRatio = (double) imgWidth / imgHeight;
             int drawWidth, drawHeight;
             if (imgRatio > panelRatio) {
-                drawWidth = getWidth();
-                drawHeight = (int) Math.round(getWidth() / imgRatio);
+                drawWidth = width;
+                drawHeight = (int) Math.round(width / imgRatio);
+            } else {
+                drawHeight = height;
+                drawWidth = (int) Math.round(height * imgRatio);
+            }
+            int x = (width - drawWidth) / 2;
+            int y = (height - drawHeight) / 2;
+            if (drawWidth < imgWidth / 2) {
+                // Büyük küçültmede tek bicubic adım kenarları bozar; aşamalı ölçekle
+                BufferedImage scaled = ImageScaler.createHighQualityScaledImage(image, drawWidth, drawHeight, gc);
+                fg.drawImage(scaled, x, y, null);
+                scaled.flush();
             } else {
-                drawHeight = getHeight();
-                drawWidth = (int) Math.round(getHeight() * imgRatio);
+                fg.setRenderingHint(RenderingHints.KEY_INTERPOLATION, RenderingHints.VALUE_INTERPOLATION_BICUBIC);
+                fg.setRenderingHint(RenderingHints.KEY_RENDERING, RenderingHints.VALUE_RENDER_QUALITY);
+                fg.drawImage(image, x, y, drawWidth, drawHeight, null);
+            }
+        } finally {
+            fg.dispose();
+        }
+        frameCache = frame;
+        frameCacheSource = image;
+        frameCacheGradient = edgeGradient;
+        return frame;
+    }
+
+    private void releaseFrameCache() {
+        synchronized (frameCacheLock) {
+            if (frameCache != null) {
+                frameCache.flush();
+                frameCache = null;
+            }
+            frameCacheSource = null;
+            frameCacheGradient = null;
+        }
+    }
+
+    @Override
+    protected void paintComponent(Graphics g) {
+        super.paintComponent(g);
+        paintContent((Graphics2D) g);
+    }
+
+    /**
+     * Aktif çizim modunda render thread'inden çağrılır; arka planı kendisi doldurur.
+     * @return Bir sonraki kare de hemen istenirse (animasyon sürüyorsa) true
+     */
+    boolean renderActiveFrame(Graphics2D g2d) {
+        g2d.setColor(image != null ? AppConstants.IMAGE_BACKGROUND_COLOR : AppConstants.INFO_BACKGROUND_COLOR);
+        g2d.fillRect(0, 0, getWidth(), getHeight());
+        paintContent(g2d);
+        return transitionEngine.isRunning();
+    }
+
+    void setActiveRenderer(ActiveRenderer renderer) {
+        this.activeRenderer = renderer;
+        // Hafif menüler Swing tarafından çizilir ve aktif çizimde ezilir; ağır pencere kullan
+        popupMenu.setLightWeightPopupEnabled(renderer == null);
+    }
+
+    @Override
+    public void repaint(long tm, int x, int y, int width, int height) {
+        ActiveRenderer renderer = activeRenderer;
+        if (renderer != null) {
+            renderer.requestFrame();
+            return;
+        }
+        super.repaint(tm, x, y, width, height);
+    }
+
+    private void paintContent(Graphics2D g2d) {
+        if (image != null) {
+            // Arka plan + fotoğraf önbellekten; ölçekleme sadece boyut/fotoğraf değişince yapılır
+            AffineTransform tx = g2d.getTransform();
+            BufferedImage frame = renderedFrame(tx);
+            boolean unscaled = tx.getScaleX() == 1.0 && tx.getScaleY() == 1.0;
+            if (frame != null) {
+                PendingTransition pending = takePendingTransition(frame);
+                if (pending != null) {
+                    // Yeni kare artık hazır: eski kareden geçişi başlat
+                    transitionEngine.start(pending.from, pending.fromColor, frame, pending.transition);
+                }
+                if (!transitionEngine.paint(g2d, getWidth(), getHeight(), unscaled)) {
+                    if (unscaled) {
+                        g2d.drawImage(frame, 0, 0, null);
+                    } else {
+                        // HiDPI: önbellek cihaz pikseli boyutunda, birebir eşlenir
+                        g2d.drawImage(frame, 0, 0, getWidth(), getHeight(), null);
+                    }
+                }
             }
-            int x = (getWidth() - drawWidth) / 2;
-            int y = (getHeight() - drawHeight) / 2;
-            g2d.drawImage(image, x, y, drawWidth, drawHeight, null);
 
             // Saat + tarih bindirmesini sağ üst köşeye çiz
-            if (showClock && timeText != null && !timeText.isEmpty()) {
-                int margin = AppConstants.CLOCK_MARGIN; // köşeden uzaklık
-
-                // Time
-                g2d.setFont(timeFont);
-                g2d.setRenderingHint(RenderingHints.KEY_TEXT_ANTIALIASING, RenderingHints.VALUE_TEXT_ANTIALIAS_ON);
-                FontMetrics fmTime = g2d.getFontMetrics();
-                int timeW = fmTime.stringWidth(timeText);
-                int timeH = fmTime.getAscent();
-
-                // Date (smaller)
-                g2d.setFont(dateFont);
-                FontMetrics fmDate = g2d.getFontMetrics();
-                int dateW = fmDate.stringWidth(dateText);
-                int dateH = fmDate.getAscent();
-
-                // Position time at right margin, then center date under time
-                int txTime = getWidth() - timeW - margin;
-                int tyTime = margin + timeH;
-                int centerX = txTime + timeW / 2;
-                int txDate = (int) Math.round(centerX - dateW / 2.0);
-                if (txDate < margin) txDate = margin; // don't go beyond left margin
-                int tyDate = tyTime + 6 + dateH; // small gap between lines
-
-                // Draw main text in blue (no shadow)
-                g2d.setColor(AppConstants.CLOCK_COLOR);
-                g2d.setFont(timeFont);
-                g2d.drawString(timeText, txTime, tyTime);
-                g2d.setFont(dateFont);
-                g2d.drawString(dateText, txDate, tyDate);
+            if (showClock) {
+                clockOverlay.paint(g2d);
             }
 
         } else {
-            setBackground(AppConstants.INFO_BACKGROUND_COLOR);
-            g.setColor(AppConstants.INFO_TEXT_COLOR);
-            g.setFont(new Font("Arial", Font.BOLD, AppConstants.INFO_FONT_SIZE));
-            FontMetrics fm = g.getFontMetrics();
+            String info = this.info;
+            g2d.setColor(AppConstants.INFO_TEXT_COLOR);
+            g2d.setFont(infoFont);
+            FontMetrics fm = g2d.getFontMetrics();
             int textWidth = fm.stringWidth(info);
             int x = (getWidth() - textWidth) / 2;
             int y = getHeight() / 2;
-            g.drawString(info, x, y);
+            g2d.drawString(info, x, y);
         }
     }
 
@@ -492,6 +652,10 @@ public class PhotoPanel extends JPanel {
             hideCursorTimer = null;
         }
         
+        cancelTransition();
+        releaseFrameCache();
+        clockOverlay.releaseCache();
+
         // Uzun süreli executor'ı temizle
         if (longTermTask != null) {
             longTermTask.cancel(true);
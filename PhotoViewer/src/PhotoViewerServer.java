@@ -7,8 +7,7 @@ import javax.swing.*;
 import java.awt.*;
 import java.awt.image.BufferedImage;
 import java.io.*;
-import java.net.ServerSocket;
-import java.net.Socket;
+import java.net.InetAddress;
 import javax.imageio.ImageIO;
 import java.util.Properties;
 import java.awt.Robot;
@@ -21,7 +20,7 @@ public class PhotoViewerServer {
     private static final Object CONFIG_LOCK = new Object();
     
     // Performance optimizasyonu için statik Robot nesnesi
-    private static Robot sharedRobot = null;
+    private static volatile Robot sharedRobot = null;
     
     // Robot nesnesini tek seferlik oluştur
     private static Robot getRobot() throws AWTException {
@@ -45,7 +44,7 @@ public class PhotoViewerServer {
         frame.setExtendedState(JFrame.MAXIMIZED_BOTH);
 
         // Özel panel: kalite bozulmadan fotoğraf gösterimi
-        PhotoPanel photoPanel = new PhotoPanel();
+        PhotoPanel photoPanel = new PhotoPanel(logger);
         frame.setContentPane(photoPanel);
         photoPanel.setParentFrame(frame);
 
@@ -130,6 +129,11 @@ public class PhotoViewerServer {
             }
         }
 
+        // Gönderimde belirtilmeyen değişimler için varsayılan geçiş efekti
+        photoPanel.setDefaultTransition(Transition.parse(
+            props.getProperty(AppConstants.CONFIG_TRANSITION_KEY, "NONE"),
+            props.getProperty(AppConstants.CONFIG_TRANSITION_MS_KEY, String.valueOf(AppConstants.DEFAULT_TRANSITION_MS))));
+
         // PROMPT: do not force repeated chooser; if still no default, show info
         if (defaultImage == null && AppConstants.MODE_PROMPT.equalsIgnoreCase(mode)) {
             photoPanel.setInfo(AppConstants.DEFAULT_INFO_MESSAGE);
@@ -174,193 +178,76 @@ public class PhotoViewerServer {
         frame.setVisible(true);
         logger.info("PhotoViewer UI başlatıldı, port: " + port);
 
+        // İsteğe bağlı aktif çizim modu (renderMode=ACTIVE); varsayılan Swing'in pasif çizimi
+        String renderMode = props.getProperty(AppConstants.CONFIG_RENDER_MODE_KEY, AppConstants.RENDER_MODE_PASSIVE);
+        if (AppConstants.RENDER_MODE_ACTIVE.equalsIgnoreCase(renderMode)) {
+            int fps = AppConstants.DEFAULT_RENDER_FPS;
+            try {
+                fps = Integer.parseInt(props.getProperty(AppConstants.CONFIG_RENDER_FPS_KEY, String.valueOf(fps)).trim());
+            } catch (NumberFormatException e) {
+                logger.warn("Geçersiz renderFps değeri, varsayılan kullanılıyor: " + fps);
+            }
+            ActiveRenderer renderer = new ActiveRenderer(frame, photoPanel, fps, logger);
+            try {
+                SwingUtilities.invokeAndWait(renderer::start);
+            } catch (Exception e) {
+                logger.warn("Aktif çizim modu başlatılamadı: " + e.getMessage());
+            }
+        }
+
         // UpdateManager otomatik kontrolü kaldırıldı - sadece file chooser'da manuel kontrol
         // updateManager.checkForUpdatesOnStartup(); // Commented out
 
-        try (ServerSocket serverSocket = new ServerSocket(port)) {
-            logger.success("Sunucu başarıyla başlatıldı - Port: " + port);
-            System.out.println("Sunucu dinleniyor: " + port);
-            while (true) {
-                try (Socket clientSocket = serverSocket.accept()) {
-                    String clientIP = clientSocket.getInetAddress().getHostAddress();
-                    logger.info("Yeni bağlantı alındı: " + clientIP);
-                    System.out.println("Bağlantı alındı: " + clientSocket.getInetAddress());
-            InputStream rawIn = clientSocket.getInputStream();
-            // Use PushbackInputStream so we can unread one byte if needed when parsing lines
-            PushbackInputStream in = new PushbackInputStream(rawIn, AppConstants.PUSHBACK_BUFFER_SIZE);
-            // Ensure we don't block forever waiting for data
-            clientSocket.setSoTimeout(AppConstants.SOCKET_TIMEOUT_MS); // PhotoSenderApp READ_TIMEOUT_MS ile eşleşsin
-            // Komut satırını oku (ilk satır) - format: SHOW_DEFAULT OR SEND_PHOTO:<length>
-                    String command = readAsciiLine(in);
-                    logger.info("Komut alındı: " + command + " (Kaynak: " + clientIP + ")");
-                    System.out.println("Komut alındı: " + command);
-                    if (command != null && command.equals(AppConstants.COMMAND_SHOW_DEFAULT)) {
-                        // Default fotoğrafı göster
-                        if (defaultImage != null) {
-                            logger.success("Default fotoğraf gösteriliyor");
-                            System.out.println("Default fotoğraf gösteriliyor.");
-                            photoPanel.setImage(defaultImage, true); // Default olarak işaretle
-                        } else {
-                            logger.warn("Default fotoğraf bulunamadı");
-                            photoPanel.setInfo(AppConstants.NO_DEFAULT_PHOTO_MESSAGE);
-                        }
-                    } else if (command != null && command.equals(AppConstants.COMMAND_GET_STATUS)) {
-                        // Durum sorgulama
-                        try {
-                            String status = photoPanel.getStatusDetails();
-                            OutputStream out = clientSocket.getOutputStream();
-                            BufferedWriter bw = new BufferedWriter(new OutputStreamWriter(out, "UTF-8"));
-                            bw.write("STATUS:" + status + "\n");
-                            bw.flush();
-                            logger.info("Durum bilgisi gönderildi: " + status + " (Kaynak: " + clientIP + ")");
-                            System.out.println("Durum sorgulandı: " + status);
-                        } catch (Exception ex) {
-                            logger.error("Durum bilgisi gönderilemedi", ex);
-                            System.out.println("Durum bilgisi gönderilemedi: " + ex.getMessage());
-                        }
-                    } else if (command != null && command.equals(AppConstants.COMMAND_GET_SCREENSHOT)) {
-                        // Screenshot sorgulama
-                        try {
-                            logger.info("Screenshot isteği alındı - Kaynak: " + clientIP);
-                            long startTime = System.currentTimeMillis();
-                            
-                            byte[] screenshotData = captureScreenshot();
-                            long captureTime = System.currentTimeMillis() - startTime;
-                            
-                            OutputStream out = clientSocket.getOutputStream();
-                            
-                            // Önce boyutu gönder
-                            String header = "SCREENSHOT:" + screenshotData.length + "\n";
-                            out.write(header.getBytes("UTF-8"));
-                            out.flush();
-                            
-                            // Sonra screenshot verisini gönder
-                            long transferStart = System.currentTimeMillis();
-                            out.write(screenshotData);
-                            out.flush();
-                            long transferTime = System.currentTimeMillis() - transferStart;
-                            
-                            long totalTime = System.currentTimeMillis() - startTime;
-                            logger.success("Screenshot başarıyla gönderildi - Boyut: " + (screenshotData.length / 1024) + " KB, " +
-                                         "Yakalama: " + captureTime + "ms, Transfer: " + transferTime + "ms, Toplam: " + totalTime + "ms");
-                        } catch (Exception ex) {
-                            logger.error("Screenshot gönderim hatası - Kaynak: " + clientIP + " - " + ex.getClass().getSimpleName() + ": " + ex.getMessage(), ex);
-                        }
-                    } else if (command != null && command.startsWith(AppConstants.COMMAND_SEND_PHOTO_WITH_TIMER)) {
-                        // Yeni protokol: SEND_PHOTO_WITH_TIMER:boyut:süre
-                        System.out.println("Zamanlı fotoğraf verisi alınıyor...");
-                        String[] parts = command.split(":", 3);
-                        if (parts.length >= 3) {
-                            try {
-                                int length = Integer.parseInt(parts[1]);
-                                long durationSeconds = Long.parseLong(parts[2]);
-                                
-                                // Fotoğrafı al
-                                BufferedImage image = ImageReceiver.receiveImage(in, length);
-                                
-                                if (image != null) {
-                                    photoPanel.setImageWithTimer(image, durationSeconds, defaultImage);
-                                    String durStr = AppUtils.formatDuration(durationSeconds);
-                                    logger.success("Zamanlı fotoğraf alındı: " + durStr + " gösterilecek (Kaynak: " + clientIP + ")");
-                                    System.out.println("Zamanlı fotoğraf alındı: " + durStr + " gösterilecek");
-                                    
-                                    // Send ACK back to sender
-                                    try {
-                                        OutputStream out = clientSocket.getOutputStream();
-                                        BufferedWriter bw = new BufferedWriter(new OutputStreamWriter(out, "US-ASCII"));
-                                        bw.write(AppConstants.RESPONSE_OK);
-                                        bw.flush();
-                                    } catch (Exception ex) {
-                                        logger.error("ACK gönderilemedi", ex);
-                                        System.out.println("ACK gönderilemedi: " + ex.getMessage());
-                                    }
-                                } else {
-                                    logger.error("Zamanlı fotoğraf alınamadı (Kaynak: " + clientIP + ")");
-                                    System.out.println("Zamanlı fotoğraf alınamadı");
-                                    try {
-                                        OutputStream out = clientSocket.getOutputStream();
-                                        BufferedWriter bw = new BufferedWriter(new OutputStreamWriter(out, "US-ASCII"));
-                                        bw.write(AppConstants.RESPONSE_ERROR);
-                                        bw.flush();
-                                    } catch (Exception ex) {
-                                        logger.error("ERR gönderilemedi", ex);
-                                        System.out.println("ERR gönderilemedi: " + ex.getMessage());
-                                    }
-                                }
-                            } catch (NumberFormatException ex) {
-                                System.out.println("Zamanlı fotoğraf header parse hatası: " + ex.getMessage());
-                            }
-                        }
-                    } else {
-                        // Eski protokol: Normal fotoğraf gelirse göster
-                        // Beklenen format: SEND_PHOTO:<length>\n followed by exactly <length> bytes
-                        System.out.println("Fotoğraf verisi alınıyor...");
-                        int length = -1;
-                        if (command != null && command.startsWith(AppConstants.COMMAND_SEND_PHOTO)) {
-                            try {
-                                String[] sp = command.split(":", 2);
-                                length = Integer.parseInt(sp[1]);
-                            } catch (Exception ex) {
-                                System.out.println("Header parse hatası: " + ex.getMessage());
-                            }
-                        }
-
-                        BufferedImage image = ImageReceiver.receiveImage(in, length);
-                        
-                        if (image != null) {
-                            logger.success("Normal fotoğraf alındı ve gösteriliyor (Kaynak: " + clientIP + ")");
-                            System.out.println("Fotoğraf başarıyla alındı ve gösteriliyor.");
-                            photoPanel.setImage(image);
-                        } else {
-                            logger.warn("Geçersiz veya eksik fotoğraf verisi (Kaynak: " + clientIP + ")");
-                            System.out.println("Geçersiz veya eksik fotoğraf verisi. Default gösteriliyor.");
-                            if (defaultImage != null) {
-                                photoPanel.setImage(defaultImage, true); // Default olarak işaretle
-                            } else {
-                                photoPanel.setInfo(AppConstants.INVALID_PHOTO_DATA_MESSAGE);
-                            }
-                        }
+        // Tekrar gönderilen fotoğraflar için SHA-256 anahtarlı disk önbelleği (imageCacheMb=0 ise kapalı)
+        ImageCache imageCache = null;
+        long cacheMb = AppConstants.DEFAULT_IMAGE_CACHE_MB;
+        try {
+            cacheMb = Long.parseLong(props.getProperty(AppConstants.CONFIG_IMAGE_CACHE_MB_KEY, String.valueOf(cacheMb)).trim());
+        } catch (NumberFormatException e) {
+            logger.warn("Geçersiz imageCacheMb değeri, varsayılan kullanılıyor: " + cacheMb);
+        }
+        if (cacheMb > 0) {
+            File cacheDir = new File(configFile.getAbsoluteFile().getParentFile(), AppConstants.IMAGE_CACHE_DIR_NAME);
+            imageCache = new ImageCache(cacheDir, cacheMb * 1024 * 1024, logger);
+        }
 
-                        // Send ACK back to sender — sadece görüntü başarıyla dekode edildiyse OK, aksi halde ERR
-                        try {
-                            OutputStream out = clientSocket.getOutputStream();
-                            BufferedWriter bw = new BufferedWriter(new OutputStreamWriter(out, "US-ASCII"));
-                            String reply = (image != null) ? AppConstants.RESPONSE_OK : AppConstants.RESPONSE_ERROR;
-                            bw.write(reply);
-                            bw.flush();
-                        } catch (Exception ex) {
-                            System.out.println("ACK gönderilemedi: " + ex.getMessage());
-                        }
-                    }
-                } catch (Exception e) {
-                    e.printStackTrace();
-                }
+        ReceivePipeline pipeline = new ReceivePipeline(photoPanel, defaultImage, imageCache, logger);
+        ConnectionDispatcher dispatcher = new ConnectionDispatcher(photoPanel, pipeline, imageCache, logger);
+        // Gönderici isterse fotoğrafı diğer ekranlara iletir (relay=false ise kapalı)
+        dispatcher.setRelayEnabled(!"false".equalsIgnoreCase(props.getProperty(AppConstants.CONFIG_RELAY_KEY, "true").trim()));
+        // Yavaş bağlantıda ilerlemeli JPEG'ler alım bitmeden bulanık olarak görünür (progressivePreview=false ise kapalı)
+        dispatcher.setProgressivePreviewEnabled(!"false".equalsIgnoreCase(props.getProperty(AppConstants.CONFIG_PROGRESSIVE_PREVIEW_KEY, "true").trim()));
+        // Kopan SEND_CHUNKED yüklemeleri ayarların yanındaki klasörde sürdürülmeyi bekler
+        dispatcher.setUploadDirectory(new File(configFile.getAbsoluteFile().getParentFile(), AppConstants.UPLOAD_DIR_NAME));
+        // Yalnızca tek adresten dinleme (bindAddress); tek makinede her sanal ekran ayrı loopback adresi alır
+        InetAddress bindAddress = null;
+        String bindText = props.getProperty(AppConstants.CONFIG_BIND_ADDRESS_KEY, "").trim();
+        if (!bindText.isEmpty()) {
+            try {
+                bindAddress = InetAddress.getByName(bindText);
+            } catch (IOException e) {
+                logger.warn("Geçersiz bindAddress değeri, tüm arayüzler dinlenecek: " + bindText);
             }
+        }
+        // Göndericilere UDP ile durum yayını (aynı port numarası)
+        StatusBeacon beacon = null;
+        try {
+            beacon = new StatusBeacon(bindAddress, port, photoPanel, pipeline, logger);
+            beacon.start();
         } catch (IOException e) {
-            e.printStackTrace();
+            logger.warn("Durum yayını başlatılamadı - UDP port: " + port + " (" + e.getMessage() + ")");
         }
-    }
-
-    // Read an ASCII line terminated by \n (handles \r\n and \n). Returns null on EOF.
-    private static String readAsciiLine(PushbackInputStream in) throws IOException {
-        ByteArrayOutputStream baos = new ByteArrayOutputStream();
-        int c;
-        while ((c = in.read()) != -1) {
-            if (c == '\r') {
-                // peek next byte
-                int next = in.read();
-                if (next != '\n' && next != -1) {
-                    in.unread(next);
-                }
-                break;
-            } else if (c == '\n') {
-                break;
-            } else {
-                baos.write(c);
-            }
+        try {
+            // Tek thread'lik NIO motoru tüm bağlantılara hizmet eder; komutlar dağıtıcıya iletilir
+            new ViewerProtocolEngine(bindAddress, port, dispatcher, logger).run();
+        } catch (IOException e) {
+            logger.error("Sunucu başlatılamadı - Port: " + port, e);
+            e.printStackTrace();
+        } finally {
+            if (beacon != null) beacon.shutdown();
+            dispatcher.shutdown();
+            pipeline.shutdown();
         }
-        if (c == -1 && baos.size() == 0) return null;
-        return baos.toString("US-ASCII");
     }
 
     // Yardımcılar -------------------------------------------------------
@@ -543,7 +430,7 @@ public class PhotoViewerServer {
     }
 
     // Screenshot alma metodu - Ultra yüksek kalite ve optimizasyon
-    private static byte[] captureScreenshot() throws Exception {
+    static byte[] captureScreenshot() throws Exception {
         long startTime = System.currentTimeMillis();
         
         // Optimize edilmiş Robot nesnesi kullan
@@ -584,7 +471,7 @@ public class PhotoViewerServer {
         
         if (targetWidth != originalWidth || targetHeight != originalHeight) {
             // Ultra yüksek kaliteli resize - Çok aşamalı ölçeklendirme
-            optimizedImage = createHighQualityScaledImage(screenshot, targetWidth, targetHeight);
+            optimizedImage = ImageScaler.createHighQualityScaledImage(screenshot, targetWidth, targetHeight, null);
         } else {
             optimizedImage = screenshot;
         }
@@ -620,67 +507,4 @@ public class PhotoViewerServer {
         
         return result;
     }
-    
-    // Çok aşamalı yüksek kaliteli ölçeklendirme metodu - Bellek optimize
-    private static BufferedImage createHighQualityScaledImage(BufferedImage original, int targetWidth, int targetHeight) {
-        int currentWidth = original.getWidth();
-        int currentHeight = original.getHeight();
-        
-        BufferedImage currentImage = original;
-        
-        // Eğer ölçeklendirme %50'den fazlaysa, aşamalı ölçeklendirme yap
-        double scaleRatio = (double) targetWidth / currentWidth;
-        
-        if (scaleRatio < 0.5) {
-            // Aşamalı küçültme - her seferinde yarıya indir
-            while (currentWidth > targetWidth * 2 || currentHeight > targetHeight * 2) {
-                int newWidth = Math.max(currentWidth / 2, targetWidth);
-                int newHeight = Math.max(currentHeight / 2, targetHeight);
-                
-                BufferedImage tempImage = new BufferedImage(newWidth, newHeight, BufferedImage.TYPE_INT_RGB);
-                Graphics2D g2d = tempImage.createGraphics();
-                
-                // Aşamalı ölçeklendirme için optimize ayarlar
-                g2d.setRenderingHint(RenderingHints.KEY_INTERPOLATION, RenderingHints.VALUE_INTERPOLATION_BILINEAR);
-                g2d.setRenderingHint(RenderingHints.KEY_RENDERING, RenderingHints.VALUE_RENDER_QUALITY);
-                g2d.setRenderingHint(RenderingHints.KEY_ANTIALIASING, RenderingHints.VALUE_ANTIALIAS_ON);
-                
-                g2d.drawImage(currentImage, 0, 0, newWidth, newHeight, null);
-                g2d.dispose();
-                
-                // Bellek optimizasyonu - önceki adımı temizle
-                if (currentImage != original) {
-                    currentImage.flush();
-                }
-                
-                currentImage = tempImage;
-                currentWidth = newWidth;
-                currentHeight = newHeight;
-            }
-        }
-        
-        // Son aşama - Ultra kalite ölçeklendirme
-        BufferedImage finalImage = new BufferedImage(targetWidth, targetHeight, BufferedImage.TYPE_INT_RGB);
-        Graphics2D g2d = finalImage.createGraphics();
-        
-        // En yüksek kalite ayarları - son aşama için
-        g2d.setRenderingHint(RenderingHints.KEY_INTERPOLATION, RenderingHints.VALUE_INTERPOLATION_BICUBIC);
-        g2d.setRenderingHint(RenderingHints.KEY_RENDERING, RenderingHints.VALUE_RENDER_QUALITY);
-        g2d.setRenderingHint(RenderingHints.KEY_ANTIALIASING, RenderingHints.VALUE_ANTIALIAS_ON);
-        g2d.setRenderingHint(RenderingHints.KEY_COLOR_RENDERING, RenderingHints.VALUE_COLOR_RENDER_QUALITY);
-        g2d.setRenderingHint(RenderingHints.KEY_ALPHA_INTERPOLATION, RenderingHints.VALUE_ALPHA_INTERPOLATION_QUALITY);
-        g2d.setRenderingHint(RenderingHints.KEY_DITHERING, RenderingHints.VALUE_DITHER_DISABLE);
-        g2d.setRenderingHint(RenderingHints.KEY_FRACTIONALMETRICS, RenderingHints.VALUE_FRACTIONALMETRICS_ON);
-        g2d.setRenderingHint(RenderingHints.KEY_STROKE_CONTROL, RenderingHints.VALUE_STROKE_PURE);
-        
-        g2d.drawImage(currentImage, 0, 0, targetWidth, targetHeight, null);
-        g2d.dispose();
-        
-        // Bellek temizleme - ara adım olan görüntüyü temizle
-        if (currentImage != original) {
-            currentImage.flush();
-        }
-        
-        return finalImage;
-    }
 }
@@ -0,0 +1,149 @@
+/*
+ * Bu yazılım Yusuf Ziyrek'e aittir.
+ * İzinsiz kopyalanamaz, değiştirilemez, dağıtılamaz ve ticari olarak kullanılamaz.
+ * Tüm hakları saklıdır. © 2025 Yusuf Ziyrek
+ */
+import java.nio.ByteBuffer;
+
+/**
+ * Yavaş bağlantıda büyük ilerlemeli (progressive) JPEG alınırken ön izleme. Gelen veri selector
+ * thread'inde JPEG işaretçilerine göre izlenir; her yeni tarama (SOS) başladığında öncekiler
+ * tamamlanmıştır ve o ana kadarki baytlar, sonuna EOI eklenerek tam boyutlu ama bulanık bir resim
+ * olarak çözülebilir. İlk tarama genellikle verinin %5'i kadardır, yani ekran aktarım bitmeden
+ * fotoğrafı gösterir; tam resim çözülünce geçişsiz olarak yerine geçer.
+ *
+ * Hızlı aktarımlarda boşuna çözme yapılmaması için ilk ön izleme PROGRESSIVE_PREVIEW_DELAY_MS'den
+ * önce, sonrakiler de PROGRESSIVE_PREVIEW_INTERVAL_MS'den sık istenmez. Taban (baseline) JPEG ve
+ * diğer biçimlerde izleme ilk işaretçilerde biter.
+ */
+public class ProgressivePreview {
+
+    private enum State { SOI_FF, SOI_D8, MARKER_FF, MARKER, LENGTH_HI, LENGTH_LO, SEGMENT, ENTROPY, ENTROPY_FF, DONE }
+
+    private final ReceivePipeline pipeline;
+    private final ImageReceiver.Payload payload;
+    private final long sequence;
+    private final Transition transition;
+    private final long startNanos;
+
+    private State state = State.SOI_FF;
+    private long position; // izlenen baytların toplamı (veri başından)
+    private int marker;
+    private int segmentLength;
+    private long segmentRemaining;
+    private boolean progressive;
+    private int scans;
+    private long lastRequestNanos;
+
+    public ProgressivePreview(ReceivePipeline pipeline, ImageReceiver.Payload payload, long sequence,
+                              Transition transition, long startNanos) {
+        this.pipeline = pipeline;
+        this.payload = payload;
+        this.sequence = sequence;
+        this.transition = transition;
+        this.startNanos = startNanos;
+    }
+
+    /**
+     * Tampona yazılmış yeni baytları izler (selector thread'i). src tüketilmez.
+     */
+    public void scan(ByteBuffer src) {
+        int i = src.position();
+        int limit = src.limit();
+        while (i < limit && state != State.DONE) {
+            switch (state) {
+                case SOI_FF:
+                    state = ((src.get(i) & 0xFF) == 0xFF) ? State.SOI_D8 : State.DONE;
+                    break;
+                case SOI_D8:
+                    state = ((src.get(i) & 0xFF) == 0xD8) ? State.MARKER_FF : State.DONE;
+                    break;
+                case MARKER_FF:
+                    if ((src.get(i) & 0xFF) != 0xFF) {
+                        state = State.DONE; // bozuk yapı; son çözme karar verir
+                        break;
+                    }
+                    state = State.MARKER;
+                    break;
+                case MARKER:
+                    onMarker(src.get(i) & 0xFF, position + (i - src.position()) - 1);
+                    break;
+                case LENGTH_HI:
+                    segmentLength = (src.get(i) & 0xFF) << 8;
+                    state = State.LENGTH_LO;
+                    break;
+                case LENGTH_LO:
+                    segmentLength |= src.get(i) & 0xFF;
+                    segmentRemaining = segmentLength - 2;
+                    state = State.SEGMENT;
+                    if (segmentRemaining <= 0) endSegment();
+                    break;
+                case SEGMENT: {
+                    int skip = (int) Math.min(segmentRemaining, limit - i);
+                    i += skip;
+                    segmentRemaining -= skip;
+                    if (segmentRemaining == 0) endSegment();
+                    continue;
+                }
+                case ENTROPY:
+                    // Sıkıştırılmış veride yalnızca 0xFF aranır
+                    while (i < limit && src.get(i) != (byte) 0xFF) i++;
+                    if (i < limit) state = State.ENTROPY_FF;
+                    break;
+                case ENTROPY_FF: {
+                    int b = src.get(i) & 0xFF;
+                    if (b == 0x00 || (b >= 0xD0 && b <= 0xD7)) {
+                        state = State.ENTROPY; // doldurma baytı veya RST
+                    } else if (b != 0xFF) {
+                        onMarker(b, position + (i - src.position()) - 1);
+                    }
+                    break;
+                }
+                default:
+                    break;
+            }
+            i++;
+        }
+        position += limit - src.position();
+    }
+
+    private void onMarker(int code, long start) {
+        marker = code;
+        if (code == 0xFF) {
+            state = State.MARKER; // dolgu baytı
+        } else if (code == 0xD9) {
+            state = State.DONE;
+        } else if (code == 0x01 || (code >= 0xD0 && code <= 0xD7)) {
+            state = State.MARKER_FF; // uzunluğu olmayan işaretçi
+        } else {
+            if (code >= 0xC0 && code <= 0xCF && code != 0xC4 && code != 0xC8 && code != 0xCC) {
+                // SOF: yalnızca ilerlemeli huffman JPEG'de ara taramalar anlamlı bir resim verir
+                progressive = (code == 0xC2);
+                if (!progressive) {
+                    state = State.DONE;
+                    return;
+                }
+            }
+            if (code == 0xDA && progressive) {
+                if (scans > 0) onScansComplete(start);
+                scans++;
+            }
+            state = State.LENGTH_HI;
+        }
+    }
+
+    private void endSegment() {
+        state = (marker == 0xDA) ? State.ENTROPY : State.MARKER_FF;
+    }
+
+    /**
+     * prefixLength baytlık veri tamamlanmış taramaları içerir; zamanı geldiyse ön izleme istenir.
+     */
+    private void onScansComplete(long prefixLength) {
+        long now = System.nanoTime();
+        if (now - startNanos < AppConstants.PROGRESSIVE_PREVIEW_DELAY_MS * 1_000_000L) return;
+        if (lastRequestNanos != 0 && now - lastRequestNanos < AppConstants.PROGRESSIVE_PREVIEW_INTERVAL_MS * 1_000_000L) return;
+        lastRequestNanos = now;
+        pipeline.submitPreview(sequence, payload, prefixLength, transition);
+    }
+}
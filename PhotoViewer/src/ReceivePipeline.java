@@ -0,0 +1,773 @@
+/*
+ * Bu yazılım Yusuf Ziyrek'e aittir.
+ * İzinsiz kopyalanamaz, değiştirilemez, dağıtılamaz ve ticari olarak kullanılamaz.
+ * Tüm hakları saklıdır. © 2025 Yusuf Ziyrek
+ */
+import java.awt.*;
+import java.awt.geom.AffineTransform;
+import java.awt.image.BufferedImage;
+import java.io.File;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.locks.LockSupport;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Consumer;
+import javax.swing.SwingUtilities;
+
+/**
+ * Fotoğraf alım hattı: ağdan alma → çözme → ekran boyutuna ölçekleme → EDT'de gösterim.
+ * Her aşamanın sınırlı bir kuyruğu vardır ve en yeni iş kazanır: art arda gelen gönderimlerde
+ * yalnızca en son fotoğraf çözülür. Aşama süreleri istatistik olarak tutulur.
+ * Başarıyla çözülen fotoğraflar ImageCache'e yazılır; SHOW_CACHED ile gelen fotoğraf ağ aşamasını atlar.
+ * STAGE ile gelen fotoğraflar ayrı, düşük öncelikli bir thread'de hazırlanır ve ACTIVATE ile verilen
+ * ana kadar bekletilir; böylece tüm ekranlar aynı anda değişebilir.
+ * İlerlemeli JPEG alınırken ProgressivePreview'in istediği ara resimler de düşük öncelikle çözülüp
+ * gösterilir; aynı komutun tam resmi gelince geçişsiz olarak yerlerine geçer.
+ */
+public class ReceivePipeline {
+
+    enum Kind { PHOTO, TIMED_PHOTO, SHOW_DEFAULT, INVALID_PHOTO }
+
+    /**
+     * Hat boyunca taşınan tek bir ekran komutu.
+     */
+    static final class Job {
+        final Kind kind;
+        final long sequence;
+        final ViewerConnection connection;
+        final long durationSeconds;
+        Transition transition = Transition.NONE;
+        boolean fromCache;
+        String cacheKey;
+        String imageHash; // gösterilen fotoğrafın SHA-256 özeti (durum yayını için)
+        Consumer<String> onReply; // null değilse yanıt bağlantıya değil buraya gider (röle alımı)
+        String stageId;
+        long activateAtMillis; // ACTIVATE ile istenen an (ekran saatine göre)
+        boolean preview; // alımı süren fotoğrafın ara resmi (OK yanıtı, zamanlayıcı ve önbellek yok)
+        long previewBytes;
+        ImageReceiver.Payload payload;
+        BufferedImage image;
+        BufferedImage defaultImage; // ölçeklenmiş default (zamanlı dönüş ve SHOW_DEFAULT için)
+        long stageEnteredNanos;
+
+        // Aşama süreleri (ms)
+        long ingestMs, decodeMs, scaleMs, displayMs;
+
+        Job(Kind kind, long sequence, ViewerConnection connection, ImageReceiver.Payload payload, long durationSeconds) {
+            this.kind = kind;
+            this.sequence = sequence;
+            this.connection = connection;
+            this.payload = payload;
+            this.durationSeconds = durationSeconds;
+        }
+
+        /**
+         * Göndericiye OK/ERR/MISS yanıtı; röle alımında yanıt alt ekranların sonuçlarıyla birleştirilir.
+         */
+        void reply(String response) {
+            if (onReply != null) {
+                onReply.accept(response);
+            } else {
+                connection.sendAndClose(response);
+            }
+        }
+    }
+
+    /**
+     * Bir aşamanın gecikme istatistiği (kuyrukta bekleme + işlem süresi).
+     */
+    static final class StageStats {
+        private final String name;
+        private long count;
+        private long lastMs;
+        private long totalMs;
+        private long maxMs;
+
+        StageStats(String name) {
+            this.name = name;
+        }
+
+        synchronized void record(long ms) {
+            count++;
+            lastMs = ms;
+            totalMs += ms;
+            if (ms > maxMs) maxMs = ms;
+        }
+
+        @Override
+        public synchronized String toString() {
+            long avg = (count == 0) ? 0 : totalMs / count;
+            return name + "=son " + lastMs + "ms/ort " + avg + "ms/max " + maxMs + "ms (n=" + count + ")";
+        }
+    }
+
+    /**
+     * Sınırlı kuyruk: doluyken yeni iş eklenirse en eski iş düşürülür (en yeni kazanır).
+     */
+    private static final class LatestWinsQueue {
+        private final ArrayDeque<Job> items = new ArrayDeque<>();
+        private final int capacity;
+
+        LatestWinsQueue(int capacity) {
+            this.capacity = capacity;
+        }
+
+        synchronized Job offer(Job job) {
+            Job dropped = (items.size() >= capacity) ? items.pollFirst() : null;
+            items.addLast(job);
+            notifyAll();
+            return dropped;
+        }
+
+        synchronized Job take() throws InterruptedException {
+            while (items.isEmpty()) wait();
+            return items.pollFirst();
+        }
+    }
+
+    private final PhotoPanel photoPanel;
+    private final BufferedImage defaultImage;
+    private final ImageCache imageCache;
+    private final AppLogger logger;
+
+    private final LatestWinsQueue decodeQueue = new LatestWinsQueue(AppConstants.DECODE_QUEUE_CAPACITY);
+    private final LatestWinsQueue scaleQueue = new LatestWinsQueue(AppConstants.SCALE_QUEUE_CAPACITY);
+    private final LatestWinsQueue previewQueue = new LatestWinsQueue(1);
+    private final List<Thread> workers = new ArrayList<>();
+
+    // Ön yükleme hattı: sıra numarası almaz, ekrandaki komutların yerine geçmez
+    private final LinkedBlockingQueue<Job> stageQueue = new LinkedBlockingQueue<>();
+    // Etkinleştirilmeyi bekleyen fotoğraflar (eklenme sırasına göre; sınır aşılınca en eskisi düşer)
+    private final LinkedHashMap<String, Job> stagedPhotos = new LinkedHashMap<>();
+
+    private final StageStats ingestStats = new StageStats("alma");
+    private final StageStats decodeStats = new StageStats("çözme");
+    private final StageStats scaleStats = new StageStats("ölçekleme");
+    private final StageStats displayStats = new StageStats("ekran");
+
+    private final AtomicLong sequenceCounter = new AtomicLong();
+    private final AtomicLong latestSubmitted = new AtomicLong();
+
+    // Ekran aşaması: EDT'ye tek bir bekleyen iş (en yenisi) devredilir
+    private final Object displayLock = new Object();
+    private Job pendingDisplay;
+    private long lastAppliedSequence = 0;
+    // Ekranda ara resmi duran komut (yoksa 0); tam resmi bunun yerine geçişsiz gelir
+    private long previewSequence = 0;
+    private long abandonedSequence = 0; // fotoğrafı alınamayan son komut
+    // Ekrandaki gönderilmiş fotoğrafın özeti; default/bilgi ekranında null
+    private volatile String currentImageHash;
+    // Gösterim değişimi dinleyicileri (durum yayını) ve en son bildirilen (durum, özet, zamanlayıcı sonu); EDT
+    private final List<Runnable> displayListeners = new CopyOnWriteArrayList<>();
+    private String lastDisplayKey;
+
+    // Ölçeklenmiş default resim (hedef boyut değişmedikçe tekrar hesaplanmaz)
+    private BufferedImage scaledDefault;
+    private Dimension scaledDefaultSize;
+
+    /**
+     * @param imageCache Alınan fotoğrafların yazılacağı önbellek (null ise önbellek kullanılmaz)
+     */
+    public ReceivePipeline(PhotoPanel photoPanel, BufferedImage defaultImage, ImageCache imageCache, AppLogger logger) {
+        this.photoPanel = photoPanel;
+        this.defaultImage = defaultImage;
+        this.imageCache = imageCache;
+        this.logger = logger;
+
+        for (int i = 0; i < AppConstants.DECODE_THREADS; i++) {
+            startWorker("PhotoViewer-Decode-" + (i + 1), this::decodeLoop);
+        }
+        startWorker("PhotoViewer-Scale", this::scaleLoop);
+        // Ön yükleme ve ara resimler ekrandaki gösterimle yarışmasın
+        startWorker("PhotoViewer-Stage", this::stageLoop).setPriority(Thread.MIN_PRIORITY);
+        startWorker("PhotoViewer-Preview", this::previewLoop).setPriority(Thread.MIN_PRIORITY);
+    }
+
+    private Thread startWorker(String name, Runnable loop) {
+        Thread t = new Thread(loop, name);
+        t.setDaemon(true);
+        t.start();
+        workers.add(t);
+        return t;
+    }
+
+    public void shutdown() {
+        for (Thread t : workers) t.interrupt();
+    }
+
+    /**
+     * Ekranı etkileyen her komut, komut satırı okunduğunda bir sıra numarası alır.
+     */
+    public long nextSequence() {
+        return sequenceCounter.incrementAndGet();
+    }
+
+    /**
+     * 1. aşama tamamlandı: fotoğraf verisi ağdan alındı.
+     * @param transition Gönderici tarafından istenen geçiş (NONE ise panelin varsayılanı)
+     * @param complete false ise bağlantı veri bitmeden koptu
+     */
+    public void submitPhoto(ViewerConnection conn, ImageReceiver.Payload payload, long durationSeconds,
+                            Transition transition, long sequence, long ingestStartNanos, boolean complete) {
+        submitPhoto(conn, payload, durationSeconds, transition, sequence, ingestStartNanos, complete, null);
+    }
+
+    /**
+     * Yanıtı bağlantıya yazmak yerine verilen geri çağrıya teslim eden sürüm (röle alımı).
+     * @param onReply OK/ERR yanıtı (çözme thread'inde veya çağıran thread'de çağrılır)
+     */
+    public void submitPhoto(ViewerConnection conn, ImageReceiver.Payload payload, long durationSeconds,
+                            Transition transition, long sequence, long ingestStartNanos, boolean complete,
+                            Consumer<String> onReply) {
+        Job job = new Job(durationSeconds > 0 ? Kind.TIMED_PHOTO : Kind.PHOTO, sequence, conn, payload, durationSeconds);
+        job.transition = transition;
+        job.onReply = onReply;
+        job.ingestMs = elapsedMs(ingestStartNanos);
+        ingestStats.record(job.ingestMs);
+        if (!complete) {
+            payload.release();
+            onDecodeFailed(job);
+            return;
+        }
+        latestSubmitted.accumulateAndGet(sequence, Math::max);
+        job.stageEnteredNanos = System.nanoTime();
+        Job dropped = decodeQueue.offer(job);
+        if (dropped != null) finishSuperseded(dropped);
+    }
+
+    /**
+     * Alımı süren ilerlemeli JPEG'in ilk prefixLength baytından ara resim ister (selector thread'i).
+     * Aynı anda yalnızca en yeni istek bekler; fotoğrafın tamamı geldiyse istek yok sayılır.
+     */
+    public void submitPreview(long sequence, ImageReceiver.Payload payload, long prefixLength, Transition transition) {
+        Job job = new Job(Kind.PHOTO, sequence, null, payload, 0);
+        job.transition = transition;
+        job.preview = true;
+        job.previewBytes = prefixLength;
+        job.stageEnteredNanos = System.nanoTime();
+        previewQueue.offer(job);
+    }
+
+    /**
+     * Önbellekteki bir fotoğrafı gösterir; alma aşaması yoktur, doğrudan çözme kuyruğuna girer.
+     */
+    public void submitCached(ViewerConnection conn, File file, String sha256, long durationSeconds,
+                             Transition transition, long sequence) {
+        Job job = new Job(durationSeconds > 0 ? Kind.TIMED_PHOTO : Kind.PHOTO, sequence, conn,
+                          ImageReceiver.fromCache(file, sha256, logger), durationSeconds);
+        job.transition = transition;
+        job.fromCache = true;
+        job.cacheKey = sha256;
+        latestSubmitted.accumulateAndGet(sequence, Math::max);
+        job.stageEnteredNanos = System.nanoTime();
+        Job dropped = decodeQueue.offer(job);
+        if (dropped != null) finishSuperseded(dropped);
+    }
+
+    /**
+     * STAGE: fotoğraf alındı; düşük öncelikle çözülüp ölçeklenir ve ACTIVATE'e kadar bekletilir.
+     * Hazır olunca göndericiye OK döner.
+     */
+    public void submitStage(ViewerConnection conn, ImageReceiver.Payload payload, String stageId, boolean complete) {
+        if (!complete) {
+            payload.release();
+            logger.warn("Ön yükleme verisi eksik alındı: " + stageId + " (Kaynak: " + conn.getRemoteAddress() + ")");
+            conn.sendAndClose(AppConstants.RESPONSE_ERROR);
+            return;
+        }
+        Job job = new Job(Kind.PHOTO, 0, conn, payload, 0);
+        job.stageId = stageId;
+        stageQueue.add(job);
+    }
+
+    /**
+     * STAGE_CACHED: önbellekteki fotoğrafı ön yükler.
+     */
+    public void submitStageCached(ViewerConnection conn, File file, String sha256, String stageId) {
+        Job job = new Job(Kind.PHOTO, 0, conn, ImageReceiver.fromCache(file, sha256, logger), 0);
+        job.stageId = stageId;
+        job.fromCache = true;
+        job.cacheKey = sha256;
+        stageQueue.add(job);
+    }
+
+    /**
+     * Ön yüklenmiş fotoğrafı verilen anda gösterir. Sıra numarası bu komutun geliş anında alınır.
+     * @param atEpochMillis Gösterim anı (ekranın saatine göre; gönderici saat farkını hesaba katar)
+     * @return Bu kimlikle hazır fotoğraf yoksa veya an çok ilerideyse false
+     */
+    public boolean activate(String stageId, long atEpochMillis, long durationSeconds, Transition transition) {
+        long delayMs = atEpochMillis - System.currentTimeMillis();
+        if (delayMs > AppConstants.MAX_ACTIVATION_DELAY_MS) {
+            logger.warn("ACTIVATE zamanı çok ileride (" + delayMs + "ms): " + stageId);
+            return false;
+        }
+        Job staged;
+        synchronized (stagedPhotos) {
+            staged = stagedPhotos.remove(stageId);
+        }
+        if (staged == null) return false;
+
+        long sequence = nextSequence();
+        latestSubmitted.accumulateAndGet(sequence, Math::max);
+        Job job = new Job(durationSeconds > 0 ? Kind.TIMED_PHOTO : Kind.PHOTO, sequence, null, null, durationSeconds);
+        job.image = staged.image;
+        job.defaultImage = staged.defaultImage;
+        job.transition = transition;
+        job.stageId = stageId;
+        job.activateAtMillis = atEpochMillis;
+
+        // Saat değişimlerinden etkilenmemek için bekleme nanoTime ile yapılır
+        long deadline = System.nanoTime() + Math.max(0, delayMs) * 1_000_000L;
+        Thread t = new Thread(() -> {
+            awaitDeadline(deadline);
+            handToDisplay(job);
+        }, "PhotoViewer-Activate");
+        t.setDaemon(true);
+        t.setPriority(Thread.MAX_PRIORITY);
+        t.start();
+        return true;
+    }
+
+    public void submitShowDefault(long sequence) {
+        Job job = new Job(Kind.SHOW_DEFAULT, sequence, null, null, 0);
+        latestSubmitted.accumulateAndGet(sequence, Math::max);
+        enqueueScale(job);
+    }
+
+    /**
+     * Fotoğrafların çözüldüğü hedef piksel boyutu (GET_STATUS ile göndericiye bildirilir).
+     * @return Henüz bilinmiyorsa null
+     */
+    public Dimension screenSize() {
+        return targetSize(graphicsConfiguration());
+    }
+
+    /**
+     * Ekranda gösterilen son gönderilmiş fotoğrafın SHA-256 özeti (default gösteriliyorsa null).
+     */
+    public String currentImageHash() {
+        return currentImageHash;
+    }
+
+    /**
+     * Ekrandaki durum, gönderilmiş fotoğrafın özeti veya zamanlı gösterimin bitiş anı her
+     * değiştiğinde EDT'de çağrılacak dinleyici: fotoğraf üstüne yeni fotoğraf, süre uzatma,
+     * SHOW_CACHED ve zamanlayıcının default'a dönüşü dahil. Durum metni aynı kalsa da çağrılır;
+     * yalnızca metne bağlı olanlar PhotoPanel.addStatusListener kullanır.
+     */
+    public void addDisplayListener(Runnable listener) {
+        if (displayListeners.isEmpty()) {
+            // Zamanlayıcının bitişi pipeline'dan geçmez; PhotoPanel'in durum değişiminden yakalanır
+            photoPanel.addStatusListener(_ -> notifyDisplayIfChanged());
+        }
+        displayListeners.add(listener);
+    }
+
+    private void notifyDisplayIfChanged() {
+        String status = photoPanel.getStatusDetails();
+        String hash = "Default".equals(status) ? null : currentImageHash;
+        String key = status + "|" + hash + "|" + photoPanel.getTimerDeadlineMillis();
+        if (key.equals(lastDisplayKey)) return;
+        lastDisplayKey = key;
+        for (Runnable l : displayListeners) l.run();
+    }
+
+    /**
+     * Aşama gecikmelerinin özeti (GET_PIPELINE_STATS yanıtı ve log için).
+     */
+    public String statsSummary() {
+        String stages = ingestStats + "; " + decodeStats + "; " + scaleStats + "; " + displayStats + "; " +
+                        ImageReceiver.bufferPoolSummary();
+        return (imageCache != null) ? stages + "; " + imageCache.summary() : stages;
+    }
+
+    // 2. aşama: çözme havuzu ---------------------------------------------------
+
+    private void decodeLoop() {
+        while (!Thread.currentThread().isInterrupted()) {
+            Job job;
+            try {
+                job = decodeQueue.take();
+            } catch (InterruptedException e) {
+                return;
+            }
+            if (isSuperseded(job)) {
+                finishSuperseded(job);
+                continue;
+            }
+            ImageReceiver.Payload payload = job.payload;
+            job.payload = null;
+            try {
+                // Çözerken ekran boyutuna seyrelt; tam çözünürlüklü ara resim oluşmaz
+                job.image = payload.decode(targetSize(graphicsConfiguration()));
+                job.decodeMs = elapsedMs(job.stageEnteredNanos);
+                decodeStats.record(job.decodeMs);
+
+                if (job.image == null) {
+                    onDecodeFailed(job);
+                    continue;
+                }
+                // Özet veri alınırken hesaplanmıştır; burada yalnızca sonuçlandırılır
+                job.imageHash = payload.sha256();
+                // Gönderici ACK için ölçekleme/gösterimi beklemez
+                String clientIP = job.connection.getRemoteAddress();
+                String source = job.fromCache ? " (önbellekten)" : "";
+                if (job.kind == Kind.TIMED_PHOTO) {
+                    logger.success("Zamanlı fotoğraf alındı" + source + ": " + AppUtils.formatDuration(job.durationSeconds) + " gösterilecek (Kaynak: " + clientIP + ")");
+                } else {
+                    logger.success("Normal fotoğraf alındı" + source + " ve gösteriliyor (Kaynak: " + clientIP + ")");
+                }
+                job.reply(AppConstants.RESPONSE_OK);
+                enqueueScale(job);
+                // Önbelleğe yazma ACK ve gösterimden sonra yapılır; sadece çözülebilen veri saklanır
+                if (imageCache != null && !job.fromCache) {
+                    imageCache.store(payload.sha256(), payload);
+                }
+            } finally {
+                payload.release();
+            }
+        }
+    }
+
+    private void onDecodeFailed(Job job) {
+        String clientIP = job.connection.getRemoteAddress();
+        if (job.fromCache) {
+            // Bozuk önbellek kaydı: ekranı değiştirme, göndericinin veriyi yüklemesini iste
+            logger.warn("Önbellekteki fotoğraf çözülemedi, kayıt siliniyor (Kaynak: " + clientIP + ")");
+            imageCache.invalidate(job.cacheKey);
+            job.reply(AppConstants.RESPONSE_CACHE_MISS);
+            return;
+        }
+        if (job.kind == Kind.TIMED_PHOTO) {
+            logger.error("Zamanlı fotoğraf alınamadı (Kaynak: " + clientIP + ")");
+        } else {
+            logger.warn("Geçersiz veya eksik fotoğraf verisi (Kaynak: " + clientIP + ")");
+            // Normal gönderimde eski davranış: default'a dön
+            enqueueScale(new Job(Kind.INVALID_PHOTO, job.sequence, null, null, 0));
+        }
+        if (abandonPreview(job.sequence) && job.kind == Kind.TIMED_PHOTO) {
+            // Yarım kalan fotoğrafın ara resmi ekranda bırakılmaz
+            enqueueScale(new Job(Kind.INVALID_PHOTO, job.sequence, null, null, 0));
+        }
+        // Send ACK back to sender — sadece görüntü başarıyla dekode edildiyse OK, aksi halde ERR
+        job.reply(AppConstants.RESPONSE_ERROR);
+    }
+
+    // Ön yükleme (STAGE) ---------------------------------------------------------
+
+    private void stageLoop() {
+        while (!Thread.currentThread().isInterrupted()) {
+            Job job;
+            try {
+                job = stageQueue.take();
+            } catch (InterruptedException e) {
+                return;
+            }
+            ImageReceiver.Payload payload = job.payload;
+            job.payload = null;
+            String clientIP = job.connection.getRemoteAddress();
+            try {
+                long start = System.nanoTime();
+                GraphicsConfiguration gc = graphicsConfiguration();
+                Dimension target = targetSize(gc);
+                BufferedImage image = payload.decode(target);
+                if (image == null) {
+                    if (job.fromCache) {
+                        imageCache.invalidate(job.cacheKey);
+                        job.reply(AppConstants.RESPONSE_CACHE_MISS);
+                    } else {
+                        logger.warn("Ön yüklenen fotoğraf çözülemedi: " + job.stageId + " (Kaynak: " + clientIP + ")");
+                        job.reply(AppConstants.RESPONSE_ERROR);
+                    }
+                    continue;
+                }
+                if (target != null) {
+                    image = ImageScaler.scaleToFit(image, target.width, target.height, gc);
+                }
+                EdgeGradient.of(image);
+                job.image = image;
+                job.imageHash = payload.sha256();
+                job.defaultImage = scaledDefault(gc, target);
+                if (job.defaultImage != null) EdgeGradient.of(job.defaultImage);
+                putStaged(job);
+                logger.success("Fotoğraf ön yüklendi: " + job.stageId + (job.fromCache ? " (önbellekten)" : "") +
+                               " - " + elapsedMs(start) + "ms (Kaynak: " + clientIP + ")");
+                job.reply(AppConstants.RESPONSE_OK);
+                if (imageCache != null && !job.fromCache) {
+                    imageCache.store(payload.sha256(), payload);
+                }
+            } catch (RuntimeException | OutOfMemoryError e) {
+                logger.error("Ön yükleme hatası (" + job.stageId + "): " + e);
+                job.reply(AppConstants.RESPONSE_ERROR);
+            } finally {
+                payload.release();
+            }
+        }
+    }
+
+    // İlerlemeli JPEG ara resimleri ----------------------------------------------
+
+    private void previewLoop() {
+        while (!Thread.currentThread().isInterrupted()) {
+            Job job;
+            try {
+                job = previewQueue.take();
+            } catch (InterruptedException e) {
+                return;
+            }
+            // Tam resim (veya daha yeni bir komut) hatta girdiyse işlemci ona kalsın
+            if (job.sequence <= latestSubmitted.get()) continue;
+            ImageReceiver.Payload payload = job.payload;
+            job.payload = null;
+            try {
+                GraphicsConfiguration gc = graphicsConfiguration();
+                Dimension target = targetSize(gc);
+                BufferedImage image = payload.decodePrefix(job.previewBytes, target);
+                if (image == null || job.sequence <= latestSubmitted.get()) continue;
+                if (target != null) {
+                    image = ImageScaler.scaleToFit(image, target.width, target.height, gc);
+                }
+                EdgeGradient.of(image);
+                job.image = image;
+                job.decodeMs = elapsedMs(job.stageEnteredNanos);
+                handToDisplay(job);
+            } catch (RuntimeException | OutOfMemoryError e) {
+                logger.warn("Ara resim hazırlanamadı (komut #" + job.sequence + "): " + e);
+            }
+        }
+    }
+
+    /**
+     * Komutun fotoğrafı alınamadı: ara resimleri artık gösterilmez.
+     * @return Ekranda (veya gösterilmek üzere) ara resmi var
+     */
+    private boolean abandonPreview(long sequence) {
+        synchronized (displayLock) {
+            abandonedSequence = sequence;
+            return previewSequence == sequence ||
+                   (pendingDisplay != null && pendingDisplay.preview && pendingDisplay.sequence == sequence);
+        }
+    }
+
+    private void putStaged(Job job) {
+        synchronized (stagedPhotos) {
+            stagedPhotos.remove(job.stageId);
+            stagedPhotos.put(job.stageId, job);
+            while (stagedPhotos.size() > AppConstants.MAX_STAGED_PHOTOS) {
+                String eldest = stagedPhotos.keySet().iterator().next();
+                stagedPhotos.remove(eldest);
+                logger.info("Etkinleştirilmeyen ön yükleme bırakıldı: " + eldest);
+            }
+        }
+    }
+
+    /**
+     * Hedef ana kadar uyur; son birkaç milisaniyeyi uyku hassasiyetine bırakmamak için aktif bekler.
+     */
+    private static void awaitDeadline(long deadlineNanos) {
+        long remaining;
+        while ((remaining = deadlineNanos - System.nanoTime()) > AppConstants.ACTIVATION_SPIN_NANOS) {
+            LockSupport.parkNanos(remaining - AppConstants.ACTIVATION_SPIN_NANOS);
+        }
+        while (deadlineNanos - System.nanoTime() > 0) {
+            Thread.onSpinWait();
+        }
+    }
+
+    // 3. aşama: ekran boyutuna ölçekleme ----------------------------------------
+
+    private void enqueueScale(Job job) {
+        job.stageEnteredNanos = System.nanoTime();
+        Job dropped = scaleQueue.offer(job);
+        if (dropped != null) {
+            logger.info("Ölçekleme kuyruğunda ekran komutu #" + dropped.sequence + " atlandı - daha yeni komut var");
+        }
+    }
+
+    private void scaleLoop() {
+        while (!Thread.currentThread().isInterrupted()) {
+            Job job;
+            try {
+                job = scaleQueue.take();
+            } catch (InterruptedException e) {
+                return;
+            }
+            if (isSuperseded(job)) {
+                continue;
+            }
+            try {
+                GraphicsConfiguration gc = graphicsConfiguration();
+                Dimension target = targetSize(gc);
+                if (job.image != null && target != null) {
+                    job.image = ImageScaler.scaleToFit(job.image, target.width, target.height, gc);
+                }
+                job.defaultImage = scaledDefault(gc, target);
+                // Arka plan gradienti burada hesaplanır; EDT'de PhotoPanel hazır sonucu alır
+                if (job.image != null) EdgeGradient.of(job.image);
+                if (job.defaultImage != null) EdgeGradient.of(job.defaultImage);
+                job.scaleMs = elapsedMs(job.stageEnteredNanos);
+                scaleStats.record(job.scaleMs);
+                handToDisplay(job);
+            } catch (RuntimeException | OutOfMemoryError e) {
+                logger.error("Ölçekleme hatası (komut #" + job.sequence + "): " + e);
+            }
+        }
+    }
+
+    // Ölçekleme ve ön yükleme thread'lerinden çağrılır
+    private synchronized BufferedImage scaledDefault(GraphicsConfiguration gc, Dimension target) {
+        if (defaultImage == null || target == null) return defaultImage;
+        if (scaledDefault == null || !target.equals(scaledDefaultSize)) {
+            scaledDefault = ImageScaler.scaleToFit(defaultImage, target.width, target.height, gc);
+            scaledDefaultSize = target;
+        }
+        return scaledDefault;
+    }
+
+    private GraphicsConfiguration graphicsConfiguration() {
+        GraphicsConfiguration gc = photoPanel.getGraphicsConfiguration();
+        if (gc == null && !GraphicsEnvironment.isHeadless()) {
+            gc = GraphicsEnvironment.getLocalGraphicsEnvironment().getDefaultScreenDevice().getDefaultConfiguration();
+        }
+        return gc;
+    }
+
+    /**
+     * Hedef piksel boyutu: panel boyutu (yoksa ekran boyutu) x HiDPI ölçeği.
+     */
+    private Dimension targetSize(GraphicsConfiguration gc) {
+        int w = photoPanel.getWidth();
+        int h = photoPanel.getHeight();
+        if ((w <= 0 || h <= 0) && gc != null) {
+            Rectangle bounds = gc.getBounds();
+            w = bounds.width;
+            h = bounds.height;
+        }
+        if (w <= 0 || h <= 0) return null;
+        AffineTransform tx = (gc != null) ? gc.getDefaultTransform() : new AffineTransform();
+        return new Dimension((int) Math.ceil(w * tx.getScaleX()), (int) Math.ceil(h * tx.getScaleY()));
+    }
+
+    // 4. aşama: EDT'de gösterim -----------------------------------------------
+
+    private void handToDisplay(Job job) {
+        boolean schedule;
+        job.stageEnteredNanos = System.nanoTime();
+        synchronized (displayLock) {
+            if (pendingDisplay != null && pendingDisplay.sequence > job.sequence) return;
+            // Ara resim aynı komutun bekleyen tam resminin yerine geçmez
+            if (job.preview && pendingDisplay != null && pendingDisplay.sequence == job.sequence && !pendingDisplay.preview) return;
+            if (job.preview && job.sequence == abandonedSequence) return;
+            schedule = (pendingDisplay == null);
+            pendingDisplay = job;
+        }
+        if (schedule) {
+            SwingUtilities.invokeLater(this::applyPendingDisplay);
+        }
+    }
+
+    private void applyPendingDisplay() {
+        Job job;
+        boolean replacesPreview;
+        synchronized (displayLock) {
+            job = pendingDisplay;
+            pendingDisplay = null;
+            if (job == null) return;
+            if (job.sequence < lastAppliedSequence) {
+                if (!job.preview) {
+                    logger.info("Ekran komutu #" + job.sequence + " atlandı - daha yeni komut (#" + lastAppliedSequence + ") uygulanmış");
+                }
+                return;
+            }
+            // Tam resmi gösterilmiş komutun geç kalan ara resmi
+            if (job.preview && job.sequence == lastAppliedSequence && previewSequence != job.sequence) return;
+            lastAppliedSequence = job.sequence;
+            replacesPreview = (previewSequence == job.sequence);
+            previewSequence = job.preview ? job.sequence : 0;
+        }
+
+        BufferedImage defaultForDisplay = job.defaultImage;
+        if (replacesPreview) {
+            // Aynı fotoğrafın daha net hali: geçiş animasyonu yok
+            photoPanel.setNextTransition(Transition.NONE);
+        } else if (!job.transition.isNone()) {
+            photoPanel.setNextTransition(job.transition);
+        }
+        if (job.preview) {
+            currentImageHash = null;
+            photoPanel.setImage(job.image);
+            logger.info("Ara resim gösteriliyor #" + job.sequence + " - " + job.previewBytes / 1024 + " KB ile, hazırlama: " +
+                        job.decodeMs + "ms");
+            notifyDisplayIfChanged();
+            return;
+        }
+        switch (job.kind) {
+            case PHOTO:
+                currentImageHash = job.imageHash;
+                photoPanel.setImage(job.image);
+                break;
+            case TIMED_PHOTO:
+                currentImageHash = job.imageHash;
+                photoPanel.setImageWithTimer(job.image, job.durationSeconds, defaultForDisplay);
+                break;
+            case SHOW_DEFAULT:
+                currentImageHash = null;
+                if (defaultForDisplay != null) {
+                    logger.success("Default fotoğraf gösteriliyor");
+                    photoPanel.setImage(defaultForDisplay, true); // Default olarak işaretle
+                } else {
+                    logger.warn("Default fotoğraf bulunamadı");
+                    photoPanel.setInfo(AppConstants.NO_DEFAULT_PHOTO_MESSAGE);
+                }
+                break;
+            case INVALID_PHOTO:
+                currentImageHash = null;
+                if (defaultForDisplay != null) {
+                    photoPanel.setImage(defaultForDisplay, true); // Default olarak işaretle
+                } else {
+                    photoPanel.setInfo(AppConstants.INVALID_PHOTO_DATA_MESSAGE);
+                }
+                break;
+        }
+        notifyDisplayIfChanged();
+
+        job.displayMs = elapsedMs(job.stageEnteredNanos);
+        displayStats.record(job.displayMs);
+        if (job.stageId != null) {
+            // Ekranlar arası eşzamanlılık ölçüsü: istenen andan ne kadar sonra ekrana verildi
+            logger.info("Ön yüklenen fotoğraf etkinleştirildi #" + job.sequence + " (" + job.stageId + ") - hedeften sapma: " +
+                        (System.currentTimeMillis() - job.activateAtMillis) + "ms, ekran: " + job.displayMs + "ms");
+        } else if (job.kind == Kind.PHOTO || job.kind == Kind.TIMED_PHOTO) {
+            logger.info("Alım hattı #" + job.sequence + " - alma: " + job.ingestMs + "ms, çözme: " + job.decodeMs +
+                        "ms, ölçekleme: " + job.scaleMs + "ms, ekran: " + job.displayMs + "ms");
+        }
+    }
+
+    // Yardımcılar -----------------------------------------------------------
+
+    private boolean isSuperseded(Job job) {
+        return job.sequence < latestSubmitted.get();
+    }
+
+    /**
+     * Daha yeni bir komut geldiği için çözülmeden atlanan fotoğraf. Veri eksiksiz alındığından
+     * göndericiye OK döner; ekranda zaten daha yeni komutun sonucu gösterilecektir.
+     */
+    private void finishSuperseded(Job job) {
+        logger.info("Fotoğraf #" + job.sequence + " çözülmeden atlandı - daha yeni komut var (Kaynak: " + job.connection.getRemoteAddress() + ")");
+        if (job.payload != null) {
+            job.payload.release();
+            job.payload = null;
+        }
+        job.reply(AppConstants.RESPONSE_OK);
+    }
+
+    private static long elapsedMs(long startNanos) {
+        return (System.nanoTime() - startNanos) / 1_000_000;
+    }
+}
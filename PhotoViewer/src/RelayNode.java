@@ -0,0 +1,289 @@
+/*
+ * Bu yazılım Yusuf Ziyrek'e aittir.
+ * İzinsiz kopyalanamaz, değiştirilemez, dağıtılamaz ve ticari olarak kullanılamaz.
+ * Tüm hakları saklıdır. © 2025 Yusuf Ziyrek
+ */
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.InetSocketAddress;
+import java.net.Socket;
+import java.net.SocketTimeoutException;
+import java.nio.ByteBuffer;
+import java.nio.channels.SocketChannel;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.regex.Pattern;
+
+/**
+ * Röle dağıtımında bu ekranın fotoğrafı alt ekranlara iletmesi. Gönderici ağacı RELAY_PHOTO
+ * başlığında verir: "10.0.1.6(10.0.1.8,10.0.1.9),10.0.1.7" bu ekranın iki alt ekranı olduğunu,
+ * ilkinin de iki alt ekrana ileteceğini söyler. Her alt ekrana kendi sanal thread'inden bağlanılır;
+ * selector thread'inde gelen her veri parçası bir kez kopyalanıp tüm alt ekranların kuyruğuna
+ * eklenir, yani veri bu ekranın çözmesini beklemeden aşağı akar. Alt ekranı olan alt ekrana
+ * RELAY_PHOTO, yaprağa normal SEND_PHOTO gönderilir (yaprakların rölede bilmesi gerekmez).
+ * Her alt ekranın yanıtı "ip=sonuç" kayıtlarına çevrilir; ulaşılamayan alt ekranın tüm alt
+ * ağacı ERR sayılır ve gönderici bunlara doğrudan gönderir. Kuyruğunda RELAY_QUEUE_MAX_BYTES'tan
+ * fazla veri biriken (yavaş veya takılmış) alt ekran da aynı şekilde bırakılır: üst bağlantının
+ * okuması onu beklemez ve bellek kullanımı sınırlı kalır.
+ */
+public class RelayNode {
+    private static final Pattern IPV4 = Pattern.compile("\\d{1,3}(\\.\\d{1,3}){3}");
+    private static final int MAX_REPLY_LENGTH = 64 * 1024; // alt ağacın tüm kayıtları tek satırda gelir
+
+    // Kuyruk işaretleri (kimlikle karşılaştırılır)
+    private static final ByteBuffer END = ByteBuffer.allocate(0);
+    private static final ByteBuffer ABORT = ByteBuffer.allocate(0);
+    private static final ByteBuffer OVERFLOW = ByteBuffer.allocate(0);
+
+    /**
+     * Ağaçta bir alt ekran ve onun altındakiler.
+     */
+    static final class Child {
+        final String ip;
+        final List<Child> children = new ArrayList<>();
+
+        Child(String ip) {
+            this.ip = ip;
+        }
+
+        /** Bu alt ağacın seviye sayısı (yaprak: 1); onay bekleme süresi buna göre uzar */
+        int height() {
+            int max = 0;
+            for (Child c : children) max = Math.max(max, c.height());
+            return max + 1;
+        }
+
+        /** Alt ekranlarının ağaç tanımı (RELAY_PHOTO başlığı için) */
+        String childrenSpec() {
+            StringBuilder sb = new StringBuilder();
+            for (Child c : children) {
+                if (sb.length() > 0) sb.append(',');
+                sb.append(c.ip);
+                if (!c.children.isEmpty()) sb.append('(').append(c.childrenSpec()).append(')');
+            }
+            return sb.toString();
+        }
+
+        void collectIps(List<String> out) {
+            out.add(ip);
+            for (Child c : children) c.collectIps(out);
+        }
+    }
+
+    // Tek bir alt ekrana iletim
+    private static final class Link {
+        final Child child;
+        final LinkedBlockingQueue<ByteBuffer> queue = new LinkedBlockingQueue<>();
+        final AtomicLong queuedBytes = new AtomicLong(); // kuyrukta bekleyen, henüz yazılmamış veri
+        final CompletableFuture<List<String>> result = new CompletableFuture<>();
+        volatile boolean failed;
+
+        Link(Child child) {
+            this.child = child;
+        }
+    }
+
+    private final List<Link> links = new ArrayList<>();
+    private final long length;
+    private final long durationSeconds;
+    private final String options;
+    private final AppLogger logger;
+
+    /**
+     * @param options Başlığın sonundaki geçiş alanları (":FADE:600" veya boş); alt ekranlara aynen iletilir
+     */
+    public RelayNode(List<Child> children, long length, long durationSeconds, String options, AppLogger logger) {
+        for (Child c : children) links.add(new Link(c));
+        this.length = length;
+        this.durationSeconds = durationSeconds;
+        this.options = options;
+        this.logger = logger;
+    }
+
+    /**
+     * "ip(ip,ip),ip" biçimindeki ağaç tanımını çözer.
+     * @throws IllegalArgumentException Biçim veya IP geçersiz, ya da ağaç çok derin
+     */
+    static List<Child> parseTree(String spec) {
+        int[] pos = {0};
+        List<Child> result = parseList(spec, pos, 1);
+        if (pos[0] != spec.length()) throw new IllegalArgumentException("Beklenmeyen karakter: " + pos[0]);
+        return result;
+    }
+
+    private static List<Child> parseList(String spec, int[] pos, int depth) {
+        if (depth > AppConstants.MAX_RELAY_DEPTH) throw new IllegalArgumentException("Röle ağacı çok derin");
+        List<Child> result = new ArrayList<>();
+        while (true) {
+            int start = pos[0];
+            while (pos[0] < spec.length() && "(),".indexOf(spec.charAt(pos[0])) < 0) pos[0]++;
+            String ip = spec.substring(start, pos[0]);
+            if (!IPV4.matcher(ip).matches()) throw new IllegalArgumentException("Geçersiz IP: " + ip);
+            Child child = new Child(ip);
+            result.add(child);
+            if (pos[0] < spec.length() && spec.charAt(pos[0]) == '(') {
+                pos[0]++;
+                child.children.addAll(parseList(spec, pos, depth + 1));
+                if (pos[0] >= spec.length() || spec.charAt(pos[0]) != ')') throw new IllegalArgumentException("')' eksik");
+                pos[0]++;
+            }
+            if (pos[0] < spec.length() && spec.charAt(pos[0]) == ',') {
+                pos[0]++;
+                continue;
+            }
+            return result;
+        }
+    }
+
+    /**
+     * Alt ekran bağlantılarını açar; veri geldikçe forward ile iletilir.
+     */
+    public void start() {
+        for (Link link : links) {
+            Thread.ofVirtual().name("PhotoViewer-Relay-" + link.child.ip).start(() -> run(link));
+        }
+        logger.info("Röle: fotoğraf " + links.size() + " alt ekrana iletiliyor");
+    }
+
+    /**
+     * İletim kapalıyken: alt ekranlara gönderilmez, hepsi ERR bildirilir (gönderici doğrudan gönderir).
+     */
+    public void decline() {
+        for (Link link : links) link.result.complete(failed(link.child));
+    }
+
+    /**
+     * Selector thread'inde gelen veri parçasını alt ekranların kuyruğuna ekler. src tüketilmez;
+     * parça bir kez kopyalanır ve tüm alt ekranlar salt okunur görünümünü paylaşır. Kuyruğu
+     * sınırı aşacak alt ekran beklenmez, iletimi kesilir.
+     */
+    public void forward(ByteBuffer src) {
+        if (links.isEmpty() || !src.hasRemaining()) return;
+        int size = src.remaining();
+        ByteBuffer shared = null;
+        for (Link link : links) {
+            if (link.failed) continue;
+            if (link.queuedBytes.addAndGet(size) > AppConstants.RELAY_QUEUE_MAX_BYTES) {
+                link.failed = true;
+                link.queue.clear();
+                link.queue.add(OVERFLOW);
+                continue;
+            }
+            if (shared == null) {
+                ByteBuffer copy = ByteBuffer.allocate(size);
+                copy.put(src.duplicate()).flip();
+                shared = copy.asReadOnlyBuffer();
+            }
+            link.queue.add(shared.duplicate());
+        }
+    }
+
+    /**
+     * Veri bitti (complete=true) veya bağlantı erken koptu; alt ekranlar buna göre bitirilir.
+     */
+    public void finishInput(boolean complete) {
+        for (Link link : links) link.queue.add(complete ? END : ABORT);
+    }
+
+    /**
+     * Tüm alt ekranlar bittiğinde "ip=sonuç" kayıtlarıyla tamamlanır.
+     */
+    public CompletableFuture<List<String>> completion() {
+        CompletableFuture<?>[] all = new CompletableFuture<?>[links.size()];
+        for (int i = 0; i < all.length; i++) all[i] = links.get(i).result;
+        return CompletableFuture.allOf(all).thenApply(_ -> {
+            List<String> reports = new ArrayList<>();
+            for (Link link : links) reports.addAll(link.result.join());
+            return reports;
+        });
+    }
+
+    private void run(Link link) {
+        Child child = link.child;
+        long start = System.nanoTime();
+        List<String> report;
+        try (SocketChannel channel = SocketChannel.open()) {
+            Socket socket = channel.socket();
+            socket.connect(new InetSocketAddress(child.ip, AppConstants.DEFAULT_PORT), AppConstants.CONNECTION_TIMEOUT_MS);
+            int timeout = AppConstants.RELAY_HOP_TIMEOUT_MS * child.height();
+            socket.setSoTimeout(timeout);
+            writeFully(channel, ByteBuffer.wrap((header(child) + "\n").getBytes(StandardCharsets.US_ASCII)));
+            while (true) {
+                ByteBuffer chunk = link.queue.poll(timeout, TimeUnit.MILLISECONDS);
+                if (chunk == null) throw new SocketTimeoutException("Üst bağlantıdan veri gelmedi");
+                if (chunk == END) break;
+                if (chunk == ABORT) throw new IOException("Fotoğraf verisi eksik alındı");
+                if (chunk == OVERFLOW) throw new IOException("Alt ekran yetişemiyor, " + AppConstants.RELAY_QUEUE_MAX_BYTES / (1024 * 1024) + " MB kuyruk sınırı aşıldı");
+                int size = chunk.remaining();
+                writeFully(channel, chunk);
+                link.queuedBytes.addAndGet(-size);
+            }
+            socket.shutdownOutput();
+            report = parseReply(child, readLine(socket.getInputStream()));
+            logger.info("Röle: " + child.ip + " -> " + String.join(";", report) + " (" + (System.nanoTime() - start) / 1_000_000 + " ms)");
+        } catch (IOException | InterruptedException e) {
+            logger.warn("Röle: " + child.ip + " alt ekranına iletilemedi - " + e.getMessage());
+            report = failed(child);
+        } finally {
+            link.failed = true; // bundan sonra gelen parçalar kuyruğa eklenmez
+            link.queue.clear();
+        }
+        link.result.complete(report);
+    }
+
+    private String header(Child child) {
+        if (!child.children.isEmpty()) {
+            return AppConstants.COMMAND_RELAY_PHOTO + length + ":" + durationSeconds + ":" + child.childrenSpec() + options;
+        }
+        if (durationSeconds > 0) {
+            return AppConstants.COMMAND_SEND_PHOTO_WITH_TIMER + length + ":" + durationSeconds + options;
+        }
+        return AppConstants.COMMAND_SEND_PHOTO + length + options;
+    }
+
+    /**
+     * Alt ekranın yanıtını "ip=sonuç" kayıtlarına çevirir. Röle yanıtının ilk alanı alt ekranın
+     * kendi sonucudur, kalanlar onun alt ağacından gelir.
+     */
+    private static List<String> parseReply(Child child, String line) {
+        if (line == null) return failed(child);
+        List<String> report = new ArrayList<>();
+        if (line.startsWith(AppConstants.RESPONSE_RELAY_ACK)) {
+            String[] fields = line.substring(AppConstants.RESPONSE_RELAY_ACK.length()).split(";");
+            report.add(child.ip + "=" + fields[0].trim());
+            for (int i = 1; i < fields.length; i++) {
+                if (!fields[i].isBlank()) report.add(fields[i].trim());
+            }
+        } else {
+            report.add(child.ip + "=" + line.trim());
+        }
+        return report;
+    }
+
+    private static List<String> failed(Child child) {
+        List<String> ips = new ArrayList<>();
+        child.collectIps(ips);
+        List<String> report = new ArrayList<>(ips.size());
+        for (String ip : ips) report.add(ip + "=" + AppConstants.RESPONSE_ERROR.trim());
+        return report;
+    }
+
+    private static void writeFully(SocketChannel channel, ByteBuffer buffer) throws IOException {
+        while (buffer.hasRemaining()) channel.write(buffer);
+    }
+
+    private static String readLine(InputStream in) throws IOException {
+        StringBuilder sb = new StringBuilder();
+        int c;
+        while ((c = in.read()) != -1 && c != '\n') {
+            if (c != '\r') sb.append((char) c);
+            if (sb.length() > MAX_REPLY_LENGTH) throw new IOException("Yanıt satırı çok uzun");
+        }
+        return (c == -1 && sb.length() == 0) ? null : sb.toString();
+    }
+}
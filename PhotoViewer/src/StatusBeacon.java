@@ -0,0 +1,166 @@
+/*
+ * Bu yazılım Yusuf Ziyrek'e aittir.
+ * İzinsiz kopyalanamaz, değiştirilemez, dağıtılamaz ve ticari olarak kullanılamaz.
+ * Tüm hakları saklıdır. © 2025 Yusuf Ziyrek
+ */
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.net.DatagramPacket;
+import java.net.DatagramSocket;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.SocketAddress;
+import java.net.SocketTimeoutException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.HexFormat;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * UDP durum yayını. Büyük ekran filolarında her ekrana TCP bağlantısı açıp durum sormak yerine
+ * gönderici, TCP portuyla aynı numaralı UDP portuna seyrek olarak BEACON_HELLO gönderir; ekran bu
+ * adresi BEACON_SUBSCRIBER_TTL_MS boyunca hatırlar ve ona BEACON_INTERVAL_MS'de bir ve durum her
+ * değiştiğinde tek bir küçük datagram yollar. "Durum değişimi" yalnızca Default/Toplantı Var
+ * geçişi değildir: fotoğraf üstüne yeni fotoğraf, süre uzatma ve SHOW_CACHED de hemen yayınlanır
+ * (ReceivePipeline.addDisplayListener).
+ *
+ * Datagram (big-endian): int magic, int sıra no, long çalışma süresi (ms), byte durum
+ * (0 Default, 1 Toplantı Var), int zamanlayıcıda kalan süre (sn, yoksa -1), long kullanılan heap,
+ * long azami heap, short ekran genişliği, short ekran yüksekliği (bilinmiyorsa 0), byte özet
+ * uzunluğu (0 veya 32) ve gösterilen fotoğrafın SHA-256 özeti. Sıra numarası göndericinin kayıp
+ * datagramları saymasını sağlar.
+ *
+ * Tek makinede çok ekranla deneme: gönderici (BeaconMonitor) ekranları IP'ye göre tuttuğundan her
+ * sanal ekran aynı portta ama ayrı bir loopback adresinde çalışmalıdır. Her kopya kendi ayar
+ * klasörüyle (APPDATA veya -Duser.home) başlatılır ve ayarına bindAddress=127.0.0.N yazılır;
+ * gönderici listesine bu adresler eklenir. Linux'ta 127/8'in tamamı kullanılabilir, Windows'ta
+ * da; macOS'ta 127.0.0.2 ve sonrası önce lo0'a alias olarak eklenmelidir.
+ */
+public class StatusBeacon {
+    static final int HASH_BYTES = 32;
+    static final int MAX_DATAGRAM_SIZE = 4 + 4 + 8 + 1 + 4 + 8 + 8 + 2 + 2 + 1 + HASH_BYTES;
+
+    private final DatagramSocket socket;
+    private final PhotoPanel photoPanel;
+    private final ReceivePipeline pipeline;
+    private final AppLogger logger;
+    // Gönderici adresi -> HELLO'nun geçerlilik sonu
+    private final Map<SocketAddress, Long> subscribers = new ConcurrentHashMap<>();
+    private int sequence;
+    private volatile boolean running = true;
+
+    /**
+     * @param bindAddress Dinlenecek adres (null ise tüm arayüzler)
+     */
+    public StatusBeacon(InetAddress bindAddress, int port, PhotoPanel photoPanel, ReceivePipeline pipeline, AppLogger logger) throws IOException {
+        this.socket = new DatagramSocket(new InetSocketAddress(bindAddress, port));
+        this.photoPanel = photoPanel;
+        this.pipeline = pipeline;
+        this.logger = logger;
+        // Gösterim değişimi anında yayınlanır (EDT); UDP gönderimi beklemez
+        pipeline.addDisplayListener(this::broadcast);
+    }
+
+    public void start() {
+        Thread t = new Thread(this::loop, "PhotoViewer-Beacon");
+        t.setDaemon(true);
+        t.start();
+    }
+
+    public void shutdown() {
+        running = false;
+        socket.close();
+    }
+
+    private void loop() {
+        byte[] buffer = new byte[64];
+        long nextBeacon = System.currentTimeMillis();
+        while (running) {
+            try {
+                long wait = nextBeacon - System.currentTimeMillis();
+                if (wait <= 0) {
+                    broadcast();
+                    nextBeacon = System.currentTimeMillis() + AppConstants.BEACON_INTERVAL_MS;
+                    continue;
+                }
+                socket.setSoTimeout((int) wait);
+                DatagramPacket packet = new DatagramPacket(buffer, buffer.length);
+                try {
+                    socket.receive(packet);
+                } catch (SocketTimeoutException e) {
+                    continue;
+                }
+                String text = new String(packet.getData(), 0, packet.getLength(), StandardCharsets.US_ASCII).trim();
+                if (!AppConstants.BEACON_HELLO.equals(text)) continue;
+                SocketAddress sender = packet.getSocketAddress();
+                if (!subscribers.containsKey(sender) && subscribers.size() >= AppConstants.MAX_BEACON_SUBSCRIBERS) {
+                    continue;
+                }
+                boolean isNew = subscribers.put(sender, System.currentTimeMillis() + AppConstants.BEACON_SUBSCRIBER_TTL_MS) == null;
+                if (isNew) {
+                    logger.info("Durum yayını alıcısı eklendi: " + sender);
+                    // İlk datagram beklemeden gider; gönderici ekranı hemen görür
+                    send(sender, snapshot());
+                }
+            } catch (IOException e) {
+                if (running) logger.warn("Durum yayını hatası: " + e.getMessage());
+            }
+        }
+    }
+
+    /**
+     * Güncel durumu tüm geçerli alıcılara gönderir; süresi dolanları listeden çıkarır.
+     */
+    private void broadcast() {
+        if (subscribers.isEmpty()) return;
+        long now = System.currentTimeMillis();
+        byte[] datagram = null;
+        for (Iterator<Map.Entry<SocketAddress, Long>> it = subscribers.entrySet().iterator(); it.hasNext(); ) {
+            Map.Entry<SocketAddress, Long> e = it.next();
+            if (e.getValue() < now) {
+                it.remove();
+                continue;
+            }
+            if (datagram == null) datagram = snapshot();
+            send(e.getKey(), datagram);
+        }
+    }
+
+    private void send(SocketAddress target, byte[] datagram) {
+        try {
+            socket.send(new DatagramPacket(datagram, datagram.length, target));
+        } catch (IOException e) {
+            // UDP: kayıp datagramı gönderici sıra numarasından fark eder
+        }
+    }
+
+    private synchronized byte[] snapshot() {
+        String status = photoPanel.getStatusDetails();
+        boolean custom = !"Default".equals(status);
+        java.awt.Dimension screen = pipeline.screenSize();
+        String hash = custom ? pipeline.currentImageHash() : null;
+        Runtime rt = Runtime.getRuntime();
+
+        ByteBuffer b = ByteBuffer.allocate(MAX_DATAGRAM_SIZE);
+        b.putInt(AppConstants.BEACON_MAGIC);
+        b.putInt(++sequence);
+        b.putLong(ManagementFactory.getRuntimeMXBean().getUptime());
+        b.put((byte) (custom ? 1 : 0));
+        b.putInt((int) Math.min(Integer.MAX_VALUE, photoPanel.getTimerRemainingSeconds()));
+        b.putLong(rt.totalMemory() - rt.freeMemory());
+        b.putLong(rt.maxMemory());
+        b.putShort((short) (screen != null ? screen.width : 0));
+        b.putShort((short) (screen != null ? screen.height : 0));
+        if (hash != null && hash.length() == HASH_BYTES * 2) {
+            b.put((byte) HASH_BYTES);
+            b.put(HexFormat.of().parseHex(hash));
+        } else {
+            b.put((byte) 0);
+        }
+        byte[] out = new byte[b.position()];
+        b.flip().get(out);
+        return out;
+    }
+}
@@ -0,0 +1,56 @@
+/*
+ * Bu yazılım Yusuf Ziyrek'e aittir.
+ * İzinsiz kopyalanamaz, değiştirilemez, dağıtılamaz ve ticari olarak kullanılamaz.
+ * Tüm hakları saklıdır. © 2025 Yusuf Ziyrek
+ */
+
+/**
+ * Fotoğraf değişiminde kullanılacak geçiş efekti ve süresi.
+ * Protokolde SEND_PHOTO ve SEND_PHOTO_WITH_TIMER başlığının sonuna ":<TÜR>:<ms>" olarak eklenir.
+ */
+public final class Transition {
+
+    public enum Kind { NONE, FADE, SLIDE }
+
+    public static final Transition NONE = new Transition(Kind.NONE, 0);
+
+    private final Kind kind;
+    private final int durationMs;
+
+    public Transition(Kind kind, int durationMs) {
+        this.kind = kind;
+        this.durationMs = Math.max(0, Math.min(durationMs, AppConstants.MAX_TRANSITION_MS));
+    }
+
+    /**
+     * Metinden geçiş oluşturur; tanınmayan veya hatalı değerlerde NONE döner.
+     */
+    public static Transition parse(String kind, String durationMs) {
+        if (kind == null || kind.isBlank()) return NONE;
+        try {
+            Kind k = Kind.valueOf(kind.trim().toUpperCase(java.util.Locale.ROOT));
+            int ms = (durationMs == null || durationMs.isBlank())
+                ? AppConstants.DEFAULT_TRANSITION_MS : Integer.parseInt(durationMs.trim());
+            return (k == Kind.NONE || ms <= 0) ? NONE : new Transition(k, ms);
+        } catch (IllegalArgumentException e) {
+            return NONE;
+        }
+    }
+
+    public Kind getKind() {
+        return kind;
+    }
+
+    public int getDurationMs() {
+        return durationMs;
+    }
+
+    public boolean isNone() {
+        return kind == Kind.NONE || durationMs <= 0;
+    }
+
+    @Override
+    public String toString() {
+        return isNone() ? "NONE" : kind + ":" + durationMs + "ms";
+    }
+}
@@ -0,0 +1,177 @@
+/*
+ * Bu yazılım Yusuf Ziyrek'e aittir.
+ * İzinsiz kopyalanamaz, değiştirilemez, dağıtılamaz ve ticari olarak kullanılamaz.
+ * Tüm hakları saklıdır. © 2025 Yusuf Ziyrek
+ */
+import java.awt.*;
+import java.awt.image.BufferedImage;
+
+/**
+ * İki önceden ölçeklenmiş kare (eski ve yeni ekran) arasında soldurma/kaydırma geçişi oynatır.
+ * Kareler panel boyutunda, bir kez ayrılan bir arka tamponda AlphaComposite ile birleştirilir.
+ * İlerleme duvar saatine göre hesaplanır: yavaş donanımda kareler atlanır, geçiş süresi uzamaz.
+ * Kare aralığı ölçülen çizim süresine göre ayarlanır; çok yavaşsa geçiş doğrudan bitirilir.
+ * Aktif çizim modunda render thread'inden de çizildiği için metotlar senkronizedir.
+ */
+public class TransitionEngine {
+    private static final int MIN_FRAME_MS = 16;   // ~60 fps
+    private static final int MAX_FRAME_MS = 100;  // en az ~10 fps
+    private static final int MIN_FRAMES = 4;      // bundan az kare çizilebilecekse geçiş atlanır
+
+    private final Runnable frameRequest;
+    private final AppLogger logger;
+    private final javax.swing.Timer frameTimer;
+
+    // Birleştirme tamponu (boyut değişmedikçe yeniden ayrılmaz)
+    private BufferedImage backBuffer;
+
+    private BufferedImage from;
+    private BufferedImage to;
+    private Color fromColor;
+    private Transition transition = Transition.NONE;
+    private long startNanos;
+    private boolean running;
+
+    // Ölçülen kare süresi (üstel ortalama, ms) ve istatistik
+    private double avgFrameMs = 0;
+    private int framesDrawn;
+
+    /**
+     * @param frameRequest Yeni kare istendiğinde çağrılır (pasif modda repaint, aktif modda requestFrame)
+     */
+    public TransitionEngine(Runnable frameRequest, AppLogger logger) {
+        this.frameRequest = frameRequest;
+        this.logger = logger;
+        this.frameTimer = new javax.swing.Timer(MIN_FRAME_MS, _ -> frameRequest.run());
+        // Birikmiş tetiklemeler birleştirilir; EDT geride kalırsa kare düşer, kuyruk oluşmaz
+        this.frameTimer.setCoalesce(true);
+    }
+
+    /**
+     * Geçişi başlatır. Kareler aynı boyutta, ekranla uyumlu resimler olmalıdır (EDT'den çağrılır).
+     * @param from Eski ekran karesi; null ise fromColor düz renginden geçilir
+     */
+    public synchronized void start(BufferedImage from, Color fromColor, BufferedImage to, Transition transition) {
+        if (transition == null || transition.isNone() || to == null) return;
+        // Önceki ölçümlere göre bu süreye yeterli kare sığmıyorsa geçişi hiç başlatma
+        if (avgFrameMs > 0 && avgFrameMs * MIN_FRAMES > transition.getDurationMs()) {
+            logger.warn("Geçiş atlandı - kare süresi (" + String.format("%.1f", avgFrameMs) + "ms) bu süre için çok yüksek: " + transition);
+            avgFrameMs /= 2; // tek seferlik yavaşlık kalıcı olarak geçişleri kapatmasın
+            return;
+        }
+        this.from = (from != null && from.getWidth() == to.getWidth() && from.getHeight() == to.getHeight()) ? from : null;
+        this.fromColor = (fromColor != null) ? fromColor : Color.BLACK;
+        this.to = to;
+        this.transition = transition;
+        this.startNanos = System.nanoTime();
+        this.framesDrawn = 0;
+        this.running = true;
+        frameTimer.setDelay(frameIntervalMs());
+        frameTimer.start();
+    }
+
+    public synchronized boolean isRunning() {
+        return running;
+    }
+
+    /**
+     * Geçişi hemen bitirir (yeni bir görüntü geldiğinde veya panel temizlendiğinde).
+     */
+    public synchronized void cancel() {
+        if (!running) return;
+        finish();
+    }
+
+    /**
+     * Geçerli geçiş karesini çizer.
+     * @return Daha fazla kare gerekiyorsa true; false ise geçiş bitti ve çağıran son kareyi kendisi çizmeli
+     */
+    public synchronized boolean paint(Graphics2D g2d, int panelWidth, int panelHeight, boolean unscaled) {
+        if (!running) return false;
+        long frameStart = System.nanoTime();
+        double t = (frameStart - startNanos) / 1_000_000.0 / transition.getDurationMs();
+        if (t >= 1.0) {
+            finish();
+            return false;
+        }
+        compose(ease(t));
+        if (unscaled) {
+            g2d.drawImage(backBuffer, 0, 0, null);
+        } else {
+            g2d.drawImage(backBuffer, 0, 0, panelWidth, panelHeight, null);
+        }
+        framesDrawn++;
+
+        double frameMs = (System.nanoTime() - frameStart) / 1_000_000.0;
+        avgFrameMs = (avgFrameMs == 0) ? frameMs : avgFrameMs * 0.8 + frameMs * 0.2;
+        if (avgFrameMs * MIN_FRAMES > transition.getDurationMs()) {
+            // Donanım bu geçişe yetişemiyor: EDT'yi meşgul etmek yerine son kareye atla
+            logger.warn("Geçiş yarıda bitirildi - kare süresi: " + String.format("%.1f", avgFrameMs) + "ms");
+            finish();
+            return false;
+        }
+        frameTimer.setDelay(frameIntervalMs());
+        return true;
+    }
+
+    private void compose(float t) {
+        int w = to.getWidth();
+        int h = to.getHeight();
+        if (backBuffer == null || backBuffer.getWidth() != w || backBuffer.getHeight() != h) {
+            if (backBuffer != null) backBuffer.flush();
+            GraphicsConfiguration gc = GraphicsEnvironment.isHeadless() ? null
+                : GraphicsEnvironment.getLocalGraphicsEnvironment().getDefaultScreenDevice().getDefaultConfiguration();
+            backBuffer = (gc != null) ? gc.createCompatibleImage(w, h, Transparency.OPAQUE)
+                                      : new BufferedImage(w, h, BufferedImage.TYPE_INT_RGB);
+        }
+        Graphics2D g = backBuffer.createGraphics();
+        try {
+            switch (transition.getKind()) {
+                case SLIDE: {
+                    // Yeni kare sağdan gelir, eskisini sola iter
+                    int offset = Math.round(w * t);
+                    drawFrom(g, -offset, w, h);
+                    g.drawImage(to, w - offset, 0, null);
+                    break;
+                }
+                case FADE:
+                default:
+                    drawFrom(g, 0, w, h);
+                    g.setComposite(AlphaComposite.getInstance(AlphaComposite.SRC_OVER, t));
+                    g.drawImage(to, 0, 0, null);
+                    break;
+            }
+        } finally {
+            g.dispose();
+        }
+    }
+
+    private void drawFrom(Graphics2D g, int x, int w, int h) {
+        if (from != null) {
+            g.drawImage(from, x, 0, null);
+        } else {
+            g.setColor(fromColor);
+            g.fillRect(x, 0, w, h);
+        }
+    }
+
+    private int frameIntervalMs() {
+        // Ölçülen çizim süresinin iki katı: EDT'nin yarısı diğer işlere kalır
+        return (int) Math.max(MIN_FRAME_MS, Math.min(MAX_FRAME_MS, Math.ceil(avgFrameMs * 2)));
+    }
+
+    private void finish() {
+        running = false;
+        frameTimer.stop();
+        logger.info("Geçiş tamamlandı: " + transition + " - " + framesDrawn + " kare, ort " +
+                    String.format("%.1f", avgFrameMs) + "ms/kare");
+        from = null;
+        to = null;
+        frameRequest.run();
+    }
+
+    // Yumuşak başlangıç/bitiş (smoothstep)
+    private static float ease(double t) {
+        return (float) (t * t * (3 - 2 * t));
+    }
+}
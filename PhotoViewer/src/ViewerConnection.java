@@ -0,0 +1,319 @@
+/*
+ * Bu yazılım Yusuf Ziyrek'e aittir.
+ * İzinsiz kopyalanamaz, değiştirilemez, dağıtılamaz ve ticari olarak kullanılamaz.
+ * Tüm hakları saklıdır. © 2025 Yusuf Ziyrek
+ */
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.SocketChannel;
+import java.nio.charset.StandardCharsets;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+
+/**
+ * ViewerProtocolEngine tarafından yönetilen tek bir istemci bağlantısı.
+ * Okuma tarafı yalnızca selector thread'inde çalışır; send/close metodları her thread'den çağrılabilir.
+ */
+public class ViewerConnection {
+
+    /**
+     * Komut satırından sonra gelen ham veriyi alan hedef (ör. fotoğraf tamponu).
+     * write çağrısı verilen tampondaki tüm baytları tüketmelidir; pauseReading çağırdıysa
+     * tüketmediği baytlar okuma sürdüğünde yeniden verilir.
+     */
+    public interface PayloadSink {
+        void write(ByteBuffer src) throws IOException;
+    }
+
+    /**
+     * Veri tamamlandığında (complete=true) veya bağlantı erken koptuğunda (complete=false) çağrılır.
+     * Selector thread'inde çalışır; uzun işler başka bir thread'e devredilmelidir.
+     */
+    public interface PayloadListener {
+        void onPayload(ViewerConnection connection, boolean complete);
+    }
+
+    enum State { LINE, PAYLOAD, SESSION, CLOSED }
+
+    // Oturum çerçevesi başlığı: [int uzunluk][int istek no]
+    static final int FRAME_HEADER_SIZE = 8;
+
+    private final ViewerProtocolEngine engine;
+    private final SocketChannel channel;
+    private final String remoteAddress;
+    final ByteBuffer readBuffer = ByteBuffer.allocateDirect(AppConstants.NIO_READ_BUFFER_SIZE);
+    private final byte[] lineScratch = new byte[AppConstants.MAX_COMMAND_LINE_LENGTH];
+    private final Queue<ByteBuffer> outQueue = new ConcurrentLinkedQueue<>();
+
+    SelectionKey key;
+    State state = State.LINE;
+    long lastActivity = System.currentTimeMillis();
+
+    // Veri alma durumu (selector thread'i)
+    private PayloadSink sink;
+    private PayloadListener listener;
+    private long payloadRemaining; // < 0 ise bağlantı kapanana kadar okunur
+    private boolean readPaused; // sink yavaş bir işi (ör. disk yazımı) bitirene kadar okunmaz
+
+    // Yanıt bekleyen bağlantılar zaman aşımına uğratılmaz ve EOF'ta kapatılmaz
+    private volatile boolean busy = false;
+    private volatile boolean closeAfterFlush = false;
+    // Durum değişikliklerini dinleyen oturum; boşta kalması beklenir, zaman aşımına uğratılmaz
+    private volatile boolean subscribed = false;
+
+    ViewerConnection(ViewerProtocolEngine engine, SocketChannel channel, String remoteAddress) {
+        this.engine = engine;
+        this.channel = channel;
+        this.remoteAddress = remoteAddress;
+    }
+
+    public String getRemoteAddress() {
+        return remoteAddress;
+    }
+
+    // Handler API ------------------------------------------------------------
+
+    /**
+     * Komut satırını izleyen {@code length} baytı sink'e aktarır. Yalnızca onCommand içinden çağrılmalıdır.
+     * @param length Beklenen bayt sayısı; 0'dan küçükse bağlantı kapanana kadar okunur
+     */
+    public void receivePayload(long length, PayloadSink sink, PayloadListener listener) {
+        this.sink = sink;
+        this.listener = listener;
+        this.payloadRemaining = length;
+        this.busy = true;
+        this.state = State.PAYLOAD;
+        if (length == 0) {
+            finishPayload(true);
+        }
+    }
+
+    /**
+     * resumeReading çağrılana kadar soketten okumayı ve tamponda bekleyen baytları işlemeyi durdurur.
+     * Yalnızca selector thread'inde (ör. PayloadSink.write içinden) çağrılmalıdır.
+     */
+    public void pauseReading() {
+        readPaused = true;
+        key.interestOps(key.interestOps() & ~SelectionKey.OP_READ);
+    }
+
+    /**
+     * pauseReading ile durdurulan okumayı sürdürür; her thread'den çağrılabilir.
+     */
+    public void resumeReading() {
+        engine.requestResume(this);
+    }
+
+    /**
+     * Bağlantıyı kalıcı oturum moduna geçirir: bundan sonra satır yerine uzunluk önekli,
+     * istek numaralı çerçeveler okunur (CommandHandler.onRequest). Yalnızca onCommand içinden çağrılmalıdır.
+     */
+    public void enterSession() {
+        state = State.SESSION;
+    }
+
+    public boolean isSession() {
+        return state == State.SESSION;
+    }
+
+    /**
+     * Oturumu durum bildirimlerine abone yapar. Abone oturumlar boşta kapatılmaz; kopan karşı taraf
+     * TCP keep-alive ile fark edilir.
+     */
+    public void subscribe() {
+        subscribed = true;
+        try {
+            channel.setOption(java.net.StandardSocketOptions.SO_KEEPALIVE, true);
+        } catch (IOException ignored) {
+            // keep-alive olmadan da çalışır; ölü bağlantı ilk bildirimde kapanır
+        }
+    }
+
+    public boolean isSubscribed() {
+        return subscribed;
+    }
+
+    /**
+     * Bağlantı kapanmadı ve kapatılması istenmedi.
+     */
+    public boolean isOpen() {
+        return state != State.CLOSED && !closeAfterFlush;
+    }
+
+    /**
+     * Oturum yanıtı gönderir; yanıtlar istek sırasından bağımsız olarak gidebilir.
+     * Birden fazla thread aynı anda çağırabilir, çerçeveler birbirine karışmaz.
+     */
+    public void sendFrame(int requestId, ByteBuffer... body) {
+        int length = 0;
+        for (ByteBuffer b : body) length += b.remaining();
+        ByteBuffer header = ByteBuffer.allocate(FRAME_HEADER_SIZE).putInt(length).putInt(requestId).flip();
+        synchronized (outQueue) {
+            outQueue.add(header);
+            for (ByteBuffer b : body) outQueue.add(b);
+        }
+        engine.requestFlush(this);
+    }
+
+    /**
+     * Yanıt başka bir thread'de hazırlanacaksa bağlantıyı açık tutar.
+     */
+    public void markBusy() {
+        busy = true;
+    }
+
+    public void send(String line) {
+        send(ByteBuffer.wrap(line.getBytes(StandardCharsets.UTF_8)));
+    }
+
+    public void send(ByteBuffer... buffers) {
+        for (ByteBuffer b : buffers) outQueue.add(b);
+        engine.requestFlush(this);
+    }
+
+    public void sendAndClose(String line) {
+        sendAndClose(ByteBuffer.wrap(line.getBytes(StandardCharsets.UTF_8)));
+    }
+
+    public void sendAndClose(ByteBuffer... buffers) {
+        for (ByteBuffer b : buffers) outQueue.add(b);
+        close();
+    }
+
+    /**
+     * Bekleyen yanıtlar gönderildikten sonra bağlantıyı kapatır.
+     */
+    public void close() {
+        busy = false;
+        closeAfterFlush = true;
+        engine.requestFlush(this);
+    }
+
+    // Engine tarafı (selector thread'i) ---------------------------------------
+
+    SocketChannel channel() {
+        return channel;
+    }
+
+    boolean isBusy() {
+        return busy;
+    }
+
+    /**
+     * Durdurulmuş okumayı sürdürür (selector thread'i); readBuffer'da kalan baytlar ayrıca işlenmelidir.
+     */
+    void onResume() {
+        readPaused = false;
+        key.interestOps(key.interestOps() | SelectionKey.OP_READ);
+    }
+
+    boolean isCloseRequested() {
+        return closeAfterFlush;
+    }
+
+    /**
+     * readBuffer'daki (flip edilmiş) baytları işler: satır modunda komut ayrıştırır,
+     * veri modunda baytları doğrudan sink'e aktarır.
+     */
+    void process(ViewerProtocolEngine.CommandHandler handler) throws IOException {
+        while (readBuffer.hasRemaining() && state != State.CLOSED && !closeAfterFlush && !readPaused) {
+            if (state == State.PAYLOAD) {
+                int available = readBuffer.remaining();
+                int chunk = payloadRemaining < 0 ? available : (int) Math.min(available, payloadRemaining);
+                int originalLimit = readBuffer.limit();
+                int start = readBuffer.position();
+                readBuffer.limit(start + chunk);
+                sink.write(readBuffer);
+                readBuffer.limit(originalLimit);
+                if (payloadRemaining > 0) {
+                    // Okumayı durduran sink tamponun hepsini tüketmemiş olabilir
+                    payloadRemaining -= readBuffer.position() - start;
+                    if (payloadRemaining == 0) finishPayload(true);
+                }
+            } else if (state == State.SESSION) {
+                if (readBuffer.remaining() < FRAME_HEADER_SIZE) return;
+                int start = readBuffer.position();
+                int length = readBuffer.getInt(start);
+                int requestId = readBuffer.getInt(start + 4);
+                if (length < 0 || length > lineScratch.length) {
+                    throw new IOException("Geçersiz oturum çerçevesi: " + length + " bayt (" + remoteAddress + ")");
+                }
+                // Çerçeve tamamlanmadı; bir sonraki okumayı bekle
+                if (readBuffer.remaining() < FRAME_HEADER_SIZE + length) return;
+                readBuffer.get(start + FRAME_HEADER_SIZE, lineScratch, 0, length);
+                readBuffer.position(start + FRAME_HEADER_SIZE + length);
+                handler.onRequest(this, requestId, new String(lineScratch, 0, length, StandardCharsets.US_ASCII));
+            } else {
+                String line = nextLine();
+                if (line == null) {
+                    // Satır henüz tamamlanmadı; bir sonraki okumayı bekle
+                    return;
+                }
+                handler.onCommand(this, line);
+            }
+        }
+    }
+
+    /**
+     * Karşı taraf yazmayı bitirdi (EOF).
+     * @return true ise bağlantı hemen kapatılabilir
+     */
+    boolean onEndOfStream() {
+        if (state == State.PAYLOAD) {
+            // Uzunluğu bilinmeyen eski protokolde EOF verinin sonudur
+            finishPayload(payloadRemaining < 0);
+        }
+        return !busy && outQueue.isEmpty();
+    }
+
+    /**
+     * Kuyruktaki yanıtları yazar.
+     * @return true ise kuyruk boşaldı
+     */
+    boolean flush() throws IOException {
+        ByteBuffer head;
+        while ((head = outQueue.peek()) != null) {
+            channel.write(head);
+            if (head.hasRemaining()) return false;
+            outQueue.poll();
+        }
+        return true;
+    }
+
+    void markClosed() {
+        if (state == State.PAYLOAD) {
+            finishPayload(false);
+        }
+        state = State.CLOSED;
+    }
+
+    // Komut satırını doğrudan direct buffer'dan ayrıştır (\n veya \r\n ile biter)
+    private String nextLine() throws IOException {
+        int start = readBuffer.position();
+        int limit = readBuffer.limit();
+        for (int i = start; i < limit; i++) {
+            if (readBuffer.get(i) == '\n') {
+                int end = i;
+                if (end > start && readBuffer.get(end - 1) == '\r') end--;
+                int len = end - start;
+                if (len > lineScratch.length) break;
+                readBuffer.get(start, lineScratch, 0, len);
+                readBuffer.position(i + 1);
+                return new String(lineScratch, 0, len, StandardCharsets.US_ASCII);
+            }
+        }
+        if (limit - start > lineScratch.length) {
+            throw new IOException("Komut satırı çok uzun (" + remoteAddress + ")");
+        }
+        return null;
+    }
+
+    private void finishPayload(boolean complete) {
+        PayloadListener l = listener;
+        sink = null;
+        listener = null;
+        state = State.LINE;
+        if (l != null) l.onPayload(this, complete);
+    }
+}
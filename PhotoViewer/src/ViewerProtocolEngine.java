@@ -0,0 +1,233 @@
+/*
+ * Bu yazılım Yusuf Ziyrek'e aittir.
+ * İzinsiz kopyalanamaz, değiştirilemez, dağıtılamaz ve ticari olarak kullanılamaz.
+ * Tüm hakları saklıdır. © 2025 Yusuf Ziyrek
+ */
+import java.io.IOException;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.Selector;
+import java.nio.channels.ServerSocketChannel;
+import java.nio.channels.SocketChannel;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Queue;
+import java.util.Set;
+import java.util.concurrent.ConcurrentLinkedQueue;
+
+/**
+ * Port 5000 için bloklamayan (Selector + ByteBuffer) protokol motoru.
+ * Tek bir thread yüzlerce boşta/yavaş bağlantıya hizmet eder; komut satırı doğrudan
+ * direct buffer'dan ayrıştırılır ve fotoğraf verisi toplu olarak alıcı tampona aktarılır.
+ */
+public class ViewerProtocolEngine {
+
+    /**
+     * Tamamlanan her komut satırı için selector thread'inde çağrılır.
+     */
+    public interface CommandHandler {
+        void onCommand(ViewerConnection connection, String command);
+
+        /**
+         * Kalıcı oturumdaki her istek çerçevesi için selector thread'inde çağrılır;
+         * yanıt aynı istek numarasıyla ViewerConnection.sendFrame ile gönderilir.
+         */
+        void onRequest(ViewerConnection connection, int requestId, String command);
+    }
+
+    private static final long SELECT_TIMEOUT_MS = 1000;
+
+    private final InetAddress bindAddress;
+    private final int port;
+    private final CommandHandler handler;
+    private final AppLogger logger;
+    private final Selector selector;
+    private final Set<ViewerConnection> connections = new HashSet<>();
+    private final Queue<ViewerConnection> pendingFlushes = new ConcurrentLinkedQueue<>();
+    private final Queue<ViewerConnection> pendingResumes = new ConcurrentLinkedQueue<>();
+    private volatile boolean running = true;
+
+    /**
+     * @param bindAddress Dinlenecek adres (null ise tüm arayüzler)
+     */
+    public ViewerProtocolEngine(InetAddress bindAddress, int port, CommandHandler handler, AppLogger logger) throws IOException {
+        this.bindAddress = bindAddress;
+        this.port = port;
+        this.handler = handler;
+        this.logger = logger;
+        this.selector = Selector.open();
+    }
+
+    /**
+     * Dinlemeye başlar ve durdurulana kadar çağıran thread'de çalışır.
+     */
+    public void run() throws IOException {
+        try (ServerSocketChannel server = ServerSocketChannel.open()) {
+            server.bind(new InetSocketAddress(bindAddress, port));
+            server.configureBlocking(false);
+            server.register(selector, SelectionKey.OP_ACCEPT);
+            logger.success("Sunucu başarıyla başlatıldı - Port: " + port);
+            System.out.println("Sunucu dinleniyor: " + port);
+
+            while (running) {
+                selector.select(SELECT_TIMEOUT_MS);
+                applyPendingFlushes();
+                applyPendingResumes();
+
+                Iterator<SelectionKey> it = selector.selectedKeys().iterator();
+                while (it.hasNext()) {
+                    SelectionKey key = it.next();
+                    it.remove();
+                    if (!key.isValid()) continue;
+                    if (key.isAcceptable()) {
+                        accept(server);
+                        continue;
+                    }
+                    ViewerConnection conn = (ViewerConnection) key.attachment();
+                    try {
+                        if (key.isReadable()) read(conn);
+                        if (key.isValid() && key.isWritable()) write(conn);
+                    } catch (IOException e) {
+                        logger.warn("Bağlantı hatası (" + conn.getRemoteAddress() + "): " + e.getMessage());
+                        closeConnection(conn);
+                    }
+                }
+                expireIdleConnections();
+            }
+        } finally {
+            for (ViewerConnection conn : new ArrayList<>(connections)) closeConnection(conn);
+            selector.close();
+        }
+    }
+
+    public void stop() {
+        running = false;
+        selector.wakeup();
+    }
+
+    /**
+     * Bağlantının çıkış kuyruğunu selector thread'inde boşaltılmak üzere işaretler.
+     */
+    void requestFlush(ViewerConnection conn) {
+        pendingFlushes.add(conn);
+        selector.wakeup();
+    }
+
+    /**
+     * Durdurulmuş okumanın selector thread'inde sürdürülmesini ister.
+     */
+    void requestResume(ViewerConnection conn) {
+        pendingResumes.add(conn);
+        selector.wakeup();
+    }
+
+    private void accept(ServerSocketChannel server) throws IOException {
+        SocketChannel channel;
+        while ((channel = server.accept()) != null) {
+            channel.configureBlocking(false);
+            channel.socket().setTcpNoDelay(true);
+            String clientIP = ((InetSocketAddress) channel.getRemoteAddress()).getAddress().getHostAddress();
+            ViewerConnection conn = new ViewerConnection(this, channel, clientIP);
+            conn.key = channel.register(selector, SelectionKey.OP_READ, conn);
+            connections.add(conn);
+            logger.info("Yeni bağlantı alındı: " + clientIP);
+        }
+    }
+
+    private void read(ViewerConnection conn) throws IOException {
+        int n = conn.channel().read(conn.readBuffer);
+        if (n < 0) {
+            // Karşı taraf çıkışı kapattı; bekleyen yanıt varsa sadece okumayı bırak
+            if (conn.onEndOfStream() || conn.isCloseRequested()) {
+                closeConnection(conn);
+            } else {
+                conn.key.interestOps(conn.key.interestOps() & ~SelectionKey.OP_READ);
+            }
+            return;
+        }
+        conn.lastActivity = System.currentTimeMillis();
+        processBuffered(conn);
+    }
+
+    private void processBuffered(ViewerConnection conn) throws IOException {
+        conn.readBuffer.flip();
+        try {
+            conn.process(handler);
+        } finally {
+            conn.readBuffer.compact();
+        }
+    }
+
+    private void write(ViewerConnection conn) throws IOException {
+        if (conn.flush()) {
+            if (conn.isCloseRequested()) {
+                closeConnection(conn);
+            } else {
+                conn.key.interestOps(conn.key.interestOps() & ~SelectionKey.OP_WRITE);
+            }
+        }
+    }
+
+    private void applyPendingFlushes() {
+        ViewerConnection conn;
+        while ((conn = pendingFlushes.poll()) != null) {
+            if (conn.key == null || !conn.key.isValid()) continue;
+            try {
+                // Önce doğrudan yazmayı dene; soket tamponu doluysa OP_WRITE bekle
+                if (conn.flush()) {
+                    if (conn.isCloseRequested()) closeConnection(conn);
+                } else {
+                    conn.key.interestOps(conn.key.interestOps() | SelectionKey.OP_WRITE);
+                }
+            } catch (IOException e) {
+                logger.warn("Yanıt yazılamadı (" + conn.getRemoteAddress() + "): " + e.getMessage());
+                closeConnection(conn);
+            }
+        }
+    }
+
+    private void applyPendingResumes() {
+        ViewerConnection conn;
+        while ((conn = pendingResumes.poll()) != null) {
+            if (conn.key == null || !conn.key.isValid()) continue;
+            try {
+                conn.onResume();
+                // Durdurulmadan önce okunmuş baytlar için yeni okuma olayı gelmeyebilir
+                processBuffered(conn);
+            } catch (IOException e) {
+                logger.warn("Bağlantı hatası (" + conn.getRemoteAddress() + "): " + e.getMessage());
+                closeConnection(conn);
+            }
+        }
+    }
+
+    private void expireIdleConnections() {
+        long now = System.currentTimeMillis();
+        List<ViewerConnection> expired = new ArrayList<>();
+        for (ViewerConnection conn : connections) {
+            // Oturumlar gönderici ping'leriyle canlı tutulur; daha uzun süre beklenir.
+            // Durum aboneleri bildirim beklerken boştadır, kapatılmaz
+            if (conn.isSubscribed()) continue;
+            long timeout = conn.isSession() ? AppConstants.SESSION_IDLE_TIMEOUT_MS : AppConstants.SOCKET_TIMEOUT_MS;
+            if (!conn.isBusy() && now - conn.lastActivity > timeout) {
+                expired.add(conn);
+            }
+        }
+        for (ViewerConnection conn : expired) {
+            logger.warn("Bağlantı zaman aşımı: " + conn.getRemoteAddress());
+            closeConnection(conn);
+        }
+    }
+
+    private void closeConnection(ViewerConnection conn) {
+        if (!connections.remove(conn)) return;
+        conn.markClosed();
+        if (conn.key != null) conn.key.cancel();
+        try {
+            conn.channel().close();
+        } catch (IOException ignored) {}
+    }
+}